@@ -1,8 +1,27 @@
 package app;
 
+import executor.BoxedOperandStack;
+import executor.Cancellation;
+import executor.Engine;
+import executor.Fuel;
 import executor.Interpreter;
+import executor.PrimitiveOperandStack;
+import executor.bytecode.VirtualMachine;
+import executor.closure.ClosureEngine;
+import executor.ir.GlobalBlock;
+import executor.jvm.JvmEngine;
+import executor.memo.MemoMetrics;
+import executor.memo.Memoizer;
+import executor.tiered.TierMetrics;
+import executor.tiered.TierThresholds;
+import executor.tiered.TieredCompiler;
+import executor.tracing.LoopTracer;
+import executor.tracing.TraceMetrics;
 import executor.exceptions.RuntimeException;
 import lexer.Tokenizer;
+import optimizer.OptimizationLevel;
+import optimizer.PassManager;
+import optimizer.PassStatistics;
 import lexer.exception.LexerException;
 import parser.Parser;
 import parser.exception.SyntaxException;
@@ -13,14 +32,84 @@ import source_loader.exception.SourceException;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 
 public class StartApplication {
+
+    private static final String ENGINE_OPTION = "--engine=";
+    private static final String TIER_INVOCATIONS_OPTION = "--tier-invocations=";
+    private static final String TIER_BACK_EDGES_OPTION = "--tier-backedges=";
+    private static final String FUEL_OPTION = "--fuel=";
+    private static final String TIMEOUT_OPTION = "--timeout=";
+    private static final String MAX_DEPTH_OPTION = "--max-depth=";
+    private static final String MEMO_CAPACITY_OPTION = "--memo-capacity=";
+    private static final String OPTIMIZATION_LEVEL_OPTION = "-O";
+    private static final String PASSES_OPTION = "--passes=";
+
     public static void main(String[] args) throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
 
         String filePath = "";
-
-        if (args.length > 0)
-            filePath = args[0];
+        String engine = "tree";
+        boolean unboxed = false;
+        boolean tiered = false;
+        boolean tierStats = false;
+        boolean trace = false;
+        boolean traceStats = false;
+        int tierInvocations = TierThresholds.DEFAULT.invocations();
+        int tierBackEdges = TierThresholds.DEFAULT.backEdges();
+        long fuel = Fuel.UNMETERED;
+        long timeoutMillis = 0;
+        int maxDepth = 0;
+        boolean memoize = false;
+        boolean memoStats = false;
+        int memoCapacity = Memoizer.DEFAULT_CAPACITY;
+        String optimizationLevel = null;
+        List<String> passes = null;
+        boolean optStats = false;
+        boolean verify = true;
+
+        for (var arg : args) {
+            if (arg.equals("--unboxed"))
+                unboxed = true;
+            else if (arg.equals("--tiered"))
+                tiered = true;
+            else if (arg.equals("--tier-stats"))
+                tierStats = true;
+            else if (arg.equals("--trace"))
+                trace = true;
+            else if (arg.equals("--trace-stats"))
+                traceStats = true;
+            else if (arg.equals("--memoize"))
+                memoize = true;
+            else if (arg.equals("--memo-stats"))
+                memoStats = true;
+            else if (arg.equals("--opt-stats"))
+                optStats = true;
+            else if (arg.equals("--no-verify"))
+                verify = false;
+            else if (arg.startsWith(OPTIMIZATION_LEVEL_OPTION))
+                optimizationLevel = arg.substring(OPTIMIZATION_LEVEL_OPTION.length());
+            else if (arg.startsWith(PASSES_OPTION))
+                passes = arg.length() == PASSES_OPTION.length() ? List.of() : Arrays.asList(arg.substring(PASSES_OPTION.length()).split(","));
+            else if (arg.startsWith(MEMO_CAPACITY_OPTION))
+                memoCapacity = Integer.parseInt(arg.substring(MEMO_CAPACITY_OPTION.length()));
+            else if (arg.startsWith(TIER_INVOCATIONS_OPTION))
+                tierInvocations = Integer.parseInt(arg.substring(TIER_INVOCATIONS_OPTION.length()));
+            else if (arg.startsWith(TIER_BACK_EDGES_OPTION))
+                tierBackEdges = Integer.parseInt(arg.substring(TIER_BACK_EDGES_OPTION.length()));
+            else if (arg.startsWith(FUEL_OPTION))
+                fuel = Long.parseLong(arg.substring(FUEL_OPTION.length()));
+            else if (arg.startsWith(TIMEOUT_OPTION))
+                timeoutMillis = Long.parseLong(arg.substring(TIMEOUT_OPTION.length()));
+            else if (arg.startsWith(MAX_DEPTH_OPTION))
+                maxDepth = Integer.parseInt(arg.substring(MAX_DEPTH_OPTION.length()));
+            else if (arg.startsWith(ENGINE_OPTION))
+                engine = arg.substring(ENGINE_OPTION.length());
+            else if (filePath.isEmpty())
+                filePath = arg;
+        }
 
         FileSource source = new FileSource(filePath);
         try {
@@ -29,12 +118,37 @@ public class StartApplication {
             var parser = new Parser(tokenizer);
             var program = parser.parse();
             var semCheck = new SemCheck(program);
-            var interpreter = new Interpreter(semCheck.check());
-            interpreter.runNoisy();
+            var irTree = semCheck.check();
+            var level = optimizationLevel != null ? OptimizationLevel.of(optimizationLevel) : OptimizationLevel.DEFAULT;
+            var passManager = new PassManager(passes != null ? passes : level.getPasses(), verify);
+            passManager.run(irTree);
+            if (optStats) {
+                Printer.printPassStatistics(passManager.statistics());
+            }
+            var tieredCompiler = tiered ? new TieredCompiler(irTree, new TierThresholds(tierInvocations, tierBackEdges)) : null;
+            var loopTracer = trace ? new LoopTracer(irTree) : null;
+            var memoizer = memoize ? new Memoizer(memoCapacity) : null;
+            var engineInstance = createEngine(engine, unboxed, tieredCompiler, loopTracer, fuel, maxDepth, memoizer, irTree);
+            if (timeoutMillis > 0) {
+                try (var cancellation = Cancellation.withDeadline(Duration.ofMillis(timeoutMillis))) {
+                    engineInstance.runNoisy(cancellation);
+                }
+            } else {
+                engineInstance.runNoisy();
+            }
+            if (tieredCompiler != null && tierStats) {
+                Printer.printTierMetrics(tieredCompiler.metrics());
+            }
+            if (loopTracer != null && traceStats) {
+                Printer.printTraceMetrics(loopTracer.metrics());
+            }
+            if (memoizer != null && memoStats) {
+                Printer.printMemoMetrics(memoizer.metrics());
+            }
         } catch (FileNotFoundException ex) {
             Printer.printErrorMessage("Given file could not be found");
             return;
-        } catch (SemCheckException | RuntimeException ex) {
+        } catch (SemCheckException | RuntimeException | IllegalArgumentException ex) {
             Printer.printErrorMessage(ex.getMessage());
             return;
         } catch (LexerException ex) {
@@ -51,6 +165,26 @@ public class StartApplication {
         Printer.printMessage("DONE");
     }
 
+    private static Engine createEngine(String engine, boolean unboxed, TieredCompiler tieredCompiler, LoopTracer loopTracer, long fuel, int maxDepth,
+                                       Memoizer memoizer, GlobalBlock program) throws RuntimeException {
+        if (fuel != Fuel.UNMETERED && !engine.equals("tree") && !engine.equals("closure")) {
+            throw new RuntimeException(String.format("Engine %s does not support fuel metering", engine));
+        }
+        if (maxDepth > 0 && !engine.equals("bytecode")) {
+            throw new RuntimeException(String.format("Engine %s does not support a custom call depth", engine));
+        }
+        if (memoizer != null && !engine.equals("tree")) {
+            throw new RuntimeException(String.format("Engine %s does not support memoization", engine));
+        }
+        return switch (engine) {
+            case "tree" -> new Interpreter(program, unboxed ? new PrimitiveOperandStack() : new BoxedOperandStack(), tieredCompiler, loopTracer, fuel, memoizer);
+            case "bytecode" -> maxDepth > 0 ? new VirtualMachine(program, maxDepth) : new VirtualMachine(program);
+            case "jvm" -> new JvmEngine(program);
+            case "closure" -> new ClosureEngine(program, fuel);
+            default -> throw new RuntimeException(String.format("Unknown engine: %s", engine));
+        };
+    }
+
     static class Printer {
 
         private Printer() {}
@@ -69,6 +203,32 @@ public class StartApplication {
             System.out.println(ANSI_GREEN + message + ANSI_RESET);
         }
 
+        private static void printTierMetrics(TierMetrics metrics) {
+            System.err.printf("Tiers: queued %d, compiled %d, failed %d, pending %d, compiled calls %d, compile time %d ms%n",
+                    metrics.queued(), metrics.compiled(), metrics.failed(), metrics.pending(),
+                    metrics.compiledCalls(), metrics.compileTimeNanos() / 1_000_000);
+        }
+
+        private static void printTraceMetrics(TraceMetrics metrics) {
+            System.err.printf("Traces: recorded %d, compiled %d, aborted %d, entries %d, side exits %d, compile time %d ms%n",
+                    metrics.recorded(), metrics.compiled(), metrics.aborted(), metrics.entries(), metrics.sideExits(),
+                    metrics.compileTimeNanos() / 1_000_000);
+        }
+
+        private static void printPassStatistics(List<PassStatistics> statistics) {
+            for (var pass : statistics) {
+                System.err.printf("Pass %s: %d changes, %d us%n", pass.pass(), pass.changes(), pass.timeNanos() / 1_000);
+            }
+        }
+
+        private static void printMemoMetrics(MemoMetrics metrics) {
+            System.err.printf("Memo: hits %d, misses %d%n", metrics.hits(), metrics.misses());
+            for (var function : metrics.functions()) {
+                System.err.printf("  %s: hits %d, misses %d, entries %d%n",
+                        function.name(), function.hits(), function.misses(), function.entries());
+            }
+        }
+
         private static void printLexerException(LexerException exception) {
             String message = exception.getMessage() + String.format(" at (L: %d, C: %d)", exception.getLine(), exception.getLine());
             System.err.println(ANSI_RED + ERROR_PREFIX + message + ANSI_RESET);
@@ -0,0 +1,162 @@
+package executor;
+
+import executor.ir.*;
+
+import java.util.Arrays;
+
+public class BoxedOperandStack implements OperandStack {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private ExecutorObject[] values = new ExecutorObject[INITIAL_CAPACITY];
+    private int size = 0;
+
+    @Override
+    public void pushInt(int value) {
+        push(IntegerObject.of(value));
+    }
+
+    @Override
+    public int popInt() {
+        return ((IntegerObject) values[--size]).getValue();
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        push(DoubleObject.of(value));
+    }
+
+    @Override
+    public double popDouble() {
+        return ((DoubleObject) values[--size]).getValue();
+    }
+
+    @Override
+    public void pushBool(boolean value) {
+        push(BooleanObject.of(value));
+    }
+
+    @Override
+    public boolean popBool() {
+        return ((BooleanObject) values[--size]).isValue();
+    }
+
+    @Override
+    public void pushString(String value) {
+        push(StringObject.of(value));
+    }
+
+    @Override
+    public String popString() {
+        return ((StringObject) values[--size]).getValue();
+    }
+
+    @Override
+    public void pushNull() {
+        push(NullObject.NULL);
+    }
+
+    @Override
+    public void pushValue(ExecutorObject value) {
+        push(value);
+    }
+
+    @Override
+    public ExecutorObject popValue() {
+        return values[--size];
+    }
+
+    @Override
+    public ExecutorObject valueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int intAt(int index) {
+        return ((IntegerObject) values[index]).getValue();
+    }
+
+    @Override
+    public ValueKind peekKind(int depth) {
+        var value = values[size - 1 - depth];
+        if (value instanceof IntegerObject) {
+            return ValueKind.INT;
+        } else if (value instanceof DoubleObject) {
+            return ValueKind.DOUBLE;
+        } else if (value instanceof BooleanObject) {
+            return ValueKind.BOOL;
+        } else if (value instanceof StringObject) {
+            return ValueKind.STRING;
+        }
+        return ValueKind.NULL;
+    }
+
+    @Override
+    public void drop() {
+        size--;
+    }
+
+    @Override
+    public void coalesceNull() {
+        size--;
+        if (values[size - 1] instanceof NullObject) {
+            values[size - 1] = values[size];
+        }
+    }
+
+    @Override
+    public void load(int index) {
+        push(values[index]);
+    }
+
+    @Override
+    public void store(int index) {
+        values[index] = values[--size];
+    }
+
+    @Override
+    public void copyTo(int index) {
+        values[index] = values[size - 1];
+    }
+
+    @Override
+    public void moveTop(int index) {
+        values[index] = values[size - 1];
+        size = index + 1;
+    }
+
+    @Override
+    public void moveTop(int index, int count) {
+        System.arraycopy(values, size - count, values, index, count);
+        size = index + count;
+    }
+
+    @Override
+    public void reserve(int count) {
+        ensureCapacity(size + count);
+        size += count;
+    }
+
+    @Override
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void push(ExecutorObject value) {
+        if (size == values.length) {
+            ensureCapacity(size + 1);
+        }
+        values[size++] = value;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length * 2));
+        }
+    }
+}
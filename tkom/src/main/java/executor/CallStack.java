@@ -0,0 +1,72 @@
+package executor;
+
+import executor.exceptions.StackOverflowException;
+import executor.ir.UserFunction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-depth stack of reusable {@link FunctionCallContext} records.
+ * The global frame always starts at the bottom of the operand stack, which is how callees see globals.
+ */
+public class CallStack {
+
+    public static final int LOCAL_FRAME = 0;
+    public static final int GLOBAL_FRAME = 1;
+
+    public static final int GLOBAL_FRAME_BASE = 0;
+
+    private final FunctionCallContext[] frames;
+    private int size = 0;
+
+    public CallStack(int maxDepth) {
+        this.frames = new FunctionCallContext[maxDepth];
+    }
+
+    public FunctionCallContext push(UserFunction function, int base) throws StackOverflowException {
+        if (size == frames.length) {
+            throw new StackOverflowException(String.format("Stack size: %d exceeded", frames.length));
+        }
+        var frame = frames[size];
+        if (frame == null) {
+            frame = new FunctionCallContext();
+            frames[size] = frame;
+        }
+        frame.enter(function, base);
+        size++;
+        return frame;
+    }
+
+    public FunctionCallContext peek() {
+        return frames[size - 1];
+    }
+
+    public void pop() {
+        size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Names of the functions on the stack, innermost first and ending with the global block.
+     */
+    public List<String> trace() {
+        var trace = new ArrayList<String>(size + 1);
+        for (var i = size - 1; i >= 0; i--) {
+            trace.add(frames[i].getFunctionDefinition().getName());
+        }
+        trace.add(Cancellation.GLOBAL_BLOCK);
+        return trace;
+    }
+}
@@ -0,0 +1,79 @@
+package executor;
+
+import executor.exceptions.CancelledException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative stop request for a run. Engines poll it at loop back-edges and function call entries and unwind with a
+ * {@link CancelledException} once it was cancelled, either explicitly from any thread or by its deadline passing.
+ * Polling only reads a volatile field, the deadline is enforced by a timer thread setting it.
+ */
+public final class Cancellation implements AutoCloseable {
+
+    public static final String GLOBAL_BLOCK = "<global>";
+
+    private static final class Timer {
+        private static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            var timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                var thread = new Thread(runnable, "cancellation-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+
+    private volatile String reason;
+    private ScheduledFuture<?> deadline;
+
+    public static Cancellation withDeadline(Duration timeout) {
+        var cancellation = new Cancellation();
+        cancellation.startDeadline(timeout);
+        return cancellation;
+    }
+
+    /**
+     * Cancels this after {@code timeout} from now, unless it is closed first.
+     */
+    public void startDeadline(Duration timeout) {
+        var message = String.format("Deadline of %d ms exceeded", timeout.toMillis());
+        close();
+        deadline = Timer.INSTANCE.schedule(() -> cancel(message), timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public void cancel() {
+        cancel("Execution cancelled");
+    }
+
+    private void cancel(String reason) {
+        if (this.reason == null) {
+            this.reason = reason;
+        }
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    public CancelledException stopped(List<String> stoppedIn) {
+        return new CancelledException(String.format("%s in %s", reason, String.join(" <- ", stoppedIn)), stoppedIn);
+    }
+
+    /**
+     * Releases the deadline timer, the cancellation itself stays as it is.
+     */
+    @Override
+    public void close() {
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+    }
+}
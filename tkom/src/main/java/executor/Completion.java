@@ -0,0 +1,19 @@
+package executor;
+
+/**
+ * Outcome of a statement, telling the enclosing statement how control leaves it.
+ */
+public enum Completion {
+    NORMAL,
+    BREAK,
+    CONTINUE,
+    RETURN,
+    /**
+     * A return whose value is a call: the arguments are ready and the function call replaces its callee instead of nesting.
+     */
+    TAIL_CALL,
+    /**
+     * A guard of a compiled trace failed, execution continues in the interpreter.
+     */
+    EXIT
+}
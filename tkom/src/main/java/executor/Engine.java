@@ -0,0 +1,20 @@
+package executor;
+
+import executor.exceptions.RuntimeException;
+
+/**
+ * Common entry point of every execution backend, so the application can pick one at startup.
+ */
+public interface Engine {
+
+    void run();
+
+    void runNoisy() throws RuntimeException;
+
+    /**
+     * Runs the program, stopping at the next loop back-edge or function call once {@code cancellation} is cancelled.
+     */
+    default void runNoisy(Cancellation cancellation) throws RuntimeException {
+        throw new RuntimeException(String.format("%s does not support cancellation", getClass().getSimpleName()));
+    }
+}
@@ -5,6 +5,7 @@ import executor.ir.Block;
 import executor.ir.GlobalBlock;
 import executor.ir.Scope;
 import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
 import executor.ir.instructions.*;
 
 public interface Executor extends Visitor {
@@ -22,6 +23,7 @@ public interface Executor extends Visitor {
     void execute(DivIntExpression divIntExpression, Scope scope) throws RuntimeException;
     void execute(FunctionCall functionCall, Scope scope) throws RuntimeException;
     void execute(Identifier identifier, Scope scope) throws RuntimeException;
+    void execute(InlinedCall inlinedCall, Scope scope) throws RuntimeException;
     void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) throws RuntimeException;
     void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope);
     void execute(IsExpression isExpression, Scope scope) throws RuntimeException;
@@ -32,6 +34,39 @@ public interface Executor extends Visitor {
     void execute(OrExpression orExpression, Scope scope) throws RuntimeException;
     void execute(SubExpression subExpression, Scope scope) throws RuntimeException;
     void execute(UnaryExpression unaryExpression, Scope scope) throws RuntimeException;
+    void execute(IntAdd intAdd, Scope scope) throws RuntimeException;
+    void execute(IntSub intSub, Scope scope) throws RuntimeException;
+    void execute(IntMul intMul, Scope scope) throws RuntimeException;
+    void execute(IntDivInt intDivInt, Scope scope) throws RuntimeException;
+    void execute(IntMod intMod, Scope scope) throws RuntimeException;
+    void execute(DoubleAdd doubleAdd, Scope scope) throws RuntimeException;
+    void execute(DoubleSub doubleSub, Scope scope) throws RuntimeException;
+    void execute(DoubleMul doubleMul, Scope scope) throws RuntimeException;
+    void execute(DoubleDiv doubleDiv, Scope scope) throws RuntimeException;
+    void execute(DoubleDivInt doubleDivInt, Scope scope) throws RuntimeException;
+    void execute(IntDiv intDiv, Scope scope) throws RuntimeException;
+    void execute(StringConcat stringConcat, Scope scope) throws RuntimeException;
+    void execute(IntEq intEq, Scope scope) throws RuntimeException;
+    void execute(IntNe intNe, Scope scope) throws RuntimeException;
+    void execute(IntLt intLt, Scope scope) throws RuntimeException;
+    void execute(IntLe intLe, Scope scope) throws RuntimeException;
+    void execute(IntGt intGt, Scope scope) throws RuntimeException;
+    void execute(IntGe intGe, Scope scope) throws RuntimeException;
+    void execute(DoubleEq doubleEq, Scope scope) throws RuntimeException;
+    void execute(DoubleNe doubleNe, Scope scope) throws RuntimeException;
+    void execute(DoubleLt doubleLt, Scope scope) throws RuntimeException;
+    void execute(DoubleLe doubleLe, Scope scope) throws RuntimeException;
+    void execute(DoubleGt doubleGt, Scope scope) throws RuntimeException;
+    void execute(DoubleGe doubleGe, Scope scope) throws RuntimeException;
+    void execute(StringEq stringEq, Scope scope) throws RuntimeException;
+    void execute(StringNe stringNe, Scope scope) throws RuntimeException;
+    void execute(StringLt stringLt, Scope scope) throws RuntimeException;
+    void execute(StringLe stringLe, Scope scope) throws RuntimeException;
+    void execute(StringGt stringGt, Scope scope) throws RuntimeException;
+    void execute(StringGe stringGe, Scope scope) throws RuntimeException;
+    void execute(IntNeg intNeg, Scope scope) throws RuntimeException;
+    void execute(DoubleNeg doubleNeg, Scope scope) throws RuntimeException;
+    void execute(BoolNot boolNot, Scope scope) throws RuntimeException;
     void execute(BreakInstruction breakInstruction, Scope scope);
     void execute(ContinueInstruction continueInstruction, Scope scope);
     void execute(IfInstruction ifInstruction, Scope scope) throws RuntimeException;
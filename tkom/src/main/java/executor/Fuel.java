@@ -0,0 +1,44 @@
+package executor;
+
+import executor.exceptions.OutOfFuelException;
+
+/**
+ * Work budget of a single run, charged one unit at every while loop back-edge and every user function call.
+ * A run that spends more than its budget is aborted with an {@link OutOfFuelException}.
+ */
+public final class Fuel {
+
+    /**
+     * Budget that turns metering off, engines then run code without any charging at all.
+     */
+    public static final long UNMETERED = -1;
+
+    private final long budget;
+    private long remaining;
+
+    public Fuel(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Fuel budget must not be negative");
+        }
+        this.budget = budget;
+        this.remaining = budget;
+    }
+
+    public void charge() throws OutOfFuelException {
+        if (--remaining < 0) {
+            remaining = 0;
+            throw new OutOfFuelException(String.format("Fuel budget of %d exhausted", budget));
+        }
+    }
+
+    public long consumed() {
+        return budget - remaining;
+    }
+
+    /**
+     * Fresh fuel for one run, null when {@code budget} is {@link #UNMETERED}.
+     */
+    public static Fuel forRun(long budget) {
+        return budget == UNMETERED ? null : new Fuel(budget);
+    }
+}
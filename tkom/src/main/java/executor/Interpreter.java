@@ -1,17 +1,31 @@
 package executor;
 
+import executor.closure.ClosureCallTarget;
+import executor.closure.SideExit;
 import executor.exceptions.CastException;
 import executor.exceptions.DivisionByZeroException;
 import executor.exceptions.RuntimeException;
-import executor.exceptions.StackOverflowException;
 import executor.ir.*;
 import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
 import executor.ir.instructions.*;
+import executor.memo.MemoTable;
+import executor.memo.Memoizer;
 import executor.stdlib.StdLibImpl;
+import executor.tiered.TieredCompiler;
+import executor.tracing.LoopTracer;
+import executor.tracing.TraceRecording;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
-public class Interpreter implements Executor {
+/**
+ * Tree-walking engine. An instance is one execution context: the operand stack, the call stack and the control flow state
+ * belong to a single run at a time, and every run starts from a fresh global frame.
+ * The {@link GlobalBlock} itself is only read, so any number of interpreters may run the same checked program on different threads.
+ */
+public class Interpreter implements Executor, Engine {
 
     private static final String INT_TYPE_NAME = "int";
     private static final String STRING_TYPE_NAME = "string";
@@ -20,25 +34,90 @@ public class Interpreter implements Executor {
 
     private static final int MAX_STACK_SIZE = 64;
 
-    private boolean continueDetected = false;
-    private boolean breakDetected = false;
-    private boolean returnDetected = false;
-    private boolean matchFinished = false;
+    private static final Set<Specialization.State> INTEGRAL = EnumSet.of(Specialization.State.INT);
+    private static final Set<Specialization.State> NUMERIC = EnumSet.of(Specialization.State.INT, Specialization.State.DOUBLE);
+    private static final Set<Specialization.State> ADDABLE = EnumSet.of(Specialization.State.INT, Specialization.State.DOUBLE, Specialization.State.STRING);
+    private static final Set<Specialization.State> LOGICAL = EnumSet.of(Specialization.State.BOOL);
+
+    /**
+     * How the last executed statement completed. Anything but {@link Completion#NORMAL} unwinds the enclosing blocks
+     * until the loop or function call that consumes it resets it.
+     */
+    private Completion completion = Completion.NORMAL;
+
+    /**
+     * Function a {@link Completion#TAIL_CALL} continues with, its arguments are on top of the stack.
+     */
+    private UserFunction tailCallee;
 
     private final StdLibImpl stdLib;
     private final GlobalBlock global;
 
-    private final Stack<ExecutorObject> objects = new Stack<>();
-    private final Stack<FunctionCallContext> callStack = new Stack<>();
+    private final OperandStack stack;
+    private final CallStack callStack;
+    private int localBase;
+
+    private final TieredCompiler tieredCompiler;
+    private final LoopTracer loopTracer;
+    private TraceRecording recording;
+
+    private final Memoizer memoizer;
+
+    private final long fuelBudget;
+    private Fuel fuel;
+    private Cancellation cancellation;
 
     public Interpreter(GlobalBlock global) {
+        this(global, new BoxedOperandStack());
+    }
+
+    public Interpreter(GlobalBlock global, OperandStack stack) {
+        this(global, stack, null);
+    }
+
+    /**
+     * @param tieredCompiler promotes hot functions to compiled code, null keeps everything interpreted
+     */
+    public Interpreter(GlobalBlock global, OperandStack stack, TieredCompiler tieredCompiler) {
+        this(global, stack, tieredCompiler, null);
+    }
+
+    /**
+     * @param loopTracer compiles hot while loops to traces, null keeps them interpreted
+     */
+    public Interpreter(GlobalBlock global, OperandStack stack, TieredCompiler tieredCompiler, LoopTracer loopTracer) {
+        this(global, stack, tieredCompiler, loopTracer, Fuel.UNMETERED);
+    }
+
+    /**
+     * @param fuelBudget units of {@link Fuel} every run may spend, {@link Fuel#UNMETERED} disables metering.
+     *                   Compiled code is never metered, so a metered interpreter ignores the tiered compiler and the loop tracer
+     */
+    public Interpreter(GlobalBlock global, OperandStack stack, TieredCompiler tieredCompiler, LoopTracer loopTracer, long fuelBudget) {
+        this(global, stack, tieredCompiler, loopTracer, fuelBudget, null);
+    }
+
+    /**
+     * @param memoizer answers repeated calls of pure functions from its tables, null runs every call.
+     *                 A call answered from a table spends no fuel
+     */
+    public Interpreter(GlobalBlock global, OperandStack stack, TieredCompiler tieredCompiler, LoopTracer loopTracer, long fuelBudget,
+                       Memoizer memoizer) {
+        var metered = fuelBudget != Fuel.UNMETERED;
+        this.tieredCompiler = metered ? null : tieredCompiler;
+        this.loopTracer = metered ? null : loopTracer;
+        this.fuelBudget = fuelBudget;
+        this.memoizer = memoizer;
         this.stdLib = new StdLibImpl();
         this.global = global;
+        this.stack = stack;
+        this.callStack = new CallStack(MAX_STACK_SIZE);
     }
 
+    @Override
     public void run() {
         try {
-            global.execute(this, global.getGlobalScope());
+            runNoisy();
         } catch (Exception e) {
             System.out.println("Internal error occurred");
             var stackTrace = e.getStackTrace();
@@ -47,10 +126,39 @@ public class Interpreter implements Executor {
         }
     }
 
+    @Override
     public void runNoisy() throws RuntimeException {
+        runNoisy(null);
+    }
+
+    /**
+     * Runs the program polling {@code cancellation}, null runs to completion. While it is set compiled tiers are not entered,
+     * as they never poll.
+     */
+    @Override
+    public void runNoisy(Cancellation cancellation) throws RuntimeException {
+        stack.truncate(0);
+        stack.reserve(global.getFrameSize());
+        callStack.clear();
+        localBase = CallStack.GLOBAL_FRAME_BASE;
+        completion = Completion.NORMAL;
+        recording = null;
+        fuel = Fuel.forRun(fuelBudget);
+        this.cancellation = cancellation;
         global.execute(this, global.getGlobalScope());
     }
 
+    /**
+     * Evaluates an expression that reads no variables and calls no functions, outside of any run.
+     * Used to fold constants with exactly the semantics the program would see at runtime.
+     */
+    public ExecutorObject evaluate(Expression expression) throws RuntimeException {
+        stack.truncate(0);
+        completion = Completion.NORMAL;
+        expression.execute(this, null);
+        return stack.popValue();
+    }
+
     @Override
     public void execute(GlobalBlock globalBlock, Scope scope) throws RuntimeException {
         for(var instruction : globalBlock.getInstructions()) {
@@ -61,10 +169,10 @@ public class Interpreter implements Executor {
     @Override
     public void execute(Block block, Scope scope) throws RuntimeException {
         for(var instruction : block.getInstructions()) {
-            if (breakDetected || continueDetected || (!callStack.isEmpty() && callStack.peek().isReturnDetected())) {
-                break;
-            }
             instruction.execute(this, scope);
+            if (completion != Completion.NORMAL) {
+                return;
+            }
         }
     }
 
@@ -72,42 +180,55 @@ public class Interpreter implements Executor {
     public void execute(AddExpression addExpression, Scope scope) throws RuntimeException {
         addExpression.getLeftExpression().execute(this, scope);
         addExpression.getRightExpression().execute(this, scope);
-        var obj = objects.peek();
-        if (obj instanceof IntegerObject) {
-            var rightValue = ((IntegerObject)objects.pop()).getValue();
-            var leftValue = ((IntegerObject)objects.pop()).getValue();
-            objects.push(new IntegerObject(leftValue + rightValue));
-        } else if (obj instanceof DoubleObject){
-            var rightValue = ((DoubleObject)objects.pop()).getValue();
-            var leftValue = ((DoubleObject)objects.pop()).getValue();
-            objects.push(new DoubleObject(leftValue + rightValue));
+        var state = observeOperands(addExpression.getSpecialization(), ADDABLE);
+        if (state != Specialization.State.GENERIC) {
+            switch (state) {
+                case INT -> {
+                    var right = stack.popInt();
+                    stack.pushInt(stack.popInt() + right);
+                }
+                case DOUBLE -> {
+                    var right = stack.popDouble();
+                    stack.pushDouble(stack.popDouble() + right);
+                }
+                default -> {
+                    var right = stack.popString();
+                    stack.pushString(stack.popString() + right);
+                }
+            }
+            return;
+        }
+        var rightValue = stack.popValue();
+        var leftValue = stack.popValue();
+        if (rightValue instanceof IntegerObject right) {
+            stack.pushInt(((IntegerObject)leftValue).getValue() + right.getValue());
+        } else if (rightValue instanceof DoubleObject right){
+            stack.pushDouble(((DoubleObject)leftValue).getValue() + right.getValue());
         } else {
-            var rightValue = ((StringObject)objects.pop()).getValue();
-            var leftValue = ((StringObject)objects.pop()).getValue();
-            objects.push(new StringObject(leftValue + rightValue));
+            stack.pushString(((StringObject)leftValue).getValue() + ((StringObject)rightValue).getValue());
         }
     }
 
     @Override
     public void execute(AndExpression andExpression, Scope scope) throws RuntimeException {
         andExpression.getLeftExpression().execute(this, scope);
-        var leftValue = ((BooleanObject)objects.pop()).isValue();
+        var leftValue = stack.popBool();
         if (!leftValue) {
-            objects.push(new BooleanObject(false));
+            stack.pushBool(false);
             return;
         }
         andExpression.getRightExpression().execute(this, scope);
-        var rightValue = ((BooleanObject)objects.pop()).isValue();
-        objects.push(new BooleanObject(rightValue));
+        var rightValue = stack.popBool();
+        stack.pushBool(rightValue);
     }
 
     @Override
     public void execute(AsExpression asExpression, Scope scope) throws RuntimeException {
         asExpression.getExpression().execute(this, scope);
-        var exp = objects.pop();
+        var exp = stack.popValue();
         var type = asExpression.getType();
         if (type == null) {
-            objects.push(new NullObject());
+            stack.pushNull();
             return;
         }
         tryCastObject(exp, type);
@@ -116,7 +237,7 @@ public class Interpreter implements Executor {
     @Override
     public void execute(AssignmentExpression assignmentExpression, Scope scope) throws RuntimeException {
         assignmentExpression.getRightSide().execute(this, scope);
-        scope.getVariable(assignmentExpression.getVariableName()).setObject(objects.peek());
+        stack.copyTo(frameBase(assignmentExpression.getDepth()) + assignmentExpression.getSlot());
     }
 
     @Override
@@ -126,56 +247,44 @@ public class Interpreter implements Executor {
 
     @Override
     public void execute(CompExpression compExpression, Scope scope) throws RuntimeException {
-        compExpression.getLeftExpression().execute(this, scope);
-        compExpression.getRightExpression().execute(this, scope);
-        var operator = compExpression.getOperator();
-        if (objects.peek() instanceof IntegerObject) {
-            var rightValue = (IntegerObject)objects.pop();
-            var leftValue = (IntegerObject)objects.pop();
-            var res = leftValue.compareTo(rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        } else if (objects.peek() instanceof DoubleObject) {
-            var rightValue = (DoubleObject)objects.pop();
-            var leftValue = (DoubleObject)objects.pop();
-            var res = leftValue.compareTo(rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        } else if (objects.peek() instanceof BooleanObject) {
-            var rightValue = (BooleanObject)objects.pop();
-            var leftValue = (BooleanObject)objects.pop();
-            var res = leftValue.compareTo(rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        } else if (objects.peek() instanceof StringObject) {
-            var rightValue = (StringObject)objects.pop();
-            var leftValue = (StringObject)objects.pop();
-            var res = leftValue.compareTo(rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        }
+        throw new RuntimeException("Comparison was not specialized during semantic check");
     }
 
     @Override
     public void execute(ConstExpression constExpression, Scope scope) throws RuntimeException {
-        pushByType(constExpression.getType(), constExpression.getValue());
+        stack.pushValue(constExpression.getRuntimeValue());
     }
 
     @Override
     public void execute(DivExpression divExpression, Scope scope) throws RuntimeException {
         divExpression.getLeftExpression().execute(this, scope);
         divExpression.getRightExpression().execute(this, scope);
-        var obj = objects.peek();
-        if (obj instanceof IntegerObject) {
-            var rightValue = ((IntegerObject)objects.pop()).getValue();
-            var leftValue = ((IntegerObject)objects.pop()).getValue();
+        var state = observeOperands(divExpression.getSpecialization(), NUMERIC);
+        if (state != Specialization.State.GENERIC) {
+            var rightValue = state == Specialization.State.INT ? stack.popInt() : stack.popDouble();
+            var leftValue = state == Specialization.State.INT ? stack.popInt() : stack.popDouble();
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            stack.pushDouble(leftValue / rightValue);
+            return;
+        }
+        var right = stack.popValue();
+        var left = stack.popValue();
+        if (right instanceof IntegerObject) {
+            var rightValue = ((IntegerObject)right).getValue();
+            var leftValue = ((IntegerObject)left).getValue();
             if (rightValue == 0) {
                 throw new DivisionByZeroException("Division by zero detected");
             }
-            objects.push(new DoubleObject((double)leftValue / (double)rightValue));
+            stack.pushDouble((double)leftValue / (double)rightValue);
         } else {
-            var rightValue = ((DoubleObject)objects.pop()).getValue();
-            var leftValue = ((DoubleObject)objects.pop()).getValue();
+            var rightValue = ((DoubleObject)right).getValue();
+            var leftValue = ((DoubleObject)left).getValue();
             if (rightValue == 0) {
                 throw new DivisionByZeroException("Division by zero detected");
             }
-            objects.push(new DoubleObject(leftValue / rightValue));
+            stack.pushDouble(leftValue / rightValue);
         }
     }
 
@@ -183,94 +292,144 @@ public class Interpreter implements Executor {
     public void execute(DivIntExpression divIntExpression, Scope scope) throws RuntimeException {
         divIntExpression.getLeftExpression().execute(this, scope);
         divIntExpression.getRightExpression().execute(this, scope);
-        var obj = objects.peek();
-        if (obj instanceof IntegerObject) {
-            var rightValue = ((IntegerObject)objects.pop()).getValue();
-            var leftValue = ((IntegerObject)objects.pop()).getValue();
+        var state = observeOperands(divIntExpression.getSpecialization(), NUMERIC);
+        if (state != Specialization.State.GENERIC) {
+            if (state == Specialization.State.INT) {
+                var rightValue = stack.popInt();
+                var leftValue = stack.popInt();
+                if (rightValue == 0) {
+                    throw new DivisionByZeroException("Division by zero detected");
+                }
+                stack.pushInt(leftValue / rightValue);
+            } else {
+                var rightValue = stack.popDouble();
+                var leftValue = stack.popDouble();
+                if (rightValue == 0) {
+                    throw new DivisionByZeroException("Division by zero detected");
+                }
+                stack.pushDouble((int)(leftValue / rightValue));
+            }
+            return;
+        }
+        var right = stack.popValue();
+        var left = stack.popValue();
+        if (right instanceof IntegerObject) {
+            var rightValue = ((IntegerObject)right).getValue();
+            var leftValue = ((IntegerObject)left).getValue();
             if (rightValue == 0) {
                 throw new DivisionByZeroException("Division by zero detected");
             }
-            objects.push(new IntegerObject(leftValue / rightValue));
+            stack.pushInt(leftValue / rightValue);
         } else {
-            var rightValue = ((DoubleObject)objects.pop()).getValue();
-            var leftValue = ((DoubleObject)objects.pop()).getValue();
+            var rightValue = ((DoubleObject)right).getValue();
+            var leftValue = ((DoubleObject)left).getValue();
             if (rightValue == 0) {
                 throw new DivisionByZeroException("Division by zero detected");
             }
-            objects.push(new DoubleObject((int)(leftValue / rightValue)));
+            stack.pushDouble((int)(leftValue / rightValue));
         }
     }
 
     @Override
     public void execute(FunctionCall functionCall, Scope scope) throws RuntimeException {
-        var functionDef = global.getGlobalScope().getFunction(functionCall.getName());
-        List<ExecutorObject> argumentValues = new ArrayList<>();
-        var argCount = 0;
-        for(var arg : functionCall.getArguments()) {
+        safepoint();
+        var funDef = (UserFunction)global.getFunctions().get(functionCall.getName());
+        var arguments = functionCall.getArguments();
+        for(var arg : arguments) {
             arg.execute(this, scope);
-            argCount++;
         }
-        while (argCount > 0) {
-            argumentValues.add(objects.pop());
-            argCount--;
+        var memoTable = memoizer != null ? memoizer.tableFor(funDef) : null;
+        if (memoTable != null) {
+            callMemoized(memoTable, funDef, arguments.size());
+            return;
         }
-        Collections.reverse(argumentValues);
-        var funDef = (UserFunction)global.getFunctions().get(functionCall.getName());
-        var callContext = new FunctionCallContext(functionDef.getScope().getVariablesOrder(), argumentValues, funDef.getScope(), global.getFunctions().get(functionCall.getName()));
-        if (callStack.size() == MAX_STACK_SIZE) {
-            throw new StackOverflowException(String.format("Stack size: %d exceeded", MAX_STACK_SIZE));
+        if (tieredCompiler != null && cancellation == null) {
+            var target = tieredCompiler.profile(funDef).onInvocation();
+            if (target != null) {
+                callCompiled(target, arguments.size());
+                return;
+            }
         }
-        callStack.push(callContext);
-        funDef.getInstructions().execute(this, callContext.getScope());
-        var obj = callStack.peek().getReturnValue();
-        callStack.pop();
-        returnDetected = false;
-        objects.push(obj);
+        invoke(funDef, arguments.size());
+    }
 
+    /**
+     * Answers the call from {@code table} when it has seen the arguments, otherwise runs it on a copy of them
+     * and caches the result under the originals, which a tail call would overwrite.
+     */
+    private void callMemoized(MemoTable table, UserFunction funDef, int argumentCount) throws RuntimeException {
+        var keyBase = stack.size() - argumentCount;
+        var cached = table.lookup(stack, keyBase);
+        if (cached != null) {
+            stack.truncate(keyBase);
+            stack.pushValue(cached);
+            return;
+        }
+        for (var i = 0; i < argumentCount; i++) {
+            stack.load(keyBase + i);
+        }
+        invoke(funDef, argumentCount);
+        table.store(stack, keyBase, stack.valueAt(stack.size() - 1));
+        stack.moveTop(keyBase);
     }
 
-    @Override
-    public void execute(Identifier identifier, Scope scope) throws RuntimeException {
-        var variable = scope.getVariable(identifier.getName());
-        var obj = variable.getObject();
-        if (obj instanceof IntegerObject leftValue) {
-            pushByType(variable.getType(), leftValue.getValue());
-        } else if (obj instanceof DoubleObject leftValue) {
-            pushByType(variable.getType(), leftValue.getValue());
-        } else if (obj instanceof BooleanObject leftValue) {
-            pushByType(variable.getType(), leftValue.isValue());
-        } else if (obj instanceof StringObject leftValue) {
-            pushByType(variable.getType(), leftValue.getValue());
+    /**
+     * Runs {@code funDef} on the {@code argumentCount} arguments on top of the stack, leaving its result in their place.
+     */
+    private void invoke(UserFunction funDef, int argumentCount) throws RuntimeException {
+        var base = stack.size() - argumentCount;
+        var context = callStack.push(funDef, base);
+        stack.reserve(funDef.getFrameSize() - argumentCount);
+        var callerBase = localBase;
+        localBase = base;
+        try {
+            while (true) {
+                var body = funDef.getInstructions();
+                body.execute(this, body.getScope());
+                if (completion != Completion.TAIL_CALL) {
+                    break;
+                }
+                funDef = tailCallee;
+                var calleeArguments = funDef.getScope().getVariablesOrder().size();
+                stack.moveTop(base, calleeArguments);
+                stack.reserve(funDef.getFrameSize() - calleeArguments);
+                context.setFunctionDefinition(funDef);
+                completion = Completion.NORMAL;
+            }
+        } finally {
+            localBase = callerBase;
+        }
+        if (stack.size() > base + funDef.getFrameSize()) {
+            stack.moveTop(base);
         } else {
-            pushByType(null, null);
+            stack.truncate(base);
+            stack.pushNull();
         }
+        callStack.pop();
+        completion = Completion.NORMAL;
+    }
 
+    @Override
+    public void execute(Identifier identifier, Scope scope) throws RuntimeException {
+        stack.load(frameBase(identifier.getDepth()) + identifier.getSlot());
     }
 
     @Override
-    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) throws RuntimeException {
-        var obj = scope.getVariable("_").getObject();
-        insideMatchCompExpression.getExpression().execute(this, scope);
-        var rightValue = objects.pop();
-        var operator = insideMatchCompExpression.getOperator();
-        if (obj instanceof IntegerObject leftValue) {
-            var res = leftValue.compareTo((IntegerObject) rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        } else if (obj instanceof DoubleObject leftValue) {
-            var res = leftValue.compareTo((DoubleObject) rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        } else if (obj instanceof BooleanObject leftValue) {
-            var res = leftValue.compareTo((BooleanObject) rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
-        } else if (obj instanceof StringObject leftValue) {
-            var res = leftValue.compareTo((StringObject) rightValue);
-            objects.push(new BooleanObject(matchOperatorToComparison(operator, res)));
+    public void execute(InlinedCall inlinedCall, Scope scope) throws RuntimeException {
+        for (var binding : inlinedCall.getBindings()) {
+            execute(binding, scope);
         }
+        inlinedCall.getBody().execute(this, scope);
+    }
+
+    @Override
+    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) throws RuntimeException {
+        throw new RuntimeException("Match comparison was not specialized during semantic check");
     }
 
     @Override
     public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
-        var obj = scope.getVariable("_").getObject();
+        var obj = stack.valueAt(localBase + insideMatchTypeExpression.getSlot());
         var type = insideMatchTypeExpression.getType();
         boolean isInstanceOf = false;
         if (type == null) {
@@ -281,14 +440,16 @@ public class Interpreter implements Executor {
             isInstanceOf = obj instanceof DoubleObject;
         } else if (type.getTypeName().equals(STRING_TYPE_NAME)) {
             isInstanceOf = obj instanceof StringObject;
+        } else if (type.getTypeName().equals(BOOL_TYPE_NAME)) {
+            isInstanceOf = obj instanceof BooleanObject;
         }
-        objects.push(new BooleanObject(isInstanceOf));
+        stack.pushBool(isInstanceOf);
     }
 
     @Override
     public void execute(IsExpression isExpression, Scope scope) throws RuntimeException {
         isExpression.getExpression().execute(this, scope);
-        var obj = objects.pop();
+        var obj = stack.popValue();
         var type = isExpression.getType();
         boolean isInstanceOf = false;
         if (type == null) {
@@ -299,33 +460,27 @@ public class Interpreter implements Executor {
             isInstanceOf = obj instanceof DoubleObject;
         } else if (type.getTypeName().equals(STRING_TYPE_NAME)) {
             isInstanceOf = obj instanceof StringObject;
+        } else if (type.getTypeName().equals(BOOL_TYPE_NAME)) {
+            isInstanceOf = obj instanceof BooleanObject;
         }
-        objects.push(new BooleanObject(isInstanceOf));
-
+        stack.pushBool(isInstanceOf);
     }
 
     @Override
     public void execute(LibFunctionCall libFunctionCall, Scope scope) throws RuntimeException {
         var name = libFunctionCall.getName();
         var arguments = libFunctionCall.getArguments();
-        var count = 0;
         for(var arg : arguments) {
             arg.execute(this, scope);
-            count++;
-        }
-        List<ExecutorObject> executorObjects = new ArrayList<>();
-        while(count > 0) {
-            executorObjects.add(objects.pop());
-            count--;
         }
 
         if(name.equals("print")) {
-            var text = ((StringObject)executorObjects.get(0)).getValue();
+            var text = stack.popString();
             stdLib.usePrint(text);
-            objects.push(new NullObject());
+            stack.pushNull();
         } else if (name.equals("get_input")) {
             var test = stdLib.useGetInput();
-            objects.push(new StringObject(test));
+            stack.pushString(test);
         }
     }
 
@@ -333,22 +488,38 @@ public class Interpreter implements Executor {
     public void execute(ModExpression modExpression, Scope scope) throws RuntimeException {
         modExpression.getLeftExpression().execute(this, scope);
         modExpression.getRightExpression().execute(this, scope);
-        var rightValue = ((IntegerObject)objects.pop()).getValue();
-        var leftValue = ((IntegerObject)objects.pop()).getValue();
-        objects.push(new IntegerObject(leftValue % rightValue));
+        if (observeOperands(modExpression.getSpecialization(), INTEGRAL) != Specialization.State.GENERIC) {
+            var rightValue = stack.popInt();
+            stack.pushInt(stack.popInt() % rightValue);
+            return;
+        }
+        var rightValue = ((IntegerObject)stack.popValue()).getValue();
+        var leftValue = ((IntegerObject)stack.popValue()).getValue();
+        stack.pushInt(leftValue % rightValue);
     }
 
     @Override
     public void execute(MulExpression mulExpression, Scope scope) throws RuntimeException {
         mulExpression.getLeftExpression().execute(this, scope);
         mulExpression.getRightExpression().execute(this, scope);
-        var rightValue = objects.pop();
-        var leftValue = objects.pop();
+        var state = observeOperands(mulExpression.getSpecialization(), NUMERIC);
+        if (state != Specialization.State.GENERIC) {
+            if (state == Specialization.State.INT) {
+                var right = stack.popInt();
+                stack.pushInt(stack.popInt() * right);
+            } else {
+                var right = stack.popDouble();
+                stack.pushDouble(stack.popDouble() * right);
+            }
+            return;
+        }
+        var rightValue = stack.popValue();
+        var leftValue = stack.popValue();
         if (leftValue instanceof IntegerObject left && rightValue instanceof IntegerObject right) {
-            objects.push(new IntegerObject(left.getValue() * right.getValue()));
+            stack.pushInt(left.getValue() * right.getValue());
         } else {
             try {
-                objects.push(new DoubleObject(((DoubleObject)leftValue).getValue() * ((DoubleObject)rightValue).getValue()));
+                stack.pushDouble(((DoubleObject)leftValue).getValue() * ((DoubleObject)rightValue).getValue());
             } catch (ClassCastException e) {
                 throw new RuntimeException("Casting error occurred");
             }
@@ -358,81 +529,399 @@ public class Interpreter implements Executor {
     @Override
     public void execute(NullCheckExpression nullCheckExpression, Scope scope) throws RuntimeException {
         nullCheckExpression.getLeftExpression().execute(this, scope);
-        nullCheckExpression.getRightExpression().execute(this, scope);
-        var rightValue = objects.pop();
-        var leftValue = objects.pop();
-        if (leftValue instanceof NullObject) {
-            objects.push(rightValue);
-        } else {
-            objects.push(leftValue);
+        var rightExpression = nullCheckExpression.getRightExpression();
+        var neverNull = stack.peekKind(0) != ValueKind.NULL && isSideEffectFree(rightExpression);
+        if (nullCheckExpression.getSpecialization().observe(neverNull ? Specialization.State.NON_NULL : Specialization.State.GENERIC) != Specialization.State.GENERIC) {
+            return;
         }
+        rightExpression.execute(this, scope);
+        stack.coalesceNull();
     }
 
     @Override
     public void execute(OrExpression orExpression, Scope scope) throws RuntimeException {
         orExpression.getLeftExpression().execute(this, scope);
         orExpression.getRightExpression().execute(this, scope);
-        var rightValue = ((BooleanObject)objects.pop()).isValue();
-        var leftValue = ((BooleanObject)objects.pop()).isValue();
-        if (leftValue) {
-            objects.push(new BooleanObject(true));
-        } else {
-            objects.push(new BooleanObject(rightValue));
-        }
+        var rightValue = stack.popBool();
+        var leftValue = stack.popBool();
+        stack.pushBool(leftValue || rightValue);
     }
 
     @Override
     public void execute(SubExpression subExpression, Scope scope) throws RuntimeException {
         subExpression.getLeftExpression().execute(this, scope);
         subExpression.getRightExpression().execute(this, scope);
-        var obj = objects.peek();
-        if (obj instanceof IntegerObject) {
-            var rightValue = ((IntegerObject)objects.pop()).getValue();
-            var leftValue = ((IntegerObject)objects.pop()).getValue();
-            objects.push(new IntegerObject(leftValue - rightValue));
+        var state = observeOperands(subExpression.getSpecialization(), NUMERIC);
+        if (state != Specialization.State.GENERIC) {
+            if (state == Specialization.State.INT) {
+                var right = stack.popInt();
+                stack.pushInt(stack.popInt() - right);
+            } else {
+                var right = stack.popDouble();
+                stack.pushDouble(stack.popDouble() - right);
+            }
+            return;
+        }
+        var rightValue = stack.popValue();
+        var leftValue = stack.popValue();
+        if (rightValue instanceof IntegerObject right) {
+            stack.pushInt(((IntegerObject)leftValue).getValue() - right.getValue());
         } else {
-            var rightValue = ((DoubleObject)objects.pop()).getValue();
-            var leftValue = ((DoubleObject)objects.pop()).getValue();
-            objects.push(new DoubleObject(leftValue - rightValue));
+            stack.pushDouble(((DoubleObject)leftValue).getValue() - ((DoubleObject)rightValue).getValue());
         }
     }
 
     @Override
     public void execute(UnaryExpression unaryExpression, Scope scope) throws RuntimeException {
         unaryExpression.getExpression().execute(this, scope);
-        var obj = objects.pop();
+        var observed = stateOf(stack.peekKind(0));
+        var negatable = unaryExpression.getUnaryOperator().equals("-") ? NUMERIC : LOGICAL;
+        var state = unaryExpression.getSpecialization().observe(negatable.contains(observed) ? observed : Specialization.State.GENERIC);
+        if (state != Specialization.State.GENERIC) {
+            switch (state) {
+                case INT -> stack.pushInt(-stack.popInt());
+                case DOUBLE -> stack.pushDouble(-stack.popDouble());
+                default -> stack.pushBool(!stack.popBool());
+            }
+            return;
+        }
+        var obj = stack.popValue();
         if (obj instanceof IntegerObject integerObject && unaryExpression.getUnaryOperator().equals("-")) {
-            objects.push(new IntegerObject(-integerObject.getValue()));
+            stack.pushInt(-integerObject.getValue());
         } else if (obj instanceof DoubleObject doubleObject && unaryExpression.getUnaryOperator().equals("-")) {
-            objects.push(new DoubleObject(-doubleObject.getValue()));
+            stack.pushDouble(-doubleObject.getValue());
         } else if (obj instanceof BooleanObject booleanObject && unaryExpression.getUnaryOperator().equals("!")) {
-            objects.push(new BooleanObject(!booleanObject.isValue()));
+            stack.pushBool(!booleanObject.isValue());
         } else {
             throw new RuntimeException("Error while negating value");
         }
     }
 
+    @Override
+    public void execute(IntAdd intAdd, Scope scope) throws RuntimeException {
+        intAdd.getLeftExpression().execute(this, scope);
+        intAdd.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushInt(leftValue + rightValue);
+    }
+
+    @Override
+    public void execute(IntSub intSub, Scope scope) throws RuntimeException {
+        intSub.getLeftExpression().execute(this, scope);
+        intSub.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushInt(leftValue - rightValue);
+    }
+
+    @Override
+    public void execute(IntMul intMul, Scope scope) throws RuntimeException {
+        intMul.getLeftExpression().execute(this, scope);
+        intMul.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushInt(leftValue * rightValue);
+    }
+
+    @Override
+    public void execute(IntDivInt intDivInt, Scope scope) throws RuntimeException {
+        intDivInt.getLeftExpression().execute(this, scope);
+        intDivInt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        if (rightValue == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        stack.pushInt(leftValue / rightValue);
+    }
+
+    @Override
+    public void execute(IntMod intMod, Scope scope) throws RuntimeException {
+        intMod.getLeftExpression().execute(this, scope);
+        intMod.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushInt(leftValue % rightValue);
+    }
+
+    @Override
+    public void execute(DoubleAdd doubleAdd, Scope scope) throws RuntimeException {
+        doubleAdd.getLeftExpression().execute(this, scope);
+        doubleAdd.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushDouble(leftValue + rightValue);
+    }
+
+    @Override
+    public void execute(DoubleSub doubleSub, Scope scope) throws RuntimeException {
+        doubleSub.getLeftExpression().execute(this, scope);
+        doubleSub.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushDouble(leftValue - rightValue);
+    }
+
+    @Override
+    public void execute(DoubleMul doubleMul, Scope scope) throws RuntimeException {
+        doubleMul.getLeftExpression().execute(this, scope);
+        doubleMul.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushDouble(leftValue * rightValue);
+    }
+
+    @Override
+    public void execute(DoubleDiv doubleDiv, Scope scope) throws RuntimeException {
+        doubleDiv.getLeftExpression().execute(this, scope);
+        doubleDiv.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        if (rightValue == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        stack.pushDouble(leftValue / rightValue);
+    }
+
+    @Override
+    public void execute(DoubleDivInt doubleDivInt, Scope scope) throws RuntimeException {
+        doubleDivInt.getLeftExpression().execute(this, scope);
+        doubleDivInt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        if (rightValue == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        stack.pushDouble((int)(leftValue / rightValue));
+    }
+
+    @Override
+    public void execute(IntDiv intDiv, Scope scope) throws RuntimeException {
+        intDiv.getLeftExpression().execute(this, scope);
+        intDiv.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        if (rightValue == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        stack.pushDouble((double)leftValue / (double)rightValue);
+    }
+
+    @Override
+    public void execute(StringConcat stringConcat, Scope scope) throws RuntimeException {
+        stringConcat.getLeftExpression().execute(this, scope);
+        stringConcat.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushString(leftValue + rightValue);
+    }
+
+    @Override
+    public void execute(IntEq intEq, Scope scope) throws RuntimeException {
+        intEq.getLeftExpression().execute(this, scope);
+        intEq.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushBool(leftValue == rightValue);
+    }
+
+    @Override
+    public void execute(IntNe intNe, Scope scope) throws RuntimeException {
+        intNe.getLeftExpression().execute(this, scope);
+        intNe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushBool(leftValue != rightValue);
+    }
+
+    @Override
+    public void execute(IntLt intLt, Scope scope) throws RuntimeException {
+        intLt.getLeftExpression().execute(this, scope);
+        intLt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushBool(leftValue < rightValue);
+    }
+
+    @Override
+    public void execute(IntLe intLe, Scope scope) throws RuntimeException {
+        intLe.getLeftExpression().execute(this, scope);
+        intLe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushBool(leftValue <= rightValue);
+    }
+
+    @Override
+    public void execute(IntGt intGt, Scope scope) throws RuntimeException {
+        intGt.getLeftExpression().execute(this, scope);
+        intGt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushBool(leftValue > rightValue);
+    }
+
+    @Override
+    public void execute(IntGe intGe, Scope scope) throws RuntimeException {
+        intGe.getLeftExpression().execute(this, scope);
+        intGe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popInt();
+        var leftValue = stack.popInt();
+        stack.pushBool(leftValue >= rightValue);
+    }
+
+    @Override
+    public void execute(DoubleEq doubleEq, Scope scope) throws RuntimeException {
+        doubleEq.getLeftExpression().execute(this, scope);
+        doubleEq.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushBool(Double.compare(leftValue, rightValue) == 0);
+    }
+
+    @Override
+    public void execute(DoubleNe doubleNe, Scope scope) throws RuntimeException {
+        doubleNe.getLeftExpression().execute(this, scope);
+        doubleNe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushBool(Double.compare(leftValue, rightValue) != 0);
+    }
+
+    @Override
+    public void execute(DoubleLt doubleLt, Scope scope) throws RuntimeException {
+        doubleLt.getLeftExpression().execute(this, scope);
+        doubleLt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushBool(Double.compare(leftValue, rightValue) < 0);
+    }
+
+    @Override
+    public void execute(DoubleLe doubleLe, Scope scope) throws RuntimeException {
+        doubleLe.getLeftExpression().execute(this, scope);
+        doubleLe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushBool(Double.compare(leftValue, rightValue) <= 0);
+    }
+
+    @Override
+    public void execute(DoubleGt doubleGt, Scope scope) throws RuntimeException {
+        doubleGt.getLeftExpression().execute(this, scope);
+        doubleGt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushBool(Double.compare(leftValue, rightValue) > 0);
+    }
+
+    @Override
+    public void execute(DoubleGe doubleGe, Scope scope) throws RuntimeException {
+        doubleGe.getLeftExpression().execute(this, scope);
+        doubleGe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popDouble();
+        var leftValue = stack.popDouble();
+        stack.pushBool(Double.compare(leftValue, rightValue) >= 0);
+    }
+
+    @Override
+    public void execute(StringEq stringEq, Scope scope) throws RuntimeException {
+        stringEq.getLeftExpression().execute(this, scope);
+        stringEq.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushBool(leftValue.compareTo(rightValue) == 0);
+    }
+
+    @Override
+    public void execute(StringNe stringNe, Scope scope) throws RuntimeException {
+        stringNe.getLeftExpression().execute(this, scope);
+        stringNe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushBool(leftValue.compareTo(rightValue) != 0);
+    }
+
+    @Override
+    public void execute(StringLt stringLt, Scope scope) throws RuntimeException {
+        stringLt.getLeftExpression().execute(this, scope);
+        stringLt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushBool(leftValue.compareTo(rightValue) < 0);
+    }
+
+    @Override
+    public void execute(StringLe stringLe, Scope scope) throws RuntimeException {
+        stringLe.getLeftExpression().execute(this, scope);
+        stringLe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushBool(leftValue.compareTo(rightValue) <= 0);
+    }
+
+    @Override
+    public void execute(StringGt stringGt, Scope scope) throws RuntimeException {
+        stringGt.getLeftExpression().execute(this, scope);
+        stringGt.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushBool(leftValue.compareTo(rightValue) > 0);
+    }
+
+    @Override
+    public void execute(StringGe stringGe, Scope scope) throws RuntimeException {
+        stringGe.getLeftExpression().execute(this, scope);
+        stringGe.getRightExpression().execute(this, scope);
+        var rightValue = stack.popString();
+        var leftValue = stack.popString();
+        stack.pushBool(leftValue.compareTo(rightValue) >= 0);
+    }
+
+    @Override
+    public void execute(IntNeg intNeg, Scope scope) throws RuntimeException {
+        intNeg.getExpression().execute(this, scope);
+        var value = stack.popInt();
+        stack.pushInt(-value);
+    }
+
+    @Override
+    public void execute(DoubleNeg doubleNeg, Scope scope) throws RuntimeException {
+        doubleNeg.getExpression().execute(this, scope);
+        var value = stack.popDouble();
+        stack.pushDouble(-value);
+    }
+
+    @Override
+    public void execute(BoolNot boolNot, Scope scope) throws RuntimeException {
+        boolNot.getExpression().execute(this, scope);
+        var value = stack.popBool();
+        stack.pushBool(!value);
+    }
+
     @Override
     public void execute(BreakInstruction breakInstruction, Scope scope) {
-        breakDetected = true;
+        completion = Completion.BREAK;
     }
 
     @Override
     public void execute(ContinueInstruction continueInstruction, Scope scope) {
-        continueDetected = true;
+        completion = Completion.CONTINUE;
     }
 
     @Override
     public void execute(IfInstruction ifInstruction, Scope scope) throws RuntimeException {
         ifInstruction.getCondition().execute(this, scope);
-        var condition = (BooleanObject)objects.pop();
-        if (condition.isValue()) {
-            ifInstruction.getTrueBlock().getScope().setUpperScope(scope);
+        var condition = stack.popBool();
+        if (recording != null) {
+            recording.record(ifInstruction, condition);
+        }
+        if (condition) {
             var trueBlockScope = ifInstruction.getTrueBlock().getScope();
             ifInstruction.getTrueBlock().execute(this, trueBlockScope);
         } else {
             if (ifInstruction.getFalseBlock() == null) return;
-            ifInstruction.getFalseBlock().getScope().setUpperScope(scope);
             var falseBlockScope = ifInstruction.getFalseBlock().getScope();
             ifInstruction.getFalseBlock().execute(this, falseBlockScope);
         }
@@ -440,113 +929,244 @@ public class Interpreter implements Executor {
 
     @Override
     public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) throws RuntimeException {
-        insideMatchInstruction.getScope().setUpperScope(scope);
-        if (insideMatchInstruction.isDefault()) {
-            insideMatchInstruction.getInstruction().execute(this, insideMatchInstruction.getScope());
-            return;
-        }
-        insideMatchInstruction.getExpression().execute(this, insideMatchInstruction.getScope());
-        var obj = (BooleanObject)objects.pop();
-        if (obj.isValue()) {
-            insideMatchInstruction.getInstruction().execute(this, insideMatchInstruction.getScope());
-            matchFinished = true;
-        }
+        executeArm(insideMatchInstruction);
     }
 
     @Override
     public void execute(InstructionExpression instructionExpression, Scope scope) throws RuntimeException {
         instructionExpression.getExpression().execute(this, scope);
-        objects.pop();
+        stack.drop();
     }
 
     @Override
     public void execute(MatchInstruction matchInstruction, Scope scope) throws RuntimeException {
         matchInstruction.getExpression().execute(this, scope);
-        matchFinished = false;
-        var obj = objects.pop();
-        var matchScope = matchInstruction.getScope();
-        matchScope.setUpperScope(scope);
-        matchScope.getVariable("_").setObject(obj);
-        for(var instruction : matchInstruction.getMatchStatements()) {
-            instruction.execute(this, matchScope);
-            if (returnDetected || matchFinished) {
-                break;
+        stack.store(localBase + matchInstruction.getSlot());
+        for(var arm : matchInstruction.getMatchStatements()) {
+            if (executeArm(arm)) {
+                return;
             }
         }
-
     }
 
     @Override
     public void execute(ReturnInstruction returnInstruction, Scope scope) throws RuntimeException {
-        returnDetected = true;
-        callStack.peek().setReturnDetected(true);
+        if (returnInstruction.isTailCall()) {
+            var call = (FunctionCall) returnInstruction.getValue();
+            safepoint();
+            for (var argument : call.getArguments()) {
+                argument.execute(this, scope);
+            }
+            tailCallee = (UserFunction) global.getFunctions().get(call.getName());
+            completion = Completion.TAIL_CALL;
+            return;
+        }
         if (returnInstruction.getValue() != null) {
             returnInstruction.getValue().execute(this, scope);
-            var obj = objects.pop();
-            callStack.peek().setReturnValue(obj);
         }
+        completion = Completion.RETURN;
     }
 
     @Override
     public void execute(VarDeclaration varDeclaration, Scope scope) throws RuntimeException {
-        var variable = varDeclaration.getVariable();
         varDeclaration.getValue().execute(this, scope);
-        var value = objects.pop();
-        variable.setObject(value);
-        scope.addVariable(variable);
+        stack.store(localBase + varDeclaration.getSlot());
     }
 
     @Override
     public void execute(WhileInstruction whileInstruction, Scope scope) throws RuntimeException {
-        whileInstruction.getCondition().execute(this, scope);
-        var condition = (BooleanObject)objects.pop();
+        if (loopTracer != null && cancellation == null) {
+            executeTraced(whileInstruction, scope);
+            return;
+        }
+        var body = whileInstruction.getStatements();
+        var whileScope = body.getScope();
+        var profile = tieredCompiler == null || callStack.isEmpty() ? null : tieredCompiler.profile(callStack.peek().getFunctionDefinition());
+        while(true) {
+            whileInstruction.getCondition().execute(this, scope);
+            if (!stack.popBool()) {
+                return;
+            }
+            if (profile != null) {
+                profile.onBackEdge();
+            }
+            safepoint();
+            body.execute(this, whileScope);
+            if (completion != Completion.NORMAL && endsLoop()) {
+                return;
+            }
+        }
+    }
 
-        var whileScope = whileInstruction.getStatements().getScope();
-        while(condition.isValue()) {
-            breakDetected = continueDetected = false;
-            whileInstruction.getStatements().execute(this, whileScope);
-            if (breakDetected) break;
-            if (continueDetected) continue;
+    /**
+     * Runs a loop under the {@link LoopTracer}: interpreted until it gets hot, recorded for one iteration, then through its trace.
+     * After a side exit the iteration is finished here, starting with the branch the guard did not expect.
+     */
+    private void executeTraced(WhileInstruction whileInstruction, Scope scope) throws RuntimeException {
+        var profile = loopTracer.profile(whileInstruction);
+        var body = whileInstruction.getStatements();
+        while (true) {
+            var trace = profile.getTrace();
+            if (trace != null) {
+                profile.onEntry();
+                var exit = trace.run(stack, localBase, callStack.size());
+                if (exit == null) {
+                    return;
+                }
+                profile.onSideExit(exit);
+                resume(exit);
+            } else {
+                whileInstruction.getCondition().execute(this, scope);
+                if (!stack.popBool()) {
+                    return;
+                }
+                var hotRecording = profile.onIteration();
+                if (hotRecording == null) {
+                    body.execute(this, body.getScope());
+                } else {
+                    var enclosingRecording = recording;
+                    recording = hotRecording;
+                    try {
+                        body.execute(this, body.getScope());
+                    } finally {
+                        recording = enclosingRecording;
+                    }
+                    var inFunction = !callStack.isEmpty();
+                    var frameSize = inFunction ? callStack.peek().getFunctionDefinition().getFrameSize() : global.getFrameSize();
+                    profile.onRecorded(scope, inFunction, frameSize);
+                }
+            }
+            if (completion != Completion.NORMAL && endsLoop()) {
+                return;
+            }
+        }
+    }
 
-            whileInstruction.getCondition().execute(this, scope);
-            condition = (BooleanObject)objects.pop();
+    /**
+     * Charges fuel and polls for cancellation, called at every loop back-edge and function call.
+     */
+    private void safepoint() throws RuntimeException {
+        if (fuel != null) {
+            fuel.charge();
+        }
+        if (cancellation != null && cancellation.isCancelled()) {
+            throw cancellation.stopped(callStack.trace());
         }
     }
 
-    private void pushByType(Type type, Object value) throws RuntimeException {
-        ExecutorObject object;
-        if (type == null) {
-            objects.push(new NullObject());
-            return;
+    /**
+     * Consumes the break or continue a loop body completed with. Returns true when the loop is over,
+     * a return is left in place for the function call to consume.
+     */
+    private boolean endsLoop() {
+        if (completion == Completion.RETURN || completion == Completion.TAIL_CALL) {
+            return true;
         }
-        object = switch (type.getTypeName()) {
-            case INT_TYPE_NAME -> new IntegerObject((int) value);
-            case DOUBLE_TYPE_NAME -> new DoubleObject((double) value);
-            case STRING_TYPE_NAME -> new StringObject((String) value);
-            case BOOL_TYPE_NAME -> new BooleanObject((boolean) value);
-            default -> throw new RuntimeException("Invalid value");
-        };
-        objects.push(object);
-    }
-
-    private boolean matchOperatorToComparison(String operator, int comp) throws RuntimeException {
-        return switch (operator) {
-            case "==" -> comp == 0;
-            case "!=" -> comp != 0;
-            case ">" -> comp == 1;
-            case "<" -> comp == -1;
-            case "<=" -> comp == 0 || comp == -1;
-            case ">=" -> comp == 0 || comp == 1;
-            default -> throw new RuntimeException("Invalid operator");
+        var ended = completion == Completion.BREAK;
+        completion = Completion.NORMAL;
+        return ended;
+    }
+
+    /**
+     * Runs the arm when its pattern matches the subject, returns whether it did.
+     */
+    private boolean executeArm(InsideMatchInstruction arm) throws RuntimeException {
+        if (!arm.isDefault()) {
+            arm.getExpression().execute(this, arm.getScope());
+            if (!stack.popBool()) {
+                return false;
+            }
+        }
+        arm.getInstruction().execute(this, arm.getScope());
+        return true;
+    }
+
+    private void resume(SideExit exit) throws RuntimeException {
+        var guard = exit.getGuard();
+        var branch = exit.getCondition() ? guard.getTrueBlock() : guard.getFalseBlock();
+        if (branch != null) {
+            branch.execute(this, branch.getScope());
+        }
+        for (var continuation : exit.getContinuation()) {
+            var block = continuation.block();
+            var instructions = block.getInstructions();
+            for (var i = continuation.next(); i < instructions.size(); i++) {
+                if (completion != Completion.NORMAL) {
+                    return;
+                }
+                instructions.get(i).execute(this, block.getScope());
+            }
+        }
+    }
+
+    /**
+     * Feeds the kinds of the two topmost operands to the node profile.
+     * Returns the kind the typed fast path may assume, or {@link Specialization.State#GENERIC} when it may not be taken.
+     */
+    private Specialization.State observeOperands(Specialization specialization, Set<Specialization.State> supported) {
+        var observed = stateOf(stack.peekKind(0));
+        if (stack.peekKind(1) != stack.peekKind(0) || !supported.contains(observed)) {
+            observed = Specialization.State.GENERIC;
+        }
+        return specialization.observe(observed);
+    }
+
+    private static Specialization.State stateOf(ValueKind kind) {
+        return switch (kind) {
+            case INT -> Specialization.State.INT;
+            case DOUBLE -> Specialization.State.DOUBLE;
+            case STRING -> Specialization.State.STRING;
+            case BOOL -> Specialization.State.BOOL;
+            default -> Specialization.State.GENERIC;
         };
     }
 
+    private static boolean isSideEffectFree(Expression expression) {
+        return expression instanceof ConstExpression || expression instanceof Identifier;
+    }
+
+    private void callCompiled(ClosureCallTarget target, int argumentCount) throws RuntimeException {
+        var arguments = new Object[argumentCount];
+        for (var i = argumentCount - 1; i >= 0; i--) {
+            arguments[i] = toJavaValue(stack.popValue());
+        }
+        var result = target.call(arguments, callStack.size());
+        if (result instanceof Integer value) {
+            stack.pushInt(value);
+        } else if (result instanceof Double value) {
+            stack.pushDouble(value);
+        } else if (result instanceof Boolean value) {
+            stack.pushBool(value);
+        } else if (result instanceof String value) {
+            stack.pushString(value);
+        } else {
+            stack.pushNull();
+        }
+    }
+
+    private static Object toJavaValue(ExecutorObject value) {
+        if (value instanceof IntegerObject integerObject) {
+            return integerObject.getValue();
+        } else if (value instanceof DoubleObject doubleObject) {
+            return doubleObject.getValue();
+        } else if (value instanceof BooleanObject booleanObject) {
+            return booleanObject.isValue();
+        } else if (value instanceof StringObject stringObject) {
+            return stringObject.getValue();
+        }
+        return null;
+    }
+
+    private int frameBase(int depth) {
+        return depth == CallStack.LOCAL_FRAME ? localBase : CallStack.GLOBAL_FRAME_BASE;
+    }
+
     private void tryCastObject(ExecutorObject exp, Type type) throws RuntimeException {
         if (exp instanceof StringObject stringObject) {
             try {
                 stringToType(stringObject, type);
             } catch (NumberFormatException | CastException e) {
-                objects.push(new NullObject());
+                stack.pushNull();
             }
         } else if (exp instanceof IntegerObject integerObject) {
             integerToType(integerObject, type);
@@ -556,7 +1176,7 @@ public class Interpreter implements Executor {
             booleanToType(booleanObject, type);
         } else if (exp instanceof NullObject) {
             if (!type.isNullable()) throw new CastException("Unable to cast from null to non-nullable type");
-            objects.push(new NullObject());
+            stack.pushNull();
         } else {
             throw new RuntimeException("Unrecognized `as` expression");
         }
@@ -564,39 +1184,39 @@ public class Interpreter implements Executor {
 
     private void doubleToType(DoubleObject doubleObject, Type type) throws CastException {
         switch (type.getTypeName()) {
-            case STRING_TYPE_NAME -> objects.push(new StringObject(String.valueOf(doubleObject.getValue())));
-            case INT_TYPE_NAME -> objects.push(new IntegerObject((int)doubleObject.getValue()));
-            case DOUBLE_TYPE_NAME -> objects.push(new DoubleObject(doubleObject.getValue()));
+            case STRING_TYPE_NAME -> stack.pushString(String.valueOf(doubleObject.getValue()));
+            case INT_TYPE_NAME -> stack.pushInt((int)doubleObject.getValue());
+            case DOUBLE_TYPE_NAME -> stack.pushDouble(doubleObject.getValue());
             default -> throw new CastException("Invalid cast from double");
         }
     }
 
     private void integerToType(IntegerObject integerObject, Type type) throws CastException {
         switch (type.getTypeName()) {
-            case STRING_TYPE_NAME -> objects.push(new StringObject(String.valueOf(integerObject.getValue())));
-            case DOUBLE_TYPE_NAME -> objects.push(new DoubleObject(integerObject.getValue()));
-            case BOOL_TYPE_NAME -> objects.push(new BooleanObject(integerObject.getValue() != 0));
-            case INT_TYPE_NAME -> objects.push(new IntegerObject(integerObject.getValue()));
+            case STRING_TYPE_NAME -> stack.pushString(String.valueOf(integerObject.getValue()));
+            case DOUBLE_TYPE_NAME -> stack.pushDouble(integerObject.getValue());
+            case BOOL_TYPE_NAME -> stack.pushBool(integerObject.getValue() != 0);
+            case INT_TYPE_NAME -> stack.pushInt(integerObject.getValue());
             default -> throw new CastException("Invalid cast from int");
         }
     }
 
     private void stringToType(StringObject stringObject, Type type) throws CastException {
         switch (type.getTypeName()) {
-            case INT_TYPE_NAME -> objects.push(new IntegerObject(Integer.parseInt(stringObject.getValue())));
-            case DOUBLE_TYPE_NAME -> objects.push(new DoubleObject(Double.parseDouble(stringObject.getValue())));
-            case BOOL_TYPE_NAME -> objects.push(new BooleanObject(Boolean.parseBoolean(stringObject.getValue())));
-            case STRING_TYPE_NAME -> objects.push(new StringObject(stringObject.getValue()));
+            case INT_TYPE_NAME -> stack.pushInt(Integer.parseInt(stringObject.getValue()));
+            case DOUBLE_TYPE_NAME -> stack.pushDouble(Double.parseDouble(stringObject.getValue()));
+            case BOOL_TYPE_NAME -> stack.pushBool(Boolean.parseBoolean(stringObject.getValue()));
+            case STRING_TYPE_NAME -> stack.pushString(stringObject.getValue());
             default -> throw new CastException("Invalid cast from string");
         }
     }
 
     private void booleanToType(BooleanObject booleanObject, Type type) throws CastException {
         switch (type.getTypeName()) {
-            case STRING_TYPE_NAME -> objects.push(new StringObject(String.valueOf(booleanObject.isValue())));
-            case INT_TYPE_NAME -> objects.push(new IntegerObject(booleanObject.isValue() ? 1 : 0));
-            case DOUBLE_TYPE_NAME -> objects.push(new DoubleObject(booleanObject.isValue() ? 1 : 0));
-            case BOOL_TYPE_NAME -> objects.push(new BooleanObject(booleanObject.isValue()));
+            case STRING_TYPE_NAME -> stack.pushString(String.valueOf(booleanObject.isValue()));
+            case INT_TYPE_NAME -> stack.pushInt(booleanObject.isValue() ? 1 : 0);
+            case DOUBLE_TYPE_NAME -> stack.pushDouble(booleanObject.isValue() ? 1 : 0);
+            case BOOL_TYPE_NAME -> stack.pushBool(booleanObject.isValue());
             default -> throw new CastException("Invalid cast from bool");
         }
     }
@@ -0,0 +1,75 @@
+package executor;
+
+import executor.ir.ExecutorObject;
+
+/**
+ * Value stack used by the {@link Interpreter}.
+ * Besides temporary operands it also holds activation records: the global frame starts at index 0
+ * and every call reserves its frame right above the arguments pushed by the caller.
+ * Implementations decide how values are represented, typed operations avoid boxing wherever the representation allows it.
+ */
+public interface OperandStack {
+
+    void pushInt(int value);
+
+    int popInt();
+
+    void pushDouble(double value);
+
+    double popDouble();
+
+    void pushBool(boolean value);
+
+    boolean popBool();
+
+    void pushString(String value);
+
+    String popString();
+
+    void pushNull();
+
+    void pushValue(ExecutorObject value);
+
+    ExecutorObject popValue();
+
+    ExecutorObject valueAt(int index);
+
+    /**
+     * Returns the int stored at the given index without boxing it.
+     */
+    int intAt(int index);
+
+    /**
+     * Returns the kind of the value {@code depth} positions below the top without popping or boxing it.
+     */
+    ValueKind peekKind(int depth);
+
+    void drop();
+
+    /**
+     * Replaces the two topmost values with the lower one, or with the top one if the lower one is null.
+     */
+    void coalesceNull();
+
+    void load(int index);
+
+    void store(int index);
+
+    void copyTo(int index);
+
+    /**
+     * Moves the topmost value to the given index and discards everything above it.
+     */
+    void moveTop(int index);
+
+    /**
+     * Moves the topmost {@code count} values, in order, to start at the given index and discards everything above them.
+     */
+    void moveTop(int index, int count);
+
+    void reserve(int count);
+
+    void truncate(int size);
+
+    int size();
+}
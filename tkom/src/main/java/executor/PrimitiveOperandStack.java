@@ -0,0 +1,198 @@
+package executor;
+
+import executor.ir.*;
+
+import java.util.Arrays;
+
+/**
+ * Operand stack that keeps int, bool and double values unboxed.
+ * Every slot is described by a kind tag; numeric values live in {@code bits} (doubles as raw long bits)
+ * and strings in {@code references}. Boxed {@link ExecutorObject}s are only created when a caller asks for one.
+ */
+public class PrimitiveOperandStack implements OperandStack {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOL = 3;
+    private static final byte STRING = 4;
+
+    private static final ValueKind[] VALUE_KINDS = ValueKind.values();
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private long[] bits = new long[INITIAL_CAPACITY];
+    private String[] references = new String[INITIAL_CAPACITY];
+    private int size = 0;
+
+    @Override
+    public void pushInt(int value) {
+        push(INT, value, null);
+    }
+
+    @Override
+    public int popInt() {
+        return (int) bits[--size];
+    }
+
+    @Override
+    public void pushDouble(double value) {
+        push(DOUBLE, Double.doubleToRawLongBits(value), null);
+    }
+
+    @Override
+    public double popDouble() {
+        return Double.longBitsToDouble(bits[--size]);
+    }
+
+    @Override
+    public void pushBool(boolean value) {
+        push(BOOL, value ? 1 : 0, null);
+    }
+
+    @Override
+    public boolean popBool() {
+        return bits[--size] != 0;
+    }
+
+    @Override
+    public void pushString(String value) {
+        push(STRING, 0, value);
+    }
+
+    @Override
+    public String popString() {
+        return references[--size];
+    }
+
+    @Override
+    public void pushNull() {
+        push(NULL, 0, null);
+    }
+
+    @Override
+    public void pushValue(ExecutorObject value) {
+        if (value instanceof IntegerObject integerObject) {
+            pushInt(integerObject.getValue());
+        } else if (value instanceof DoubleObject doubleObject) {
+            pushDouble(doubleObject.getValue());
+        } else if (value instanceof BooleanObject booleanObject) {
+            pushBool(booleanObject.isValue());
+        } else if (value instanceof StringObject stringObject) {
+            pushString(stringObject.getValue());
+        } else {
+            pushNull();
+        }
+    }
+
+    @Override
+    public ExecutorObject popValue() {
+        return valueAt(--size);
+    }
+
+    @Override
+    public ExecutorObject valueAt(int index) {
+        return switch (kinds[index]) {
+            case INT -> IntegerObject.of((int) bits[index]);
+            case DOUBLE -> DoubleObject.of(Double.longBitsToDouble(bits[index]));
+            case BOOL -> BooleanObject.of(bits[index] != 0);
+            case STRING -> StringObject.of(references[index]);
+            default -> NullObject.NULL;
+        };
+    }
+
+    @Override
+    public int intAt(int index) {
+        return (int) bits[index];
+    }
+
+    @Override
+    public ValueKind peekKind(int depth) {
+        return VALUE_KINDS[kinds[size - 1 - depth]];
+    }
+
+    @Override
+    public void drop() {
+        size--;
+    }
+
+    @Override
+    public void coalesceNull() {
+        size--;
+        if (kinds[size - 1] == NULL) {
+            copy(size, size - 1);
+        }
+    }
+
+    @Override
+    public void load(int index) {
+        push(kinds[index], bits[index], references[index]);
+    }
+
+    @Override
+    public void store(int index) {
+        copy(--size, index);
+    }
+
+    @Override
+    public void copyTo(int index) {
+        copy(size - 1, index);
+    }
+
+    @Override
+    public void moveTop(int index) {
+        copy(size - 1, index);
+        size = index + 1;
+    }
+
+    @Override
+    public void moveTop(int index, int count) {
+        var from = size - count;
+        for (var i = 0; i < count; i++) {
+            copy(from + i, index + i);
+        }
+        size = index + count;
+    }
+
+    @Override
+    public void reserve(int count) {
+        ensureCapacity(size + count);
+        size += count;
+    }
+
+    @Override
+    public void truncate(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void push(byte kind, long value, String reference) {
+        if (size == kinds.length) {
+            ensureCapacity(size + 1);
+        }
+        kinds[size] = kind;
+        bits[size] = value;
+        references[size] = reference;
+        size++;
+    }
+
+    private void copy(int from, int to) {
+        kinds[to] = kinds[from];
+        bits[to] = bits[from];
+        references[to] = references[from];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > kinds.length) {
+            var newCapacity = Math.max(capacity, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            bits = Arrays.copyOf(bits, newCapacity);
+            references = Arrays.copyOf(references, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package executor;
+
+/**
+ * Runtime kind of a value held on the {@link OperandStack}.
+ */
+public enum ValueKind {
+    NULL,
+    INT,
+    DOUBLE,
+    BOOL,
+    STRING
+}
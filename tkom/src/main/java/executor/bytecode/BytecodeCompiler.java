@@ -0,0 +1,584 @@
+package executor.bytecode;
+
+import executor.CallStack;
+import executor.Executor;
+import executor.exceptions.RuntimeException;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import executor.ir.instructions.*;
+
+import java.util.*;
+
+import static executor.bytecode.Opcode.*;
+
+/**
+ * Translates the IR into {@link BytecodeProgram}.
+ * Walks the tree once through the {@link Executor} contract, but instead of evaluating nodes emits their code.
+ * Only functions reachable from the global block are compiled.
+ */
+public class BytecodeCompiler implements Executor {
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String STRING_TYPE_NAME = "string";
+    private static final String DOUBLE_TYPE_NAME = "double";
+    private static final String BOOL_TYPE_NAME = "bool";
+
+    private static final Map<Class<? extends Expression>, Integer> FUSED_INT_JUMPS = Map.of(
+            IntEq.class, JUMP_UNLESS_INT_EQ, IntNe.class, JUMP_UNLESS_INT_NE, IntLt.class, JUMP_UNLESS_INT_LT,
+            IntLe.class, JUMP_UNLESS_INT_LE, IntGt.class, JUMP_UNLESS_INT_GT, IntGe.class, JUMP_UNLESS_INT_GE
+    );
+
+    private static final Map<Integer, Integer> INT_CONSTANT_FORMS = Map.of(INT_ADD, INT_ADD_CONST, INT_SUB, INT_SUB_CONST);
+
+    private final GlobalBlock global;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndexes = new HashMap<>();
+    private final Map<String, Integer> functionIndexes = new HashMap<>();
+    private final List<UserFunction> pendingFunctions = new ArrayList<>();
+
+    private final Deque<Loop> loops = new ArrayDeque<>();
+    private final Deque<List<Integer>> matchExits = new ArrayDeque<>();
+    private CodeBuffer code;
+
+    public BytecodeCompiler(GlobalBlock global) {
+        this.global = global;
+    }
+
+    public BytecodeProgram compile() throws RuntimeException {
+        code = new CodeBuffer();
+        global.execute(this, global.getGlobalScope());
+        code.op(HALT, 0);
+        var main = new CompiledFunction("<global>", code.toArray(), 0, global.getFrameSize(), global.getFrameSize() + code.maxDepth());
+
+        var functions = new ArrayList<CompiledFunction>();
+        for (var i = 0; i < pendingFunctions.size(); i++) {
+            functions.add(compileFunction(pendingFunctions.get(i)));
+        }
+        return new BytecodeProgram(main, functions.toArray(new CompiledFunction[0]), constants.toArray());
+    }
+
+    private CompiledFunction compileFunction(UserFunction function) throws RuntimeException {
+        code = new CodeBuffer();
+        var body = function.getInstructions();
+        body.execute(this, body.getScope());
+        code.op(CONST_NULL, 1);
+        code.op(RETURN, -1);
+        var arity = function.getScope().getVariablesOrder().size();
+        return new CompiledFunction(function.getName(), code.toArray(), arity, function.getFrameSize(), function.getFrameSize() + code.maxDepth());
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) throws RuntimeException {
+        for (var instruction : globalBlock.getInstructions()) {
+            instruction.execute(this, scope);
+        }
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) throws RuntimeException {
+        for (var instruction : block.getInstructions()) {
+            instruction.execute(this, scope);
+        }
+    }
+
+    @Override
+    public void execute(AddExpression addExpression, Scope scope) throws RuntimeException {
+        binary(addExpression.getLeftExpression(), addExpression.getRightExpression(), ADD, scope);
+    }
+
+    @Override
+    public void execute(AndExpression andExpression, Scope scope) throws RuntimeException {
+        andExpression.getLeftExpression().execute(this, scope);
+        var whenFalse = code.jump(JUMP_IF_FALSE, -1);
+        andExpression.getRightExpression().execute(this, scope);
+        var end = code.jump(JUMP, 0);
+        code.patch(whenFalse);
+        code.op(CONST_BOOL, 1, 0);
+        code.patch(end);
+    }
+
+    @Override
+    public void execute(AsExpression asExpression, Scope scope) throws RuntimeException {
+        asExpression.getExpression().execute(this, scope);
+        if (asExpression.getType() == null) {
+            code.op(POP, -1);
+            code.op(CONST_NULL, 1);
+            return;
+        }
+        code.op(AS, 0, constant(asExpression.getType()));
+    }
+
+    @Override
+    public void execute(AssignmentExpression assignmentExpression, Scope scope) throws RuntimeException {
+        assignmentExpression.getRightSide().execute(this, scope);
+        var opcode = assignmentExpression.getDepth() == CallStack.GLOBAL_FRAME ? SET_GLOBAL : SET_LOCAL;
+        code.op(opcode, 0, assignmentExpression.getSlot());
+    }
+
+    @Override
+    public void execute(BaseExpression baseExpression, Scope scope) throws RuntimeException {
+        baseExpression.getExpression().execute(this, scope);
+    }
+
+    @Override
+    public void execute(CompExpression compExpression, Scope scope) throws RuntimeException {
+        throw new RuntimeException("Comparison was not specialized during semantic check");
+    }
+
+    @Override
+    public void execute(ConstExpression constExpression, Scope scope) throws RuntimeException {
+        var type = constExpression.getType();
+        var value = constExpression.getValue();
+        if (type == null) {
+            code.op(CONST_NULL, 1);
+            return;
+        }
+        switch (type.getTypeName()) {
+            case INT_TYPE_NAME -> code.op(CONST_INT, 1, (int) value);
+            case DOUBLE_TYPE_NAME -> code.op(CONST_DOUBLE, 1, constant(value));
+            case STRING_TYPE_NAME -> code.op(CONST_STRING, 1, constant(value));
+            case BOOL_TYPE_NAME -> code.op(CONST_BOOL, 1, (boolean) value ? 1 : 0);
+            default -> throw new RuntimeException("Invalid value");
+        }
+    }
+
+    @Override
+    public void execute(DivExpression divExpression, Scope scope) throws RuntimeException {
+        binary(divExpression.getLeftExpression(), divExpression.getRightExpression(), DIV, scope);
+    }
+
+    @Override
+    public void execute(DivIntExpression divIntExpression, Scope scope) throws RuntimeException {
+        binary(divIntExpression.getLeftExpression(), divIntExpression.getRightExpression(), DIV_INT, scope);
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) throws RuntimeException {
+        var arguments = functionCall.getArguments();
+        for (var arg : arguments) {
+            arg.execute(this, scope);
+        }
+        code.op(CALL, 1 - arguments.size(), functionIndex(functionCall.getName()), arguments.size());
+    }
+
+    @Override
+    public void execute(Identifier identifier, Scope scope) throws RuntimeException {
+        var opcode = identifier.getDepth() == CallStack.GLOBAL_FRAME ? LOAD_GLOBAL : LOAD_LOCAL;
+        code.op(opcode, 1, identifier.getSlot());
+    }
+
+    @Override
+    public void execute(InlinedCall inlinedCall, Scope scope) throws RuntimeException {
+        for (var binding : inlinedCall.getBindings()) {
+            execute(binding, scope);
+        }
+        inlinedCall.getBody().execute(this, scope);
+    }
+
+    @Override
+    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) throws RuntimeException {
+        throw new RuntimeException("Match comparison was not specialized during semantic check");
+    }
+
+    @Override
+    public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+        code.op(IS_LOCAL, 1, insideMatchTypeExpression.getSlot(), kindOf(insideMatchTypeExpression.getType()));
+    }
+
+    @Override
+    public void execute(IsExpression isExpression, Scope scope) throws RuntimeException {
+        isExpression.getExpression().execute(this, scope);
+        code.op(IS, 0, kindOf(isExpression.getType()));
+    }
+
+    @Override
+    public void execute(LibFunctionCall libFunctionCall, Scope scope) throws RuntimeException {
+        for (var arg : libFunctionCall.getArguments()) {
+            arg.execute(this, scope);
+        }
+        switch (libFunctionCall.getName()) {
+            case "print" -> code.op(PRINT, 0);
+            case "get_input" -> code.op(GET_INPUT, 1);
+            default -> throw new RuntimeException(String.format("Unknown library function: %s", libFunctionCall.getName()));
+        }
+    }
+
+    @Override
+    public void execute(ModExpression modExpression, Scope scope) throws RuntimeException {
+        binary(modExpression.getLeftExpression(), modExpression.getRightExpression(), MOD, scope);
+    }
+
+    @Override
+    public void execute(MulExpression mulExpression, Scope scope) throws RuntimeException {
+        binary(mulExpression.getLeftExpression(), mulExpression.getRightExpression(), MUL, scope);
+    }
+
+    @Override
+    public void execute(NullCheckExpression nullCheckExpression, Scope scope) throws RuntimeException {
+        binary(nullCheckExpression.getLeftExpression(), nullCheckExpression.getRightExpression(), COALESCE, scope);
+    }
+
+    @Override
+    public void execute(OrExpression orExpression, Scope scope) throws RuntimeException {
+        binary(orExpression.getLeftExpression(), orExpression.getRightExpression(), BOOL_OR, scope);
+    }
+
+    @Override
+    public void execute(SubExpression subExpression, Scope scope) throws RuntimeException {
+        binary(subExpression.getLeftExpression(), subExpression.getRightExpression(), SUB, scope);
+    }
+
+    @Override
+    public void execute(UnaryExpression unaryExpression, Scope scope) throws RuntimeException {
+        unaryExpression.getExpression().execute(this, scope);
+        code.op(unaryExpression.getUnaryOperator().equals("!") ? NOT : NEG, 0);
+    }
+
+    @Override
+    public void execute(IntAdd intAdd, Scope scope) throws RuntimeException {
+        typed(intAdd, INT_ADD, scope);
+    }
+
+    @Override
+    public void execute(IntSub intSub, Scope scope) throws RuntimeException {
+        typed(intSub, INT_SUB, scope);
+    }
+
+    @Override
+    public void execute(IntMul intMul, Scope scope) throws RuntimeException {
+        typed(intMul, INT_MUL, scope);
+    }
+
+    @Override
+    public void execute(IntDivInt intDivInt, Scope scope) throws RuntimeException {
+        typed(intDivInt, INT_DIV_INT, scope);
+    }
+
+    @Override
+    public void execute(IntMod intMod, Scope scope) throws RuntimeException {
+        typed(intMod, INT_MOD, scope);
+    }
+
+    @Override
+    public void execute(DoubleAdd doubleAdd, Scope scope) throws RuntimeException {
+        typed(doubleAdd, DOUBLE_ADD, scope);
+    }
+
+    @Override
+    public void execute(DoubleSub doubleSub, Scope scope) throws RuntimeException {
+        typed(doubleSub, DOUBLE_SUB, scope);
+    }
+
+    @Override
+    public void execute(DoubleMul doubleMul, Scope scope) throws RuntimeException {
+        typed(doubleMul, DOUBLE_MUL, scope);
+    }
+
+    @Override
+    public void execute(DoubleDiv doubleDiv, Scope scope) throws RuntimeException {
+        typed(doubleDiv, DOUBLE_DIV, scope);
+    }
+
+    @Override
+    public void execute(DoubleDivInt doubleDivInt, Scope scope) throws RuntimeException {
+        typed(doubleDivInt, DOUBLE_DIV_INT, scope);
+    }
+
+    @Override
+    public void execute(IntDiv intDiv, Scope scope) throws RuntimeException {
+        typed(intDiv, INT_DIV, scope);
+    }
+
+    @Override
+    public void execute(StringConcat stringConcat, Scope scope) throws RuntimeException {
+        typed(stringConcat, STRING_CONCAT, scope);
+    }
+
+    @Override
+    public void execute(IntEq intEq, Scope scope) throws RuntimeException {
+        typed(intEq, INT_EQ, scope);
+    }
+
+    @Override
+    public void execute(IntNe intNe, Scope scope) throws RuntimeException {
+        typed(intNe, INT_NE, scope);
+    }
+
+    @Override
+    public void execute(IntLt intLt, Scope scope) throws RuntimeException {
+        typed(intLt, INT_LT, scope);
+    }
+
+    @Override
+    public void execute(IntLe intLe, Scope scope) throws RuntimeException {
+        typed(intLe, INT_LE, scope);
+    }
+
+    @Override
+    public void execute(IntGt intGt, Scope scope) throws RuntimeException {
+        typed(intGt, INT_GT, scope);
+    }
+
+    @Override
+    public void execute(IntGe intGe, Scope scope) throws RuntimeException {
+        typed(intGe, INT_GE, scope);
+    }
+
+    @Override
+    public void execute(DoubleEq doubleEq, Scope scope) throws RuntimeException {
+        typed(doubleEq, DOUBLE_EQ, scope);
+    }
+
+    @Override
+    public void execute(DoubleNe doubleNe, Scope scope) throws RuntimeException {
+        typed(doubleNe, DOUBLE_NE, scope);
+    }
+
+    @Override
+    public void execute(DoubleLt doubleLt, Scope scope) throws RuntimeException {
+        typed(doubleLt, DOUBLE_LT, scope);
+    }
+
+    @Override
+    public void execute(DoubleLe doubleLe, Scope scope) throws RuntimeException {
+        typed(doubleLe, DOUBLE_LE, scope);
+    }
+
+    @Override
+    public void execute(DoubleGt doubleGt, Scope scope) throws RuntimeException {
+        typed(doubleGt, DOUBLE_GT, scope);
+    }
+
+    @Override
+    public void execute(DoubleGe doubleGe, Scope scope) throws RuntimeException {
+        typed(doubleGe, DOUBLE_GE, scope);
+    }
+
+    @Override
+    public void execute(StringEq stringEq, Scope scope) throws RuntimeException {
+        typed(stringEq, STRING_EQ, scope);
+    }
+
+    @Override
+    public void execute(StringNe stringNe, Scope scope) throws RuntimeException {
+        typed(stringNe, STRING_NE, scope);
+    }
+
+    @Override
+    public void execute(StringLt stringLt, Scope scope) throws RuntimeException {
+        typed(stringLt, STRING_LT, scope);
+    }
+
+    @Override
+    public void execute(StringLe stringLe, Scope scope) throws RuntimeException {
+        typed(stringLe, STRING_LE, scope);
+    }
+
+    @Override
+    public void execute(StringGt stringGt, Scope scope) throws RuntimeException {
+        typed(stringGt, STRING_GT, scope);
+    }
+
+    @Override
+    public void execute(StringGe stringGe, Scope scope) throws RuntimeException {
+        typed(stringGe, STRING_GE, scope);
+    }
+
+    @Override
+    public void execute(IntNeg intNeg, Scope scope) throws RuntimeException {
+        intNeg.getExpression().execute(this, scope);
+        code.op(INT_NEG, 0);
+    }
+
+    @Override
+    public void execute(DoubleNeg doubleNeg, Scope scope) throws RuntimeException {
+        doubleNeg.getExpression().execute(this, scope);
+        code.op(DOUBLE_NEG, 0);
+    }
+
+    @Override
+    public void execute(BoolNot boolNot, Scope scope) throws RuntimeException {
+        boolNot.getExpression().execute(this, scope);
+        code.op(BOOL_NOT, 0);
+    }
+
+    @Override
+    public void execute(BreakInstruction breakInstruction, Scope scope) {
+        var loop = loops.peek();
+        if (loop != null) {
+            loop.exits.add(code.jump(JUMP, 0));
+        }
+    }
+
+    @Override
+    public void execute(ContinueInstruction continueInstruction, Scope scope) {
+        var loop = loops.peek();
+        if (loop != null) {
+            code.op(JUMP, 0, loop.start);
+        }
+    }
+
+    @Override
+    public void execute(IfInstruction ifInstruction, Scope scope) throws RuntimeException {
+        var whenFalse = conditionalJump(ifInstruction.getCondition(), scope);
+        var trueBlock = ifInstruction.getTrueBlock();
+        trueBlock.execute(this, trueBlock.getScope());
+        var falseBlock = ifInstruction.getFalseBlock();
+        if (falseBlock == null) {
+            code.patch(whenFalse);
+            return;
+        }
+        var end = code.jump(JUMP, 0);
+        code.patch(whenFalse);
+        falseBlock.execute(this, falseBlock.getScope());
+        code.patch(end);
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) throws RuntimeException {
+        var armScope = insideMatchInstruction.getScope();
+        if (insideMatchInstruction.isDefault()) {
+            insideMatchInstruction.getInstruction().execute(this, armScope);
+            return;
+        }
+        var next = conditionalJump(insideMatchInstruction.getExpression(), armScope);
+        insideMatchInstruction.getInstruction().execute(this, armScope);
+        matchExits.peek().add(code.jump(JUMP, 0));
+        code.patch(next);
+    }
+
+    @Override
+    public void execute(InstructionExpression instructionExpression, Scope scope) throws RuntimeException {
+        if (instructionExpression.getExpression() instanceof AssignmentExpression assignment) {
+            assignment.getRightSide().execute(this, scope);
+            var opcode = assignment.getDepth() == CallStack.GLOBAL_FRAME ? STORE_GLOBAL : STORE_LOCAL;
+            code.op(opcode, -1, assignment.getSlot());
+            return;
+        }
+        instructionExpression.getExpression().execute(this, scope);
+        code.op(POP, -1);
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) throws RuntimeException {
+        matchInstruction.getExpression().execute(this, scope);
+        code.op(STORE_LOCAL, -1, matchInstruction.getSlot());
+        var exits = new ArrayList<Integer>();
+        matchExits.push(exits);
+        for (var instruction : matchInstruction.getMatchStatements()) {
+            instruction.execute(this, matchInstruction.getScope());
+        }
+        matchExits.pop();
+        exits.forEach(code::patch);
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) throws RuntimeException {
+        if (returnInstruction.isTailCall()) {
+            var call = (FunctionCall) returnInstruction.getValue();
+            var arguments = call.getArguments();
+            for (var arg : arguments) {
+                arg.execute(this, scope);
+            }
+            code.op(TAIL_CALL, -arguments.size(), functionIndex(call.getName()), arguments.size());
+            return;
+        }
+        if (returnInstruction.getValue() != null) {
+            returnInstruction.getValue().execute(this, scope);
+        } else {
+            code.op(CONST_NULL, 1);
+        }
+        code.op(RETURN, -1);
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) throws RuntimeException {
+        varDeclaration.getValue().execute(this, scope);
+        code.op(STORE_LOCAL, -1, varDeclaration.getSlot());
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) throws RuntimeException {
+        var loop = new Loop(code.position());
+        var exit = conditionalJump(whileInstruction.getCondition(), scope);
+        loops.push(loop);
+        var body = whileInstruction.getStatements();
+        body.execute(this, body.getScope());
+        loops.pop();
+        code.op(JUMP, 0, loop.start);
+        code.patch(exit);
+        loop.exits.forEach(code::patch);
+    }
+
+    /**
+     * Emits a condition followed by a jump taken when it does not hold; int comparisons jump without materializing a bool.
+     */
+    private int conditionalJump(Expression condition, Scope scope) throws RuntimeException {
+        var fused = FUSED_INT_JUMPS.get(condition.getClass());
+        if (fused == null) {
+            condition.execute(this, scope);
+            return code.jump(JUMP_IF_FALSE, -1);
+        }
+        var comparison = (TypedBinaryExpression) condition;
+        comparison.getLeftExpression().execute(this, scope);
+        comparison.getRightExpression().execute(this, scope);
+        return code.jump(fused, -2);
+    }
+
+    private void binary(Expression left, Expression right, int opcode, Scope scope) throws RuntimeException {
+        left.execute(this, scope);
+        right.execute(this, scope);
+        code.op(opcode, -1);
+    }
+
+    private void typed(TypedBinaryExpression expression, int opcode, Scope scope) throws RuntimeException {
+        var constantForm = INT_CONSTANT_FORMS.get(opcode);
+        if (constantForm != null && expression.getRightExpression() instanceof ConstExpression constant) {
+            expression.getLeftExpression().execute(this, scope);
+            code.op(constantForm, 0, (int) constant.getValue());
+            return;
+        }
+        binary(expression.getLeftExpression(), expression.getRightExpression(), opcode, scope);
+    }
+
+    private int functionIndex(String name) {
+        var index = functionIndexes.get(name);
+        if (index == null) {
+            index = pendingFunctions.size();
+            functionIndexes.put(name, index);
+            pendingFunctions.add((UserFunction) global.getFunctions().get(name));
+        }
+        return index;
+    }
+
+    private int constant(Object value) {
+        return constantIndexes.computeIfAbsent(value, v -> {
+            constants.add(v);
+            return constants.size() - 1;
+        });
+    }
+
+    private static int kindOf(Type type) {
+        if (type == null) {
+            return KIND_NULL;
+        }
+        return switch (type.getTypeName()) {
+            case INT_TYPE_NAME -> KIND_INT;
+            case DOUBLE_TYPE_NAME -> KIND_DOUBLE;
+            case STRING_TYPE_NAME -> KIND_STRING;
+            case BOOL_TYPE_NAME -> KIND_BOOL;
+            default -> KIND_NONE;
+        };
+    }
+
+    private static class Loop {
+        private final int start;
+        private final List<Integer> exits = new ArrayList<>();
+
+        private Loop(int start) {
+            this.start = start;
+        }
+    }
+}
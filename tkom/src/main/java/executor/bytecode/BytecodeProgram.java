@@ -0,0 +1,16 @@
+package executor.bytecode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Output of the {@link BytecodeCompiler}: the global block, every reachable user function and the shared constant pool.
+ */
+@AllArgsConstructor
+@Getter
+public class BytecodeProgram {
+
+    private final CompiledFunction main;
+    private final CompiledFunction[] functions;
+    private final Object[] constants;
+}
@@ -0,0 +1,62 @@
+package executor.bytecode;
+
+import java.util.Arrays;
+
+/**
+ * Growable instruction stream of a single function.
+ * Tracks how deep the operand stack can get, so the VM can size the frame before entering the function.
+ */
+class CodeBuffer {
+
+    private int[] code = new int[64];
+    private int size = 0;
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    void op(int opcode, int stackEffect) {
+        append(opcode);
+        depth += stackEffect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    void op(int opcode, int stackEffect, int operand) {
+        op(opcode, stackEffect);
+        append(operand);
+    }
+
+    void op(int opcode, int stackEffect, int firstOperand, int secondOperand) {
+        op(opcode, stackEffect, firstOperand);
+        append(secondOperand);
+    }
+
+    /**
+     * Emits a jump with an unknown target and returns the position of the operand to patch later.
+     */
+    int jump(int opcode, int stackEffect) {
+        op(opcode, stackEffect, -1);
+        return size - 1;
+    }
+
+    void patch(int position) {
+        code[position] = size;
+    }
+
+    int position() {
+        return size;
+    }
+
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(code, size);
+    }
+
+    private void append(int value) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        code[size++] = value;
+    }
+}
@@ -0,0 +1,19 @@
+package executor.bytecode;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Linear code of a single function (or of the global block) together with the shape of its frame.
+ * {@code maxStack} covers the frame slots and the deepest operand stack the code can reach.
+ */
+@AllArgsConstructor
+@Getter
+public class CompiledFunction {
+
+    private final String name;
+    private final int[] code;
+    private final int arity;
+    private final int frameSize;
+    private final int maxStack;
+}
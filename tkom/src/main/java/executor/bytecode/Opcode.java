@@ -0,0 +1,102 @@
+package executor.bytecode;
+
+/**
+ * Instruction set of the {@link VirtualMachine}.
+ * Every instruction is a single int followed by its inline operands (listed next to each opcode).
+ */
+public final class Opcode {
+
+    private Opcode() {}
+
+    // constants and frame access
+    public static final int CONST_INT = 0;          // value
+    public static final int CONST_DOUBLE = 1;       // constant index
+    public static final int CONST_STRING = 2;       // constant index
+    public static final int CONST_BOOL = 3;         // 0 / 1
+    public static final int CONST_NULL = 4;
+    public static final int LOAD_LOCAL = 5;         // slot
+    public static final int LOAD_GLOBAL = 6;        // slot
+    public static final int STORE_LOCAL = 7;        // slot, pops the value
+    public static final int SET_LOCAL = 8;          // slot, keeps the value on the stack
+    public static final int SET_GLOBAL = 9;         // slot, keeps the value on the stack
+    public static final int POP = 10;
+
+    // operators resolved by semantic check
+    public static final int INT_ADD = 11;
+    public static final int INT_SUB = 12;
+    public static final int INT_MUL = 13;
+    public static final int INT_DIV_INT = 14;
+    public static final int INT_MOD = 15;
+    public static final int INT_DIV = 16;
+    public static final int DOUBLE_ADD = 17;
+    public static final int DOUBLE_SUB = 18;
+    public static final int DOUBLE_MUL = 19;
+    public static final int DOUBLE_DIV = 20;
+    public static final int DOUBLE_DIV_INT = 21;
+    public static final int STRING_CONCAT = 22;
+    public static final int INT_EQ = 23;
+    public static final int INT_NE = 24;
+    public static final int INT_LT = 25;
+    public static final int INT_LE = 26;
+    public static final int INT_GT = 27;
+    public static final int INT_GE = 28;
+    public static final int DOUBLE_EQ = 29;
+    public static final int DOUBLE_NE = 30;
+    public static final int DOUBLE_LT = 31;
+    public static final int DOUBLE_LE = 32;
+    public static final int DOUBLE_GT = 33;
+    public static final int DOUBLE_GE = 34;
+    public static final int STRING_EQ = 35;
+    public static final int STRING_NE = 36;
+    public static final int STRING_LT = 37;
+    public static final int STRING_LE = 38;
+    public static final int STRING_GT = 39;
+    public static final int STRING_GE = 40;
+    public static final int INT_NEG = 41;
+    public static final int DOUBLE_NEG = 42;
+    public static final int BOOL_NOT = 43;
+    public static final int BOOL_OR = 44;
+
+    // operators checked at runtime (nullable or mixed operands)
+    public static final int ADD = 45;
+    public static final int SUB = 46;
+    public static final int MUL = 47;
+    public static final int DIV = 48;
+    public static final int DIV_INT = 49;
+    public static final int MOD = 50;
+    public static final int NEG = 51;
+    public static final int NOT = 52;
+    public static final int COALESCE = 53;
+    public static final int IS = 54;                // value kind
+    public static final int IS_LOCAL = 55;          // slot, value kind
+    public static final int AS = 56;                // constant index of the target type
+
+    // control flow
+    public static final int JUMP = 57;              // target
+    public static final int JUMP_IF_FALSE = 58;     // target, pops the condition
+    public static final int CALL = 59;              // function index, argument count
+    public static final int RETURN = 60;
+    public static final int PRINT = 61;
+    public static final int GET_INPUT = 62;
+    public static final int HALT = 63;
+
+    // fused forms emitted for the most common statement shapes
+    public static final int STORE_GLOBAL = 64;      // slot, pops the value
+    public static final int JUMP_UNLESS_INT_EQ = 65;    // target, pops both operands
+    public static final int JUMP_UNLESS_INT_NE = 66;    // target, pops both operands
+    public static final int JUMP_UNLESS_INT_LT = 67;    // target, pops both operands
+    public static final int JUMP_UNLESS_INT_LE = 68;    // target, pops both operands
+    public static final int JUMP_UNLESS_INT_GT = 69;    // target, pops both operands
+    public static final int JUMP_UNLESS_INT_GE = 70;    // target, pops both operands
+    public static final int INT_ADD_CONST = 71;     // right operand value
+    public static final int INT_SUB_CONST = 72;     // right operand value
+    public static final int TAIL_CALL = 73;         // function index, argument count, replaces the current frame
+
+    // value kinds used by IS / IS_LOCAL and by the VM's tag array
+    public static final int KIND_NULL = 0;
+    public static final int KIND_INT = 1;
+    public static final int KIND_DOUBLE = 2;
+    public static final int KIND_BOOL = 3;
+    public static final int KIND_STRING = 4;
+    public static final int KIND_NONE = -1;
+}
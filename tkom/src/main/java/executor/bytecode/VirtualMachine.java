@@ -0,0 +1,604 @@
+package executor.bytecode;
+
+import executor.Engine;
+import executor.exceptions.CastException;
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import executor.ir.GlobalBlock;
+import executor.ir.Type;
+import executor.stdlib.StdLibImpl;
+
+import java.util.Arrays;
+
+import static executor.bytecode.Opcode.*;
+
+/**
+ * Dispatch-loop interpreter of {@link BytecodeProgram}.
+ * Values live unboxed in three parallel arrays: a kind tag, raw bits (ints, bools and doubles) and a reference (strings).
+ * Frames are windows of the same arrays, exactly like in the tree-walking interpreter: the global frame starts at 0
+ * and a callee's frame starts at its first argument.
+ * Calls never recurse on the Java stack, return addresses live in heap arrays grown on demand,
+ * so the call depth is only bounded by the configured limit and the heap.
+ */
+public class VirtualMachine implements Engine {
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String STRING_TYPE_NAME = "string";
+    private static final String DOUBLE_TYPE_NAME = "double";
+    private static final String BOOL_TYPE_NAME = "bool";
+
+    private static final int MAX_STACK_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_DEPTH = 64;
+
+    private final BytecodeProgram program;
+    private final StdLibImpl stdLib;
+    private final int maxDepth;
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private long[] bits = new long[INITIAL_CAPACITY];
+    private Object[] references = new Object[INITIAL_CAPACITY];
+
+    public VirtualMachine(GlobalBlock global) throws RuntimeException {
+        this(global, MAX_STACK_SIZE);
+    }
+
+    /**
+     * @param maxDepth deepest call nesting allowed before a {@link StackOverflowException}, may go into the millions
+     */
+    public VirtualMachine(GlobalBlock global, int maxDepth) throws RuntimeException {
+        this(new BytecodeCompiler(global).compile(), maxDepth);
+    }
+
+    public VirtualMachine(BytecodeProgram program) {
+        this(program, MAX_STACK_SIZE);
+    }
+
+    public VirtualMachine(BytecodeProgram program, int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Maximal call depth must be positive");
+        }
+        this.program = program;
+        this.stdLib = new StdLibImpl();
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void run() {
+        try {
+            execute();
+        } catch (Exception e) {
+            System.out.println("Internal error occurred");
+            var stackTrace = e.getStackTrace();
+            Arrays.stream(stackTrace).forEach(System.out::println);
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Override
+    public void runNoisy() throws RuntimeException {
+        execute();
+    }
+
+    private void execute() throws RuntimeException {
+        var functions = program.getFunctions();
+        var constants = program.getConstants();
+
+        var initialDepth = Math.min(maxDepth, INITIAL_DEPTH);
+        var callers = new CompiledFunction[initialDepth];
+        var returnAddresses = new int[initialDepth];
+        var callerFrames = new int[initialDepth];
+        var depth = 0;
+
+        var function = program.getMain();
+        var code = function.getCode();
+        var pc = 0;
+        var fp = 0;
+        ensureCapacity(function.getMaxStack());
+        var sp = function.getFrameSize();
+
+        var kinds = this.kinds;
+        var bits = this.bits;
+        var references = this.references;
+
+        while (true) {
+            switch (code[pc++]) {
+                case CONST_INT -> {
+                    kinds[sp] = KIND_INT;
+                    bits[sp++] = code[pc++];
+                }
+                case CONST_DOUBLE -> {
+                    kinds[sp] = KIND_DOUBLE;
+                    bits[sp++] = Double.doubleToRawLongBits((Double) constants[code[pc++]]);
+                }
+                case CONST_STRING -> {
+                    kinds[sp] = KIND_STRING;
+                    references[sp++] = constants[code[pc++]];
+                }
+                case CONST_BOOL -> {
+                    kinds[sp] = KIND_BOOL;
+                    bits[sp++] = code[pc++];
+                }
+                case CONST_NULL -> kinds[sp++] = KIND_NULL;
+                case LOAD_LOCAL -> {
+                    var slot = fp + code[pc++];
+                    kinds[sp] = kinds[slot];
+                    bits[sp] = bits[slot];
+                    references[sp++] = references[slot];
+                }
+                case LOAD_GLOBAL -> {
+                    var slot = code[pc++];
+                    kinds[sp] = kinds[slot];
+                    bits[sp] = bits[slot];
+                    references[sp++] = references[slot];
+                }
+                case STORE_LOCAL -> {
+                    var slot = fp + code[pc++];
+                    sp--;
+                    kinds[slot] = kinds[sp];
+                    bits[slot] = bits[sp];
+                    references[slot] = references[sp];
+                }
+                case STORE_GLOBAL -> {
+                    var slot = code[pc++];
+                    sp--;
+                    kinds[slot] = kinds[sp];
+                    bits[slot] = bits[sp];
+                    references[slot] = references[sp];
+                }
+                case SET_LOCAL -> {
+                    var slot = fp + code[pc++];
+                    kinds[slot] = kinds[sp - 1];
+                    bits[slot] = bits[sp - 1];
+                    references[slot] = references[sp - 1];
+                }
+                case SET_GLOBAL -> {
+                    var slot = code[pc++];
+                    kinds[slot] = kinds[sp - 1];
+                    bits[slot] = bits[sp - 1];
+                    references[slot] = references[sp - 1];
+                }
+                case POP -> sp--;
+
+                case INT_ADD -> {
+                    sp--;
+                    bits[sp - 1] = (int) bits[sp - 1] + (int) bits[sp];
+                }
+                case INT_ADD_CONST -> bits[sp - 1] = (int) bits[sp - 1] + code[pc++];
+                case INT_SUB_CONST -> bits[sp - 1] = (int) bits[sp - 1] - code[pc++];
+                case INT_SUB -> {
+                    sp--;
+                    bits[sp - 1] = (int) bits[sp - 1] - (int) bits[sp];
+                }
+                case INT_MUL -> {
+                    sp--;
+                    bits[sp - 1] = (int) bits[sp - 1] * (int) bits[sp];
+                }
+                case INT_DIV_INT -> {
+                    sp--;
+                    var right = (int) bits[sp];
+                    if (right == 0) {
+                        throw new DivisionByZeroException("Division by zero detected");
+                    }
+                    bits[sp - 1] = (int) bits[sp - 1] / right;
+                }
+                case INT_MOD -> {
+                    sp--;
+                    bits[sp - 1] = (int) bits[sp - 1] % (int) bits[sp];
+                }
+                case INT_DIV -> {
+                    sp--;
+                    var right = (int) bits[sp];
+                    if (right == 0) {
+                        throw new DivisionByZeroException("Division by zero detected");
+                    }
+                    kinds[sp - 1] = KIND_DOUBLE;
+                    bits[sp - 1] = Double.doubleToRawLongBits((double) (int) bits[sp - 1] / (double) right);
+                }
+                case DOUBLE_ADD -> {
+                    sp--;
+                    bits[sp - 1] = Double.doubleToRawLongBits(doubleAt(bits, sp - 1) + doubleAt(bits, sp));
+                }
+                case DOUBLE_SUB -> {
+                    sp--;
+                    bits[sp - 1] = Double.doubleToRawLongBits(doubleAt(bits, sp - 1) - doubleAt(bits, sp));
+                }
+                case DOUBLE_MUL -> {
+                    sp--;
+                    bits[sp - 1] = Double.doubleToRawLongBits(doubleAt(bits, sp - 1) * doubleAt(bits, sp));
+                }
+                case DOUBLE_DIV -> {
+                    sp--;
+                    var right = doubleAt(bits, sp);
+                    if (right == 0) {
+                        throw new DivisionByZeroException("Division by zero detected");
+                    }
+                    bits[sp - 1] = Double.doubleToRawLongBits(doubleAt(bits, sp - 1) / right);
+                }
+                case DOUBLE_DIV_INT -> {
+                    sp--;
+                    var right = doubleAt(bits, sp);
+                    if (right == 0) {
+                        throw new DivisionByZeroException("Division by zero detected");
+                    }
+                    bits[sp - 1] = Double.doubleToRawLongBits((int) (doubleAt(bits, sp - 1) / right));
+                }
+                case STRING_CONCAT -> {
+                    sp--;
+                    references[sp - 1] = (String) references[sp - 1] + references[sp];
+                }
+                case INT_EQ -> sp = pushCondition(kinds, bits, sp, (int) bits[sp - 2] == (int) bits[sp - 1]);
+                case INT_NE -> sp = pushCondition(kinds, bits, sp, (int) bits[sp - 2] != (int) bits[sp - 1]);
+                case INT_LT -> sp = pushCondition(kinds, bits, sp, (int) bits[sp - 2] < (int) bits[sp - 1]);
+                case INT_LE -> sp = pushCondition(kinds, bits, sp, (int) bits[sp - 2] <= (int) bits[sp - 1]);
+                case INT_GT -> sp = pushCondition(kinds, bits, sp, (int) bits[sp - 2] > (int) bits[sp - 1]);
+                case INT_GE -> sp = pushCondition(kinds, bits, sp, (int) bits[sp - 2] >= (int) bits[sp - 1]);
+                case DOUBLE_EQ -> sp = pushCondition(kinds, bits, sp, Double.compare(doubleAt(bits, sp - 2), doubleAt(bits, sp - 1)) == 0);
+                case DOUBLE_NE -> sp = pushCondition(kinds, bits, sp, Double.compare(doubleAt(bits, sp - 2), doubleAt(bits, sp - 1)) != 0);
+                case DOUBLE_LT -> sp = pushCondition(kinds, bits, sp, Double.compare(doubleAt(bits, sp - 2), doubleAt(bits, sp - 1)) < 0);
+                case DOUBLE_LE -> sp = pushCondition(kinds, bits, sp, Double.compare(doubleAt(bits, sp - 2), doubleAt(bits, sp - 1)) <= 0);
+                case DOUBLE_GT -> sp = pushCondition(kinds, bits, sp, Double.compare(doubleAt(bits, sp - 2), doubleAt(bits, sp - 1)) > 0);
+                case DOUBLE_GE -> sp = pushCondition(kinds, bits, sp, Double.compare(doubleAt(bits, sp - 2), doubleAt(bits, sp - 1)) >= 0);
+                case STRING_EQ -> sp = pushCondition(kinds, bits, sp, compareStrings(references, sp) == 0);
+                case STRING_NE -> sp = pushCondition(kinds, bits, sp, compareStrings(references, sp) != 0);
+                case STRING_LT -> sp = pushCondition(kinds, bits, sp, compareStrings(references, sp) < 0);
+                case STRING_LE -> sp = pushCondition(kinds, bits, sp, compareStrings(references, sp) <= 0);
+                case STRING_GT -> sp = pushCondition(kinds, bits, sp, compareStrings(references, sp) > 0);
+                case STRING_GE -> sp = pushCondition(kinds, bits, sp, compareStrings(references, sp) >= 0);
+                case INT_NEG -> bits[sp - 1] = -(int) bits[sp - 1];
+                case DOUBLE_NEG -> bits[sp - 1] = Double.doubleToRawLongBits(-doubleAt(bits, sp - 1));
+                case BOOL_NOT -> bits[sp - 1] = bits[sp - 1] == 0 ? 1 : 0;
+                case BOOL_OR -> {
+                    sp--;
+                    bits[sp - 1] = bits[sp - 1] != 0 || bits[sp] != 0 ? 1 : 0;
+                }
+
+                case ADD -> sp = add(sp);
+                case SUB -> sp = subtract(sp);
+                case MUL -> sp = multiply(sp);
+                case DIV -> sp = divide(sp);
+                case DIV_INT -> sp = divideInt(sp);
+                case MOD -> sp = modulo(sp);
+                case NEG -> negate(sp);
+                case NOT -> not(sp);
+                case COALESCE -> {
+                    sp--;
+                    if (kinds[sp - 1] == KIND_NULL) {
+                        kinds[sp - 1] = kinds[sp];
+                        bits[sp - 1] = bits[sp];
+                        references[sp - 1] = references[sp];
+                    }
+                }
+                case IS -> {
+                    var isInstance = kinds[sp - 1] == code[pc++];
+                    kinds[sp - 1] = KIND_BOOL;
+                    bits[sp - 1] = isInstance ? 1 : 0;
+                }
+                case IS_LOCAL -> {
+                    var slot = fp + code[pc++];
+                    kinds[sp] = KIND_BOOL;
+                    bits[sp++] = kinds[slot] == code[pc++] ? 1 : 0;
+                }
+                case AS -> cast(sp - 1, (Type) constants[code[pc++]]);
+
+                case JUMP -> pc = code[pc];
+                case JUMP_IF_FALSE -> {
+                    if (bits[--sp] == 0) {
+                        pc = code[pc];
+                    } else {
+                        pc++;
+                    }
+                }
+                case JUMP_UNLESS_INT_EQ -> {
+                    sp -= 2;
+                    pc = (int) bits[sp] == (int) bits[sp + 1] ? pc + 1 : code[pc];
+                }
+                case JUMP_UNLESS_INT_NE -> {
+                    sp -= 2;
+                    pc = (int) bits[sp] != (int) bits[sp + 1] ? pc + 1 : code[pc];
+                }
+                case JUMP_UNLESS_INT_LT -> {
+                    sp -= 2;
+                    pc = (int) bits[sp] < (int) bits[sp + 1] ? pc + 1 : code[pc];
+                }
+                case JUMP_UNLESS_INT_LE -> {
+                    sp -= 2;
+                    pc = (int) bits[sp] <= (int) bits[sp + 1] ? pc + 1 : code[pc];
+                }
+                case JUMP_UNLESS_INT_GT -> {
+                    sp -= 2;
+                    pc = (int) bits[sp] > (int) bits[sp + 1] ? pc + 1 : code[pc];
+                }
+                case JUMP_UNLESS_INT_GE -> {
+                    sp -= 2;
+                    pc = (int) bits[sp] >= (int) bits[sp + 1] ? pc + 1 : code[pc];
+                }
+                case CALL -> {
+                    var callee = functions[code[pc++]];
+                    var argumentCount = code[pc++];
+                    if (depth == callers.length) {
+                        if (depth == maxDepth) {
+                            throw new StackOverflowException(String.format("Stack size: %d exceeded", maxDepth));
+                        }
+                        var grown = (int) Math.min(maxDepth, 2L * depth);
+                        callers = Arrays.copyOf(callers, grown);
+                        returnAddresses = Arrays.copyOf(returnAddresses, grown);
+                        callerFrames = Arrays.copyOf(callerFrames, grown);
+                    }
+                    callers[depth] = function;
+                    returnAddresses[depth] = pc;
+                    callerFrames[depth] = fp;
+                    depth++;
+                    fp = sp - argumentCount;
+                    sp = fp + callee.getFrameSize();
+                    if (fp + callee.getMaxStack() > kinds.length) {
+                        ensureCapacity(fp + callee.getMaxStack());
+                        kinds = this.kinds;
+                        bits = this.bits;
+                        references = this.references;
+                    }
+                    function = callee;
+                    code = callee.getCode();
+                    pc = 0;
+                }
+                case TAIL_CALL -> {
+                    var callee = functions[code[pc++]];
+                    var argumentCount = code[pc++];
+                    var from = sp - argumentCount;
+                    System.arraycopy(kinds, from, kinds, fp, argumentCount);
+                    System.arraycopy(bits, from, bits, fp, argumentCount);
+                    System.arraycopy(references, from, references, fp, argumentCount);
+                    sp = fp + callee.getFrameSize();
+                    if (fp + callee.getMaxStack() > kinds.length) {
+                        ensureCapacity(fp + callee.getMaxStack());
+                        kinds = this.kinds;
+                        bits = this.bits;
+                        references = this.references;
+                    }
+                    function = callee;
+                    code = callee.getCode();
+                    pc = 0;
+                }
+                case RETURN -> {
+                    if (depth == 0) {
+                        return;
+                    }
+                    sp--;
+                    kinds[fp] = kinds[sp];
+                    bits[fp] = bits[sp];
+                    references[fp] = references[sp];
+                    sp = fp + 1;
+                    depth--;
+                    function = callers[depth];
+                    code = function.getCode();
+                    pc = returnAddresses[depth];
+                    fp = callerFrames[depth];
+                }
+                case PRINT -> {
+                    stdLib.usePrint((String) references[sp - 1]);
+                    kinds[sp - 1] = KIND_NULL;
+                }
+                case GET_INPUT -> {
+                    kinds[sp] = KIND_STRING;
+                    references[sp++] = stdLib.useGetInput();
+                }
+                case HALT -> {
+                    return;
+                }
+                default -> throw new RuntimeException(String.format("Invalid opcode in function %s", function.getName()));
+            }
+        }
+    }
+
+    private static double doubleAt(long[] bits, int index) {
+        return Double.longBitsToDouble(bits[index]);
+    }
+
+    private static int compareStrings(Object[] references, int sp) {
+        return ((String) references[sp - 2]).compareTo((String) references[sp - 1]);
+    }
+
+    private static int pushCondition(byte[] kinds, long[] bits, int sp, boolean condition) {
+        kinds[sp - 2] = KIND_BOOL;
+        bits[sp - 2] = condition ? 1 : 0;
+        return sp - 1;
+    }
+
+    private int add(int sp) throws RuntimeException {
+        var left = sp - 2;
+        var right = sp - 1;
+        switch (kinds[right]) {
+            case KIND_INT -> setInt(left, intOperand(left) + intOperand(right));
+            case KIND_DOUBLE -> setDouble(left, doubleOperand(left) + doubleOperand(right));
+            default -> setString(left, stringOperand(left) + stringOperand(right));
+        }
+        return sp - 1;
+    }
+
+    private int subtract(int sp) throws RuntimeException {
+        var left = sp - 2;
+        var right = sp - 1;
+        if (kinds[right] == KIND_INT) {
+            setInt(left, intOperand(left) - intOperand(right));
+        } else {
+            setDouble(left, doubleOperand(left) - doubleOperand(right));
+        }
+        return sp - 1;
+    }
+
+    private int multiply(int sp) throws RuntimeException {
+        var left = sp - 2;
+        var right = sp - 1;
+        if (kinds[left] == KIND_INT && kinds[right] == KIND_INT) {
+            setInt(left, intOperand(left) * intOperand(right));
+        } else {
+            setDouble(left, doubleOperand(left) * doubleOperand(right));
+        }
+        return sp - 1;
+    }
+
+    private int divide(int sp) throws RuntimeException {
+        var left = sp - 2;
+        var right = sp - 1;
+        if (kinds[right] == KIND_INT) {
+            var rightValue = intOperand(right);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            setDouble(left, (double) intOperand(left) / (double) rightValue);
+        } else {
+            var rightValue = doubleOperand(right);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            setDouble(left, doubleOperand(left) / rightValue);
+        }
+        return sp - 1;
+    }
+
+    private int divideInt(int sp) throws RuntimeException {
+        var left = sp - 2;
+        var right = sp - 1;
+        if (kinds[right] == KIND_INT) {
+            var rightValue = intOperand(right);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            setInt(left, intOperand(left) / rightValue);
+        } else {
+            var rightValue = doubleOperand(right);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            setDouble(left, (int) (doubleOperand(left) / rightValue));
+        }
+        return sp - 1;
+    }
+
+    private int modulo(int sp) throws RuntimeException {
+        var left = sp - 2;
+        var right = sp - 1;
+        setInt(left, intOperand(left) % intOperand(right));
+        return sp - 1;
+    }
+
+    private void negate(int sp) throws RuntimeException {
+        var index = sp - 1;
+        switch (kinds[index]) {
+            case KIND_INT -> setInt(index, -intOperand(index));
+            case KIND_DOUBLE -> setDouble(index, -doubleOperand(index));
+            default -> throw new RuntimeException("Error while negating value");
+        }
+    }
+
+    private void not(int sp) throws RuntimeException {
+        var index = sp - 1;
+        if (kinds[index] != KIND_BOOL) {
+            throw new RuntimeException("Error while negating value");
+        }
+        bits[index] = bits[index] == 0 ? 1 : 0;
+    }
+
+    private void cast(int index, Type type) throws RuntimeException {
+        var typeName = type.getTypeName();
+        switch (kinds[index]) {
+            case KIND_STRING -> {
+                var value = (String) references[index];
+                try {
+                    switch (typeName) {
+                        case INT_TYPE_NAME -> setInt(index, Integer.parseInt(value));
+                        case DOUBLE_TYPE_NAME -> setDouble(index, Double.parseDouble(value));
+                        case BOOL_TYPE_NAME -> setBool(index, Boolean.parseBoolean(value));
+                        case STRING_TYPE_NAME -> setString(index, value);
+                        default -> throw new CastException("Invalid cast from string");
+                    }
+                } catch (NumberFormatException | CastException e) {
+                    kinds[index] = KIND_NULL;
+                }
+            }
+            case KIND_INT -> {
+                var value = intOperand(index);
+                switch (typeName) {
+                    case STRING_TYPE_NAME -> setString(index, String.valueOf(value));
+                    case DOUBLE_TYPE_NAME -> setDouble(index, value);
+                    case BOOL_TYPE_NAME -> setBool(index, value != 0);
+                    case INT_TYPE_NAME -> setInt(index, value);
+                    default -> throw new CastException("Invalid cast from int");
+                }
+            }
+            case KIND_DOUBLE -> {
+                var value = doubleOperand(index);
+                switch (typeName) {
+                    case STRING_TYPE_NAME -> setString(index, String.valueOf(value));
+                    case INT_TYPE_NAME -> setInt(index, (int) value);
+                    case DOUBLE_TYPE_NAME -> setDouble(index, value);
+                    default -> throw new CastException("Invalid cast from double");
+                }
+            }
+            case KIND_BOOL -> {
+                var value = bits[index] != 0;
+                switch (typeName) {
+                    case STRING_TYPE_NAME -> setString(index, String.valueOf(value));
+                    case INT_TYPE_NAME -> setInt(index, value ? 1 : 0);
+                    case DOUBLE_TYPE_NAME -> setDouble(index, value ? 1 : 0);
+                    case BOOL_TYPE_NAME -> setBool(index, value);
+                    default -> throw new CastException("Invalid cast from bool");
+                }
+            }
+            default -> {
+                if (!type.isNullable()) throw new CastException("Unable to cast from null to non-nullable type");
+            }
+        }
+    }
+
+    private int intOperand(int index) throws RuntimeException {
+        if (kinds[index] != KIND_INT) {
+            throw new RuntimeException("Casting error occurred");
+        }
+        return (int) bits[index];
+    }
+
+    private double doubleOperand(int index) throws RuntimeException {
+        if (kinds[index] != KIND_DOUBLE) {
+            throw new RuntimeException("Casting error occurred");
+        }
+        return Double.longBitsToDouble(bits[index]);
+    }
+
+    private String stringOperand(int index) throws RuntimeException {
+        if (kinds[index] != KIND_STRING) {
+            throw new RuntimeException("Casting error occurred");
+        }
+        return (String) references[index];
+    }
+
+    private void setInt(int index, int value) {
+        kinds[index] = KIND_INT;
+        bits[index] = value;
+    }
+
+    private void setDouble(int index, double value) {
+        kinds[index] = KIND_DOUBLE;
+        bits[index] = Double.doubleToRawLongBits(value);
+    }
+
+    private void setBool(int index, boolean value) {
+        kinds[index] = KIND_BOOL;
+        bits[index] = value ? 1 : 0;
+    }
+
+    private void setString(int index, String value) {
+        kinds[index] = KIND_STRING;
+        references[index] = value;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > kinds.length) {
+            var newCapacity = Math.max(capacity, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            bits = Arrays.copyOf(bits, newCapacity);
+            references = Arrays.copyOf(references, newCapacity);
+        }
+    }
+}
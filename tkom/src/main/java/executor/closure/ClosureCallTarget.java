@@ -0,0 +1,82 @@
+package executor.closure;
+
+import executor.Cancellation;
+import executor.Fuel;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import executor.stdlib.StdLibImpl;
+
+/**
+ * Entry point of a user function compiled by {@link ClosureCompiler#compileFunction(String)}.
+ * Arguments and the result cross the boundary as {@link Integer}, {@link Double}, {@link Boolean},
+ * {@link String} or {@code null}.
+ */
+public final class ClosureCallTarget {
+
+    private final ClosureFunction function;
+    private final int[] parameterSlots;
+    private final Representation[] parameterRepresentations;
+    private final StdLibImpl stdLib;
+    private final long fuelBudget;
+
+    ClosureCallTarget(ClosureFunction function, int[] parameterSlots, Representation[] parameterRepresentations, StdLibImpl stdLib, long fuelBudget) {
+        this.function = function;
+        this.parameterSlots = parameterSlots;
+        this.parameterRepresentations = parameterRepresentations;
+        this.stdLib = stdLib;
+        this.fuelBudget = fuelBudget;
+    }
+
+    public String getName() {
+        return function.name;
+    }
+
+    /**
+     * Calls the function from a caller that is {@code callerDepth} calls deep.
+     * Returns null when the function finished without returning a value.
+     */
+    public Object call(Object[] arguments, int callerDepth) throws RuntimeException {
+        return call(arguments, callerDepth, stdLib);
+    }
+
+    /**
+     * Calls the function with {@code stdLib} serving its {@code print} and {@code get_input} calls.
+     * A target compiled with a fuel budget gives every call a fresh budget.
+     */
+    public Object call(Object[] arguments, int callerDepth, StdLibImpl stdLib) throws RuntimeException {
+        return call(arguments, callerDepth, stdLib, null);
+    }
+
+    /**
+     * Calls the function like {@link #call(Object[], int, StdLibImpl)}, stopping with a {@link executor.exceptions.CancelledException}
+     * once {@code cancellation} is cancelled. Only targets from {@link ClosureEngine#pollingFunction(String)} poll it,
+     * a null {@code stdLib} keeps the target's own.
+     */
+    public Object call(Object[] arguments, int callerDepth, StdLibImpl stdLib, Cancellation cancellation) throws RuntimeException {
+        if (callerDepth >= ClosureCompiler.MAX_STACK_SIZE) {
+            throw new StackOverflowException(String.format("Stack size: %d exceeded", ClosureCompiler.MAX_STACK_SIZE));
+        }
+        var frame = Frame.entry(function.frameSize, callerDepth + 1, stdLib == null ? this.stdLib : stdLib);
+        frame.fuel = Fuel.forRun(fuelBudget);
+        frame.cancellation = cancellation;
+        for (var i = 0; i < arguments.length; i++) {
+            var slot = parameterSlots[i];
+            switch (parameterRepresentations[i]) {
+                case INT -> frame.primitives[slot] = ClosureRuntime.unboxInt(arguments[i]);
+                case DOUBLE -> frame.primitives[slot] = Double.doubleToRawLongBits(ClosureRuntime.unboxDouble(arguments[i]));
+                case BOOL -> frame.primitives[slot] = ClosureRuntime.unboxBool(arguments[i]) ? 1 : 0;
+                default -> frame.references[slot] = arguments[i];
+            }
+        }
+        frame = function.invoke(frame);
+        if (!frame.hasReturnValue) {
+            return null;
+        }
+        return switch (function.returnRepresentation) {
+            case INT -> (int) frame.returnPrimitive;
+            case DOUBLE -> Double.longBitsToDouble(frame.returnPrimitive);
+            case BOOL -> frame.returnPrimitive != 0;
+            default -> frame.returnReference;
+        };
+    }
+}
@@ -0,0 +1,1048 @@
+package executor.closure;
+
+import executor.CallStack;
+import executor.Cancellation;
+import executor.Completion;
+import executor.Executor;
+import executor.Fuel;
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import executor.ir.instructions.*;
+import executor.stdlib.StdLibImpl;
+
+import java.util.*;
+
+/**
+ * Turns the IR into a tree of pre-bound closures, once, before the program runs.
+ * Every node becomes a lambda holding the closures of its children, typed by the {@link Representation}
+ * of the values involved, so running the program needs no visitor dispatch, type name comparisons or scope lookups.
+ * Variables are resolved to frame slots whose representation is fixed by their declaration.
+ */
+public class ClosureCompiler implements Executor {
+
+    static final int MAX_STACK_SIZE = 64;
+    private static final String STRING_TYPE_NAME = "string";
+
+    final GlobalBlock global;
+    final StdLibImpl stdLib;
+    final long fuelBudget;
+    private final boolean safepoints;
+    private final Map<String, ClosureFunction> functions = new HashMap<>();
+    private final List<UserFunction> pendingFunctions = new ArrayList<>();
+
+    private final Map<Integer, Representation> globalSlots = new HashMap<>();
+    Map<Integer, Representation> localSlots = globalSlots;
+    private UserFunction currentFunction;
+
+    /**
+     * Added to every local slot, lets a caller's frame host the locals of a function compiled in place.
+     */
+    int slotOffset;
+
+    CompiledExpression expression;
+    StatementClosure statement;
+
+    public ClosureCompiler(GlobalBlock global, StdLibImpl stdLib) {
+        this(global, stdLib, Fuel.UNMETERED);
+    }
+
+    /**
+     * @param fuelBudget units of {@link Fuel} every run or call target invocation may spend. Metered code charges its frame's fuel
+     *                   at back-edges and calls, {@link Fuel#UNMETERED} compiles the closures without any charging
+     */
+    public ClosureCompiler(GlobalBlock global, StdLibImpl stdLib, long fuelBudget) {
+        this(global, stdLib, fuelBudget, fuelBudget != Fuel.UNMETERED);
+    }
+
+    /**
+     * @param safepoints compiles a {@link Frame#safepoint(String)} into every back-edge and call, which metering needs
+     *                   and which makes the code stop on {@link executor.Cancellation}
+     */
+    public ClosureCompiler(GlobalBlock global, StdLibImpl stdLib, long fuelBudget, boolean safepoints) {
+        this.global = global;
+        this.stdLib = stdLib;
+        this.fuelBudget = fuelBudget;
+        this.safepoints = safepoints;
+    }
+
+    private String location() {
+        return currentFunction == null ? Cancellation.GLOBAL_BLOCK : currentFunction.getName();
+    }
+
+    StatementClosure compile() throws RuntimeException {
+        global.execute(this, global.getGlobalScope());
+        var main = statement;
+        compilePendingFunctions();
+        return main;
+    }
+
+    /**
+     * Compiles a single user function, together with every function it calls, into an entry point
+     * the other engines can invoke directly.
+     */
+    public ClosureCallTarget compileFunction(String name) throws RuntimeException {
+        var definition = (UserFunction) global.getFunctions().get(name);
+        var function = function(definition);
+        compilePendingFunctions();
+        var scope = definition.getScope();
+        var parameters = scope.getVariablesOrder().stream().map(scope.getDeclaredVariables()::get).toList();
+        var slots = parameters.stream().mapToInt(Variable::getSlot).toArray();
+        var representations = parameters.stream().map(parameter -> Representation.of(parameter.getType())).toArray(Representation[]::new);
+        return new ClosureCallTarget(function, slots, representations, stdLib, fuelBudget);
+    }
+
+    void compilePendingFunctions() throws RuntimeException {
+        for (var i = 0; i < pendingFunctions.size(); i++) {
+            compileFunction(pendingFunctions.get(i));
+        }
+        pendingFunctions.clear();
+    }
+
+    private void compileFunction(UserFunction function) throws RuntimeException {
+        currentFunction = function;
+        localSlots = new HashMap<>();
+        var scope = function.getScope();
+        for (var name : scope.getVariablesOrder()) {
+            var parameter = scope.getDeclaredVariables().get(name);
+            localSlots.put(parameter.getSlot(), Representation.of(parameter.getType()));
+        }
+        var body = function.getInstructions();
+        functions.get(function.getName()).body = compile(body, body.getScope());
+        localSlots = globalSlots;
+        currentFunction = null;
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) throws RuntimeException {
+        var instructions = globalBlock.getInstructions();
+        var statements = new StatementClosure[instructions.size()];
+        for (var i = 0; i < statements.length; i++) {
+            statements[i] = compile(instructions.get(i), scope);
+            if (instructions.get(i) instanceof VarDeclaration declaration) {
+                statements[i] = bindable(declaration, statements[i]);
+            }
+        }
+        statement = sequence(statements);
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) throws RuntimeException {
+        statement = sequence(block.getInstructions(), scope);
+    }
+
+    @Override
+    public void execute(AddExpression addExpression, Scope scope) throws RuntimeException {
+        var left = compile(addExpression.getLeftExpression(), scope).asReference();
+        var right = compile(addExpression.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.add(left.evaluate(frame), right.evaluate(frame)));
+    }
+
+    @Override
+    public void execute(AndExpression andExpression, Scope scope) throws RuntimeException {
+        var left = compile(andExpression.getLeftExpression(), scope).asBool();
+        var right = compile(andExpression.getRightExpression(), scope).asBool();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) && right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(AsExpression asExpression, Scope scope) throws RuntimeException {
+        var source = compile(asExpression.getExpression(), scope);
+        var type = asExpression.getType();
+        var target = Representation.of(type);
+        var toString = type != null && !type.isNullable() && STRING_TYPE_NAME.equals(type.getTypeName());
+        if (source.representation() == Representation.INT) {
+            var value = source.asInt();
+            if (toString) {
+                expression = CompiledExpression.ofReference(frame -> String.valueOf(value.evaluate(frame)));
+                return;
+            }
+            switch (target) {
+                case INT -> { return; }
+                case DOUBLE -> {
+                    expression = CompiledExpression.ofDouble(frame -> value.evaluate(frame));
+                    return;
+                }
+                case BOOL -> {
+                    expression = CompiledExpression.ofBool(frame -> value.evaluate(frame) != 0);
+                    return;
+                }
+                default -> { }
+            }
+        } else if (source.representation() == Representation.DOUBLE) {
+            var value = source.asDouble();
+            if (toString) {
+                expression = CompiledExpression.ofReference(frame -> String.valueOf(value.evaluate(frame)));
+                return;
+            }
+            switch (target) {
+                case DOUBLE -> { return; }
+                case INT -> {
+                    expression = CompiledExpression.ofInt(frame -> (int) value.evaluate(frame));
+                    return;
+                }
+                default -> { }
+            }
+        }
+        var value = source.asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.cast(value.evaluate(frame), type));
+    }
+
+    @Override
+    public void execute(AssignmentExpression assignmentExpression, Scope scope) throws RuntimeException {
+        var value = compile(assignmentExpression.getRightSide(), scope);
+        var depth = assignmentExpression.getDepth();
+        var index = frameIndex(depth, assignmentExpression.getSlot());
+        expression = store(depth == CallStack.GLOBAL_FRAME, index, slot(depth, index), value);
+    }
+
+    @Override
+    public void execute(BaseExpression baseExpression, Scope scope) throws RuntimeException {
+        baseExpression.getExpression().execute(this, scope);
+    }
+
+    @Override
+    public void execute(CompExpression compExpression, Scope scope) throws RuntimeException {
+        expression = CompiledExpression.ofBool(frame -> {
+            throw new RuntimeException("Comparison was not specialized during semantic check");
+        });
+    }
+
+    @Override
+    public void execute(ConstExpression constExpression, Scope scope) throws RuntimeException {
+        var value = constExpression.getValue();
+        switch (Representation.of(constExpression.getType())) {
+            case INT -> {
+                var constant = (int) value;
+                expression = CompiledExpression.ofInt(frame -> constant);
+            }
+            case DOUBLE -> {
+                var constant = (double) value;
+                expression = CompiledExpression.ofDouble(frame -> constant);
+            }
+            case BOOL -> {
+                var constant = (boolean) value;
+                expression = CompiledExpression.ofBool(frame -> constant);
+            }
+            default -> expression = CompiledExpression.ofReference(frame -> value);
+        }
+    }
+
+    @Override
+    public void execute(DivExpression divExpression, Scope scope) throws RuntimeException {
+        var left = compile(divExpression.getLeftExpression(), scope).asReference();
+        var right = compile(divExpression.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.divide(left.evaluate(frame), right.evaluate(frame)));
+    }
+
+    @Override
+    public void execute(DivIntExpression divIntExpression, Scope scope) throws RuntimeException {
+        var left = compile(divIntExpression.getLeftExpression(), scope).asReference();
+        var right = compile(divIntExpression.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.divideInt(left.evaluate(frame), right.evaluate(frame)));
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) throws RuntimeException {
+        var definition = (UserFunction) global.getFunctions().get(functionCall.getName());
+        var callee = function(definition);
+        var binders = binders(definition, functionCall.getArguments(), scope);
+        CallClosure unmetered = frame -> {
+            if (frame.depth == MAX_STACK_SIZE) {
+                throw new StackOverflowException(String.format("Stack size: %d exceeded", MAX_STACK_SIZE));
+            }
+            var calleeFrame = frame.callee(callee.frameSize);
+            for (var binder : binders) {
+                binder.bind(frame, calleeFrame);
+            }
+            return callee.invoke(calleeFrame);
+        };
+        var caller = location();
+        CallClosure call = safepoints ? frame -> {
+            frame.safepoint(caller);
+            return unmetered.call(frame);
+        } : unmetered;
+        expression = switch (callee.returnRepresentation) {
+            case INT -> CompiledExpression.ofInt(frame -> (int) returnedPrimitive(call.call(frame), callee));
+            case DOUBLE -> CompiledExpression.ofDouble(frame -> Double.longBitsToDouble(returnedPrimitive(call.call(frame), callee)));
+            case BOOL -> CompiledExpression.ofBool(frame -> returnedPrimitive(call.call(frame), callee) != 0);
+            case REFERENCE -> CompiledExpression.ofReference(frame -> call.call(frame).returnReference);
+            case VOID -> CompiledExpression.ofVoid(frame -> {
+                call.call(frame);
+                return null;
+            });
+        };
+    }
+
+    @Override
+    public void execute(Identifier identifier, Scope scope) throws RuntimeException {
+        var index = frameIndex(identifier.getDepth(), identifier.getSlot());
+        var isGlobal = identifier.getDepth() == CallStack.GLOBAL_FRAME;
+        expression = switch (slot(identifier.getDepth(), index)) {
+            case INT -> isGlobal
+                    ? CompiledExpression.ofInt(frame -> (int) frame.global.primitives[index])
+                    : CompiledExpression.ofInt(frame -> (int) frame.primitives[index]);
+            case DOUBLE -> isGlobal
+                    ? CompiledExpression.ofDouble(frame -> Double.longBitsToDouble(frame.global.primitives[index]))
+                    : CompiledExpression.ofDouble(frame -> Double.longBitsToDouble(frame.primitives[index]));
+            case BOOL -> isGlobal
+                    ? CompiledExpression.ofBool(frame -> frame.global.primitives[index] != 0)
+                    : CompiledExpression.ofBool(frame -> frame.primitives[index] != 0);
+            default -> isGlobal
+                    ? CompiledExpression.ofReference(frame -> frame.global.references[index])
+                    : CompiledExpression.ofReference(frame -> frame.references[index]);
+        };
+    }
+
+    @Override
+    public void execute(InlinedCall inlinedCall, Scope scope) throws RuntimeException {
+        var bindings = new StatementClosure[inlinedCall.getBindings().size()];
+        for (var i = 0; i < bindings.length; i++) {
+            bindings[i] = compile(inlinedCall.getBindings().get(i), scope);
+        }
+        var body = compile(inlinedCall.getBody(), scope);
+        if (bindings.length == 0) {
+            expression = body;
+            return;
+        }
+        var bind = sequence(bindings);
+        expression = switch (body.representation()) {
+            case INT -> {
+                var value = body.asInt();
+                yield CompiledExpression.ofInt(frame -> {
+                    bind.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+            case DOUBLE -> {
+                var value = body.asDouble();
+                yield CompiledExpression.ofDouble(frame -> {
+                    bind.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+            case BOOL -> {
+                var value = body.asBool();
+                yield CompiledExpression.ofBool(frame -> {
+                    bind.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+            case REFERENCE, VOID -> {
+                var value = body.asReference();
+                yield CompiledExpression.ofReference(frame -> {
+                    bind.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+        };
+    }
+
+    @Override
+    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) throws RuntimeException {
+        expression = CompiledExpression.ofBool(frame -> {
+            throw new RuntimeException("Match comparison was not specialized during semantic check");
+        });
+    }
+
+    @Override
+    public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+        var index = insideMatchTypeExpression.getSlot() + slotOffset;
+        var type = insideMatchTypeExpression.getType();
+        var representation = localSlots.getOrDefault(index, Representation.REFERENCE);
+        if (representation.isPrimitive()) {
+            var isInstance = type != null && representation.typeName().equals(type.getTypeName());
+            expression = CompiledExpression.ofBool(frame -> isInstance);
+            return;
+        }
+        expression = CompiledExpression.ofBool(frame -> ClosureRuntime.isInstance(frame.references[index], type));
+    }
+
+    @Override
+    public void execute(IsExpression isExpression, Scope scope) throws RuntimeException {
+        var source = compile(isExpression.getExpression(), scope);
+        var type = isExpression.getType();
+        if (source.representation().isPrimitive()) {
+            var isInstance = type != null && source.representation().typeName().equals(type.getTypeName());
+            var effect = source.asStatement();
+            expression = CompiledExpression.ofBool(frame -> {
+                effect.execute(frame);
+                return isInstance;
+            });
+            return;
+        }
+        var value = source.asReference();
+        expression = CompiledExpression.ofBool(frame -> ClosureRuntime.isInstance(value.evaluate(frame), type));
+    }
+
+    @Override
+    public void execute(LibFunctionCall libFunctionCall, Scope scope) throws RuntimeException {
+        switch (libFunctionCall.getName()) {
+            case "print" -> {
+                var text = compile(libFunctionCall.getArguments().get(0), scope).asReference();
+                expression = CompiledExpression.ofVoid(frame -> {
+                    frame.stdLib.usePrint((String) text.evaluate(frame));
+                    return null;
+                });
+            }
+            case "get_input" -> expression = CompiledExpression.ofReference(frame -> frame.stdLib.useGetInput());
+            default -> throw new RuntimeException(String.format("Unknown library function: %s", libFunctionCall.getName()));
+        }
+    }
+
+    @Override
+    public void execute(ModExpression modExpression, Scope scope) throws RuntimeException {
+        var left = compile(modExpression.getLeftExpression(), scope).asReference();
+        var right = compile(modExpression.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.modulo(left.evaluate(frame), right.evaluate(frame)));
+    }
+
+    @Override
+    public void execute(MulExpression mulExpression, Scope scope) throws RuntimeException {
+        var left = compile(mulExpression.getLeftExpression(), scope).asReference();
+        var right = compile(mulExpression.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.multiply(left.evaluate(frame), right.evaluate(frame)));
+    }
+
+    @Override
+    public void execute(NullCheckExpression nullCheckExpression, Scope scope) throws RuntimeException {
+        var left = compile(nullCheckExpression.getLeftExpression(), scope).asReference();
+        var rightExpression = nullCheckExpression.getRightExpression();
+        var compiledRight = compile(rightExpression, scope);
+        var right = compiledRight.asReference();
+        ReferenceClosure coalesce;
+        if (rightExpression instanceof ConstExpression || rightExpression instanceof Identifier) {
+            coalesce = frame -> {
+                var value = left.evaluate(frame);
+                return value != null ? value : right.evaluate(frame);
+            };
+        } else {
+            coalesce = frame -> {
+                var value = left.evaluate(frame);
+                var fallback = right.evaluate(frame);
+                return value != null ? value : fallback;
+            };
+        }
+        expression = CompiledExpression.ofReference(coalesce);
+    }
+
+    @Override
+    public void execute(OrExpression orExpression, Scope scope) throws RuntimeException {
+        var left = compile(orExpression.getLeftExpression(), scope).asBool();
+        var right = compile(orExpression.getRightExpression(), scope).asBool();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) | right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(SubExpression subExpression, Scope scope) throws RuntimeException {
+        var left = compile(subExpression.getLeftExpression(), scope).asReference();
+        var right = compile(subExpression.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.subtract(left.evaluate(frame), right.evaluate(frame)));
+    }
+
+    @Override
+    public void execute(UnaryExpression unaryExpression, Scope scope) throws RuntimeException {
+        var value = compile(unaryExpression.getExpression(), scope).asReference();
+        var operator = unaryExpression.getUnaryOperator();
+        expression = CompiledExpression.ofReference(frame -> ClosureRuntime.negate(value.evaluate(frame), operator));
+    }
+
+    @Override
+    public void execute(IntAdd intAdd, Scope scope) throws RuntimeException {
+        var left = compile(intAdd.getLeftExpression(), scope).asInt();
+        var right = compile(intAdd.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofInt(frame -> left.evaluate(frame) + right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntSub intSub, Scope scope) throws RuntimeException {
+        var left = compile(intSub.getLeftExpression(), scope).asInt();
+        var right = compile(intSub.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofInt(frame -> left.evaluate(frame) - right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntMul intMul, Scope scope) throws RuntimeException {
+        var left = compile(intMul.getLeftExpression(), scope).asInt();
+        var right = compile(intMul.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofInt(frame -> left.evaluate(frame) * right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntDivInt intDivInt, Scope scope) throws RuntimeException {
+        var left = compile(intDivInt.getLeftExpression(), scope).asInt();
+        var right = compile(intDivInt.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofInt(frame -> {
+            var leftValue = left.evaluate(frame);
+            var rightValue = right.evaluate(frame);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            return leftValue / rightValue;
+        });
+    }
+
+    @Override
+    public void execute(IntMod intMod, Scope scope) throws RuntimeException {
+        var left = compile(intMod.getLeftExpression(), scope).asInt();
+        var right = compile(intMod.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofInt(frame -> left.evaluate(frame) % right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(DoubleAdd doubleAdd, Scope scope) throws RuntimeException {
+        var left = compile(doubleAdd.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleAdd.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofDouble(frame -> left.evaluate(frame) + right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(DoubleSub doubleSub, Scope scope) throws RuntimeException {
+        var left = compile(doubleSub.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleSub.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofDouble(frame -> left.evaluate(frame) - right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(DoubleMul doubleMul, Scope scope) throws RuntimeException {
+        var left = compile(doubleMul.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleMul.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofDouble(frame -> left.evaluate(frame) * right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(DoubleDiv doubleDiv, Scope scope) throws RuntimeException {
+        var left = compile(doubleDiv.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleDiv.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofDouble(frame -> {
+            var leftValue = left.evaluate(frame);
+            var rightValue = right.evaluate(frame);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            return leftValue / rightValue;
+        });
+    }
+
+    @Override
+    public void execute(DoubleDivInt doubleDivInt, Scope scope) throws RuntimeException {
+        var left = compile(doubleDivInt.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleDivInt.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofDouble(frame -> {
+            var leftValue = left.evaluate(frame);
+            var rightValue = right.evaluate(frame);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            return (int) (leftValue / rightValue);
+        });
+    }
+
+    @Override
+    public void execute(IntDiv intDiv, Scope scope) throws RuntimeException {
+        var left = compile(intDiv.getLeftExpression(), scope).asInt();
+        var right = compile(intDiv.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofDouble(frame -> {
+            var leftValue = left.evaluate(frame);
+            var rightValue = right.evaluate(frame);
+            if (rightValue == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            return (double) leftValue / (double) rightValue;
+        });
+    }
+
+    @Override
+    public void execute(StringConcat stringConcat, Scope scope) throws RuntimeException {
+        var left = compile(stringConcat.getLeftExpression(), scope).asReference();
+        var right = compile(stringConcat.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofReference(frame -> (String) left.evaluate(frame) + right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntEq intEq, Scope scope) throws RuntimeException {
+        var left = compile(intEq.getLeftExpression(), scope).asInt();
+        var right = compile(intEq.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) == right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntNe intNe, Scope scope) throws RuntimeException {
+        var left = compile(intNe.getLeftExpression(), scope).asInt();
+        var right = compile(intNe.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) != right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntLt intLt, Scope scope) throws RuntimeException {
+        var left = compile(intLt.getLeftExpression(), scope).asInt();
+        var right = compile(intLt.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) < right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntLe intLe, Scope scope) throws RuntimeException {
+        var left = compile(intLe.getLeftExpression(), scope).asInt();
+        var right = compile(intLe.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) <= right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntGt intGt, Scope scope) throws RuntimeException {
+        var left = compile(intGt.getLeftExpression(), scope).asInt();
+        var right = compile(intGt.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) > right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(IntGe intGe, Scope scope) throws RuntimeException {
+        var left = compile(intGe.getLeftExpression(), scope).asInt();
+        var right = compile(intGe.getRightExpression(), scope).asInt();
+        expression = CompiledExpression.ofBool(frame -> left.evaluate(frame) >= right.evaluate(frame));
+    }
+
+    @Override
+    public void execute(DoubleEq doubleEq, Scope scope) throws RuntimeException {
+        var left = compile(doubleEq.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleEq.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofBool(frame -> Double.compare(left.evaluate(frame), right.evaluate(frame)) == 0);
+    }
+
+    @Override
+    public void execute(DoubleNe doubleNe, Scope scope) throws RuntimeException {
+        var left = compile(doubleNe.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleNe.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofBool(frame -> Double.compare(left.evaluate(frame), right.evaluate(frame)) != 0);
+    }
+
+    @Override
+    public void execute(DoubleLt doubleLt, Scope scope) throws RuntimeException {
+        var left = compile(doubleLt.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleLt.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofBool(frame -> Double.compare(left.evaluate(frame), right.evaluate(frame)) < 0);
+    }
+
+    @Override
+    public void execute(DoubleLe doubleLe, Scope scope) throws RuntimeException {
+        var left = compile(doubleLe.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleLe.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofBool(frame -> Double.compare(left.evaluate(frame), right.evaluate(frame)) <= 0);
+    }
+
+    @Override
+    public void execute(DoubleGt doubleGt, Scope scope) throws RuntimeException {
+        var left = compile(doubleGt.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleGt.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofBool(frame -> Double.compare(left.evaluate(frame), right.evaluate(frame)) > 0);
+    }
+
+    @Override
+    public void execute(DoubleGe doubleGe, Scope scope) throws RuntimeException {
+        var left = compile(doubleGe.getLeftExpression(), scope).asDouble();
+        var right = compile(doubleGe.getRightExpression(), scope).asDouble();
+        expression = CompiledExpression.ofBool(frame -> Double.compare(left.evaluate(frame), right.evaluate(frame)) >= 0);
+    }
+
+    @Override
+    public void execute(StringEq stringEq, Scope scope) throws RuntimeException {
+        var left = compile(stringEq.getLeftExpression(), scope).asReference();
+        var right = compile(stringEq.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofBool(frame -> compareStrings(left, right, frame) == 0);
+    }
+
+    @Override
+    public void execute(StringNe stringNe, Scope scope) throws RuntimeException {
+        var left = compile(stringNe.getLeftExpression(), scope).asReference();
+        var right = compile(stringNe.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofBool(frame -> compareStrings(left, right, frame) != 0);
+    }
+
+    @Override
+    public void execute(StringLt stringLt, Scope scope) throws RuntimeException {
+        var left = compile(stringLt.getLeftExpression(), scope).asReference();
+        var right = compile(stringLt.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofBool(frame -> compareStrings(left, right, frame) < 0);
+    }
+
+    @Override
+    public void execute(StringLe stringLe, Scope scope) throws RuntimeException {
+        var left = compile(stringLe.getLeftExpression(), scope).asReference();
+        var right = compile(stringLe.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofBool(frame -> compareStrings(left, right, frame) <= 0);
+    }
+
+    @Override
+    public void execute(StringGt stringGt, Scope scope) throws RuntimeException {
+        var left = compile(stringGt.getLeftExpression(), scope).asReference();
+        var right = compile(stringGt.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofBool(frame -> compareStrings(left, right, frame) > 0);
+    }
+
+    @Override
+    public void execute(StringGe stringGe, Scope scope) throws RuntimeException {
+        var left = compile(stringGe.getLeftExpression(), scope).asReference();
+        var right = compile(stringGe.getRightExpression(), scope).asReference();
+        expression = CompiledExpression.ofBool(frame -> compareStrings(left, right, frame) >= 0);
+    }
+
+    @Override
+    public void execute(IntNeg intNeg, Scope scope) throws RuntimeException {
+        var value = compile(intNeg.getExpression(), scope).asInt();
+        expression = CompiledExpression.ofInt(frame -> -value.evaluate(frame));
+    }
+
+    @Override
+    public void execute(DoubleNeg doubleNeg, Scope scope) throws RuntimeException {
+        var value = compile(doubleNeg.getExpression(), scope).asDouble();
+        expression = CompiledExpression.ofDouble(frame -> -value.evaluate(frame));
+    }
+
+    @Override
+    public void execute(BoolNot boolNot, Scope scope) throws RuntimeException {
+        var value = compile(boolNot.getExpression(), scope).asBool();
+        expression = CompiledExpression.ofBool(frame -> !value.evaluate(frame));
+    }
+
+    @Override
+    public void execute(BreakInstruction breakInstruction, Scope scope) {
+        statement = frame -> Completion.BREAK;
+    }
+
+    @Override
+    public void execute(ContinueInstruction continueInstruction, Scope scope) {
+        statement = frame -> Completion.CONTINUE;
+    }
+
+    @Override
+    public void execute(IfInstruction ifInstruction, Scope scope) throws RuntimeException {
+        var condition = compile(ifInstruction.getCondition(), scope).asBool();
+        var trueBlock = compile(ifInstruction.getTrueBlock(), ifInstruction.getTrueBlock().getScope());
+        if (ifInstruction.getFalseBlock() == null) {
+            statement = frame -> condition.evaluate(frame) ? trueBlock.execute(frame) : Completion.NORMAL;
+            return;
+        }
+        var falseBlock = compile(ifInstruction.getFalseBlock(), ifInstruction.getFalseBlock().getScope());
+        statement = frame -> condition.evaluate(frame) ? trueBlock.execute(frame) : falseBlock.execute(frame);
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) throws RuntimeException {
+        var armScope = insideMatchInstruction.getScope();
+        var body = compile(insideMatchInstruction.getInstruction(), armScope);
+        if (insideMatchInstruction.isDefault()) {
+            statement = body;
+            return;
+        }
+        var condition = compile(insideMatchInstruction.getExpression(), armScope).asBool();
+        statement = frame -> condition.evaluate(frame) ? body.execute(frame) : null;
+    }
+
+    @Override
+    public void execute(InstructionExpression instructionExpression, Scope scope) throws RuntimeException {
+        statement = compile(instructionExpression.getExpression(), scope).asStatement();
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) throws RuntimeException {
+        var subject = compile(matchInstruction.getExpression(), scope);
+        var representation = subject.representation() == Representation.VOID ? Representation.REFERENCE : subject.representation();
+        var index = matchInstruction.getSlot() + slotOffset;
+        var store = store(false, index, representation, subject).asStatement();
+        localSlots.put(index, representation);
+        var arms = new StatementClosure[matchInstruction.getMatchStatements().size()];
+        for (var i = 0; i < arms.length; i++) {
+            arms[i] = compile(matchInstruction.getMatchStatements().get(i), matchInstruction.getScope());
+        }
+        // an arm yields null when its pattern did not match, the first arm that matches ends the match
+        statement = frame -> {
+            store.execute(frame);
+            for (var arm : arms) {
+                var completion = arm.execute(frame);
+                if (completion != null) {
+                    return completion;
+                }
+            }
+            return Completion.NORMAL;
+        };
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) throws RuntimeException {
+        if (returnInstruction.isTailCall() && currentFunction != null) {
+            statement = tailCall((FunctionCall) returnInstruction.getValue(), scope);
+            return;
+        }
+        if (returnInstruction.getValue() == null) {
+            statement = frame -> Completion.RETURN;
+            return;
+        }
+        var value = compile(returnInstruction.getValue(), scope);
+        var representation = currentFunction == null ? Representation.REFERENCE : Representation.of(currentFunction.getReturnType());
+        statement = switch (representation) {
+            case INT -> {
+                var result = value.asInt();
+                yield frame -> returnPrimitive(frame, result.evaluate(frame));
+            }
+            case DOUBLE -> {
+                var result = value.asDouble();
+                yield frame -> returnPrimitive(frame, Double.doubleToRawLongBits(result.evaluate(frame)));
+            }
+            case BOOL -> {
+                var result = value.asBool();
+                yield frame -> returnPrimitive(frame, result.evaluate(frame) ? 1 : 0);
+            }
+            default -> {
+                var result = value.asReference();
+                yield frame -> {
+                    frame.returnReference = result.evaluate(frame);
+                    frame.hasReturnValue = true;
+                    return Completion.RETURN;
+                };
+            }
+        };
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) throws RuntimeException {
+        var value = compile(varDeclaration.getValue(), scope);
+        var representation = Representation.of(varDeclaration.getVariable().getType());
+        var index = varDeclaration.getSlot() + slotOffset;
+        statement = store(false, index, representation, value).asStatement();
+        localSlots.put(index, representation);
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) throws RuntimeException {
+        var condition = compile(whileInstruction.getCondition(), scope).asBool();
+        var body = compile(whileInstruction.getStatements(), whileInstruction.getStatements().getScope());
+        if (safepoints) {
+            var location = location();
+            statement = frame -> {
+                while (condition.evaluate(frame)) {
+                    frame.safepoint(location);
+                    var completion = body.execute(frame);
+                    if (completion == Completion.BREAK) {
+                        break;
+                    }
+                    if (completion == Completion.RETURN || completion == Completion.TAIL_CALL) {
+                        return completion;
+                    }
+                }
+                return Completion.NORMAL;
+            };
+            return;
+        }
+        statement = frame -> {
+            while (condition.evaluate(frame)) {
+                var completion = body.execute(frame);
+                if (completion == Completion.BREAK) {
+                    break;
+                }
+                if (completion == Completion.RETURN || completion == Completion.TAIL_CALL) {
+                    return completion;
+                }
+            }
+            return Completion.NORMAL;
+        };
+    }
+
+    CompiledExpression compile(Expression node, Scope scope) throws RuntimeException {
+        node.execute(this, scope);
+        return expression;
+    }
+
+    StatementClosure compile(Instruction node, Scope scope) throws RuntimeException {
+        node.execute(this, scope);
+        return statement;
+    }
+
+    StatementClosure compile(Block block, Scope scope) throws RuntimeException {
+        block.execute(this, scope);
+        return statement;
+    }
+
+    private StatementClosure sequence(List<Instruction> instructions, Scope scope) throws RuntimeException {
+        var statements = new StatementClosure[instructions.size()];
+        for (var i = 0; i < statements.length; i++) {
+            statements[i] = compile(instructions.get(i), scope);
+        }
+        return sequence(statements);
+    }
+
+    static StatementClosure sequence(StatementClosure[] statements) {
+        if (statements.length == 1) {
+            return statements[0];
+        }
+        return frame -> {
+            for (var instruction : statements) {
+                var completion = instruction.execute(frame);
+                if (completion != Completion.NORMAL) {
+                    return completion;
+                }
+            }
+            return Completion.NORMAL;
+        };
+    }
+
+    /**
+     * Lets a run replace the initializer of a top-level declaration with a value bound in {@link Frame#bindings}.
+     */
+    private StatementClosure bindable(VarDeclaration declaration, StatementClosure initializer) throws RuntimeException {
+        var index = declaration.getSlot();
+        var bound = store(false, index, globalSlots.get(index), CompiledExpression.ofReference(frame -> frame.bindings.get(index))).asStatement();
+        return frame -> frame.bindings != null && frame.bindings.isBound(index) ? bound.execute(frame) : initializer.execute(frame);
+    }
+
+    private int frameIndex(int depth, int slot) {
+        return depth == CallStack.GLOBAL_FRAME ? slot : slot + slotOffset;
+    }
+
+    private Representation slot(int depth, int index) throws RuntimeException {
+        var slots = depth == CallStack.GLOBAL_FRAME ? globalSlots : localSlots;
+        var representation = slots.get(index);
+        if (representation == null) {
+            throw new RuntimeException(String.format("Variable in slot %d used before its declaration", index));
+        }
+        return representation;
+    }
+
+    /**
+     * Compiles a store of {@code value} into a frame slot; the resulting expression yields the stored value.
+     */
+    CompiledExpression store(boolean isGlobal, int index, Representation representation, CompiledExpression value) throws RuntimeException {
+        return switch (representation) {
+            case INT -> {
+                var result = value.asInt();
+                yield CompiledExpression.ofInt(frame -> {
+                    var stored = result.evaluate(frame);
+                    (isGlobal ? frame.global : frame).primitives[index] = stored;
+                    return stored;
+                });
+            }
+            case DOUBLE -> {
+                var result = value.asDouble();
+                yield CompiledExpression.ofDouble(frame -> {
+                    var stored = result.evaluate(frame);
+                    (isGlobal ? frame.global : frame).primitives[index] = Double.doubleToRawLongBits(stored);
+                    return stored;
+                });
+            }
+            case BOOL -> {
+                var result = value.asBool();
+                yield CompiledExpression.ofBool(frame -> {
+                    var stored = result.evaluate(frame);
+                    (isGlobal ? frame.global : frame).primitives[index] = stored ? 1 : 0;
+                    return stored;
+                });
+            }
+            default -> {
+                var result = value.asReference();
+                yield CompiledExpression.ofReference(frame -> {
+                    var stored = result.evaluate(frame);
+                    (isGlobal ? frame.global : frame).references[index] = stored;
+                    return stored;
+                });
+            }
+        };
+    }
+
+    private ClosureFunction function(UserFunction definition) {
+        var function = functions.get(definition.getName());
+        if (function == null) {
+            function = new ClosureFunction(definition.getName(), definition.getFrameSize(), Representation.of(definition.getReturnType()));
+            functions.put(definition.getName(), function);
+            pendingFunctions.add(definition);
+        }
+        return function;
+    }
+
+    /**
+     * Binds the callee's arguments into a sibling frame and hands both to {@link ClosureFunction#invoke(Frame)},
+     * so the returning function's Java frame is gone before the callee starts.
+     */
+    private StatementClosure tailCall(FunctionCall functionCall, Scope scope) throws RuntimeException {
+        var definition = (UserFunction) global.getFunctions().get(functionCall.getName());
+        var callee = function(definition);
+        var binders = binders(definition, functionCall.getArguments(), scope);
+        StatementClosure enter = frame -> {
+            var calleeFrame = frame.sibling(callee.frameSize);
+            for (var binder : binders) {
+                binder.bind(frame, calleeFrame);
+            }
+            frame.tailCallee = callee;
+            frame.tailFrame = calleeFrame;
+            return Completion.TAIL_CALL;
+        };
+        if (!safepoints) {
+            return enter;
+        }
+        var location = location();
+        return frame -> {
+            frame.safepoint(location);
+            return enter.execute(frame);
+        };
+    }
+
+    private ArgumentBinder[] binders(UserFunction definition, List<Expression> arguments, Scope scope) throws RuntimeException {
+        var parameterScope = definition.getScope();
+        var binders = new ArgumentBinder[arguments.size()];
+        for (var i = 0; i < arguments.size(); i++) {
+            var parameter = parameterScope.getDeclaredVariables().get(parameterScope.getVariablesOrder().get(i));
+            binders[i] = binder(parameter.getSlot(), Representation.of(parameter.getType()), compile(arguments.get(i), scope));
+        }
+        return binders;
+    }
+
+    private ArgumentBinder binder(int index, Representation representation, CompiledExpression argument) throws RuntimeException {
+        return switch (representation) {
+            case INT -> {
+                var value = argument.asInt();
+                yield (caller, callee) -> callee.primitives[index] = value.evaluate(caller);
+            }
+            case DOUBLE -> {
+                var value = argument.asDouble();
+                yield (caller, callee) -> callee.primitives[index] = Double.doubleToRawLongBits(value.evaluate(caller));
+            }
+            case BOOL -> {
+                var value = argument.asBool();
+                yield (caller, callee) -> callee.primitives[index] = value.evaluate(caller) ? 1 : 0;
+            }
+            default -> {
+                var value = argument.asReference();
+                yield (caller, callee) -> callee.references[index] = value.evaluate(caller);
+            }
+        };
+    }
+
+    private static Completion returnPrimitive(Frame frame, long value) {
+        frame.returnPrimitive = value;
+        frame.hasReturnValue = true;
+        return Completion.RETURN;
+    }
+
+    private static long returnedPrimitive(Frame frame, ClosureFunction function) throws RuntimeException {
+        if (!frame.hasReturnValue) {
+            throw new RuntimeException(String.format("Function %s finished without returning a value", function.name));
+        }
+        return frame.returnPrimitive;
+    }
+
+    private static int compareStrings(ReferenceClosure left, ReferenceClosure right, Frame frame) throws RuntimeException {
+        var leftValue = (String) left.evaluate(frame);
+        var rightValue = (String) right.evaluate(frame);
+        return leftValue.compareTo(rightValue);
+    }
+
+    @FunctionalInterface
+    private interface ArgumentBinder {
+        void bind(Frame caller, Frame callee) throws RuntimeException;
+    }
+
+    @FunctionalInterface
+    private interface CallClosure {
+        Frame call(Frame caller) throws RuntimeException;
+    }
+}
@@ -0,0 +1,121 @@
+package executor.closure;
+
+import executor.Cancellation;
+import executor.Engine;
+import executor.Fuel;
+import executor.exceptions.RuntimeException;
+import executor.ir.GlobalBlock;
+import executor.stdlib.StdLibImpl;
+
+import java.util.Arrays;
+
+/**
+ * Runs a program as the closure tree built by {@link ClosureCompiler}.
+ * The whole program is compiled when the engine is created, running it only invokes the closures.
+ */
+public class ClosureEngine implements Engine {
+
+    private final ClosureCompiler compiler;
+    private final StatementClosure main;
+    private final int globalFrameSize;
+    private final StdLibImpl stdLib;
+    private final long fuelBudget;
+    private final GlobalBlock global;
+    private ClosureCompiler pollingCompiler;
+    private StatementClosure pollingMain;
+
+    public ClosureEngine(GlobalBlock global) throws RuntimeException {
+        this(global, Fuel.UNMETERED);
+    }
+
+    /**
+     * @param fuelBudget units of {@link Fuel} every run and every function call target invocation may spend,
+     *                   {@link Fuel#UNMETERED} compiles the program without metering
+     */
+    public ClosureEngine(GlobalBlock global, long fuelBudget) throws RuntimeException {
+        this.stdLib = new StdLibImpl();
+        this.fuelBudget = fuelBudget;
+        this.global = global;
+        this.compiler = new ClosureCompiler(global, stdLib, fuelBudget);
+        this.main = compiler.compile();
+        this.globalFrameSize = global.getFrameSize();
+    }
+
+    /**
+     * Entry point of a user function. Call targets are independent of any run and may be called from many threads.
+     */
+    public synchronized ClosureCallTarget function(String name) throws RuntimeException {
+        return compiler.compileFunction(name);
+    }
+
+    /**
+     * Entry point of a user function polling the cancellation passed to
+     * {@link ClosureCallTarget#call(Object[], int, StdLibImpl, Cancellation)} at back-edges and calls.
+     */
+    public synchronized ClosureCallTarget pollingFunction(String name) throws RuntimeException {
+        return pollingCompiler().compileFunction(name);
+    }
+
+    @Override
+    public void run() {
+        try {
+            runNoisy();
+        } catch (Exception e) {
+            System.out.println("Internal error occurred");
+            var stackTrace = e.getStackTrace();
+            Arrays.stream(stackTrace).forEach(System.out::println);
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Override
+    public void runNoisy() throws RuntimeException {
+        run(stdLib, null);
+    }
+
+    /**
+     * Runs the program printing through {@code stdLib}. Top-level declarations bound in {@code bindings}
+     * take the bound value instead of evaluating their initializer, null binds nothing.
+     */
+    public void run(StdLibImpl stdLib, GlobalBindings bindings) throws RuntimeException {
+        run(stdLib, bindings, null);
+    }
+
+    @Override
+    public void runNoisy(Cancellation cancellation) throws RuntimeException {
+        run(stdLib, null, cancellation);
+    }
+
+    /**
+     * Runs the program polling {@code cancellation} at back-edges and calls, null runs to completion.
+     * Unless the engine is metered, the polling closures are compiled on the first cancellable run,
+     * so runs without cancellation keep executing closures with no polls at all.
+     */
+    public void run(StdLibImpl stdLib, GlobalBindings bindings, Cancellation cancellation) throws RuntimeException {
+        var frame = Frame.global(globalFrameSize, stdLib);
+        frame.bindings = bindings;
+        frame.fuel = Fuel.forRun(fuelBudget);
+        frame.cancellation = cancellation;
+        (cancellation == null ? main : pollingMain()).execute(frame);
+    }
+
+    private synchronized StatementClosure pollingMain() throws RuntimeException {
+        if (fuelBudget != Fuel.UNMETERED) {
+            return main;
+        }
+        if (pollingMain == null) {
+            pollingMain = pollingCompiler().compile();
+        }
+        return pollingMain;
+    }
+
+    private synchronized ClosureCompiler pollingCompiler() {
+        if (fuelBudget != Fuel.UNMETERED) {
+            return compiler;
+        }
+        if (pollingCompiler == null) {
+            pollingCompiler = new ClosureCompiler(global, stdLib, fuelBudget, true);
+        }
+        return pollingCompiler;
+    }
+}
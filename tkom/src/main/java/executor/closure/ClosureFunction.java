@@ -0,0 +1,35 @@
+package executor.closure;
+
+import executor.Completion;
+import executor.exceptions.RuntimeException;
+
+/**
+ * Compiled user function. The body is filled in after all call sites referring to it have been created,
+ * which is what makes recursion possible.
+ */
+final class ClosureFunction {
+
+    final String name;
+    final int frameSize;
+    final Representation returnRepresentation;
+    StatementClosure body;
+
+    ClosureFunction(String name, int frameSize, Representation returnRepresentation) {
+        this.name = name;
+        this.frameSize = frameSize;
+        this.returnRepresentation = returnRepresentation;
+    }
+
+    /**
+     * Runs the body on {@code frame}, then every function it tail calls on the frame prepared for it,
+     * without nesting Java calls. Returns the frame holding the final return value.
+     */
+    Frame invoke(Frame frame) throws RuntimeException {
+        var function = this;
+        while (function.body.execute(frame) == Completion.TAIL_CALL) {
+            function = frame.tailCallee;
+            frame = frame.tailFrame;
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,176 @@
+package executor.closure;
+
+import executor.exceptions.CastException;
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.ir.Type;
+
+/**
+ * Operations on boxed values used by compiled closures whose operand types are only known at runtime.
+ * They follow the semantics of the generic nodes in {@link executor.Interpreter}.
+ */
+final class ClosureRuntime {
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String STRING_TYPE_NAME = "string";
+    private static final String DOUBLE_TYPE_NAME = "double";
+    private static final String BOOL_TYPE_NAME = "bool";
+
+    private ClosureRuntime() {}
+
+    static int unboxInt(Object value) throws CastException {
+        if (value instanceof Integer integer) {
+            return integer;
+        }
+        throw new CastException("Expected int value, got: " + value);
+    }
+
+    static double unboxDouble(Object value) throws CastException {
+        if (value instanceof Double number) {
+            return number;
+        }
+        throw new CastException("Expected double value, got: " + value);
+    }
+
+    static boolean unboxBool(Object value) throws CastException {
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        throw new CastException("Expected bool value, got: " + value);
+    }
+
+    static Object add(Object left, Object right) {
+        if (right instanceof Integer value) {
+            return (Integer) left + value;
+        } else if (right instanceof Double value) {
+            return (Double) left + value;
+        }
+        return (String) left + right;
+    }
+
+    static Object subtract(Object left, Object right) {
+        if (right instanceof Integer value) {
+            return (Integer) left - value;
+        }
+        return (Double) left - (Double) right;
+    }
+
+    static Object multiply(Object left, Object right) throws RuntimeException {
+        if (left instanceof Integer leftValue && right instanceof Integer rightValue) {
+            return leftValue * rightValue;
+        }
+        try {
+            return (Double) left * (Double) right;
+        } catch (ClassCastException e) {
+            throw new RuntimeException("Casting error occurred");
+        }
+    }
+
+    static Object divide(Object left, Object right) throws DivisionByZeroException {
+        if (right instanceof Integer value) {
+            if (value == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            return (double) (Integer) left / (double) value;
+        }
+        var value = (Double) right;
+        if (value == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        return (Double) left / value;
+    }
+
+    static Object divideInt(Object left, Object right) throws DivisionByZeroException {
+        if (right instanceof Integer value) {
+            if (value == 0) {
+                throw new DivisionByZeroException("Division by zero detected");
+            }
+            return (Integer) left / value;
+        }
+        var value = (Double) right;
+        if (value == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        return (double) (int) ((Double) left / value);
+    }
+
+    static Object modulo(Object left, Object right) {
+        return (Integer) left % (Integer) right;
+    }
+
+    static Object negate(Object value, String operator) throws RuntimeException {
+        if (value instanceof Integer integer && operator.equals("-")) {
+            return -integer;
+        } else if (value instanceof Double number && operator.equals("-")) {
+            return -number;
+        } else if (value instanceof Boolean bool && operator.equals("!")) {
+            return !bool;
+        }
+        throw new RuntimeException("Error while negating value");
+    }
+
+    static boolean isInstance(Object value, Type type) {
+        if (type == null) {
+            return value == null;
+        }
+        return switch (type.getTypeName()) {
+            case INT_TYPE_NAME -> value instanceof Integer;
+            case DOUBLE_TYPE_NAME -> value instanceof Double;
+            case STRING_TYPE_NAME -> value instanceof String;
+            case BOOL_TYPE_NAME -> value instanceof Boolean;
+            default -> false;
+        };
+    }
+
+    static Object cast(Object value, Type type) throws RuntimeException {
+        if (type == null) {
+            return null;
+        }
+        if (value == null) {
+            if (!type.isNullable()) {
+                throw new CastException("Unable to cast from null to non-nullable type");
+            }
+            return null;
+        }
+        if (value instanceof String text) {
+            try {
+                return switch (type.getTypeName()) {
+                    case INT_TYPE_NAME -> Integer.parseInt(text);
+                    case DOUBLE_TYPE_NAME -> Double.parseDouble(text);
+                    case BOOL_TYPE_NAME -> Boolean.parseBoolean(text);
+                    case STRING_TYPE_NAME -> text;
+                    default -> throw new CastException("Invalid cast from string");
+                };
+            } catch (NumberFormatException | CastException e) {
+                return null;
+            }
+        }
+        if (value instanceof Integer integer) {
+            return switch (type.getTypeName()) {
+                case STRING_TYPE_NAME -> String.valueOf(integer.intValue());
+                case DOUBLE_TYPE_NAME -> (double) integer;
+                case BOOL_TYPE_NAME -> integer != 0;
+                case INT_TYPE_NAME -> integer;
+                default -> throw new CastException("Invalid cast from int");
+            };
+        }
+        if (value instanceof Double number) {
+            return switch (type.getTypeName()) {
+                case STRING_TYPE_NAME -> String.valueOf(number.doubleValue());
+                case INT_TYPE_NAME -> (int) number.doubleValue();
+                case DOUBLE_TYPE_NAME -> number;
+                default -> throw new CastException("Invalid cast from double");
+            };
+        }
+        if (value instanceof Boolean bool) {
+            return switch (type.getTypeName()) {
+                case STRING_TYPE_NAME -> String.valueOf(bool.booleanValue());
+                case INT_TYPE_NAME -> bool ? 1 : 0;
+                case DOUBLE_TYPE_NAME -> bool ? 1.0 : 0.0;
+                case BOOL_TYPE_NAME -> bool;
+                default -> throw new CastException("Invalid cast from bool");
+            };
+        }
+        throw new RuntimeException("Unrecognized `as` expression");
+    }
+}
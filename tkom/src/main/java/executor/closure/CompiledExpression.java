@@ -0,0 +1,121 @@
+package executor.closure;
+
+import executor.Completion;
+import executor.exceptions.RuntimeException;
+
+/**
+ * Closure produced for one expression together with the representation of its value.
+ * The {@code as*} methods adapt it to whatever representation the consumer needs.
+ */
+final class CompiledExpression {
+
+    private final Representation representation;
+    private final Object closure;
+
+    private CompiledExpression(Representation representation, Object closure) {
+        this.representation = representation;
+        this.closure = closure;
+    }
+
+    static CompiledExpression ofInt(IntClosure closure) {
+        return new CompiledExpression(Representation.INT, closure);
+    }
+
+    static CompiledExpression ofDouble(DoubleClosure closure) {
+        return new CompiledExpression(Representation.DOUBLE, closure);
+    }
+
+    static CompiledExpression ofBool(BoolClosure closure) {
+        return new CompiledExpression(Representation.BOOL, closure);
+    }
+
+    static CompiledExpression ofReference(ReferenceClosure closure) {
+        return new CompiledExpression(Representation.REFERENCE, closure);
+    }
+
+    static CompiledExpression ofVoid(ReferenceClosure closure) {
+        return new CompiledExpression(Representation.VOID, closure);
+    }
+
+    Representation representation() {
+        return representation;
+    }
+
+    IntClosure asInt() throws RuntimeException {
+        if (representation == Representation.INT) {
+            return (IntClosure) closure;
+        }
+        var reference = asReference();
+        return frame -> ClosureRuntime.unboxInt(reference.evaluate(frame));
+    }
+
+    DoubleClosure asDouble() throws RuntimeException {
+        if (representation == Representation.DOUBLE) {
+            return (DoubleClosure) closure;
+        }
+        var reference = asReference();
+        return frame -> ClosureRuntime.unboxDouble(reference.evaluate(frame));
+    }
+
+    BoolClosure asBool() throws RuntimeException {
+        if (representation == Representation.BOOL) {
+            return (BoolClosure) closure;
+        }
+        var reference = asReference();
+        return frame -> ClosureRuntime.unboxBool(reference.evaluate(frame));
+    }
+
+    ReferenceClosure asReference() {
+        return switch (representation) {
+            case INT -> {
+                var value = (IntClosure) closure;
+                yield frame -> value.evaluate(frame);
+            }
+            case DOUBLE -> {
+                var value = (DoubleClosure) closure;
+                yield frame -> value.evaluate(frame);
+            }
+            case BOOL -> {
+                var value = (BoolClosure) closure;
+                yield frame -> value.evaluate(frame);
+            }
+            default -> (ReferenceClosure) closure;
+        };
+    }
+
+    /**
+     * Evaluates the expression only for its side effects.
+     */
+    StatementClosure asStatement() {
+        return switch (representation) {
+            case INT -> {
+                var value = (IntClosure) closure;
+                yield frame -> {
+                    value.evaluate(frame);
+                    return Completion.NORMAL;
+                };
+            }
+            case DOUBLE -> {
+                var value = (DoubleClosure) closure;
+                yield frame -> {
+                    value.evaluate(frame);
+                    return Completion.NORMAL;
+                };
+            }
+            case BOOL -> {
+                var value = (BoolClosure) closure;
+                yield frame -> {
+                    value.evaluate(frame);
+                    return Completion.NORMAL;
+                };
+            }
+            default -> {
+                var value = (ReferenceClosure) closure;
+                yield frame -> {
+                    value.evaluate(frame);
+                    return Completion.NORMAL;
+                };
+            }
+        };
+    }
+}
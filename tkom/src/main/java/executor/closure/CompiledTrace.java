@@ -0,0 +1,126 @@
+package executor.closure;
+
+import executor.Completion;
+import executor.OperandStack;
+import executor.exceptions.RuntimeException;
+import executor.ir.BooleanObject;
+import executor.ir.DoubleObject;
+import executor.ir.ExecutorObject;
+import executor.ir.IntegerObject;
+import executor.ir.StringObject;
+import executor.stdlib.StdLibImpl;
+
+/**
+ * A hot while loop compiled by {@link TraceCompiler}, run in place of the interpreted loop.
+ * Variables are copied from the interpreter frame when the trace is entered and written back when it is left.
+ */
+public final class CompiledTrace {
+
+    private final BoolClosure condition;
+    private final StatementClosure body;
+    private final int frameSize;
+    private final int[] liveSlots;
+    private final Representation[] liveRepresentations;
+    private final int[] writtenSlots;
+    private final Representation[] writtenRepresentations;
+    private final SideExit[] exits;
+    private final StdLibImpl stdLib;
+
+    CompiledTrace(BoolClosure condition, StatementClosure body, int frameSize,
+                  int[] liveSlots, Representation[] liveRepresentations,
+                  int[] writtenSlots, Representation[] writtenRepresentations, SideExit[] exits, StdLibImpl stdLib) {
+        this.condition = condition;
+        this.body = body;
+        this.frameSize = frameSize;
+        this.liveSlots = liveSlots;
+        this.liveRepresentations = liveRepresentations;
+        this.writtenSlots = writtenSlots;
+        this.writtenRepresentations = writtenRepresentations;
+        this.exits = exits;
+        this.stdLib = stdLib;
+    }
+
+    public int getGuardCount() {
+        return exits.length;
+    }
+
+    /**
+     * Runs the loop over the frame starting at {@code base} of the interpreter's stack, from a caller {@code depth} calls deep.
+     * Returns null once the loop is over, or the side exit taken when a guard failed.
+     */
+    public SideExit run(OperandStack stack, int base, int depth) throws RuntimeException {
+        var frame = Frame.entry(frameSize, depth, stdLib);
+        for (var i = 0; i < liveSlots.length; i++) {
+            load(frame, liveSlots[i], liveRepresentations[i], stack.valueAt(base + liveSlots[i]));
+        }
+        SideExit exit = null;
+        while (condition.evaluate(frame)) {
+            var completion = body.execute(frame);
+            if (completion == Completion.BREAK) {
+                break;
+            }
+            if (completion == Completion.EXIT) {
+                exit = exits[frame.exitGuard];
+                break;
+            }
+        }
+        for (var i = 0; i < writtenSlots.length; i++) {
+            push(stack, frame, writtenSlots[i], writtenRepresentations[i]);
+            stack.store(base + writtenSlots[i]);
+        }
+        return exit;
+    }
+
+    private static void load(Frame frame, int slot, Representation representation, ExecutorObject value) {
+        switch (representation) {
+            case INT -> {
+                if (value instanceof IntegerObject integerObject) {
+                    frame.primitives[slot] = integerObject.getValue();
+                }
+            }
+            case DOUBLE -> {
+                if (value instanceof DoubleObject doubleObject) {
+                    frame.primitives[slot] = Double.doubleToRawLongBits(doubleObject.getValue());
+                }
+            }
+            case BOOL -> {
+                if (value instanceof BooleanObject booleanObject) {
+                    frame.primitives[slot] = booleanObject.isValue() ? 1 : 0;
+                }
+            }
+            default -> {
+                if (value instanceof IntegerObject integerObject) {
+                    frame.references[slot] = integerObject.getValue();
+                } else if (value instanceof DoubleObject doubleObject) {
+                    frame.references[slot] = doubleObject.getValue();
+                } else if (value instanceof BooleanObject booleanObject) {
+                    frame.references[slot] = booleanObject.isValue();
+                } else if (value instanceof StringObject stringObject) {
+                    frame.references[slot] = stringObject.getValue();
+                }
+            }
+        }
+    }
+
+    private static void push(OperandStack stack, Frame frame, int slot, Representation representation) {
+        switch (representation) {
+            case INT -> stack.pushInt((int) frame.primitives[slot]);
+            case DOUBLE -> stack.pushDouble(Double.longBitsToDouble(frame.primitives[slot]));
+            case BOOL -> stack.pushBool(frame.primitives[slot] != 0);
+            default -> {
+                var value = frame.references[slot];
+                if (value instanceof Integer integer) {
+                    stack.pushInt(integer);
+                } else if (value instanceof Double number) {
+                    stack.pushDouble(number);
+                } else if (value instanceof Boolean bool) {
+                    stack.pushBool(bool);
+                } else if (value instanceof String string) {
+                    stack.pushString(string);
+                } else {
+                    stack.pushNull();
+                }
+            }
+        }
+    }
+}
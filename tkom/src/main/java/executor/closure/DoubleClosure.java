@@ -0,0 +1,8 @@
+package executor.closure;
+
+import executor.exceptions.RuntimeException;
+
+@FunctionalInterface
+interface DoubleClosure {
+    double evaluate(Frame frame) throws RuntimeException;
+}
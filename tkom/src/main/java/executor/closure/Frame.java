@@ -0,0 +1,93 @@
+package executor.closure;
+
+import executor.Cancellation;
+import executor.Fuel;
+import executor.exceptions.RuntimeException;
+import executor.stdlib.StdLibImpl;
+
+import java.util.List;
+
+/**
+ * Activation record of a compiled function.
+ * Every slot lives either in {@code primitives} (ints and booleans as numbers, doubles as raw long bits)
+ * or in {@code references}, depending on the representation the compiler picked for its declaration.
+ */
+final class Frame {
+
+    final long[] primitives;
+    final Object[] references;
+    final Frame global;
+    final int depth;
+    final StdLibImpl stdLib;
+
+    long returnPrimitive;
+    Object returnReference;
+    boolean hasReturnValue;
+    int exitGuard;
+
+    /**
+     * Budget charged by metered code, shared by every frame of a run.
+     */
+    Fuel fuel;
+    Cancellation cancellation;
+
+    /**
+     * Values injected into top-level declarations, only set on the global frame.
+     */
+    GlobalBindings bindings;
+
+    /**
+     * Function and prepared frame a {@link executor.Completion#TAIL_CALL} continues with.
+     */
+    ClosureFunction tailCallee;
+    Frame tailFrame;
+
+    private Frame(int size, Frame global, int depth, StdLibImpl stdLib) {
+        this.primitives = new long[size];
+        this.references = new Object[size];
+        this.global = global == null ? this : global;
+        this.depth = depth;
+        this.stdLib = stdLib;
+    }
+
+    static Frame global(int size, StdLibImpl stdLib) {
+        return new Frame(size, null, 0, stdLib);
+    }
+
+    /**
+     * Frame of a function entered from another engine, which has no global frame to share.
+     */
+    static Frame entry(int size, int depth, StdLibImpl stdLib) {
+        return new Frame(size, null, depth, stdLib);
+    }
+
+    Frame callee(int size) {
+        var callee = new Frame(size, global, depth + 1, stdLib);
+        callee.fuel = fuel;
+        callee.cancellation = cancellation;
+        return callee;
+    }
+
+    /**
+     * Frame replacing this one for a tail call, at the same depth.
+     */
+    Frame sibling(int size) {
+        var sibling = new Frame(size, global, depth, stdLib);
+        sibling.fuel = fuel;
+        sibling.cancellation = cancellation;
+        return sibling;
+    }
+
+    /**
+     * Charges fuel and polls for cancellation. Compiled code only knows the function it runs in,
+     * so a stop reports {@code function} alone above the global block.
+     */
+    void safepoint(String function) throws RuntimeException {
+        if (fuel != null) {
+            fuel.charge();
+        }
+        if (cancellation != null && cancellation.isCancelled()) {
+            throw cancellation.stopped(function.equals(Cancellation.GLOBAL_BLOCK) ? List.of(function) : List.of(function, Cancellation.GLOBAL_BLOCK));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package executor.closure;
+
+import java.util.Arrays;
+
+/**
+ * Values a single run uses instead of the initializers of top-level declarations, keyed by global slot.
+ * A value is an {@link Integer}, {@link Double}, {@link Boolean}, {@link String} or {@code null}, as the declared type requires.
+ */
+public final class GlobalBindings {
+
+    private static final Object UNBOUND = new Object();
+
+    private final Object[] values;
+
+    public GlobalBindings(int frameSize) {
+        this.values = new Object[frameSize];
+        Arrays.fill(values, UNBOUND);
+    }
+
+    public void bind(int slot, Object value) {
+        values[slot] = value;
+    }
+
+    boolean isBound(int slot) {
+        return values[slot] != UNBOUND;
+    }
+
+    Object get(int slot) {
+        return values[slot];
+    }
+}
@@ -0,0 +1,50 @@
+package executor.closure;
+
+import executor.ir.Type;
+
+/**
+ * How a compiled expression hands over its value.
+ * Non-nullable numbers and booleans stay primitive, strings and nullable values are passed as
+ * {@link Integer}, {@link Double}, {@link Boolean}, {@link String} or {@code null}.
+ */
+enum Representation {
+    INT,
+    DOUBLE,
+    BOOL,
+    REFERENCE,
+    VOID;
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String DOUBLE_TYPE_NAME = "double";
+    private static final String BOOL_TYPE_NAME = "bool";
+    private static final String VOID_TYPE_NAME = "void";
+
+    static Representation of(Type type) {
+        if (type == null || type.getTypeName() == null || type.isNullable()) {
+            return REFERENCE;
+        }
+        return switch (type.getTypeName()) {
+            case INT_TYPE_NAME -> INT;
+            case DOUBLE_TYPE_NAME -> DOUBLE;
+            case BOOL_TYPE_NAME -> BOOL;
+            case VOID_TYPE_NAME -> VOID;
+            default -> REFERENCE;
+        };
+    }
+
+    boolean isPrimitive() {
+        return this == INT || this == DOUBLE || this == BOOL;
+    }
+
+    /**
+     * Name of the language type every value with this representation has, or null when it is only known at runtime.
+     */
+    String typeName() {
+        return switch (this) {
+            case INT -> INT_TYPE_NAME;
+            case DOUBLE -> DOUBLE_TYPE_NAME;
+            case BOOL -> BOOL_TYPE_NAME;
+            default -> null;
+        };
+    }
+}
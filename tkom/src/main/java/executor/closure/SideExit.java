@@ -0,0 +1,54 @@
+package executor.closure;
+
+import executor.ir.Block;
+import executor.ir.instructions.IfInstruction;
+
+import java.util.List;
+
+/**
+ * Where a {@link CompiledTrace} handed control back: the guarded {@link IfInstruction} whose condition went
+ * the other way, and the instructions left to run in every block enclosing it, innermost first,
+ * to finish the iteration the trace started.
+ */
+public final class SideExit {
+
+    private final int index;
+    private final IfInstruction guard;
+    private final boolean condition;
+    private final List<Continuation> continuation;
+
+    SideExit(int index, IfInstruction guard, boolean condition, List<Continuation> continuation) {
+        this.index = index;
+        this.guard = guard;
+        this.condition = condition;
+        this.continuation = continuation;
+    }
+
+    /**
+     * Position of the guard among the guards of its trace.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public IfInstruction getGuard() {
+        return guard;
+    }
+
+    /**
+     * Value the guarded condition evaluated to, its branch has not run yet.
+     */
+    public boolean getCondition() {
+        return condition;
+    }
+
+    public List<Continuation> getContinuation() {
+        return continuation;
+    }
+
+    /**
+     * Resume {@code block} at instruction {@code next}.
+     */
+    public record Continuation(Block block, int next) {
+    }
+}
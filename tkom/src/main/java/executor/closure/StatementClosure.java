@@ -0,0 +1,9 @@
+package executor.closure;
+
+import executor.Completion;
+import executor.exceptions.RuntimeException;
+
+@FunctionalInterface
+interface StatementClosure {
+    Completion execute(Frame frame) throws RuntimeException;
+}
@@ -0,0 +1,268 @@
+package executor.closure;
+
+import executor.Completion;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import executor.ir.Block;
+import executor.ir.GlobalBlock;
+import executor.ir.Scope;
+import executor.ir.UserFunction;
+import executor.ir.expressions.FunctionCall;
+import executor.ir.instructions.*;
+import executor.stdlib.StdLibImpl;
+
+import java.util.*;
+
+/**
+ * Compiles a hot while loop along the path its iterations were recorded taking.
+ * Every recorded {@link IfInstruction} becomes a guard that only runs the branch seen while recording and leaves the trace
+ * when its condition goes the other way. Calls to straight-line functions are inlined into spare slots of the loop frame,
+ * nested loops, match instructions and other calls compile as they would in {@link ClosureCompiler}.
+ */
+public class TraceCompiler extends ClosureCompiler {
+
+    private static final int MAX_INLINE_DEPTH = 4;
+
+    private final Map<IfInstruction, Boolean> decisions;
+    private final Set<IfInstruction> unstableGuards;
+    private final int frameSize;
+
+    private final Deque<Position> positions = new ArrayDeque<>();
+    private final List<SideExit> exits = new ArrayList<>();
+    private final Set<Integer> writtenSlots = new TreeSet<>();
+    private final Deque<UserFunction> inlined = new ArrayDeque<>();
+    private int nextSlot;
+    private int nested;
+    private boolean compilingCallees;
+
+    /**
+     * @param decisions      branch each {@link IfInstruction} took while the loop was recorded
+     * @param unstableGuards instructions that left the trace too often, they compile to both branches
+     * @param frameSize      size of the frame the loop runs in
+     */
+    public TraceCompiler(GlobalBlock global, StdLibImpl stdLib, Map<IfInstruction, Boolean> decisions,
+                         Set<IfInstruction> unstableGuards, int frameSize) {
+        super(global, stdLib);
+        this.decisions = decisions;
+        this.unstableGuards = unstableGuards;
+        this.frameSize = frameSize;
+        this.nextSlot = frameSize;
+    }
+
+    /**
+     * Compiles {@code loop}, whose enclosing scope is {@code scope}. Fails for loops that return from their function.
+     */
+    public CompiledTrace compileTrace(WhileInstruction loop, Scope scope, boolean inFunction) throws RuntimeException {
+        if (inFunction) {
+            localSlots = new HashMap<>();
+        }
+        for (var current = scope; current != null; current = current.getUpperScope()) {
+            for (var variable : current.getDeclaredVariables().values()) {
+                if (!inFunction || !variable.isGlobal()) {
+                    localSlots.putIfAbsent(variable.getSlot(), Representation.of(variable.getType()));
+                }
+            }
+        }
+        var condition = compile(loop.getCondition(), scope).asBool();
+        var body = compile(loop.getStatements(), loop.getStatements().getScope());
+        var frameSlots = new TreeMap<Integer, Representation>(localSlots);
+        compilingCallees = true;
+        compilePendingFunctions();
+
+        var live = frameSlots.headMap(frameSize);
+        var written = writtenSlots.stream().filter(live::containsKey).mapToInt(Integer::intValue).toArray();
+        return new CompiledTrace(condition, body, nextSlot,
+                live.keySet().stream().mapToInt(Integer::intValue).toArray(),
+                live.values().toArray(Representation[]::new),
+                written,
+                Arrays.stream(written).mapToObj(live::get).toArray(Representation[]::new),
+                exits.toArray(SideExit[]::new),
+                stdLib);
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) throws RuntimeException {
+        if (nested > 0 || compilingCallees) {
+            super.execute(block, scope);
+            return;
+        }
+        var instructions = block.getInstructions();
+        var statements = new StatementClosure[instructions.size()];
+        var position = new Position(block);
+        positions.push(position);
+        try {
+            for (position.index = 0; position.index < statements.length; position.index++) {
+                statements[position.index] = compile(instructions.get(position.index), scope);
+            }
+        } finally {
+            positions.pop();
+        }
+        statement = sequence(statements);
+    }
+
+    @Override
+    public void execute(IfInstruction ifInstruction, Scope scope) throws RuntimeException {
+        var recorded = decisions.get(ifInstruction);
+        if (nested > 0 || compilingCallees || recorded == null || unstableGuards.contains(ifInstruction)) {
+            super.execute(ifInstruction, scope);
+            return;
+        }
+        var condition = compile(ifInstruction.getCondition(), scope).asBool();
+        var guard = exits.size();
+        exits.add(new SideExit(guard, ifInstruction, !recorded, continuation()));
+        var taken = recorded ? ifInstruction.getTrueBlock() : ifInstruction.getFalseBlock();
+        StatementClosure branch = taken == null ? frame -> Completion.NORMAL : compile(taken, taken.getScope());
+        boolean expected = recorded;
+        statement = frame -> {
+            if (condition.evaluate(frame) != expected) {
+                frame.exitGuard = guard;
+                return Completion.EXIT;
+            }
+            return branch.execute(frame);
+        };
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) throws RuntimeException {
+        nested++;
+        try {
+            super.execute(whileInstruction, scope);
+        } finally {
+            nested--;
+        }
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) throws RuntimeException {
+        nested++;
+        try {
+            super.execute(matchInstruction, scope);
+        } finally {
+            nested--;
+        }
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) throws RuntimeException {
+        if (!compilingCallees) {
+            throw new RuntimeException("Loops that return from their function are not traced");
+        }
+        super.execute(returnInstruction, scope);
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) throws RuntimeException {
+        var definition = (UserFunction) global.getFunctions().get(functionCall.getName());
+        if (compilingCallees || !isInlinable(definition)) {
+            super.execute(functionCall, scope);
+            return;
+        }
+        var parameterScope = definition.getScope();
+        var arguments = functionCall.getArguments();
+        var offset = nextSlot;
+        var instructions = definition.getInstructions().getInstructions();
+        var statements = new StatementClosure[arguments.size() + instructions.size() - 1];
+        for (var i = 0; i < arguments.size(); i++) {
+            var parameter = parameterScope.getDeclaredVariables().get(parameterScope.getVariablesOrder().get(i));
+            var representation = Representation.of(parameter.getType());
+            var index = offset + parameter.getSlot();
+            statements[i] = store(false, index, representation, compile(arguments.get(i), scope)).asStatement();
+            localSlots.put(index, representation);
+        }
+        var callerDepth = inlined.size();
+        var callerOffset = slotOffset;
+        nextSlot += definition.getFrameSize();
+        slotOffset = offset;
+        inlined.push(definition);
+        CompiledExpression result;
+        try {
+            var bodyScope = definition.getInstructions().getScope();
+            for (var i = 0; i < instructions.size() - 1; i++) {
+                statements[arguments.size() + i] = compile(instructions.get(i), bodyScope);
+            }
+            result = compile(((ReturnInstruction) instructions.get(instructions.size() - 1)).getValue(), bodyScope);
+        } finally {
+            inlined.pop();
+            slotOffset = callerOffset;
+        }
+        var prologue = sequence(statements);
+        StatementClosure enter = frame -> {
+            if (frame.depth + callerDepth >= MAX_STACK_SIZE) {
+                throw new StackOverflowException(String.format("Stack size: %d exceeded", MAX_STACK_SIZE));
+            }
+            return prologue.execute(frame);
+        };
+        expression = switch (Representation.of(definition.getReturnType())) {
+            case INT -> {
+                var value = result.asInt();
+                yield CompiledExpression.ofInt(frame -> {
+                    enter.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+            case DOUBLE -> {
+                var value = result.asDouble();
+                yield CompiledExpression.ofDouble(frame -> {
+                    enter.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+            case BOOL -> {
+                var value = result.asBool();
+                yield CompiledExpression.ofBool(frame -> {
+                    enter.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+            default -> {
+                var value = result.asReference();
+                yield CompiledExpression.ofReference(frame -> {
+                    enter.execute(frame);
+                    return value.evaluate(frame);
+                });
+            }
+        };
+    }
+
+    @Override
+    CompiledExpression store(boolean isGlobal, int index, Representation representation, CompiledExpression value) throws RuntimeException {
+        if (!compilingCallees) {
+            writtenSlots.add(index);
+        }
+        return super.store(isGlobal, index, representation, value);
+    }
+
+    /**
+     * Functions made of declarations and expression statements ending with a returned value, which do not call themselves.
+     */
+    private boolean isInlinable(UserFunction function) {
+        if (inlined.size() == MAX_INLINE_DEPTH || inlined.contains(function)) {
+            return false;
+        }
+        var instructions = function.getInstructions().getInstructions();
+        if (instructions.isEmpty() || !(instructions.get(instructions.size() - 1) instanceof ReturnInstruction returnInstruction)
+                || returnInstruction.getValue() == null) {
+            return false;
+        }
+        for (var i = 0; i < instructions.size() - 1; i++) {
+            var instruction = instructions.get(i);
+            if (!(instruction instanceof VarDeclaration) && !(instruction instanceof InstructionExpression)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<SideExit.Continuation> continuation() {
+        return positions.stream().map(position -> new SideExit.Continuation(position.block, position.index + 1)).toList();
+    }
+
+    private static final class Position {
+        private final Block block;
+        private int index;
+
+        private Position(Block block) {
+            this.block = block;
+        }
+    }
+}
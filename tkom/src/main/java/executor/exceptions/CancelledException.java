@@ -0,0 +1,20 @@
+package executor.exceptions;
+
+import java.util.List;
+
+public class CancelledException extends RuntimeException {
+
+    private final List<String> stoppedIn;
+
+    public CancelledException(String message, List<String> stoppedIn) {
+        super(message);
+        this.stoppedIn = stoppedIn;
+    }
+
+    /**
+     * Functions that were running when the run stopped, innermost first and ending with the global block.
+     */
+    public List<String> getStoppedIn() {
+        return stoppedIn;
+    }
+}
@@ -0,0 +1,7 @@
+package executor.exceptions;
+
+public class OutOfFuelException extends RuntimeException {
+    public OutOfFuelException(String message) {
+        super(message);
+    }
+}
@@ -1,29 +1,24 @@
 package executor.ir;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@AllArgsConstructor
-@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
-@Setter
-public class BooleanObject implements ExecutorObject, Comparable<BooleanObject> {
+public final class BooleanObject implements ExecutorObject, Comparable<BooleanObject> {
 
-    private boolean value;
+    public static final BooleanObject TRUE = new BooleanObject(true);
+    public static final BooleanObject FALSE = new BooleanObject(false);
 
-    public BooleanObject(BooleanObject o) {
-        this.value = o.isValue();
+    private final boolean value;
+
+    public static BooleanObject of(boolean value) {
+        return value ? TRUE : FALSE;
     }
 
     @Override
     public int compareTo(BooleanObject o) {
         return Boolean.compare(this.value, o.value);
     }
-
-    @Override
-    public ExecutorObject copy(ExecutorObject o) {
-        return new BooleanObject((BooleanObject) o);
-    }
 }
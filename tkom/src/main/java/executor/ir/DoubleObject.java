@@ -1,28 +1,21 @@
 package executor.ir;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@AllArgsConstructor
-@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
-@Setter
-public class DoubleObject implements ExecutorObject, Comparable<DoubleObject> {
-    private double value;
+public final class DoubleObject implements ExecutorObject, Comparable<DoubleObject> {
 
-    public DoubleObject(DoubleObject o) {
-        this.value = o.getValue();
+    private final double value;
+
+    public static DoubleObject of(double value) {
+        return new DoubleObject(value);
     }
 
     @Override
     public int compareTo(DoubleObject o) {
         return Double.compare(this.value, o.value);
     }
-
-    @Override
-    public ExecutorObject copy(ExecutorObject o) {
-        return new DoubleObject((DoubleObject) o);
-    }
 }
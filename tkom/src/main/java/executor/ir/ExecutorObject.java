@@ -1,6 +1,7 @@
 package executor.ir;
 
+/**
+ * Runtime value of the tree interpreter. Values are immutable, so reads, stores and arguments share them instead of copying.
+ */
 public interface ExecutorObject {
-
-    ExecutorObject copy(ExecutorObject o);
 }
@@ -19,6 +19,7 @@ public class GlobalBlock implements IrNode{
     private Scope globalScope;
     private Map<String, Function> functions;
     private List<Instruction> instructions;
+    private int frameSize;
 
     @Override
     public void execute(Executor executor, Scope scope) throws RuntimeException {
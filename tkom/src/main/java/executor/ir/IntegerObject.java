@@ -1,28 +1,34 @@
 package executor.ir;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@AllArgsConstructor
-@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
-@Setter
-public class IntegerObject implements ExecutorObject, Comparable<IntegerObject> {
-    private int value;
+public final class IntegerObject implements ExecutorObject, Comparable<IntegerObject> {
 
-    public IntegerObject(IntegerObject o) {
-        this.value = o.getValue();
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final IntegerObject[] CACHE = new IntegerObject[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (var i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new IntegerObject(CACHE_LOW + i);
+        }
     }
 
-    @Override
-    public int compareTo(IntegerObject o) {
-        return Integer.compare(this.value, o.value);
+    private final int value;
+
+    public static IntegerObject of(int value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[value - CACHE_LOW];
+        }
+        return new IntegerObject(value);
     }
 
     @Override
-    public ExecutorObject copy(ExecutorObject o) {
-        return new IntegerObject((IntegerObject) o);
+    public int compareTo(IntegerObject o) {
+        return Integer.compare(this.value, o.value);
     }
 }
@@ -0,0 +1,421 @@
+package executor.ir;
+
+import executor.Executor;
+import executor.exceptions.RuntimeException;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import executor.ir.instructions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Visits every node below the one it is started on without executing anything.
+ * Analyses override the methods for the nodes they care about and call {@code super} to keep descending,
+ * transformations override {@link #replace(Expression)} as well.
+ * User function bodies are not entered from calls, only from {@link #walk(UserFunction)}.
+ */
+public abstract class IrWalker implements Executor {
+
+    public void walk(IrNode node) {
+        if (node == null) {
+            return;
+        }
+        try {
+            node.execute(this, null);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Walking the IR does not execute it", e);
+        }
+    }
+
+    public void walk(UserFunction function) {
+        walk(function.getInstructions());
+    }
+
+    /**
+     * Walks {@code expression} and returns what takes its place in the parent, which is {@link #replace(Expression)} of it.
+     */
+    protected Expression rewrite(Expression expression) {
+        if (expression == null) {
+            return null;
+        }
+        walk(expression);
+        return replace(expression);
+    }
+
+    /**
+     * Called for every expression once its operands were rewritten. Passes transforming the IR return the node replacing it.
+     */
+    protected Expression replace(Expression expression) {
+        return expression;
+    }
+
+    private List<Expression> rewriteAll(List<Expression> expressions) {
+        List<Expression> rewritten = null;
+        for (var i = 0; i < expressions.size(); i++) {
+            var expression = expressions.get(i);
+            var replacement = rewrite(expression);
+            if (replacement != expression && rewritten == null) {
+                rewritten = new ArrayList<>(expressions);
+            }
+            if (rewritten != null) {
+                rewritten.set(i, replacement);
+            }
+        }
+        return rewritten != null ? rewritten : expressions;
+    }
+
+    private void walkTyped(TypedBinaryExpression expression) {
+        expression.setLeftExpression(rewrite(expression.getLeftExpression()));
+        expression.setRightExpression(rewrite(expression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) {
+        for (var instruction : globalBlock.getInstructions()) {
+            walk(instruction);
+        }
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) {
+        for (var instruction : block.getInstructions()) {
+            walk(instruction);
+        }
+    }
+
+    @Override
+    public void execute(AddExpression addExpression, Scope scope) {
+        addExpression.setLeftExpression(rewrite(addExpression.getLeftExpression()));
+        addExpression.setRightExpression(rewrite(addExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(AndExpression andExpression, Scope scope) {
+        andExpression.setLeftExpression(rewrite(andExpression.getLeftExpression()));
+        andExpression.setRightExpression(rewrite(andExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(AsExpression asExpression, Scope scope) {
+        asExpression.setExpression(rewrite(asExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(AssignmentExpression assignmentExpression, Scope scope) {
+        assignmentExpression.setRightSide(rewrite(assignmentExpression.getRightSide()));
+    }
+
+    @Override
+    public void execute(BaseExpression baseExpression, Scope scope) {
+        baseExpression.setExpression(rewrite(baseExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(CompExpression compExpression, Scope scope) {
+        compExpression.setLeftExpression(rewrite(compExpression.getLeftExpression()));
+        compExpression.setRightExpression(rewrite(compExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(ConstExpression constExpression, Scope scope) {
+    }
+
+    @Override
+    public void execute(DivExpression divExpression, Scope scope) {
+        divExpression.setLeftExpression(rewrite(divExpression.getLeftExpression()));
+        divExpression.setRightExpression(rewrite(divExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DivIntExpression divIntExpression, Scope scope) {
+        divIntExpression.setLeftExpression(rewrite(divIntExpression.getLeftExpression()));
+        divIntExpression.setRightExpression(rewrite(divIntExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) {
+        functionCall.setArguments(rewriteAll(functionCall.getArguments()));
+    }
+
+    @Override
+    public void execute(Identifier identifier, Scope scope) {
+    }
+
+    @Override
+    public void execute(InlinedCall inlinedCall, Scope scope) {
+        for (var binding : inlinedCall.getBindings()) {
+            walk(binding);
+        }
+        inlinedCall.setBody(rewrite(inlinedCall.getBody()));
+    }
+
+    @Override
+    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) {
+        insideMatchCompExpression.setExpression(rewrite(insideMatchCompExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+    }
+
+    @Override
+    public void execute(IsExpression isExpression, Scope scope) {
+        isExpression.setExpression(rewrite(isExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(LibFunctionCall libFunctionCall, Scope scope) {
+        libFunctionCall.setArguments(rewriteAll(libFunctionCall.getArguments()));
+    }
+
+    @Override
+    public void execute(ModExpression modExpression, Scope scope) {
+        modExpression.setLeftExpression(rewrite(modExpression.getLeftExpression()));
+        modExpression.setRightExpression(rewrite(modExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(MulExpression mulExpression, Scope scope) {
+        mulExpression.setLeftExpression(rewrite(mulExpression.getLeftExpression()));
+        mulExpression.setRightExpression(rewrite(mulExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(NullCheckExpression nullCheckExpression, Scope scope) {
+        nullCheckExpression.setLeftExpression(rewrite(nullCheckExpression.getLeftExpression()));
+        nullCheckExpression.setRightExpression(rewrite(nullCheckExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(OrExpression orExpression, Scope scope) {
+        orExpression.setLeftExpression(rewrite(orExpression.getLeftExpression()));
+        orExpression.setRightExpression(rewrite(orExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(SubExpression subExpression, Scope scope) {
+        subExpression.setLeftExpression(rewrite(subExpression.getLeftExpression()));
+        subExpression.setRightExpression(rewrite(subExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(UnaryExpression unaryExpression, Scope scope) {
+        unaryExpression.setExpression(rewrite(unaryExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(IntAdd intAdd, Scope scope) {
+        walkTyped(intAdd);
+    }
+
+    @Override
+    public void execute(IntSub intSub, Scope scope) {
+        walkTyped(intSub);
+    }
+
+    @Override
+    public void execute(IntMul intMul, Scope scope) {
+        walkTyped(intMul);
+    }
+
+    @Override
+    public void execute(IntDivInt intDivInt, Scope scope) {
+        walkTyped(intDivInt);
+    }
+
+    @Override
+    public void execute(IntMod intMod, Scope scope) {
+        walkTyped(intMod);
+    }
+
+    @Override
+    public void execute(DoubleAdd doubleAdd, Scope scope) {
+        walkTyped(doubleAdd);
+    }
+
+    @Override
+    public void execute(DoubleSub doubleSub, Scope scope) {
+        walkTyped(doubleSub);
+    }
+
+    @Override
+    public void execute(DoubleMul doubleMul, Scope scope) {
+        walkTyped(doubleMul);
+    }
+
+    @Override
+    public void execute(DoubleDiv doubleDiv, Scope scope) {
+        walkTyped(doubleDiv);
+    }
+
+    @Override
+    public void execute(DoubleDivInt doubleDivInt, Scope scope) {
+        walkTyped(doubleDivInt);
+    }
+
+    @Override
+    public void execute(IntDiv intDiv, Scope scope) {
+        walkTyped(intDiv);
+    }
+
+    @Override
+    public void execute(StringConcat stringConcat, Scope scope) {
+        walkTyped(stringConcat);
+    }
+
+    @Override
+    public void execute(IntEq intEq, Scope scope) {
+        walkTyped(intEq);
+    }
+
+    @Override
+    public void execute(IntNe intNe, Scope scope) {
+        walkTyped(intNe);
+    }
+
+    @Override
+    public void execute(IntLt intLt, Scope scope) {
+        walkTyped(intLt);
+    }
+
+    @Override
+    public void execute(IntLe intLe, Scope scope) {
+        walkTyped(intLe);
+    }
+
+    @Override
+    public void execute(IntGt intGt, Scope scope) {
+        walkTyped(intGt);
+    }
+
+    @Override
+    public void execute(IntGe intGe, Scope scope) {
+        walkTyped(intGe);
+    }
+
+    @Override
+    public void execute(DoubleEq doubleEq, Scope scope) {
+        walkTyped(doubleEq);
+    }
+
+    @Override
+    public void execute(DoubleNe doubleNe, Scope scope) {
+        walkTyped(doubleNe);
+    }
+
+    @Override
+    public void execute(DoubleLt doubleLt, Scope scope) {
+        walkTyped(doubleLt);
+    }
+
+    @Override
+    public void execute(DoubleLe doubleLe, Scope scope) {
+        walkTyped(doubleLe);
+    }
+
+    @Override
+    public void execute(DoubleGt doubleGt, Scope scope) {
+        walkTyped(doubleGt);
+    }
+
+    @Override
+    public void execute(DoubleGe doubleGe, Scope scope) {
+        walkTyped(doubleGe);
+    }
+
+    @Override
+    public void execute(StringEq stringEq, Scope scope) {
+        walkTyped(stringEq);
+    }
+
+    @Override
+    public void execute(StringNe stringNe, Scope scope) {
+        walkTyped(stringNe);
+    }
+
+    @Override
+    public void execute(StringLt stringLt, Scope scope) {
+        walkTyped(stringLt);
+    }
+
+    @Override
+    public void execute(StringLe stringLe, Scope scope) {
+        walkTyped(stringLe);
+    }
+
+    @Override
+    public void execute(StringGt stringGt, Scope scope) {
+        walkTyped(stringGt);
+    }
+
+    @Override
+    public void execute(StringGe stringGe, Scope scope) {
+        walkTyped(stringGe);
+    }
+
+    @Override
+    public void execute(IntNeg intNeg, Scope scope) {
+        intNeg.setExpression(rewrite(intNeg.getExpression()));
+    }
+
+    @Override
+    public void execute(DoubleNeg doubleNeg, Scope scope) {
+        doubleNeg.setExpression(rewrite(doubleNeg.getExpression()));
+    }
+
+    @Override
+    public void execute(BoolNot boolNot, Scope scope) {
+        boolNot.setExpression(rewrite(boolNot.getExpression()));
+    }
+
+    @Override
+    public void execute(BreakInstruction breakInstruction, Scope scope) {
+    }
+
+    @Override
+    public void execute(ContinueInstruction continueInstruction, Scope scope) {
+    }
+
+    @Override
+    public void execute(IfInstruction ifInstruction, Scope scope) {
+        ifInstruction.setCondition(rewrite(ifInstruction.getCondition()));
+        walk(ifInstruction.getTrueBlock());
+        walk(ifInstruction.getFalseBlock());
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) {
+        insideMatchInstruction.setExpression(rewrite(insideMatchInstruction.getExpression()));
+        walk(insideMatchInstruction.getInstruction());
+    }
+
+    @Override
+    public void execute(InstructionExpression instructionExpression, Scope scope) {
+        instructionExpression.setExpression(rewrite(instructionExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) {
+        matchInstruction.setExpression(rewrite(matchInstruction.getExpression()));
+        for (var statement : matchInstruction.getMatchStatements()) {
+            walk(statement);
+        }
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) {
+        returnInstruction.setValue(rewrite(returnInstruction.getValue()));
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) {
+        varDeclaration.setValue(rewrite(varDeclaration.getValue()));
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) {
+        whileInstruction.setCondition(rewrite(whileInstruction.getCondition()));
+        walk(whileInstruction.getStatements());
+    }
+}
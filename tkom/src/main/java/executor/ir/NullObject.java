@@ -1,8 +1,9 @@
 package executor.ir;
 
-public class NullObject implements ExecutorObject {
-    @Override
-    public ExecutorObject copy(ExecutorObject o) {
-        return new NullObject();
+public final class NullObject implements ExecutorObject {
+
+    public static final NullObject NULL = new NullObject();
+
+    private NullObject() {
     }
 }
@@ -1,28 +1,21 @@
 package executor.ir;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@AllArgsConstructor
-@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Getter
-@Setter
-public class StringObject implements ExecutorObject, Comparable<StringObject> {
-    private String value;
+public final class StringObject implements ExecutorObject, Comparable<StringObject> {
 
-    public StringObject(StringObject o) {
-        this.value = o.getValue();
+    private final String value;
+
+    public static StringObject of(String value) {
+        return new StringObject(value);
     }
 
     @Override
     public int compareTo(StringObject o) {
         return this.value.compareTo(o.value);
     }
-
-    @Override
-    public ExecutorObject copy(ExecutorObject o) {
-        return new StringObject((StringObject) o);
-    }
 }
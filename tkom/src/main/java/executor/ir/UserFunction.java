@@ -12,5 +12,11 @@ import lombok.Setter;
 @Setter
 public class UserFunction extends Function{
     private Block instructions;
+    private int frameSize;
+
+    /**
+     * Set by {@link semcheck.PurityAnalysis} when the result depends only on the arguments.
+     */
+    private boolean pure;
 
 }
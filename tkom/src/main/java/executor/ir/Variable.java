@@ -15,7 +15,8 @@ public class Variable {
     private Type type;
     private boolean isMutable;
     private Expression value;
-    private ExecutorObject object;
+    private int slot;
+    private boolean isGlobal;
 
     public Variable(String name, Type type, boolean isMutable) {
         this.name = name;
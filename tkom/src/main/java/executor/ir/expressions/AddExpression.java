@@ -19,6 +19,9 @@ public class AddExpression implements Expression {
     private Expression leftExpression;
     private Expression rightExpression;
 
+    @EqualsAndHashCode.Exclude
+    private final Specialization specialization = new Specialization();
+
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
         return visitor.visit(this, scope);
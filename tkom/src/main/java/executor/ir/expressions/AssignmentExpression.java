@@ -18,6 +18,8 @@ public class AssignmentExpression implements Expression {
 
     private String variableName;
     private Expression rightSide;
+    private int depth;
+    private int slot;
 
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
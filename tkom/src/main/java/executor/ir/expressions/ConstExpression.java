@@ -2,6 +2,7 @@ package executor.ir.expressions;
 
 import executor.Executor;
 import executor.exceptions.RuntimeException;
+import executor.ir.ExecutorObject;
 import executor.ir.Expression;
 import executor.ir.Scope;
 import executor.ir.Type;
@@ -20,6 +21,12 @@ public class ConstExpression implements Expression {
     private Type type;
     private java.lang.Object value;
 
+    /**
+     * The value as the tree interpreter sees it, created once when the IR is built and shared by every evaluation.
+     */
+    @EqualsAndHashCode.Exclude
+    private ExecutorObject runtimeValue;
+
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
         return visitor.visit(this, scope);
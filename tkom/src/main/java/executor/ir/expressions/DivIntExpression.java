@@ -18,6 +18,9 @@ public class DivIntExpression implements Expression {
     private Expression leftExpression;
     private Expression rightExpression;
 
+    @EqualsAndHashCode.Exclude
+    private final Specialization specialization = new Specialization();
+
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
         return visitor.visit(this, scope);
@@ -18,6 +18,12 @@ import semcheck.exception.SemCheckException;
 @EqualsAndHashCode
 public class Identifier implements Expression {
     private String name;
+    private int depth;
+    private int slot;
+
+    public Identifier(String name) {
+        this.name = name;
+    }
 
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
@@ -0,0 +1,43 @@
+package executor.ir.expressions;
+
+import executor.Executor;
+import executor.exceptions.RuntimeException;
+import executor.ir.Expression;
+import executor.ir.Scope;
+import executor.ir.Type;
+import executor.ir.instructions.VarDeclaration;
+import lombok.*;
+import semcheck.TypeVisitor;
+
+import java.util.List;
+
+/**
+ * Call of a user function whose returned expression was copied into the caller by {@link optimizer.Inlining}.
+ * The bindings store the arguments in fresh slots of the caller's frame, in argument order, before the body is evaluated.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+public class InlinedCall implements Expression {
+
+    private String name;
+    private List<VarDeclaration> bindings;
+    private Expression body;
+
+    /**
+     * The return type of the inlined function.
+     */
+    private Type type;
+
+    @Override
+    public Type evaluateType(TypeVisitor visitor, Scope scope) {
+        return type;
+    }
+
+    @Override
+    public void execute(Executor executor, Scope scope) throws RuntimeException {
+        executor.execute(this, scope);
+    }
+}
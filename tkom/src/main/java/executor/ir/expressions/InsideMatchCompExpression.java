@@ -17,6 +17,7 @@ import semcheck.exception.SemCheckException;
 public class InsideMatchCompExpression implements Expression {
     private Expression expression;
     private String operator;
+    private int slot;
 
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
@@ -16,6 +16,7 @@ import semcheck.exception.SemCheckException;
 @EqualsAndHashCode
 public class InsideMatchTypeExpression implements Expression {
     private Type type;
+    private int slot;
 
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
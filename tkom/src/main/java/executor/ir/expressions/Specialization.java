@@ -0,0 +1,58 @@
+package executor.ir.expressions;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Runtime profile of a generic expression node.
+ * The node starts uninitialized, specializes itself to the first kind of operands it observes
+ * and falls back to its generic implementation for good once an observation breaks that assumption.
+ * Nodes are shared by every execution of a program, so the state only ever moves forward
+ * and each evaluation acts on the state returned by its own observation.
+ */
+public final class Specialization {
+
+    public enum State {
+        UNINITIALIZED,
+        INT,
+        DOUBLE,
+        STRING,
+        BOOL,
+        NON_NULL,
+        GENERIC
+    }
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Specialization.class, "state", State.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile State state = State.UNINITIALIZED;
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Records an observation and returns the state the specialized implementation may assume for these operands,
+     * or {@link State#GENERIC} when the generic implementation has to run.
+     */
+    public State observe(State observed) {
+        var current = state;
+        if (current == observed) {
+            return current;
+        }
+        if (current == State.UNINITIALIZED && STATE.compareAndSet(this, State.UNINITIALIZED, observed)) {
+            return observed;
+        }
+        if (state != State.GENERIC) {
+            state = State.GENERIC;
+        }
+        return State.GENERIC;
+    }
+}
@@ -18,6 +18,9 @@ public class UnaryExpression implements Expression {
     private String unaryOperator;
     private Expression expression;
 
+    @EqualsAndHashCode.Exclude
+    private final Specialization specialization = new Specialization();
+
     @Override
     public Type evaluateType(TypeVisitor visitor, Scope scope) throws SemCheckException {
         return visitor.visit(this, scope);
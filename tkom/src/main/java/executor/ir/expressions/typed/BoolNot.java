@@ -0,0 +1,29 @@
+package executor.ir.expressions.typed;
+
+import executor.Executor;
+import executor.exceptions.RuntimeException;
+import executor.ir.Expression;
+import executor.ir.Scope;
+import executor.ir.Type;
+import lombok.*;
+import semcheck.TypeVisitor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+public class BoolNot implements Expression {
+
+    private Expression expression;
+
+    @Override
+    public Type evaluateType(TypeVisitor visitor, Scope scope) {
+        return new Type(false, "bool");
+    }
+
+    @Override
+    public void execute(Executor executor, Scope scope) throws RuntimeException {
+        executor.execute(this, scope);
+    }
+}
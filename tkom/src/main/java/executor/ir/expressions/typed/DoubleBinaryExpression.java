@@ -0,0 +1,22 @@
+package executor.ir.expressions.typed;
+
+import executor.ir.Expression;
+import executor.ir.Scope;
+import executor.ir.Type;
+import semcheck.TypeVisitor;
+
+public abstract class DoubleBinaryExpression extends TypedBinaryExpression {
+
+    protected DoubleBinaryExpression() {
+        super();
+    }
+
+    protected DoubleBinaryExpression(Expression leftExpression, Expression rightExpression) {
+        super(leftExpression, rightExpression);
+    }
+
+    @Override
+    public Type evaluateType(TypeVisitor visitor, Scope scope) {
+        return new Type(false, "double");
+    }
+}
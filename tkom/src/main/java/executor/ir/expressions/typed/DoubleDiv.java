@@ -0,0 +1,22 @@
+package executor.ir.expressions.typed;
+
+import executor.Executor;
+import executor.exceptions.RuntimeException;
+import executor.ir.Expression;
+import executor.ir.Scope;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class DoubleDiv extends DoubleBinaryExpression {
+
+    public DoubleDiv(Expression leftExpression, Expression rightExpression) {
+        super(leftExpression, rightExpression);
+    }
+
+    @Override
+    public void execute(Executor executor, Scope scope) throws RuntimeException {
+        executor.execute(this, scope);
+    }
+}
@@ -0,0 +1,19 @@
+package executor.ir.expressions.typed;
+
+import executor.ir.Expression;
+import lombok.*;
+
+/**
+ * Binary operation whose operand types were resolved during semantic check.
+ * Subclasses exist per operand type and operator, so executing them needs no runtime type dispatch.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@EqualsAndHashCode
+public abstract class TypedBinaryExpression implements Expression {
+
+    private Expression leftExpression;
+    private Expression rightExpression;
+}
@@ -21,6 +21,7 @@ public class MatchInstruction implements Instruction {
     private Scope scope;
     private Expression expression;
     private List<InsideMatchInstruction> matchStatements;
+    private int slot;
 
     @Override
     public void execute(Executor executor, Scope scope) throws RuntimeException {
@@ -17,6 +17,11 @@ public class ReturnInstruction implements Instruction {
 
     private Expression value;
 
+    /**
+     * The value is a user function call, so the callee can take over the returning function's frame.
+     */
+    private boolean tailCall;
+
     @Override
     public void execute(Executor executor, Scope scope) throws RuntimeException {
         executor.execute(this, scope);
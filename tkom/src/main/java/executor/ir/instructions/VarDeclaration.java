@@ -17,6 +17,7 @@ public class VarDeclaration implements Instruction {
 
     private Variable variable;
     private Expression value;
+    private int slot;
 
     @Override
     public void execute(Executor executor, Scope scope) throws RuntimeException {
@@ -0,0 +1,797 @@
+package executor.jvm;
+
+import executor.CallStack;
+import executor.Executor;
+import executor.exceptions.RuntimeException;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import executor.ir.instructions.*;
+import executor.stdlib.StdLibImpl;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.*;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Translates the IR into a single JVM class.
+ * The global block becomes {@code run(StdLibImpl, int)} and every reachable user function a static method with
+ * primitive-typed parameters and locals. Each method also receives the standard library and its call depth,
+ * which is checked on entry, so stack overflows are reported exactly like in the interpreter.
+ * Only statically typed, non-nullable code is supported; everything else raises {@link UnsupportedNodeException}.
+ */
+public class JvmCompiler implements Executor {
+
+    public static final String CLASS_NAME = "executor/jvm/CompiledScript";
+    public static final String ENTRY_POINT = "run";
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String STRING_TYPE_NAME = "string";
+    private static final String DOUBLE_TYPE_NAME = "double";
+    private static final String BOOL_TYPE_NAME = "bool";
+    private static final String VOID_TYPE_NAME = "void";
+
+    private static final int MAX_STACK_SIZE = 64;
+    private static final int FIRST_FREE_LOCAL = 2;
+
+    private static final String STD_LIB = org.objectweb.asm.Type.getInternalName(StdLibImpl.class);
+    private static final String RUNTIME = org.objectweb.asm.Type.getInternalName(JvmRuntime.class);
+    private static final String STRING = "java/lang/String";
+
+    private final GlobalBlock global;
+    private final ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    private final Set<String> requestedFunctions = new HashSet<>();
+    private final List<UserFunction> pendingFunctions = new ArrayList<>();
+
+    private MethodVisitor method;
+    private UserFunction currentFunction;
+    private Map<Integer, Local> locals;
+    private int nextLocal;
+    private final Deque<Loop> loops = new ArrayDeque<>();
+    private final Deque<Label> matchEnds = new ArrayDeque<>();
+
+    /**
+     * Type of the value left on the operand stack by the most recently compiled expression.
+     */
+    private ValueType type;
+
+    public JvmCompiler(GlobalBlock global) {
+        this.global = global;
+    }
+
+    public byte[] compile() throws RuntimeException {
+        classWriter.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, CLASS_NAME, null, "java/lang/Object", null);
+
+        startMethod(ENTRY_POINT, "(L" + STD_LIB + ";I)V");
+        global.execute(this, global.getGlobalScope());
+        method.visitInsn(RETURN);
+        endMethod();
+
+        for (var i = 0; i < pendingFunctions.size(); i++) {
+            compileFunction(pendingFunctions.get(i));
+        }
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    private void compileFunction(UserFunction function) throws RuntimeException {
+        currentFunction = function;
+        startMethod(methodName(function.getName()), descriptor(function));
+
+        var depthOk = new Label();
+        method.visitVarInsn(ILOAD, 1);
+        pushInt(MAX_STACK_SIZE);
+        method.visitJumpInsn(IF_ICMPLT, depthOk);
+        pushInt(MAX_STACK_SIZE);
+        method.visitMethodInsn(INVOKESTATIC, RUNTIME, "stackOverflow", "(I)Lexecutor/exceptions/StackOverflowException;", false);
+        method.visitInsn(ATHROW);
+        method.visitLabel(depthOk);
+
+        var scope = function.getScope();
+        for (var name : scope.getVariablesOrder()) {
+            var parameter = scope.getDeclaredVariables().get(name);
+            declare(parameter.getSlot(), ValueType.of(parameter.getType()));
+        }
+
+        var body = function.getInstructions();
+        body.execute(this, body.getScope());
+
+        if (ValueType.of(function.getReturnType()) == ValueType.VOID) {
+            method.visitInsn(RETURN);
+        } else {
+            method.visitLdcInsn(function.getName());
+            method.visitMethodInsn(INVOKESTATIC, RUNTIME, "missingReturn", "(Ljava/lang/String;)Lexecutor/exceptions/RuntimeException;", false);
+            method.visitInsn(ATHROW);
+        }
+        endMethod();
+        currentFunction = null;
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) throws RuntimeException {
+        for (var instruction : globalBlock.getInstructions()) {
+            instruction.execute(this, scope);
+        }
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) throws RuntimeException {
+        for (var instruction : block.getInstructions()) {
+            instruction.execute(this, scope);
+        }
+    }
+
+    @Override
+    public void execute(AddExpression addExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed addition");
+    }
+
+    @Override
+    public void execute(AndExpression andExpression, Scope scope) throws RuntimeException {
+        var whenFalse = new Label();
+        var end = new Label();
+        expect(andExpression.getLeftExpression(), ValueType.BOOL, scope);
+        method.visitJumpInsn(IFEQ, whenFalse);
+        expect(andExpression.getRightExpression(), ValueType.BOOL, scope);
+        method.visitJumpInsn(GOTO, end);
+        method.visitLabel(whenFalse);
+        method.visitInsn(ICONST_0);
+        method.visitLabel(end);
+        type = ValueType.BOOL;
+    }
+
+    @Override
+    public void execute(AsExpression asExpression, Scope scope) throws RuntimeException {
+        asExpression.getExpression().execute(this, scope);
+        var source = type;
+        var target = ValueType.of(asExpression.getType());
+        switch (source) {
+            case INT -> {
+                switch (target) {
+                    case STRING -> method.visitMethodInsn(INVOKESTATIC, STRING, "valueOf", "(I)Ljava/lang/String;", false);
+                    case DOUBLE -> method.visitInsn(I2D);
+                    case BOOL -> notEqualZero();
+                    case INT -> { }
+                    default -> throw unsupported("cast from int");
+                }
+            }
+            case DOUBLE -> {
+                switch (target) {
+                    case STRING -> method.visitMethodInsn(INVOKESTATIC, STRING, "valueOf", "(D)Ljava/lang/String;", false);
+                    case INT -> method.visitInsn(D2I);
+                    case DOUBLE -> { }
+                    default -> throw unsupported("cast from double");
+                }
+            }
+            case BOOL -> {
+                switch (target) {
+                    case STRING -> method.visitMethodInsn(INVOKESTATIC, STRING, "valueOf", "(Z)Ljava/lang/String;", false);
+                    case DOUBLE -> method.visitInsn(I2D);
+                    case INT, BOOL -> { }
+                    default -> throw unsupported("cast from bool");
+                }
+            }
+            case STRING -> {
+                switch (target) {
+                    case BOOL -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "parseBoolean", "(Ljava/lang/String;)Z", false);
+                    case STRING -> { }
+                    default -> throw unsupported("cast from string");
+                }
+            }
+            default -> throw unsupported("cast of a void value");
+        }
+        type = target;
+    }
+
+    @Override
+    public void execute(AssignmentExpression assignmentExpression, Scope scope) throws RuntimeException {
+        var local = assignmentTarget(assignmentExpression, scope);
+        method.visitInsn(type == ValueType.DOUBLE ? DUP2 : DUP);
+        method.visitVarInsn(local.type.storeOpcode, local.index);
+    }
+
+    @Override
+    public void execute(BaseExpression baseExpression, Scope scope) throws RuntimeException {
+        baseExpression.getExpression().execute(this, scope);
+    }
+
+    @Override
+    public void execute(CompExpression compExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed comparison");
+    }
+
+    @Override
+    public void execute(ConstExpression constExpression, Scope scope) throws RuntimeException {
+        var value = constExpression.getValue();
+        type = ValueType.of(constExpression.getType());
+        switch (type) {
+            case INT -> pushInt((int) value);
+            case DOUBLE, STRING -> method.visitLdcInsn(value);
+            case BOOL -> method.visitInsn((boolean) value ? ICONST_1 : ICONST_0);
+            default -> throw unsupported("constant of void type");
+        }
+    }
+
+    @Override
+    public void execute(DivExpression divExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed division");
+    }
+
+    @Override
+    public void execute(DivIntExpression divIntExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed division");
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) throws RuntimeException {
+        var function = (UserFunction) global.getFunctions().get(functionCall.getName());
+        if (requestedFunctions.add(function.getName())) {
+            pendingFunctions.add(function);
+        }
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ILOAD, 1);
+        method.visitInsn(ICONST_1);
+        method.visitInsn(IADD);
+        var parameterScope = function.getScope();
+        var arguments = functionCall.getArguments();
+        for (var i = 0; i < arguments.size(); i++) {
+            var parameter = parameterScope.getDeclaredVariables().get(parameterScope.getVariablesOrder().get(i));
+            expect(arguments.get(i), ValueType.of(parameter.getType()), scope);
+        }
+        method.visitMethodInsn(INVOKESTATIC, CLASS_NAME, methodName(function.getName()), descriptor(function), false);
+        type = ValueType.of(function.getReturnType());
+    }
+
+    @Override
+    public void execute(Identifier identifier, Scope scope) throws RuntimeException {
+        var local = local(identifier.getDepth(), identifier.getSlot());
+        method.visitVarInsn(local.type.loadOpcode, local.index);
+        type = local.type;
+    }
+
+    @Override
+    public void execute(InlinedCall inlinedCall, Scope scope) throws RuntimeException {
+        for (var binding : inlinedCall.getBindings()) {
+            execute(binding, scope);
+        }
+        inlinedCall.getBody().execute(this, scope);
+    }
+
+    @Override
+    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed match comparison");
+    }
+
+    @Override
+    public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+        var matched = locals.get(insideMatchTypeExpression.getSlot());
+        var isInstance = insideMatchTypeExpression.getType() != null
+                && matched.type.typeName.equals(insideMatchTypeExpression.getType().getTypeName());
+        method.visitInsn(isInstance ? ICONST_1 : ICONST_0);
+        type = ValueType.BOOL;
+    }
+
+    @Override
+    public void execute(IsExpression isExpression, Scope scope) throws RuntimeException {
+        isExpression.getExpression().execute(this, scope);
+        var isInstance = isExpression.getType() != null && type.typeName.equals(isExpression.getType().getTypeName());
+        pop(type);
+        method.visitInsn(isInstance ? ICONST_1 : ICONST_0);
+        type = ValueType.BOOL;
+    }
+
+    @Override
+    public void execute(LibFunctionCall libFunctionCall, Scope scope) throws RuntimeException {
+        method.visitVarInsn(ALOAD, 0);
+        switch (libFunctionCall.getName()) {
+            case "print" -> {
+                expect(libFunctionCall.getArguments().get(0), ValueType.STRING, scope);
+                method.visitMethodInsn(INVOKEVIRTUAL, STD_LIB, "usePrint", "(Ljava/lang/String;)V", false);
+                type = ValueType.VOID;
+            }
+            case "get_input" -> {
+                method.visitMethodInsn(INVOKEVIRTUAL, STD_LIB, "useGetInput", "()Ljava/lang/String;", false);
+                type = ValueType.STRING;
+            }
+            default -> throw unsupported("library function " + libFunctionCall.getName());
+        }
+    }
+
+    @Override
+    public void execute(ModExpression modExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed modulo");
+    }
+
+    @Override
+    public void execute(MulExpression mulExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed multiplication");
+    }
+
+    @Override
+    public void execute(NullCheckExpression nullCheckExpression, Scope scope) throws RuntimeException {
+        throw unsupported("null coalescing");
+    }
+
+    @Override
+    public void execute(OrExpression orExpression, Scope scope) throws RuntimeException {
+        expect(orExpression.getLeftExpression(), ValueType.BOOL, scope);
+        expect(orExpression.getRightExpression(), ValueType.BOOL, scope);
+        method.visitInsn(IOR);
+        type = ValueType.BOOL;
+    }
+
+    @Override
+    public void execute(SubExpression subExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed subtraction");
+    }
+
+    @Override
+    public void execute(UnaryExpression unaryExpression, Scope scope) throws RuntimeException {
+        throw unsupported("dynamically typed unary operator");
+    }
+
+    @Override
+    public void execute(IntAdd intAdd, Scope scope) throws RuntimeException {
+        arithmetic(intAdd, ValueType.INT, IADD, scope);
+    }
+
+    @Override
+    public void execute(IntSub intSub, Scope scope) throws RuntimeException {
+        arithmetic(intSub, ValueType.INT, ISUB, scope);
+    }
+
+    @Override
+    public void execute(IntMul intMul, Scope scope) throws RuntimeException {
+        arithmetic(intMul, ValueType.INT, IMUL, scope);
+    }
+
+    @Override
+    public void execute(IntDivInt intDivInt, Scope scope) throws RuntimeException {
+        operands(intDivInt, ValueType.INT, scope);
+        method.visitMethodInsn(INVOKESTATIC, RUNTIME, "divideInt", "(II)I", false);
+        type = ValueType.INT;
+    }
+
+    @Override
+    public void execute(IntMod intMod, Scope scope) throws RuntimeException {
+        arithmetic(intMod, ValueType.INT, IREM, scope);
+    }
+
+    @Override
+    public void execute(DoubleAdd doubleAdd, Scope scope) throws RuntimeException {
+        arithmetic(doubleAdd, ValueType.DOUBLE, DADD, scope);
+    }
+
+    @Override
+    public void execute(DoubleSub doubleSub, Scope scope) throws RuntimeException {
+        arithmetic(doubleSub, ValueType.DOUBLE, DSUB, scope);
+    }
+
+    @Override
+    public void execute(DoubleMul doubleMul, Scope scope) throws RuntimeException {
+        arithmetic(doubleMul, ValueType.DOUBLE, DMUL, scope);
+    }
+
+    @Override
+    public void execute(DoubleDiv doubleDiv, Scope scope) throws RuntimeException {
+        operands(doubleDiv, ValueType.DOUBLE, scope);
+        method.visitMethodInsn(INVOKESTATIC, RUNTIME, "divide", "(DD)D", false);
+        type = ValueType.DOUBLE;
+    }
+
+    @Override
+    public void execute(DoubleDivInt doubleDivInt, Scope scope) throws RuntimeException {
+        operands(doubleDivInt, ValueType.DOUBLE, scope);
+        method.visitMethodInsn(INVOKESTATIC, RUNTIME, "divideInt", "(DD)D", false);
+        type = ValueType.DOUBLE;
+    }
+
+    @Override
+    public void execute(IntDiv intDiv, Scope scope) throws RuntimeException {
+        operands(intDiv, ValueType.INT, scope);
+        method.visitMethodInsn(INVOKESTATIC, RUNTIME, "divide", "(II)D", false);
+        type = ValueType.DOUBLE;
+    }
+
+    @Override
+    public void execute(StringConcat stringConcat, Scope scope) throws RuntimeException {
+        operands(stringConcat, ValueType.STRING, scope);
+        method.visitMethodInsn(INVOKEVIRTUAL, STRING, "concat", "(Ljava/lang/String;)Ljava/lang/String;", false);
+        type = ValueType.STRING;
+    }
+
+    @Override
+    public void execute(IntEq intEq, Scope scope) throws RuntimeException {
+        intComparison(intEq, IF_ICMPEQ, scope);
+    }
+
+    @Override
+    public void execute(IntNe intNe, Scope scope) throws RuntimeException {
+        intComparison(intNe, IF_ICMPNE, scope);
+    }
+
+    @Override
+    public void execute(IntLt intLt, Scope scope) throws RuntimeException {
+        intComparison(intLt, IF_ICMPLT, scope);
+    }
+
+    @Override
+    public void execute(IntLe intLe, Scope scope) throws RuntimeException {
+        intComparison(intLe, IF_ICMPLE, scope);
+    }
+
+    @Override
+    public void execute(IntGt intGt, Scope scope) throws RuntimeException {
+        intComparison(intGt, IF_ICMPGT, scope);
+    }
+
+    @Override
+    public void execute(IntGe intGe, Scope scope) throws RuntimeException {
+        intComparison(intGe, IF_ICMPGE, scope);
+    }
+
+    @Override
+    public void execute(DoubleEq doubleEq, Scope scope) throws RuntimeException {
+        doubleComparison(doubleEq, IFEQ, scope);
+    }
+
+    @Override
+    public void execute(DoubleNe doubleNe, Scope scope) throws RuntimeException {
+        doubleComparison(doubleNe, IFNE, scope);
+    }
+
+    @Override
+    public void execute(DoubleLt doubleLt, Scope scope) throws RuntimeException {
+        doubleComparison(doubleLt, IFLT, scope);
+    }
+
+    @Override
+    public void execute(DoubleLe doubleLe, Scope scope) throws RuntimeException {
+        doubleComparison(doubleLe, IFLE, scope);
+    }
+
+    @Override
+    public void execute(DoubleGt doubleGt, Scope scope) throws RuntimeException {
+        doubleComparison(doubleGt, IFGT, scope);
+    }
+
+    @Override
+    public void execute(DoubleGe doubleGe, Scope scope) throws RuntimeException {
+        doubleComparison(doubleGe, IFGE, scope);
+    }
+
+    @Override
+    public void execute(StringEq stringEq, Scope scope) throws RuntimeException {
+        stringComparison(stringEq, IFEQ, scope);
+    }
+
+    @Override
+    public void execute(StringNe stringNe, Scope scope) throws RuntimeException {
+        stringComparison(stringNe, IFNE, scope);
+    }
+
+    @Override
+    public void execute(StringLt stringLt, Scope scope) throws RuntimeException {
+        stringComparison(stringLt, IFLT, scope);
+    }
+
+    @Override
+    public void execute(StringLe stringLe, Scope scope) throws RuntimeException {
+        stringComparison(stringLe, IFLE, scope);
+    }
+
+    @Override
+    public void execute(StringGt stringGt, Scope scope) throws RuntimeException {
+        stringComparison(stringGt, IFGT, scope);
+    }
+
+    @Override
+    public void execute(StringGe stringGe, Scope scope) throws RuntimeException {
+        stringComparison(stringGe, IFGE, scope);
+    }
+
+    @Override
+    public void execute(IntNeg intNeg, Scope scope) throws RuntimeException {
+        expect(intNeg.getExpression(), ValueType.INT, scope);
+        method.visitInsn(INEG);
+    }
+
+    @Override
+    public void execute(DoubleNeg doubleNeg, Scope scope) throws RuntimeException {
+        expect(doubleNeg.getExpression(), ValueType.DOUBLE, scope);
+        method.visitInsn(DNEG);
+    }
+
+    @Override
+    public void execute(BoolNot boolNot, Scope scope) throws RuntimeException {
+        expect(boolNot.getExpression(), ValueType.BOOL, scope);
+        method.visitInsn(ICONST_1);
+        method.visitInsn(IXOR);
+    }
+
+    @Override
+    public void execute(BreakInstruction breakInstruction, Scope scope) {
+        method.visitJumpInsn(GOTO, loops.peek().end);
+    }
+
+    @Override
+    public void execute(ContinueInstruction continueInstruction, Scope scope) {
+        method.visitJumpInsn(GOTO, loops.peek().start);
+    }
+
+    @Override
+    public void execute(IfInstruction ifInstruction, Scope scope) throws RuntimeException {
+        var whenFalse = new Label();
+        expect(ifInstruction.getCondition(), ValueType.BOOL, scope);
+        method.visitJumpInsn(IFEQ, whenFalse);
+        var trueBlock = ifInstruction.getTrueBlock();
+        trueBlock.execute(this, trueBlock.getScope());
+        var falseBlock = ifInstruction.getFalseBlock();
+        if (falseBlock == null) {
+            method.visitLabel(whenFalse);
+            return;
+        }
+        var end = new Label();
+        method.visitJumpInsn(GOTO, end);
+        method.visitLabel(whenFalse);
+        falseBlock.execute(this, falseBlock.getScope());
+        method.visitLabel(end);
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) throws RuntimeException {
+        var armScope = insideMatchInstruction.getScope();
+        if (insideMatchInstruction.isDefault()) {
+            insideMatchInstruction.getInstruction().execute(this, armScope);
+            return;
+        }
+        var next = new Label();
+        expect(insideMatchInstruction.getExpression(), ValueType.BOOL, armScope);
+        method.visitJumpInsn(IFEQ, next);
+        insideMatchInstruction.getInstruction().execute(this, armScope);
+        method.visitJumpInsn(GOTO, matchEnds.peek());
+        method.visitLabel(next);
+    }
+
+    @Override
+    public void execute(InstructionExpression instructionExpression, Scope scope) throws RuntimeException {
+        if (instructionExpression.getExpression() instanceof AssignmentExpression assignment) {
+            var local = assignmentTarget(assignment, scope);
+            method.visitVarInsn(local.type.storeOpcode, local.index);
+            return;
+        }
+        instructionExpression.getExpression().execute(this, scope);
+        pop(type);
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) throws RuntimeException {
+        matchInstruction.getExpression().execute(this, scope);
+        var matched = declare(matchInstruction.getSlot(), type);
+        method.visitVarInsn(matched.type.storeOpcode, matched.index);
+        var end = new Label();
+        matchEnds.push(end);
+        for (var instruction : matchInstruction.getMatchStatements()) {
+            instruction.execute(this, matchInstruction.getScope());
+        }
+        matchEnds.pop();
+        method.visitLabel(end);
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) throws RuntimeException {
+        var returnType = ValueType.of(currentFunction.getReturnType());
+        if (returnInstruction.getValue() == null) {
+            if (returnType != ValueType.VOID) {
+                throw unsupported("return without a value from a non-void function");
+            }
+            method.visitInsn(RETURN);
+            return;
+        }
+        expect(returnInstruction.getValue(), returnType, scope);
+        method.visitInsn(returnType.returnOpcode);
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) throws RuntimeException {
+        var declaredType = ValueType.of(varDeclaration.getVariable().getType());
+        expect(varDeclaration.getValue(), declaredType, scope);
+        var local = declare(varDeclaration.getSlot(), declaredType);
+        method.visitVarInsn(local.type.storeOpcode, local.index);
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) throws RuntimeException {
+        var loop = new Loop();
+        method.visitLabel(loop.start);
+        expect(whileInstruction.getCondition(), ValueType.BOOL, scope);
+        method.visitJumpInsn(IFEQ, loop.end);
+        loops.push(loop);
+        var body = whileInstruction.getStatements();
+        body.execute(this, body.getScope());
+        loops.pop();
+        method.visitJumpInsn(GOTO, loop.start);
+        method.visitLabel(loop.end);
+    }
+
+    private void startMethod(String name, String descriptor) {
+        method = classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, name, descriptor, null, null);
+        method.visitCode();
+        locals = new HashMap<>();
+        nextLocal = FIRST_FREE_LOCAL;
+    }
+
+    private void endMethod() {
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private Local declare(int slot, ValueType valueType) throws UnsupportedNodeException {
+        var existing = locals.get(slot);
+        if (existing != null) {
+            if (existing.type != valueType) {
+                throw unsupported("frame slot reused with another type");
+            }
+            return existing;
+        }
+        if (valueType == ValueType.VOID) {
+            throw unsupported("variable of void type");
+        }
+        var local = new Local(nextLocal, valueType);
+        nextLocal += valueType.size;
+        locals.put(slot, local);
+        return local;
+    }
+
+    private Local local(int depth, int slot) throws UnsupportedNodeException {
+        if (depth == CallStack.GLOBAL_FRAME) {
+            throw unsupported("global variable accessed from a function");
+        }
+        var local = locals.get(slot);
+        if (local == null) {
+            throw unsupported("variable used before its declaration was compiled");
+        }
+        return local;
+    }
+
+    private Local assignmentTarget(AssignmentExpression assignment, Scope scope) throws RuntimeException {
+        var local = local(assignment.getDepth(), assignment.getSlot());
+        expect(assignment.getRightSide(), local.type, scope);
+        return local;
+    }
+
+    private void expect(Expression expression, ValueType expected, Scope scope) throws RuntimeException {
+        expression.execute(this, scope);
+        if (type != expected) {
+            throw unsupported(String.format("implicit conversion from %s to %s", type, expected));
+        }
+    }
+
+    private void operands(TypedBinaryExpression expression, ValueType operandType, Scope scope) throws RuntimeException {
+        expect(expression.getLeftExpression(), operandType, scope);
+        expect(expression.getRightExpression(), operandType, scope);
+    }
+
+    private void arithmetic(TypedBinaryExpression expression, ValueType operandType, int opcode, Scope scope) throws RuntimeException {
+        operands(expression, operandType, scope);
+        method.visitInsn(opcode);
+        type = operandType;
+    }
+
+    private void intComparison(TypedBinaryExpression expression, int jumpOpcode, Scope scope) throws RuntimeException {
+        operands(expression, ValueType.INT, scope);
+        booleanFromJump(jumpOpcode);
+    }
+
+    private void doubleComparison(TypedBinaryExpression expression, int jumpOpcode, Scope scope) throws RuntimeException {
+        operands(expression, ValueType.DOUBLE, scope);
+        method.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "compare", "(DD)I", false);
+        booleanFromJump(jumpOpcode);
+    }
+
+    private void stringComparison(TypedBinaryExpression expression, int jumpOpcode, Scope scope) throws RuntimeException {
+        operands(expression, ValueType.STRING, scope);
+        method.visitMethodInsn(INVOKEVIRTUAL, STRING, "compareTo", "(Ljava/lang/String;)I", false);
+        booleanFromJump(jumpOpcode);
+    }
+
+    private void booleanFromJump(int jumpOpcode) {
+        var whenTrue = new Label();
+        var end = new Label();
+        method.visitJumpInsn(jumpOpcode, whenTrue);
+        method.visitInsn(ICONST_0);
+        method.visitJumpInsn(GOTO, end);
+        method.visitLabel(whenTrue);
+        method.visitInsn(ICONST_1);
+        method.visitLabel(end);
+        type = ValueType.BOOL;
+    }
+
+    private void notEqualZero() {
+        booleanFromJump(IFNE);
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            method.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            method.visitIntInsn(SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+
+    private void pop(ValueType valueType) {
+        switch (valueType) {
+            case DOUBLE -> method.visitInsn(POP2);
+            case VOID -> { }
+            default -> method.visitInsn(POP);
+        }
+    }
+
+    private static String methodName(String functionName) {
+        return "fn_" + functionName;
+    }
+
+    private static String descriptor(UserFunction function) throws UnsupportedNodeException {
+        var descriptor = new StringBuilder("(L" + STD_LIB + ";I");
+        var scope = function.getScope();
+        for (var name : scope.getVariablesOrder()) {
+            descriptor.append(ValueType.of(scope.getDeclaredVariables().get(name).getType()).descriptor);
+        }
+        return descriptor.append(')').append(ValueType.of(function.getReturnType()).descriptor).toString();
+    }
+
+    private static UnsupportedNodeException unsupported(String construct) {
+        return new UnsupportedNodeException(String.format("Unsupported by the JVM compiler: %s", construct));
+    }
+
+    private enum ValueType {
+        INT(INT_TYPE_NAME, "I", ILOAD, ISTORE, IRETURN, 1),
+        DOUBLE(DOUBLE_TYPE_NAME, "D", DLOAD, DSTORE, DRETURN, 2),
+        BOOL(BOOL_TYPE_NAME, "Z", ILOAD, ISTORE, IRETURN, 1),
+        STRING(STRING_TYPE_NAME, "Ljava/lang/String;", ALOAD, ASTORE, ARETURN, 1),
+        VOID(VOID_TYPE_NAME, "V", NOP, NOP, RETURN, 0);
+
+        private final String typeName;
+        private final String descriptor;
+        private final int loadOpcode;
+        private final int storeOpcode;
+        private final int returnOpcode;
+        private final int size;
+
+        ValueType(String typeName, String descriptor, int loadOpcode, int storeOpcode, int returnOpcode, int size) {
+            this.typeName = typeName;
+            this.descriptor = descriptor;
+            this.loadOpcode = loadOpcode;
+            this.storeOpcode = storeOpcode;
+            this.returnOpcode = returnOpcode;
+            this.size = size;
+        }
+
+        private static ValueType of(Type type) throws UnsupportedNodeException {
+            if (type == null || type.isNullable()) {
+                throw unsupported("nullable value");
+            }
+            for (var valueType : values()) {
+                if (valueType.typeName.equals(type.getTypeName())) {
+                    return valueType;
+                }
+            }
+            throw unsupported("type " + type.getTypeName());
+        }
+    }
+
+    private record Local(int index, ValueType type) {
+    }
+
+    private static class Loop {
+        private final Label start = new Label();
+        private final Label end = new Label();
+    }
+}
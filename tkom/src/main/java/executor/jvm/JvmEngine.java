@@ -0,0 +1,76 @@
+package executor.jvm;
+
+import executor.Engine;
+import executor.Interpreter;
+import executor.exceptions.RuntimeException;
+import executor.ir.GlobalBlock;
+import executor.stdlib.StdLibImpl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+/**
+ * Runs a program as JVM code generated by {@link JvmCompiler} and loaded as a hidden class,
+ * so the script itself gets optimized by the JIT. Programs the compiler does not support run on the {@link Interpreter}.
+ */
+public class JvmEngine implements Engine {
+
+    private final GlobalBlock global;
+    private final StdLibImpl stdLib;
+    private final MethodHandle entryPoint;
+
+    public JvmEngine(GlobalBlock global) throws RuntimeException {
+        this.global = global;
+        this.stdLib = new StdLibImpl();
+        this.entryPoint = tryCompile(global);
+    }
+
+    public boolean isCompiled() {
+        return entryPoint != null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            runNoisy();
+        } catch (Exception e) {
+            System.out.println("Internal error occurred");
+            var stackTrace = e.getStackTrace();
+            Arrays.stream(stackTrace).forEach(System.out::println);
+            System.out.println(e.getMessage());
+        }
+    }
+
+    @Override
+    public void runNoisy() throws RuntimeException {
+        if (entryPoint == null) {
+            new Interpreter(global).runNoisy();
+            return;
+        }
+        try {
+            entryPoint.invokeExact(stdLib, 0);
+        } catch (RuntimeException | java.lang.RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    private static MethodHandle tryCompile(GlobalBlock global) throws RuntimeException {
+        byte[] classFile;
+        try {
+            classFile = new JvmCompiler(global).compile();
+        } catch (UnsupportedNodeException e) {
+            return null;
+        }
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            var type = MethodType.methodType(void.class, StdLibImpl.class, int.class);
+            return lookup.findStatic(lookup.lookupClass(), JvmCompiler.ENTRY_POINT, type);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new RuntimeException("Unable to load compiled script: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package executor.jvm;
+
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+
+/**
+ * Helpers called from generated script classes for operations that can fail the same way they fail in the interpreter.
+ */
+public final class JvmRuntime {
+
+    private JvmRuntime() {}
+
+    public static int divideInt(int left, int right) throws DivisionByZeroException {
+        if (right == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        return left / right;
+    }
+
+    public static double divide(int left, int right) throws DivisionByZeroException {
+        if (right == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        return (double) left / (double) right;
+    }
+
+    public static double divide(double left, double right) throws DivisionByZeroException {
+        if (right == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        return left / right;
+    }
+
+    public static double divideInt(double left, double right) throws DivisionByZeroException {
+        if (right == 0) {
+            throw new DivisionByZeroException("Division by zero detected");
+        }
+        return (int) (left / right);
+    }
+
+    public static StackOverflowException stackOverflow(int size) {
+        return new StackOverflowException(String.format("Stack size: %d exceeded", size));
+    }
+
+    public static RuntimeException missingReturn(String function) {
+        return new RuntimeException(String.format("Function %s finished without returning a value", function));
+    }
+}
@@ -0,0 +1,12 @@
+package executor.jvm;
+
+import executor.exceptions.RuntimeException;
+
+/**
+ * Signals that the {@link JvmCompiler} cannot translate a construct, in which case the program runs on the tree interpreter.
+ */
+public class UnsupportedNodeException extends RuntimeException {
+    public UnsupportedNodeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,82 @@
+package executor.memo;
+
+import executor.OperandStack;
+import executor.ir.ExecutorObject;
+
+/**
+ * Open addressing table for functions taking one or two non-nullable ints, packed into a single {@code long} key.
+ * A full probe window overwrites its first entry, so the table never grows past its capacity.
+ */
+final class IntMemoTable extends MemoTable {
+
+    private static final int PROBES = 4;
+
+    private final int arity;
+    private final int mask;
+    private final long[] keys;
+    private final ExecutorObject[] values;
+    private int size;
+
+    IntMemoTable(String function, int arity, int capacity) {
+        super(function);
+        this.arity = arity;
+        var length = Integer.highestOneBit(Math.max(capacity, PROBES) - 1) << 1;
+        this.mask = length - 1;
+        this.keys = new long[length];
+        this.values = new ExecutorObject[length];
+    }
+
+    @Override
+    protected ExecutorObject find(OperandStack stack, int base) {
+        var key = key(stack, base);
+        var index = index(key);
+        for (var probe = 0; probe < PROBES; probe++) {
+            var slot = (index + probe) & mask;
+            if (values[slot] == null) {
+                return null;
+            }
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void store(OperandStack stack, int base, ExecutorObject result) {
+        var key = key(stack, base);
+        var index = index(key);
+        for (var probe = 0; probe < PROBES; probe++) {
+            var slot = (index + probe) & mask;
+            if (values[slot] == null) {
+                size++;
+            } else if (keys[slot] != key) {
+                continue;
+            }
+            keys[slot] = key;
+            values[slot] = result;
+            return;
+        }
+        keys[index] = key;
+        values[index] = result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private long key(OperandStack stack, int base) {
+        var first = stack.intAt(base);
+        if (arity == 1) {
+            return first;
+        }
+        var second = stack.intAt(base + 1);
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private int index(long key) {
+        var hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
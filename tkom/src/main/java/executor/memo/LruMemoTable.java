@@ -0,0 +1,65 @@
+package executor.memo;
+
+import executor.OperandStack;
+import executor.ir.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table for any other parameter list. Keys are the argument values, the least recently used entry is evicted when full.
+ */
+final class LruMemoTable extends MemoTable {
+
+    private final int arity;
+    private final Map<List<Object>, ExecutorObject> entries;
+
+    LruMemoTable(String function, int arity, int capacity) {
+        super(function);
+        this.arity = arity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, ExecutorObject> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    protected ExecutorObject find(OperandStack stack, int base) {
+        return entries.get(key(stack, base));
+    }
+
+    @Override
+    public void store(OperandStack stack, int base, ExecutorObject result) {
+        entries.put(key(stack, base), result);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    private List<Object> key(OperandStack stack, int base) {
+        var key = new Object[arity];
+        for (var i = 0; i < arity; i++) {
+            key[i] = valueOf(stack.valueAt(base + i));
+        }
+        return Arrays.asList(key);
+    }
+
+    private static Object valueOf(ExecutorObject object) {
+        if (object instanceof IntegerObject integerObject) {
+            return integerObject.getValue();
+        } else if (object instanceof DoubleObject doubleObject) {
+            return doubleObject.getValue();
+        } else if (object instanceof BooleanObject booleanObject) {
+            return booleanObject.isValue();
+        } else if (object instanceof StringObject stringObject) {
+            return stringObject.getValue();
+        }
+        return null;
+    }
+}
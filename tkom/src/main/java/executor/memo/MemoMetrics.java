@@ -0,0 +1,19 @@
+package executor.memo;
+
+import java.util.List;
+
+/**
+ * Snapshot of how often memoized calls were answered from their tables.
+ *
+ * @param hits      calls answered from a table
+ * @param misses    calls that ran the function body
+ * @param functions the same counts per memoized function, in order of their first call
+ */
+public record MemoMetrics(long hits, long misses, List<FunctionMetrics> functions) {
+
+    /**
+     * @param entries results currently held in the function's table
+     */
+    public record FunctionMetrics(String name, long hits, long misses, int entries) {
+    }
+}
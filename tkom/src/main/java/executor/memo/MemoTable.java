@@ -0,0 +1,53 @@
+package executor.memo;
+
+import executor.OperandStack;
+import executor.ir.ExecutorObject;
+
+/**
+ * Bounded cache of the results of one pure function, keyed by its arguments.
+ * Arguments are read straight off the interpreter's stack, so looking up a call allocates nothing for primitive keys.
+ */
+public abstract class MemoTable {
+
+    private final String function;
+    private long hits;
+    private long misses;
+
+    protected MemoTable(String function) {
+        this.function = function;
+    }
+
+    public String getFunction() {
+        return function;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the result cached for the arguments starting at {@code base} of {@code stack}, or null.
+     */
+    public ExecutorObject lookup(OperandStack stack, int base) {
+        var result = find(stack, base);
+        if (result != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return result;
+    }
+
+    /**
+     * Caches {@code result} for the arguments starting at {@code base} of {@code stack}, evicting an older entry when full.
+     */
+    public abstract void store(OperandStack stack, int base, ExecutorObject result);
+
+    public abstract int size();
+
+    protected abstract ExecutorObject find(OperandStack stack, int base);
+}
@@ -0,0 +1,81 @@
+package executor.memo;
+
+import executor.ir.UserFunction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result caches of the functions {@link semcheck.PurityAnalysis} found pure, created on their first call.
+ * Like the interpreter using it, a memoizer belongs to one thread at a time; its tables outlive a run,
+ * so later runs of the same program start warm.
+ */
+public class Memoizer {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final String INT_TYPE_NAME = "int";
+
+    private final int capacity;
+    private final Map<UserFunction, MemoTable> tables = new LinkedHashMap<>();
+
+    public Memoizer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity results kept per function
+     */
+    public Memoizer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Memo table capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the table caching {@code function}, or null when the function is not pure or takes no arguments.
+     */
+    public MemoTable tableFor(UserFunction function) {
+        if (!function.isPure()) {
+            return null;
+        }
+        var table = tables.get(function);
+        if (table == null && !tables.containsKey(function)) {
+            table = createTable(function);
+            tables.put(function, table);
+        }
+        return table;
+    }
+
+    public MemoMetrics metrics() {
+        var functions = new ArrayList<MemoMetrics.FunctionMetrics>();
+        long hits = 0;
+        long misses = 0;
+        for (var table : tables.values()) {
+            if (table == null) {
+                continue;
+            }
+            functions.add(new MemoMetrics.FunctionMetrics(table.getFunction(), table.getHits(), table.getMisses(), table.size()));
+            hits += table.getHits();
+            misses += table.getMisses();
+        }
+        return new MemoMetrics(hits, misses, functions);
+    }
+
+    private MemoTable createTable(UserFunction function) {
+        var scope = function.getScope();
+        var parameters = scope.getVariablesOrder();
+        if (parameters.isEmpty()) {
+            return null;
+        }
+        var allInts = parameters.stream()
+                .map(name -> scope.getDeclaredVariables().get(name).getType())
+                .allMatch(type -> !type.isNullable() && INT_TYPE_NAME.equals(type.getTypeName()));
+        if (allInts && parameters.size() <= 2) {
+            return new IntMemoTable(function.getName(), parameters.size(), capacity);
+        }
+        return new LruMemoTable(function.getName(), parameters.size(), capacity);
+    }
+}
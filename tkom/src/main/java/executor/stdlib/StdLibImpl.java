@@ -2,15 +2,33 @@ package executor.stdlib;
 
 import executor.ir.*;
 
+import java.io.*;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 public class StdLibImpl {
 
     private final Map<String, Function> embeddedFunctionsDefinitions = new HashMap<>();
+    private final BufferedReader input;
+    private final Writer output;
 
     public StdLibImpl() {
+        this(null, null);
+    }
+
+    public StdLibImpl(Writer output) {
+        this(null, output);
+    }
+
+    /**
+     * @param input  supplies the lines read by {@code get_input}, null reads {@code System.in}
+     * @param output receives everything the program prints, null prints to {@code System.out}
+     */
+    public StdLibImpl(Reader input, Writer output) {
+        this.input = input == null ? null : new BufferedReader(input);
+        this.output = output;
         buildStandardLibrary();
     }
 
@@ -27,12 +45,33 @@ public class StdLibImpl {
     }
 
     public void usePrint(String text) {
-        System.out.println(text);
+        if (output == null) {
+            System.out.println(text);
+            return;
+        }
+        try {
+            output.write(text);
+            output.write(System.lineSeparator());
+            output.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public String useGetInput() {
-        Scanner in = new Scanner(System.in);
-        return in.nextLine();
+        if (input == null) {
+            Scanner in = new Scanner(System.in);
+            return in.nextLine();
+        }
+        try {
+            var line = input.readLine();
+            if (line == null) {
+                throw new NoSuchElementException("No line found");
+            }
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private void buildStandardLibrary() {
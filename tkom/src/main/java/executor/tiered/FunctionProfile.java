@@ -0,0 +1,70 @@
+package executor.tiered;
+
+import executor.closure.ClosureCallTarget;
+import executor.ir.UserFunction;
+
+/**
+ * Execution counters of one user function and its compiled call target, once there is one.
+ * Counters are only touched by the interpreting thread; the target is published by the compiler thread.
+ */
+public final class FunctionProfile {
+
+    private final UserFunction function;
+    private final TieredCompiler compiler;
+    private int invocations;
+    private int backEdges;
+    private boolean queued;
+    private volatile ClosureCallTarget target;
+
+    FunctionProfile(UserFunction function, TieredCompiler compiler) {
+        this.function = function;
+        this.compiler = compiler;
+    }
+
+    /**
+     * Counts a call and returns the compiled call target, or null while the function is still interpreted.
+     */
+    public ClosureCallTarget onInvocation() {
+        if (++invocations == compiler.getThresholds().invocations()) {
+            enqueue();
+        }
+        var compiled = target;
+        if (compiled != null) {
+            compiler.countCompiledCall();
+        }
+        return compiled;
+    }
+
+    public void onBackEdge() {
+        if (++backEdges == compiler.getThresholds().backEdges()) {
+            enqueue();
+        }
+    }
+
+    public UserFunction getFunction() {
+        return function;
+    }
+
+    public int getInvocations() {
+        return invocations;
+    }
+
+    public int getBackEdges() {
+        return backEdges;
+    }
+
+    public boolean isCompiled() {
+        return target != null;
+    }
+
+    void install(ClosureCallTarget target) {
+        this.target = target;
+    }
+
+    private void enqueue() {
+        if (!queued) {
+            queued = true;
+            compiler.enqueue(this);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package executor.tiered;
+
+/**
+ * Snapshot of the compile queue and of how often compiled code was entered.
+ *
+ * @param queued       functions submitted for compilation
+ * @param compiled     functions whose compiled call target was installed
+ * @param failed       functions the compiler rejected, they stay interpreted
+ * @param pending      functions queued but not yet compiled
+ * @param compiledCalls calls dispatched to compiled code
+ * @param compileTimeNanos total time spent compiling
+ */
+public record TierMetrics(int queued, int compiled, int failed, int pending, long compiledCalls, long compileTimeNanos) {
+}
@@ -0,0 +1,16 @@
+package executor.tiered;
+
+/**
+ * Counter values at which {@link TieredCompiler} queues a function for compilation:
+ * after {@code invocations} calls, or after {@code backEdges} loop iterations inside its body.
+ */
+public record TierThresholds(int invocations, int backEdges) {
+
+    public static final TierThresholds DEFAULT = new TierThresholds(1000, 10000);
+
+    public TierThresholds {
+        if (invocations < 1 || backEdges < 1) {
+            throw new IllegalArgumentException("Tier thresholds must be positive");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package executor.tiered;
+
+import executor.closure.ClosureCompiler;
+import executor.exceptions.RuntimeException;
+import executor.ir.GlobalBlock;
+import executor.ir.UserFunction;
+import executor.stdlib.StdLibImpl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Promotes hot user functions from the tree-walking {@link executor.Interpreter} to closures built by {@link ClosureCompiler}.
+ * The interpreter reports calls and loop back-edges through {@link FunctionProfile}s; once a counter reaches its
+ * threshold the function is compiled on the compiler thread and its call target swapped in, so every later call
+ * runs compiled code. Loops already running keep being interpreted until their function is entered again.
+ */
+public class TieredCompiler {
+
+    private static final class BackgroundThread {
+        private static final ExecutorService INSTANCE = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "tier-compiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final GlobalBlock global;
+    private final TierThresholds thresholds;
+    private final Executor compileExecutor;
+    private final StdLibImpl stdLib = new StdLibImpl();
+    private final Map<UserFunction, FunctionProfile> profiles = new IdentityHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger compiled = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong compileTimeNanos = new AtomicLong();
+    private final LongAdder compiledCalls = new LongAdder();
+
+    public TieredCompiler(GlobalBlock global, TierThresholds thresholds) {
+        this(global, thresholds, BackgroundThread.INSTANCE);
+    }
+
+    /**
+     * @param compileExecutor runs compilation jobs, a direct executor makes compilation synchronous
+     */
+    public TieredCompiler(GlobalBlock global, TierThresholds thresholds, Executor compileExecutor) {
+        this.global = global;
+        this.thresholds = thresholds;
+        this.compileExecutor = compileExecutor;
+    }
+
+    public FunctionProfile profile(UserFunction function) {
+        return profiles.computeIfAbsent(function, key -> new FunctionProfile(key, this));
+    }
+
+    public TierThresholds getThresholds() {
+        return thresholds;
+    }
+
+    public TierMetrics metrics() {
+        return new TierMetrics(queued.get(), compiled.get(), failed.get(), pending.get(), compiledCalls.sum(), compileTimeNanos.get());
+    }
+
+    void countCompiledCall() {
+        compiledCalls.increment();
+    }
+
+    void enqueue(FunctionProfile profile) {
+        queued.incrementAndGet();
+        pending.incrementAndGet();
+        compileExecutor.execute(() -> compile(profile));
+    }
+
+    private void compile(FunctionProfile profile) {
+        var start = System.nanoTime();
+        try {
+            profile.install(new ClosureCompiler(global, stdLib).compileFunction(profile.getFunction().getName()));
+            compiled.incrementAndGet();
+        } catch (RuntimeException | java.lang.RuntimeException e) {
+            failed.incrementAndGet();
+        } finally {
+            compileTimeNanos.addAndGet(System.nanoTime() - start);
+            pending.decrementAndGet();
+        }
+    }
+}
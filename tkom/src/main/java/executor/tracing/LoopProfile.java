@@ -0,0 +1,104 @@
+package executor.tracing;
+
+import executor.closure.CompiledTrace;
+import executor.closure.SideExit;
+import executor.ir.Scope;
+import executor.ir.instructions.IfInstruction;
+import executor.ir.instructions.WhileInstruction;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Iteration counter, recording and compiled trace of one while loop.
+ * A guard that keeps failing is compiled to both of its branches the next time the loop is compiled.
+ */
+public final class LoopProfile {
+
+    static final int UNSTABLE_GUARD_EXITS = 8;
+    static final int MAX_RECOMPILATIONS = 4;
+
+    private enum State {
+        COUNTING,
+        RECORDING,
+        TRACED,
+        ABANDONED
+    }
+
+    private final WhileInstruction loop;
+    private final LoopTracer tracer;
+    private final Set<IfInstruction> unstableGuards = Collections.newSetFromMap(new IdentityHashMap<>());
+    private State state = State.COUNTING;
+    private int iterations;
+    private int recompilations;
+    private int[] guardExits;
+    private TraceRecording recording;
+    private CompiledTrace trace;
+
+    private Scope scope;
+    private boolean inFunction;
+    private int frameSize;
+
+    LoopProfile(WhileInstruction loop, LoopTracer tracer) {
+        this.loop = loop;
+        this.tracer = tracer;
+    }
+
+    public CompiledTrace getTrace() {
+        return trace;
+    }
+
+    public WhileInstruction getLoop() {
+        return loop;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Counts an interpreted iteration. Returns the recording the iteration should feed once the loop got hot, null otherwise.
+     */
+    public TraceRecording onIteration() {
+        if (state != State.COUNTING || ++iterations < tracer.getHotIterations()) {
+            return null;
+        }
+        state = State.RECORDING;
+        recording = new TraceRecording();
+        return recording;
+    }
+
+    /**
+     * Compiles the recorded iteration of the loop, whose enclosing scope is {@code scope} and whose frame holds {@code frameSize} slots.
+     */
+    public void onRecorded(Scope scope, boolean inFunction, int frameSize) {
+        this.scope = scope;
+        this.inFunction = inFunction;
+        this.frameSize = frameSize;
+        compile();
+    }
+
+    public void onEntry() {
+        tracer.countEntry();
+    }
+
+    public void onSideExit(SideExit exit) {
+        tracer.countSideExit();
+        if (++guardExits[exit.getIndex()] == UNSTABLE_GUARD_EXITS && recompilations < MAX_RECOMPILATIONS) {
+            recompilations++;
+            unstableGuards.add(exit.getGuard());
+            compile();
+        }
+    }
+
+    private void compile() {
+        trace = tracer.compile(this, loop, scope, inFunction, frameSize, recording.getDecisions(), unstableGuards);
+        if (trace == null) {
+            state = State.ABANDONED;
+            return;
+        }
+        state = State.TRACED;
+        guardExits = new int[trace.getGuardCount()];
+    }
+}
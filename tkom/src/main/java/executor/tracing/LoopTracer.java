@@ -0,0 +1,87 @@
+package executor.tracing;
+
+import executor.closure.CompiledTrace;
+import executor.closure.TraceCompiler;
+import executor.exceptions.RuntimeException;
+import executor.ir.GlobalBlock;
+import executor.ir.Scope;
+import executor.ir.instructions.IfInstruction;
+import executor.ir.instructions.WhileInstruction;
+import executor.stdlib.StdLibImpl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles hot while loops of the tree-walking {@link executor.Interpreter} along the path they actually take.
+ * Once a loop ran {@code hotIterations} interpreted iterations, the next iteration is recorded, the branches it took
+ * are compiled by {@link TraceCompiler} into a trace with guards, and later iterations run the trace until a guard fails.
+ * The interpreter then finishes that iteration itself and enters the trace again for the next one.
+ */
+public class LoopTracer {
+
+    public static final int DEFAULT_HOT_ITERATIONS = 100;
+
+    private final GlobalBlock global;
+    private final int hotIterations;
+    private final StdLibImpl stdLib = new StdLibImpl();
+    private final Map<WhileInstruction, LoopProfile> profiles = new IdentityHashMap<>();
+
+    private int recorded;
+    private int compiled;
+    private int aborted;
+    private long entries;
+    private long sideExits;
+    private long compileTimeNanos;
+
+    public LoopTracer(GlobalBlock global) {
+        this(global, DEFAULT_HOT_ITERATIONS);
+    }
+
+    public LoopTracer(GlobalBlock global, int hotIterations) {
+        if (hotIterations <= 0) {
+            throw new IllegalArgumentException("Hot iteration threshold must be positive");
+        }
+        this.global = global;
+        this.hotIterations = hotIterations;
+    }
+
+    public LoopProfile profile(WhileInstruction loop) {
+        return profiles.computeIfAbsent(loop, key -> new LoopProfile(key, this));
+    }
+
+    public int getHotIterations() {
+        return hotIterations;
+    }
+
+    public TraceMetrics metrics() {
+        return new TraceMetrics(recorded, compiled, aborted, entries, sideExits, compileTimeNanos);
+    }
+
+    void countEntry() {
+        entries++;
+    }
+
+    void countSideExit() {
+        sideExits++;
+    }
+
+    CompiledTrace compile(LoopProfile profile, WhileInstruction loop, Scope scope, boolean inFunction, int frameSize,
+                          Map<IfInstruction, Boolean> decisions, Set<IfInstruction> unstableGuards) {
+        if (profile.getTrace() == null) {
+            recorded++;
+        }
+        var start = System.nanoTime();
+        try {
+            var trace = new TraceCompiler(global, stdLib, decisions, unstableGuards, frameSize).compileTrace(loop, scope, inFunction);
+            compiled++;
+            return trace;
+        } catch (RuntimeException | java.lang.RuntimeException e) {
+            aborted++;
+            return null;
+        } finally {
+            compileTimeNanos += System.nanoTime() - start;
+        }
+    }
+}
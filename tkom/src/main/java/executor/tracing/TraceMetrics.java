@@ -0,0 +1,14 @@
+package executor.tracing;
+
+/**
+ * Snapshot of what the {@link LoopTracer} did so far.
+ *
+ * @param recorded   loop iterations recorded
+ * @param compiled   traces compiled, recompilations included
+ * @param aborted    recordings that could not be compiled, their loops stay interpreted
+ * @param entries    times the interpreter entered a compiled trace
+ * @param sideExits  times a guard failed and the interpreter finished the iteration
+ * @param compileTimeNanos total time spent compiling
+ */
+public record TraceMetrics(int recorded, int compiled, int aborted, long entries, long sideExits, long compileTimeNanos) {
+}
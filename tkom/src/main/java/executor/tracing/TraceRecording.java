@@ -0,0 +1,25 @@
+package executor.tracing;
+
+import executor.ir.instructions.IfInstruction;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Branches taken during the recorded iteration of a hot loop.
+ */
+public final class TraceRecording {
+
+    private final Map<IfInstruction, Boolean> decisions = new IdentityHashMap<>();
+
+    /**
+     * Notes the branch {@code ifInstruction} took, only its first execution in the iteration counts.
+     */
+    public void record(IfInstruction ifInstruction, boolean condition) {
+        decisions.putIfAbsent(ifInstruction, condition);
+    }
+
+    Map<IfInstruction, Boolean> getDecisions() {
+        return decisions;
+    }
+}
@@ -0,0 +1,201 @@
+package optimizer;
+
+import executor.CallStack;
+import executor.Interpreter;
+import executor.exceptions.RuntimeException;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.instructions.VarDeclaration;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces expressions whose operands are all constants by their value, and reads of immutable variables
+ * initialized with a constant by that constant.
+ * Values are computed by the tree interpreter, so they are exactly what the program would compute. An expression that fails,
+ * such as a division by zero or an invalid cast, is left in place to fail at runtime.
+ * Only {@code and} skips its right operand. {@code or} evaluates both, and so does {@code ??} unless the right operand is a
+ * constant or a variable, so {@code true or} and a non-null {@code ??} are only folded when the right operand can neither
+ * print nor fail.
+ * Slots are never shared by two variables of one frame, so a constant recorded for a slot holds for every read of it
+ * in the global code or the function body being folded. Top-level declarations are not propagated, as an embedding
+ * may bind them to other values for a run.
+ */
+public class ConstantFolding extends IrWalker implements Pass {
+
+    public static final String NAME = "constant-folding";
+
+    private GlobalBlock global;
+    private Interpreter evaluator;
+    private final Map<Integer, ConstExpression> constants = new HashMap<>();
+    private final Set<VarDeclaration> bindable = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Whether an operand of the expression being rewritten did not fold to a constant.
+     */
+    private boolean opaque;
+
+    private int folded;
+    private int propagated;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int run(GlobalBlock global) {
+        this.global = global;
+        evaluator = null;
+        folded = 0;
+        propagated = 0;
+        walk(global);
+        bindable.clear();
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                constants.clear();
+                walk(userFunction);
+            }
+        }
+        constants.clear();
+        return folded + propagated;
+    }
+
+    /**
+     * Expressions replaced by their value.
+     */
+    public int getFolded() {
+        return folded;
+    }
+
+    /**
+     * Variable reads replaced by the constant the variable was initialized with.
+     */
+    public int getPropagated() {
+        return propagated;
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) {
+        for (var instruction : globalBlock.getInstructions()) {
+            if (instruction instanceof VarDeclaration declaration) {
+                bindable.add(declaration);
+            }
+        }
+        super.execute(globalBlock, scope);
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) {
+        super.execute(varDeclaration, scope);
+        var variable = varDeclaration.getVariable();
+        if (!variable.isMutable()
+                && !bindable.contains(varDeclaration)
+                && varDeclaration.getValue() instanceof ConstExpression constant
+                && constant.getType() != null
+                && constant.getType().getTypeName().equals(variable.getType().getTypeName())) {
+            constants.put(varDeclaration.getSlot(), constant);
+        }
+    }
+
+    @Override
+    protected Expression rewrite(Expression expression) {
+        var enclosing = opaque;
+        opaque = false;
+        var result = super.rewrite(expression);
+        opaque = enclosing || !(result instanceof ConstExpression);
+        return result;
+    }
+
+    @Override
+    protected Expression replace(Expression expression) {
+        if (expression instanceof ConstExpression) {
+            return expression;
+        }
+        if (expression instanceof Identifier identifier) {
+            var constant = identifier.getDepth() == CallStack.LOCAL_FRAME ? constants.get(identifier.getSlot()) : null;
+            if (constant == null) {
+                return expression;
+            }
+            propagated++;
+            return copy(constant);
+        }
+        if (expression instanceof AndExpression andExpression && andExpression.getLeftExpression() instanceof ConstExpression left) {
+            folded++;
+            return (boolean) left.getValue() ? andExpression.getRightExpression() : copy(left);
+        }
+        if (expression instanceof OrExpression orExpression && orExpression.getLeftExpression() instanceof ConstExpression left) {
+            var right = orExpression.getRightExpression();
+            if (!(boolean) left.getValue()) {
+                folded++;
+                return right;
+            }
+            if (right instanceof ConstExpression || right instanceof Identifier) {
+                folded++;
+                return copy(left);
+            }
+            return expression;
+        }
+        if (expression instanceof NullCheckExpression nullCheck && nullCheck.getLeftExpression() instanceof ConstExpression left) {
+            var right = nullCheck.getRightExpression();
+            if (left.getType() == null) {
+                folded++;
+                return right;
+            }
+            if (right instanceof ConstExpression || right instanceof Identifier) {
+                folded++;
+                return copy(left);
+            }
+            return expression;
+        }
+        if (expression instanceof InlinedCall inlinedCall && inlinedCall.getBindings().isEmpty()
+                && inlinedCall.getBody() instanceof ConstExpression body) {
+            folded++;
+            return body;
+        }
+        if (opaque || !isFoldable(expression)) {
+            return expression;
+        }
+        try {
+            if (evaluator == null) {
+                evaluator = new Interpreter(global);
+            }
+            var value = evaluator.evaluate(expression);
+            folded++;
+            return constant(value);
+        } catch (RuntimeException | ArithmeticException e) {
+            // % has no zero check of its own, the division by zero surfaces from the JVM
+            return expression;
+        }
+    }
+
+    private static boolean isFoldable(Expression expression) {
+        return !(expression instanceof FunctionCall
+                || expression instanceof LibFunctionCall
+                || expression instanceof InlinedCall
+                || expression instanceof AssignmentExpression
+                || expression instanceof InsideMatchCompExpression
+                || expression instanceof InsideMatchTypeExpression);
+    }
+
+    private static ConstExpression copy(ConstExpression constant) {
+        return new ConstExpression(constant.getType(), constant.getValue(), constant.getRuntimeValue());
+    }
+
+    private static ConstExpression constant(ExecutorObject value) {
+        if (value instanceof IntegerObject integerObject) {
+            return new ConstExpression(new Type(false, "int"), integerObject.getValue(), value);
+        } else if (value instanceof DoubleObject doubleObject) {
+            return new ConstExpression(new Type(false, "double"), doubleObject.getValue(), value);
+        } else if (value instanceof BooleanObject booleanObject) {
+            return new ConstExpression(new Type(false, "bool"), booleanObject.isValue(), value);
+        } else if (value instanceof StringObject stringObject) {
+            return new ConstExpression(new Type(false, "string"), stringObject.getValue(), value);
+        }
+        return new ConstExpression(null, null, NullObject.NULL);
+    }
+}
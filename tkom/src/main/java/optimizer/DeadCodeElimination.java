@@ -0,0 +1,130 @@
+package optimizer;
+
+import executor.ir.*;
+import executor.ir.expressions.ConstExpression;
+import executor.ir.instructions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes instructions that can never run: everything after a {@code return}, {@code break} or {@code continue}
+ * in the same block, branches of an {@code if} whose condition is constant, loops whose condition is constant {@code false}
+ * and match arms that can never be reached because an earlier arm always matches.
+ * A branch that is always taken replaces its {@code if} unless it declares variables, which keep their own block.
+ */
+public class DeadCodeElimination extends IrWalker implements Pass {
+
+    public static final String NAME = "dead-code";
+
+    private int removed;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int run(GlobalBlock global) {
+        removed = 0;
+        walk(global);
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                walk(userFunction);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) {
+        super.execute(globalBlock, scope);
+        globalBlock.setInstructions(prune(globalBlock.getInstructions()));
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) {
+        super.execute(block, scope);
+        block.setInstructions(prune(block.getInstructions()));
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) {
+        super.execute(matchInstruction, scope);
+        var arms = matchInstruction.getMatchStatements();
+        var reachable = new ArrayList<InsideMatchInstruction>(arms.size());
+        for (var arm : arms) {
+            var always = arm.isDefault();
+            if (!always && arm.getExpression() instanceof ConstExpression constant) {
+                if (!(boolean) constant.getValue()) {
+                    continue;
+                }
+                always = true;
+            }
+            reachable.add(arm);
+            if (always) {
+                break;
+            }
+        }
+        if (reachable.size() != arms.size()) {
+            removed += arms.size() - reachable.size();
+            matchInstruction.setMatchStatements(reachable);
+        }
+    }
+
+    private List<Instruction> prune(List<Instruction> instructions) {
+        var pruned = new ArrayList<Instruction>(instructions.size());
+        for (var i = 0; i < instructions.size(); i++) {
+            var instruction = instructions.get(i);
+            if (instruction instanceof IfInstruction ifInstruction && ifInstruction.getCondition() instanceof ConstExpression condition) {
+                removed++;
+                var taken = (boolean) condition.getValue() ? ifInstruction.getTrueBlock() : ifInstruction.getFalseBlock();
+                if (taken != null && declaresVariables(taken)) {
+                    pruned.add(new IfInstruction(condition, taken, null));
+                } else if (taken != null) {
+                    pruned.addAll(taken.getInstructions());
+                }
+            } else if (instruction instanceof WhileInstruction whileInstruction
+                    && whileInstruction.getCondition() instanceof ConstExpression condition
+                    && !(boolean) condition.getValue()) {
+                removed++;
+            } else {
+                pruned.add(instruction);
+            }
+            if (!pruned.isEmpty() && completesAbruptly(pruned.get(pruned.size() - 1))) {
+                removed += instructions.size() - i - 1;
+                break;
+            }
+        }
+        return pruned.size() == instructions.size() ? instructions : pruned;
+    }
+
+    private static boolean declaresVariables(Block block) {
+        for (var instruction : block.getInstructions()) {
+            if (instruction instanceof VarDeclaration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether control never continues with the next instruction of the block.
+     */
+    private static boolean completesAbruptly(Instruction instruction) {
+        if (instruction instanceof ReturnInstruction
+                || instruction instanceof BreakInstruction
+                || instruction instanceof ContinueInstruction) {
+            return true;
+        }
+        if (instruction instanceof IfInstruction ifInstruction && ifInstruction.getFalseBlock() != null) {
+            return endsAbruptly(ifInstruction.getTrueBlock()) && endsAbruptly(ifInstruction.getFalseBlock());
+        }
+        return false;
+    }
+
+    private static boolean endsAbruptly(Block block) {
+        var instructions = block.getInstructions();
+        return !instructions.isEmpty() && completesAbruptly(instructions.get(instructions.size() - 1));
+    }
+}
@@ -0,0 +1,387 @@
+package optimizer;
+
+import executor.CallStack;
+import executor.Executor;
+import executor.ir.Block;
+import executor.ir.Expression;
+import executor.ir.GlobalBlock;
+import executor.ir.IrNode;
+import executor.ir.Scope;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import executor.ir.instructions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deep copy of an expression, replacing reads of some local slots by copies of other expressions.
+ * Only the nodes a returned expression can consist of are copied; assignments, match operands and instructions are rejected.
+ */
+class ExpressionCopier implements Executor {
+
+    private final Map<Integer, Expression> parameters;
+    private Expression result;
+
+    /**
+     * @param parameters the expression replacing each read of a local slot, for the slots that are replaced
+     */
+    ExpressionCopier(Map<Integer, Expression> parameters) {
+        this.parameters = parameters;
+    }
+
+    Expression copy(Expression expression) {
+        try {
+            expression.execute(this, null);
+        } catch (executor.exceptions.RuntimeException e) {
+            throw new IllegalStateException("Copying the IR does not execute it", e);
+        }
+        return result;
+    }
+
+    private List<Expression> copyAll(List<Expression> expressions) {
+        var copies = new ArrayList<Expression>(expressions.size());
+        for (var expression : expressions) {
+            copies.add(copy(expression));
+        }
+        return copies;
+    }
+
+    private static IllegalStateException unsupported(IrNode node) {
+        return new IllegalStateException(String.format("%s cannot be copied into another function", node.getClass().getSimpleName()));
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) {
+        throw unsupported(globalBlock);
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) {
+        throw unsupported(block);
+    }
+
+    @Override
+    public void execute(AddExpression addExpression, Scope scope) {
+        result = new AddExpression(copy(addExpression.getLeftExpression()), copy(addExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(AndExpression andExpression, Scope scope) {
+        result = new AndExpression(copy(andExpression.getLeftExpression()), copy(andExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(AsExpression asExpression, Scope scope) {
+        result = new AsExpression(copy(asExpression.getExpression()), asExpression.getType());
+    }
+
+    @Override
+    public void execute(AssignmentExpression assignmentExpression, Scope scope) {
+        throw unsupported(assignmentExpression);
+    }
+
+    @Override
+    public void execute(BaseExpression baseExpression, Scope scope) {
+        result = new BaseExpression(copy(baseExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(CompExpression compExpression, Scope scope) {
+        result = new CompExpression(copy(compExpression.getLeftExpression()), copy(compExpression.getRightExpression()), compExpression.getOperator());
+    }
+
+    @Override
+    public void execute(ConstExpression constExpression, Scope scope) {
+        result = new ConstExpression(constExpression.getType(), constExpression.getValue(), constExpression.getRuntimeValue());
+    }
+
+    @Override
+    public void execute(DivExpression divExpression, Scope scope) {
+        result = new DivExpression(copy(divExpression.getLeftExpression()), copy(divExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DivIntExpression divIntExpression, Scope scope) {
+        result = new DivIntExpression(copy(divIntExpression.getLeftExpression()), copy(divIntExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) {
+        result = new FunctionCall(functionCall.getName(), copyAll(functionCall.getArguments()));
+    }
+
+    @Override
+    public void execute(Identifier identifier, Scope scope) {
+        var parameter = identifier.getDepth() == CallStack.LOCAL_FRAME ? parameters.get(identifier.getSlot()) : null;
+        result = parameter != null
+                ? new ExpressionCopier(Map.of()).copy(parameter)
+                : new Identifier(identifier.getName(), identifier.getDepth(), identifier.getSlot());
+    }
+
+    @Override
+    public void execute(InlinedCall inlinedCall, Scope scope) {
+        throw unsupported(inlinedCall);
+    }
+
+    @Override
+    public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) {
+        throw unsupported(insideMatchCompExpression);
+    }
+
+    @Override
+    public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+        throw unsupported(insideMatchTypeExpression);
+    }
+
+    @Override
+    public void execute(IsExpression isExpression, Scope scope) {
+        result = new IsExpression(copy(isExpression.getExpression()), isExpression.getType());
+    }
+
+    @Override
+    public void execute(LibFunctionCall libFunctionCall, Scope scope) {
+        result = new LibFunctionCall(libFunctionCall.getName(), copyAll(libFunctionCall.getArguments()));
+    }
+
+    @Override
+    public void execute(ModExpression modExpression, Scope scope) {
+        result = new ModExpression(copy(modExpression.getLeftExpression()), copy(modExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(MulExpression mulExpression, Scope scope) {
+        result = new MulExpression(copy(mulExpression.getLeftExpression()), copy(mulExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(NullCheckExpression nullCheckExpression, Scope scope) {
+        result = new NullCheckExpression(copy(nullCheckExpression.getLeftExpression()), copy(nullCheckExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(OrExpression orExpression, Scope scope) {
+        result = new OrExpression(copy(orExpression.getLeftExpression()), copy(orExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(SubExpression subExpression, Scope scope) {
+        result = new SubExpression(copy(subExpression.getLeftExpression()), copy(subExpression.getRightExpression()));
+    }
+
+    @Override
+    public void execute(UnaryExpression unaryExpression, Scope scope) {
+        result = new UnaryExpression(unaryExpression.getUnaryOperator(), copy(unaryExpression.getExpression()));
+    }
+
+    @Override
+    public void execute(IntAdd intAdd, Scope scope) {
+        result = new IntAdd(copy(intAdd.getLeftExpression()), copy(intAdd.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntSub intSub, Scope scope) {
+        result = new IntSub(copy(intSub.getLeftExpression()), copy(intSub.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntMul intMul, Scope scope) {
+        result = new IntMul(copy(intMul.getLeftExpression()), copy(intMul.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntDivInt intDivInt, Scope scope) {
+        result = new IntDivInt(copy(intDivInt.getLeftExpression()), copy(intDivInt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntMod intMod, Scope scope) {
+        result = new IntMod(copy(intMod.getLeftExpression()), copy(intMod.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleAdd doubleAdd, Scope scope) {
+        result = new DoubleAdd(copy(doubleAdd.getLeftExpression()), copy(doubleAdd.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleSub doubleSub, Scope scope) {
+        result = new DoubleSub(copy(doubleSub.getLeftExpression()), copy(doubleSub.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleMul doubleMul, Scope scope) {
+        result = new DoubleMul(copy(doubleMul.getLeftExpression()), copy(doubleMul.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleDiv doubleDiv, Scope scope) {
+        result = new DoubleDiv(copy(doubleDiv.getLeftExpression()), copy(doubleDiv.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleDivInt doubleDivInt, Scope scope) {
+        result = new DoubleDivInt(copy(doubleDivInt.getLeftExpression()), copy(doubleDivInt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntDiv intDiv, Scope scope) {
+        result = new IntDiv(copy(intDiv.getLeftExpression()), copy(intDiv.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringConcat stringConcat, Scope scope) {
+        result = new StringConcat(copy(stringConcat.getLeftExpression()), copy(stringConcat.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntEq intEq, Scope scope) {
+        result = new IntEq(copy(intEq.getLeftExpression()), copy(intEq.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntNe intNe, Scope scope) {
+        result = new IntNe(copy(intNe.getLeftExpression()), copy(intNe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntLt intLt, Scope scope) {
+        result = new IntLt(copy(intLt.getLeftExpression()), copy(intLt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntLe intLe, Scope scope) {
+        result = new IntLe(copy(intLe.getLeftExpression()), copy(intLe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntGt intGt, Scope scope) {
+        result = new IntGt(copy(intGt.getLeftExpression()), copy(intGt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntGe intGe, Scope scope) {
+        result = new IntGe(copy(intGe.getLeftExpression()), copy(intGe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleEq doubleEq, Scope scope) {
+        result = new DoubleEq(copy(doubleEq.getLeftExpression()), copy(doubleEq.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleNe doubleNe, Scope scope) {
+        result = new DoubleNe(copy(doubleNe.getLeftExpression()), copy(doubleNe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleLt doubleLt, Scope scope) {
+        result = new DoubleLt(copy(doubleLt.getLeftExpression()), copy(doubleLt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleLe doubleLe, Scope scope) {
+        result = new DoubleLe(copy(doubleLe.getLeftExpression()), copy(doubleLe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleGt doubleGt, Scope scope) {
+        result = new DoubleGt(copy(doubleGt.getLeftExpression()), copy(doubleGt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(DoubleGe doubleGe, Scope scope) {
+        result = new DoubleGe(copy(doubleGe.getLeftExpression()), copy(doubleGe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringEq stringEq, Scope scope) {
+        result = new StringEq(copy(stringEq.getLeftExpression()), copy(stringEq.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringNe stringNe, Scope scope) {
+        result = new StringNe(copy(stringNe.getLeftExpression()), copy(stringNe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringLt stringLt, Scope scope) {
+        result = new StringLt(copy(stringLt.getLeftExpression()), copy(stringLt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringLe stringLe, Scope scope) {
+        result = new StringLe(copy(stringLe.getLeftExpression()), copy(stringLe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringGt stringGt, Scope scope) {
+        result = new StringGt(copy(stringGt.getLeftExpression()), copy(stringGt.getRightExpression()));
+    }
+
+    @Override
+    public void execute(StringGe stringGe, Scope scope) {
+        result = new StringGe(copy(stringGe.getLeftExpression()), copy(stringGe.getRightExpression()));
+    }
+
+    @Override
+    public void execute(IntNeg intNeg, Scope scope) {
+        result = new IntNeg(copy(intNeg.getExpression()));
+    }
+
+    @Override
+    public void execute(DoubleNeg doubleNeg, Scope scope) {
+        result = new DoubleNeg(copy(doubleNeg.getExpression()));
+    }
+
+    @Override
+    public void execute(BoolNot boolNot, Scope scope) {
+        result = new BoolNot(copy(boolNot.getExpression()));
+    }
+
+    @Override
+    public void execute(BreakInstruction breakInstruction, Scope scope) {
+        throw unsupported(breakInstruction);
+    }
+
+    @Override
+    public void execute(ContinueInstruction continueInstruction, Scope scope) {
+        throw unsupported(continueInstruction);
+    }
+
+    @Override
+    public void execute(IfInstruction ifInstruction, Scope scope) {
+        throw unsupported(ifInstruction);
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) {
+        throw unsupported(insideMatchInstruction);
+    }
+
+    @Override
+    public void execute(InstructionExpression instructionExpression, Scope scope) {
+        throw unsupported(instructionExpression);
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) {
+        throw unsupported(matchInstruction);
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) {
+        throw unsupported(returnInstruction);
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) {
+        throw unsupported(varDeclaration);
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) {
+        throw unsupported(whileInstruction);
+    }
+}
@@ -0,0 +1,242 @@
+package optimizer;
+
+import executor.CallStack;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.instructions.InsideMatchInstruction;
+import executor.ir.instructions.ReturnInstruction;
+import executor.ir.instructions.VarDeclaration;
+import executor.ir.instructions.WhileInstruction;
+import semcheck.TypeEvaluationVisitor;
+import semcheck.exception.SemCheckException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces calls of small user functions by a copy of the expression they return.
+ * A function qualifies when its body is a single {@code return} of an expression that does not call the function itself.
+ * Arguments that are constants or variables of the parameter's exact type are substituted for the parameter, every other
+ * argument is stored in a fresh slot of the caller's frame, so it is still evaluated once and in order.
+ * Whether a call is worth it depends on the size of the copied expression: calls inside loops and match arms, where
+ * predicate helpers are called again and again, are given a larger budget than calls run once.
+ * Calls found in an inlined copy are inlined as well, down to {@link #MAX_DEPTH} levels.
+ */
+public class Inlining extends IrWalker implements Pass {
+
+    public static final String NAME = "inlining";
+
+    /**
+     * Largest cost, counted in IR nodes, of a call inlined outside of loops and match arms.
+     */
+    static final int BUDGET = 12;
+    static final int HOT_BUDGET = 40;
+    static final int MAX_DEPTH = 3;
+
+    private GlobalBlock global;
+    private final Map<String, Candidate> candidates = new HashMap<>();
+
+    private int frameSize;
+    private int hot;
+    private int depth;
+    private int inlined;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int run(GlobalBlock global) {
+        this.global = global;
+        inlined = 0;
+        candidates.clear();
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                var candidate = candidate(userFunction);
+                if (candidate != null) {
+                    candidates.put(userFunction.getName(), candidate);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        frameSize = global.getFrameSize();
+        walk(global);
+        global.setFrameSize(frameSize);
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                frameSize = userFunction.getFrameSize();
+                walk(userFunction);
+                userFunction.setFrameSize(frameSize);
+            }
+        }
+        candidates.clear();
+        return inlined;
+    }
+
+    @Override
+    public void execute(WhileInstruction whileInstruction, Scope scope) {
+        hot++;
+        super.execute(whileInstruction, scope);
+        hot--;
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) {
+        hot++;
+        super.execute(insideMatchInstruction, scope);
+        hot--;
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) {
+        super.execute(returnInstruction, scope);
+        returnInstruction.setTailCall(returnInstruction.isTailCall() && returnInstruction.getValue() instanceof FunctionCall);
+    }
+
+    @Override
+    protected Expression replace(Expression expression) {
+        if (!(expression instanceof FunctionCall call) || depth == MAX_DEPTH) {
+            return expression;
+        }
+        var candidate = candidates.get(call.getName());
+        if (candidate == null) {
+            return expression;
+        }
+        var arguments = call.getArguments();
+        var assigns = false;
+        for (var argument : arguments) {
+            assigns |= Shape.of(argument).assigns;
+        }
+        var substituted = new HashMap<Integer, Expression>();
+        var bound = 0;
+        var constants = 0;
+        for (var i = 0; i < arguments.size(); i++) {
+            var argument = arguments.get(i);
+            if (candidate.parameters.get(i).getType().isNullable()) {
+                bound++;
+            } else if (argument instanceof ConstExpression) {
+                substituted.put(i, argument);
+                constants++;
+            } else if (argument instanceof Identifier && !assigns) {
+                substituted.put(i, argument);
+            } else {
+                bound++;
+            }
+        }
+        if (candidate.size + bound - constants > (hot > 0 ? HOT_BUDGET : BUDGET)) {
+            return expression;
+        }
+
+        var bindings = new ArrayList<VarDeclaration>(bound);
+        var replacements = new HashMap<Integer, Expression>();
+        for (var i = 0; i < arguments.size(); i++) {
+            var parameter = candidate.parameters.get(i);
+            var replacement = substituted.get(i);
+            if (replacement == null) {
+                var slot = frameSize++;
+                bindings.add(new VarDeclaration(new Variable(parameter.getName(), parameter.getType(), false), arguments.get(i), slot));
+                replacement = new Identifier(parameter.getName(), CallStack.LOCAL_FRAME, slot);
+            }
+            replacements.put(parameter.getSlot(), replacement);
+        }
+        var body = new ExpressionCopier(replacements).copy(candidate.body);
+        inlined++;
+        depth++;
+        body = rewrite(body);
+        depth--;
+        return new InlinedCall(call.getName(), bindings, body, candidate.function.getReturnType());
+    }
+
+    private Candidate candidate(UserFunction function) {
+        var instructions = function.getInstructions().getInstructions();
+        if (instructions.size() != 1
+                || !(instructions.get(0) instanceof ReturnInstruction returnInstruction)
+                || returnInstruction.getValue() == null) {
+            return null;
+        }
+        var value = returnInstruction.getValue();
+        var shape = Shape.of(value);
+        if (!shape.copyable || shape.callees.contains(function.getName())) {
+            return null;
+        }
+        try {
+            var type = value.evaluateType(new TypeEvaluationVisitor(), function.getInstructions().getScope());
+            var returnType = function.getReturnType();
+            if (!type.getTypeName().equals(returnType.getTypeName()) || type.isNullable() != returnType.isNullable()) {
+                return null;
+            }
+        } catch (SemCheckException e) {
+            return null;
+        }
+        var parameterScope = function.getScope();
+        var parameters = new ArrayList<Variable>();
+        for (var name : parameterScope.getVariablesOrder()) {
+            parameters.add(parameterScope.getDeclaredVariables().get(name));
+        }
+        return new Candidate(function, parameters, new ExpressionCopier(Map.of()).copy(value), shape.size);
+    }
+
+    /**
+     * A function that may be inlined, with a private copy of its returned expression taken before any call was inlined.
+     */
+    private record Candidate(UserFunction function, List<Variable> parameters, Expression body, int size) {
+    }
+
+    /**
+     * Size of an expression and whether it can be copied into another frame.
+     */
+    private static class Shape extends IrWalker {
+
+        private int size;
+        private boolean copyable = true;
+        private boolean assigns;
+        private final List<String> callees = new ArrayList<>();
+
+        static Shape of(Expression expression) {
+            var shape = new Shape();
+            shape.rewrite(expression);
+            return shape;
+        }
+
+        @Override
+        protected Expression replace(Expression expression) {
+            size++;
+            return expression;
+        }
+
+        @Override
+        public void execute(AssignmentExpression assignmentExpression, Scope scope) {
+            copyable = false;
+            assigns = true;
+            super.execute(assignmentExpression, scope);
+        }
+
+        @Override
+        public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) {
+            copyable = false;
+            super.execute(insideMatchCompExpression, scope);
+        }
+
+        @Override
+        public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+            copyable = false;
+        }
+
+        @Override
+        public void execute(InlinedCall inlinedCall, Scope scope) {
+            copyable = false;
+            super.execute(inlinedCall, scope);
+        }
+
+        @Override
+        public void execute(FunctionCall functionCall, Scope scope) {
+            callees.add(functionCall.getName());
+            super.execute(functionCall, scope);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package optimizer;
+
+import executor.CallStack;
+import executor.Cancellation;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.instructions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the invariants every engine relies on: operands are present, slots lie within their frames,
+ * calls name existing functions with the right number of arguments, constants carry a matching runtime value
+ * and a return is only marked as a tail call when it returns a call.
+ */
+public class IrVerifier extends IrWalker {
+
+    private final GlobalBlock global;
+    private final List<String> problems = new ArrayList<>();
+
+    private String location;
+    private int frameSize;
+    private boolean optionalOperand;
+
+    public IrVerifier(GlobalBlock global) {
+        this.global = global;
+    }
+
+    /**
+     * Returns a description of every problem found, empty when the IR is valid.
+     */
+    public List<String> verify() {
+        problems.clear();
+        location = Cancellation.GLOBAL_BLOCK;
+        frameSize = global.getFrameSize();
+        walk(global);
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                location = userFunction.getName();
+                frameSize = userFunction.getFrameSize();
+                walk(userFunction);
+            }
+        }
+        return List.copyOf(problems);
+    }
+
+    @Override
+    protected Expression rewrite(Expression expression) {
+        if (expression == null && !optionalOperand) {
+            problems.add(String.format("missing operand in %s", location));
+        }
+        optionalOperand = false;
+        return super.rewrite(expression);
+    }
+
+    @Override
+    public void execute(ConstExpression constExpression, Scope scope) {
+        var value = constExpression.getRuntimeValue();
+        var matches = constExpression.getType() == null
+                ? value instanceof NullObject
+                : switch (constExpression.getType().getTypeName()) {
+                    case "int" -> value instanceof IntegerObject integerObject && integerObject.getValue() == (int) constExpression.getValue();
+                    case "double" -> value instanceof DoubleObject;
+                    case "bool" -> value instanceof BooleanObject;
+                    case "string" -> value instanceof StringObject;
+                    default -> false;
+                };
+        if (!matches) {
+            problems.add(String.format("constant %s does not match its runtime value in %s", constExpression.getValue(), location));
+        }
+    }
+
+    @Override
+    public void execute(Identifier identifier, Scope scope) {
+        checkSlot(identifier.getName(), identifier.getDepth(), identifier.getSlot());
+    }
+
+    @Override
+    public void execute(AssignmentExpression assignmentExpression, Scope scope) {
+        checkSlot(assignmentExpression.getVariableName(), assignmentExpression.getDepth(), assignmentExpression.getSlot());
+        super.execute(assignmentExpression, scope);
+    }
+
+    @Override
+    public void execute(VarDeclaration varDeclaration, Scope scope) {
+        checkSlot(varDeclaration.getVariable().getName(), CallStack.LOCAL_FRAME, varDeclaration.getSlot());
+        super.execute(varDeclaration, scope);
+    }
+
+    @Override
+    public void execute(MatchInstruction matchInstruction, Scope scope) {
+        checkSlot("_", CallStack.LOCAL_FRAME, matchInstruction.getSlot());
+        super.execute(matchInstruction, scope);
+    }
+
+    @Override
+    public void execute(InsideMatchInstruction insideMatchInstruction, Scope scope) {
+        optionalOperand = insideMatchInstruction.isDefault();
+        super.execute(insideMatchInstruction, scope);
+    }
+
+    @Override
+    public void execute(FunctionCall functionCall, Scope scope) {
+        var function = global.getFunctions().get(functionCall.getName());
+        if (!(function instanceof UserFunction)) {
+            problems.add(String.format("call of unknown function %s in %s", functionCall.getName(), location));
+        } else if (function.getScope().getVariablesOrder().size() != functionCall.getArguments().size()) {
+            problems.add(String.format("call of %s with %d arguments in %s", functionCall.getName(), functionCall.getArguments().size(), location));
+        }
+        super.execute(functionCall, scope);
+    }
+
+    @Override
+    public void execute(LibFunctionCall libFunctionCall, Scope scope) {
+        if (!(global.getFunctions().get(libFunctionCall.getName()) instanceof LibFunction)) {
+            problems.add(String.format("call of unknown library function %s in %s", libFunctionCall.getName(), location));
+        }
+        super.execute(libFunctionCall, scope);
+    }
+
+    @Override
+    public void execute(ReturnInstruction returnInstruction, Scope scope) {
+        if (returnInstruction.isTailCall() && !(returnInstruction.getValue() instanceof FunctionCall)) {
+            problems.add(String.format("tail call return without a call in %s", location));
+        }
+        optionalOperand = true;
+        super.execute(returnInstruction, scope);
+    }
+
+    private void checkSlot(String name, int depth, int slot) {
+        var size = depth == CallStack.GLOBAL_FRAME ? global.getFrameSize() : frameSize;
+        if (slot < 0 || slot >= size) {
+            problems.add(String.format("slot %d of %s outside of a frame of %d in %s", slot, name, size, location));
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package optimizer;
+
+import executor.CallStack;
+import executor.ir.*;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import executor.ir.instructions.*;
+import semcheck.exception.SemCheckException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves expressions whose value cannot change while a loop runs into variables declared right before the loop.
+ * An expression is invariant when it calls nothing, assigns nothing and only reads variables the loop neither assigns nor
+ * declares. Functions cannot see the caller's variables, so calls inside the loop never change them.
+ * Expressions that cannot fail are hoisted from anywhere in the loop, as evaluating them once too often is harmless.
+ * A cast or a division that may fail is only hoisted from the part of the condition evaluated first, before anything that
+ * could fail or print, where the first iteration would have raised the same error at the same point.
+ * Loops are processed outermost first, so an expression invariant in a whole nest ends up before the outer loop.
+ */
+public class LoopInvariantCodeMotion extends IrWalker implements Pass {
+
+    public static final String NAME = "loop-invariants";
+
+    private static final String VARIABLE_NAME = "invariant";
+
+    private final Map<Integer, Type> slotTypes = new HashMap<>();
+    private int frameSize;
+    private int hoisted;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int run(GlobalBlock global) {
+        hoisted = 0;
+        slotTypes.clear();
+        new SlotTypes(slotTypes).walk(global);
+        frameSize = global.getFrameSize();
+        walk(global);
+        global.setFrameSize(frameSize);
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                slotTypes.clear();
+                for (var parameter : userFunction.getScope().getDeclaredVariables().values()) {
+                    slotTypes.put(parameter.getSlot(), parameter.getType());
+                }
+                new SlotTypes(slotTypes).walk(userFunction);
+                frameSize = userFunction.getFrameSize();
+                walk(userFunction);
+                userFunction.setFrameSize(frameSize);
+            }
+        }
+        slotTypes.clear();
+        return hoisted;
+    }
+
+    @Override
+    public void execute(GlobalBlock globalBlock, Scope scope) {
+        globalBlock.setInstructions(hoistFrom(globalBlock.getInstructions()));
+    }
+
+    @Override
+    public void execute(Block block, Scope scope) {
+        block.setInstructions(hoistFrom(block.getInstructions()));
+    }
+
+    private List<Instruction> hoistFrom(List<Instruction> instructions) {
+        var result = new ArrayList<Instruction>(instructions.size());
+        for (var instruction : instructions) {
+            if (instruction instanceof WhileInstruction loop) {
+                result.addAll(new LoopHoister(loop).hoist());
+            }
+            walk(instruction);
+            result.add(instruction);
+        }
+        return result;
+    }
+
+    private Shape shapeOf(Expression expression, Set<Integer> written) {
+        var shape = new Shape(written);
+        shape.walk(expression);
+        if (shape.invariant) {
+            shape.type = shape.typeOf(expression);
+        }
+        return shape;
+    }
+
+    /**
+     * Replaces the invariant expressions of one loop nest, collecting the declarations computing them.
+     */
+    private class LoopHoister extends IrWalker {
+
+        private final WhileInstruction loop;
+        private final Set<Integer> written;
+        private final List<Instruction> declarations = new ArrayList<>();
+        private final Map<Expression, Integer> temporaries = new HashMap<>();
+
+        /**
+         * Whether nothing that could fail or have an effect was evaluated yet in the first check of the condition.
+         */
+        private boolean eager;
+
+        LoopHoister(WhileInstruction loop) {
+            this.loop = loop;
+            var writes = new Writes();
+            writes.walk(loop);
+            this.written = writes.slots;
+        }
+
+        List<Instruction> hoist() {
+            eager = true;
+            loop.setCondition(rewrite(loop.getCondition()));
+            eager = false;
+            walk(loop.getStatements());
+            return declarations;
+        }
+
+        @Override
+        protected Expression rewrite(Expression expression) {
+            if (expression == null) {
+                return null;
+            }
+            var temporary = temporaries.get(expression);
+            if (temporary != null) {
+                hoisted++;
+                return read(temporary);
+            }
+            var shape = shapeOf(expression, written);
+            if (shape.invariant && shape.type != null && !isTrivial(expression) && (eager || shape.safe)) {
+                var slot = frameSize++;
+                var variable = new Variable(VARIABLE_NAME, shape.type, false);
+                declarations.add(new VarDeclaration(variable, expression, slot));
+                slotTypes.put(slot, shape.type);
+                temporaries.put(expression, slot);
+                hoisted++;
+                return read(slot);
+            }
+            var result = super.rewrite(expression);
+            if (!shape.safe) {
+                eager = false;
+            }
+            return result;
+        }
+
+        @Override
+        public void execute(AndExpression andExpression, Scope scope) {
+            andExpression.setLeftExpression(rewrite(andExpression.getLeftExpression()));
+            andExpression.setRightExpression(rewriteConditionally(andExpression.getRightExpression()));
+        }
+
+        @Override
+        public void execute(OrExpression orExpression, Scope scope) {
+            orExpression.setLeftExpression(rewrite(orExpression.getLeftExpression()));
+            orExpression.setRightExpression(rewriteConditionally(orExpression.getRightExpression()));
+        }
+
+        @Override
+        public void execute(NullCheckExpression nullCheckExpression, Scope scope) {
+            nullCheckExpression.setLeftExpression(rewrite(nullCheckExpression.getLeftExpression()));
+            nullCheckExpression.setRightExpression(rewriteConditionally(nullCheckExpression.getRightExpression()));
+        }
+
+        /**
+         * Rewrites an operand that is not evaluated every time its parent is.
+         */
+        private Expression rewriteConditionally(Expression expression) {
+            var enclosing = eager;
+            eager = false;
+            var result = rewrite(expression);
+            eager = enclosing && shapeOf(result, written).safe;
+            return result;
+        }
+
+        private Identifier read(int slot) {
+            return new Identifier(VARIABLE_NAME, CallStack.LOCAL_FRAME, slot);
+        }
+
+        private static boolean isTrivial(Expression expression) {
+            return expression instanceof ConstExpression || expression instanceof Identifier;
+        }
+    }
+
+    /**
+     * Whether an expression is invariant in a loop, whether it can fail or have an effect, and the type of its value.
+     */
+    private class Shape extends IrWalker {
+
+        private final Set<Integer> written;
+        private boolean invariant = true;
+        private boolean safe = true;
+        private Type type;
+
+        Shape(Set<Integer> written) {
+            this.written = written;
+        }
+
+        private Type typeOf(Expression expression) {
+            if (expression instanceof Identifier identifier) {
+                return slotTypes.get(identifier.getSlot());
+            }
+            if (expression instanceof AsExpression asExpression) {
+                return asExpression.getType();
+            }
+            if (expression instanceof TypedBinaryExpression || expression instanceof IntNeg || expression instanceof DoubleNeg
+                    || expression instanceof BoolNot) {
+                try {
+                    return expression.evaluateType(null, null);
+                } catch (SemCheckException e) {
+                    return null;
+                }
+            }
+            if (expression instanceof AndExpression || expression instanceof OrExpression || expression instanceof IsExpression) {
+                return new Type(false, "bool");
+            }
+            return null;
+        }
+
+        @Override
+        public void execute(Identifier identifier, Scope scope) {
+            if (identifier.getDepth() != CallStack.LOCAL_FRAME || written.contains(identifier.getSlot()) || !slotTypes.containsKey(identifier.getSlot())) {
+                invariant = false;
+            }
+        }
+
+        @Override
+        public void execute(AsExpression asExpression, Scope scope) {
+            safe = false;
+            super.execute(asExpression, scope);
+        }
+
+        @Override
+        public void execute(IntDivInt intDivInt, Scope scope) {
+            checkDivisor(intDivInt.getRightExpression());
+            super.execute(intDivInt, scope);
+        }
+
+        @Override
+        public void execute(IntMod intMod, Scope scope) {
+            checkDivisor(intMod.getRightExpression());
+            super.execute(intMod, scope);
+        }
+
+        @Override
+        public void execute(IntDiv intDiv, Scope scope) {
+            checkDivisor(intDiv.getRightExpression());
+            super.execute(intDiv, scope);
+        }
+
+        @Override
+        public void execute(DoubleDiv doubleDiv, Scope scope) {
+            checkDivisor(doubleDiv.getRightExpression());
+            super.execute(doubleDiv, scope);
+        }
+
+        @Override
+        public void execute(DoubleDivInt doubleDivInt, Scope scope) {
+            checkDivisor(doubleDivInt.getRightExpression());
+            super.execute(doubleDivInt, scope);
+        }
+
+        private void checkDivisor(Expression divisor) {
+            if (!(divisor instanceof ConstExpression constant && constant.getValue() instanceof Number number && number.doubleValue() != 0)) {
+                safe = false;
+            }
+        }
+
+        @Override
+        public void execute(FunctionCall functionCall, Scope scope) {
+            opaque();
+            super.execute(functionCall, scope);
+        }
+
+        @Override
+        public void execute(LibFunctionCall libFunctionCall, Scope scope) {
+            opaque();
+            super.execute(libFunctionCall, scope);
+        }
+
+        @Override
+        public void execute(InlinedCall inlinedCall, Scope scope) {
+            opaque();
+            super.execute(inlinedCall, scope);
+        }
+
+        @Override
+        public void execute(AssignmentExpression assignmentExpression, Scope scope) {
+            opaque();
+            super.execute(assignmentExpression, scope);
+        }
+
+        @Override
+        public void execute(AddExpression addExpression, Scope scope) {
+            opaque();
+            super.execute(addExpression, scope);
+        }
+
+        @Override
+        public void execute(SubExpression subExpression, Scope scope) {
+            opaque();
+            super.execute(subExpression, scope);
+        }
+
+        @Override
+        public void execute(MulExpression mulExpression, Scope scope) {
+            opaque();
+            super.execute(mulExpression, scope);
+        }
+
+        @Override
+        public void execute(DivExpression divExpression, Scope scope) {
+            opaque();
+            super.execute(divExpression, scope);
+        }
+
+        @Override
+        public void execute(DivIntExpression divIntExpression, Scope scope) {
+            opaque();
+            super.execute(divIntExpression, scope);
+        }
+
+        @Override
+        public void execute(ModExpression modExpression, Scope scope) {
+            opaque();
+            super.execute(modExpression, scope);
+        }
+
+        @Override
+        public void execute(CompExpression compExpression, Scope scope) {
+            opaque();
+            super.execute(compExpression, scope);
+        }
+
+        @Override
+        public void execute(UnaryExpression unaryExpression, Scope scope) {
+            opaque();
+            super.execute(unaryExpression, scope);
+        }
+
+        @Override
+        public void execute(NullCheckExpression nullCheckExpression, Scope scope) {
+            opaque();
+            super.execute(nullCheckExpression, scope);
+        }
+
+        @Override
+        public void execute(InsideMatchCompExpression insideMatchCompExpression, Scope scope) {
+            opaque();
+            super.execute(insideMatchCompExpression, scope);
+        }
+
+        @Override
+        public void execute(InsideMatchTypeExpression insideMatchTypeExpression, Scope scope) {
+            opaque();
+        }
+
+        /**
+         * The expression has an effect, or is dynamically typed and may fail on a null operand.
+         */
+        private void opaque() {
+            invariant = false;
+            safe = false;
+        }
+    }
+
+    /**
+     * Slots a loop assigns or declares.
+     */
+    private static class Writes extends IrWalker {
+
+        private final Set<Integer> slots = new HashSet<>();
+
+        @Override
+        public void execute(AssignmentExpression assignmentExpression, Scope scope) {
+            if (assignmentExpression.getDepth() == CallStack.LOCAL_FRAME) {
+                slots.add(assignmentExpression.getSlot());
+            }
+            super.execute(assignmentExpression, scope);
+        }
+
+        @Override
+        public void execute(VarDeclaration varDeclaration, Scope scope) {
+            slots.add(varDeclaration.getSlot());
+            super.execute(varDeclaration, scope);
+        }
+
+        @Override
+        public void execute(MatchInstruction matchInstruction, Scope scope) {
+            slots.add(matchInstruction.getSlot());
+            super.execute(matchInstruction, scope);
+        }
+    }
+
+    /**
+     * Declared type of every variable of a frame.
+     */
+    private static class SlotTypes extends IrWalker {
+
+        private final Map<Integer, Type> types;
+
+        SlotTypes(Map<Integer, Type> types) {
+            this.types = types;
+        }
+
+        @Override
+        public void execute(VarDeclaration varDeclaration, Scope scope) {
+            types.put(varDeclaration.getSlot(), varDeclaration.getVariable().getType());
+            super.execute(varDeclaration, scope);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package optimizer;
+
+import java.util.List;
+
+/**
+ * Preset pipelines, selected on the command line with {@code -O0}, {@code -O1} or {@code -O2}.
+ */
+public enum OptimizationLevel {
+    /**
+     * The program runs as checked.
+     */
+    O0(List.of()),
+    /**
+     * Cheap passes that only ever make the program smaller.
+     */
+    O1(List.of(ConstantFolding.NAME, DeadCodeElimination.NAME, UnusedFunctionElimination.NAME)),
+    /**
+     * Everything, including passes that trade program size for speed.
+     */
+    O2(List.of(Inlining.NAME, ConstantFolding.NAME, DeadCodeElimination.NAME, LoopInvariantCodeMotion.NAME, UnusedFunctionElimination.NAME));
+
+    /**
+     * Optimization is opt-in, programs run as checked unless a level or a pipeline is asked for.
+     */
+    public static final OptimizationLevel DEFAULT = O0;
+
+    private final List<String> passes;
+
+    OptimizationLevel(List<String> passes) {
+        this.passes = passes;
+    }
+
+    public List<String> getPasses() {
+        return passes;
+    }
+
+    /**
+     * Parses {@code 0}, {@code 1} or {@code 2}.
+     */
+    public static OptimizationLevel of(String level) {
+        return switch (level) {
+            case "0" -> O0;
+            case "1" -> O1;
+            case "2" -> O2;
+            default -> throw new IllegalArgumentException(String.format("Unknown optimization level: %s", level));
+        };
+    }
+}
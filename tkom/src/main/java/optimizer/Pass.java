@@ -0,0 +1,17 @@
+package optimizer;
+
+import executor.ir.GlobalBlock;
+
+/**
+ * An IR-to-IR transformation run by {@link PassManager}. The program it gets has passed semantic check
+ * and every earlier pass, and it must leave it in a state {@link IrVerifier} accepts.
+ */
+public interface Pass {
+
+    String getName();
+
+    /**
+     * Transforms {@code global} in place and returns how many nodes were changed, folded or removed.
+     */
+    int run(GlobalBlock global);
+}
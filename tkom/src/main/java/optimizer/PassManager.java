@@ -0,0 +1,89 @@
+package optimizer;
+
+import executor.ir.GlobalBlock;
+import optimizer.exception.VerificationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs an ordered pipeline of passes over a checked program, between {@link semcheck.SemCheck} and an engine.
+ * The IR is verified after every pass, so a broken pass is reported by name instead of failing somewhere in an engine.
+ */
+public class PassManager {
+
+    private static final Set<String> WHOLE_PROGRAM_PASSES = Set.of(UnusedFunctionElimination.NAME);
+
+    private final List<String> pipeline;
+    private final boolean verify;
+    private final List<PassStatistics> statistics = new ArrayList<>();
+
+    public PassManager(OptimizationLevel level) {
+        this(level.getPasses(), true);
+    }
+
+    /**
+     * @param pipeline names of the passes to run, in order. A pass may appear more than once
+     * @param verify   whether to verify the IR after every pass
+     */
+    public PassManager(List<String> pipeline, boolean verify) {
+        for (var name : pipeline) {
+            create(name);
+        }
+        this.pipeline = List.copyOf(pipeline);
+        this.verify = verify;
+    }
+
+    /**
+     * Names {@link #PassManager(List, boolean)} accepts.
+     */
+    public static List<String> availablePasses() {
+        return List.of(Inlining.NAME, ConstantFolding.NAME, DeadCodeElimination.NAME, LoopInvariantCodeMotion.NAME, UnusedFunctionElimination.NAME);
+    }
+
+    /**
+     * The pipeline of {@code level} without the passes that assume the global code is the only entry point,
+     * for programs whose functions an embedding calls directly.
+     */
+    public static PassManager forEmbedding(OptimizationLevel level) {
+        var passes = level.getPasses().stream().filter(name -> !WHOLE_PROGRAM_PASSES.contains(name)).toList();
+        return new PassManager(passes, true);
+    }
+
+    public GlobalBlock run(GlobalBlock global) {
+        statistics.clear();
+        for (var name : pipeline) {
+            var pass = create(name);
+            var start = System.nanoTime();
+            var changes = pass.run(global);
+            statistics.add(new PassStatistics(name, changes, System.nanoTime() - start));
+            if (verify) {
+                var problems = new IrVerifier(global).verify();
+                if (!problems.isEmpty()) {
+                    throw new VerificationException(String.format("IR is invalid after %s: %s", name, String.join("; ", problems)));
+                }
+            }
+        }
+        return global;
+    }
+
+    /**
+     * What every pass of the last {@link #run(GlobalBlock)} did, in pipeline order.
+     */
+    public List<PassStatistics> statistics() {
+        return Collections.unmodifiableList(statistics);
+    }
+
+    private static Pass create(String name) {
+        return switch (name) {
+            case Inlining.NAME -> new Inlining();
+            case ConstantFolding.NAME -> new ConstantFolding();
+            case DeadCodeElimination.NAME -> new DeadCodeElimination();
+            case LoopInvariantCodeMotion.NAME -> new LoopInvariantCodeMotion();
+            case UnusedFunctionElimination.NAME -> new UnusedFunctionElimination();
+            default -> throw new IllegalArgumentException(String.format("Unknown pass: %s", name));
+        };
+    }
+}
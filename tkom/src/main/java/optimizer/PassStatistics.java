@@ -0,0 +1,11 @@
+package optimizer;
+
+/**
+ * What one pass did to the program.
+ *
+ * @param pass      name of the pass
+ * @param changes   nodes the pass changed, folded or removed
+ * @param timeNanos time spent in the pass, not counting verification
+ */
+public record PassStatistics(String pass, int changes, long timeNanos) {
+}
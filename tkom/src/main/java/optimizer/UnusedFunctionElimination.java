@@ -0,0 +1,70 @@
+package optimizer;
+
+import executor.ir.GlobalBlock;
+import executor.ir.IrWalker;
+import executor.ir.Scope;
+import executor.ir.UserFunction;
+import executor.ir.expressions.FunctionCall;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Drops user functions no call reachable from the global code can reach.
+ * Only valid when the global code is the single entry point, an embedding calling functions directly must not run it.
+ */
+public class UnusedFunctionElimination implements Pass {
+
+    public static final String NAME = "unused-functions";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int run(GlobalBlock global) {
+        var reachable = new HashSet<String>();
+        var pending = new ArrayDeque<String>();
+        var collector = new CallCollector(reachable, pending);
+        collector.walk(global);
+        while (!pending.isEmpty()) {
+            if (global.getFunctions().get(pending.pop()) instanceof UserFunction function) {
+                collector.walk(function);
+            }
+        }
+        var unused = new ArrayList<String>();
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction && !reachable.contains(function.getName())) {
+                unused.add(function.getName());
+            }
+        }
+        for (var name : unused) {
+            global.getFunctions().remove(name);
+            global.getGlobalScope().getDefinedFunctions().remove(name);
+        }
+        return unused.size();
+    }
+
+    private static class CallCollector extends IrWalker {
+
+        private final Set<String> reachable;
+        private final Deque<String> pending;
+
+        CallCollector(Set<String> reachable, Deque<String> pending) {
+            this.reachable = reachable;
+            this.pending = pending;
+        }
+
+        @Override
+        public void execute(FunctionCall functionCall, Scope scope) {
+            if (reachable.add(functionCall.getName())) {
+                pending.push(functionCall.getName());
+            }
+            super.execute(functionCall, scope);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package optimizer.exception;
+
+/**
+ * A pass left the IR in a state no engine can run. Always a bug in the pass, never in the program.
+ */
+public class VerificationException extends IllegalStateException {
+
+    public VerificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,152 @@
+package script;
+
+import executor.Cancellation;
+import executor.Fuel;
+import executor.closure.ClosureEngine;
+import executor.closure.GlobalBindings;
+import executor.exceptions.RuntimeException;
+import executor.ir.GlobalBlock;
+import executor.ir.UserFunction;
+import executor.ir.instructions.VarDeclaration;
+import executor.stdlib.StdLibImpl;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import optimizer.OptimizationLevel;
+import optimizer.PassManager;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * A program checked and compiled once, then run any number of times, from any number of threads.
+ * Runs only execute compiled closures: lexing, parsing, semantic checks and compilation all happen when the handle is created.
+ * Each run may bind its own values to top-level declarations, which then skip their initializers,
+ * and every user function is available as a typed {@link ProgramFunction}.
+ */
+public final class CompiledProgram {
+
+    private final GlobalBlock global;
+    private final ClosureEngine engine;
+    private final StdLibImpl stdLib = new StdLibImpl();
+    private final Map<String, VarDeclaration> globals = new LinkedHashMap<>();
+    private final Map<String, ProgramFunction> functions = new LinkedHashMap<>();
+
+    public CompiledProgram(GlobalBlock global) throws RuntimeException {
+        this(global, Fuel.UNMETERED);
+    }
+
+    /**
+     * @param fuelBudget units of {@link Fuel} every run and every function invocation may spend,
+     *                   {@link Fuel#UNMETERED} runs without metering
+     */
+    public CompiledProgram(GlobalBlock global, long fuelBudget) throws RuntimeException {
+        this.global = global;
+        this.engine = new ClosureEngine(global, fuelBudget);
+        for (var instruction : global.getInstructions()) {
+            if (instruction instanceof VarDeclaration declaration) {
+                globals.put(declaration.getVariable().getName(), declaration);
+            }
+        }
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                functions.put(userFunction.getName(), new ProgramFunction(userFunction, engine));
+            }
+        }
+    }
+
+    public static CompiledProgram compile(String code) throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+        return compile(code, Fuel.UNMETERED);
+    }
+
+    public static CompiledProgram compile(String code, long fuelBudget) throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+        return compile(code, fuelBudget, OptimizationLevel.DEFAULT);
+    }
+
+    /**
+     * @param level passes run before the program is compiled, passes that would change the program's bindable
+     *              declarations or callable functions are left out
+     */
+    public static CompiledProgram compile(String code, long fuelBudget, OptimizationLevel level) throws IOException, SourceException, LexerException, SyntaxException,
+            SemCheckException, RuntimeException {
+        var source = new TextSource(code);
+        source.load();
+        var program = new Parser(new Tokenizer(source)).parse();
+        var global = new SemCheck(program).check();
+        PassManager.forEmbedding(level).run(global);
+        return new CompiledProgram(global, fuelBudget);
+    }
+
+    /**
+     * Names of the top-level declarations a run may bind.
+     */
+    public Set<String> getGlobalNames() {
+        return Collections.unmodifiableSet(globals.keySet());
+    }
+
+    public Collection<ProgramFunction> getFunctions() {
+        return Collections.unmodifiableCollection(functions.values());
+    }
+
+    public ProgramFunction function(String name) {
+        var function = functions.get(name);
+        if (function == null) {
+            throw new IllegalArgumentException(String.format("Unknown function: %s", name));
+        }
+        return function;
+    }
+
+    public void run() throws RuntimeException {
+        run(Map.of(), stdLib);
+    }
+
+    public void run(Map<String, ?> bindings) throws RuntimeException {
+        run(bindings, stdLib);
+    }
+
+    public void run(Map<String, ?> bindings, Writer output) throws RuntimeException {
+        run(bindings, null, output);
+    }
+
+    /**
+     * Runs the program with {@code bindings} replacing the initializers of the named top-level declarations.
+     *
+     * @param input  supplies the lines read by {@code get_input}, null reads {@code System.in}
+     * @param output receives everything the program prints, null prints to {@code System.out}
+     */
+    public void run(Map<String, ?> bindings, Reader input, Writer output) throws RuntimeException {
+        run(bindings, input == null && output == null ? stdLib : new StdLibImpl(input, output));
+    }
+
+    /**
+     * Runs the program like {@link #run(Map, Reader, Writer)}, stopping with a {@link executor.exceptions.CancelledException}
+     * once {@code cancellation} is cancelled.
+     */
+    public void run(Map<String, ?> bindings, Reader input, Writer output, Cancellation cancellation) throws RuntimeException {
+        run(bindings, input == null && output == null ? stdLib : new StdLibImpl(input, output), cancellation);
+    }
+
+    void run(Map<String, ?> bindings, StdLibImpl stdLib) throws RuntimeException {
+        run(bindings, stdLib, null);
+    }
+
+    void run(Map<String, ?> bindings, StdLibImpl stdLib, Cancellation cancellation) throws RuntimeException {
+        var globalBindings = new GlobalBindings(global.getFrameSize());
+        for (var binding : bindings.entrySet()) {
+            var declaration = globals.get(binding.getKey());
+            if (declaration == null) {
+                throw new IllegalArgumentException(String.format("Unknown global: %s", binding.getKey()));
+            }
+            Values.check(declaration.getVariable().getType(), binding.getValue(), String.format("Global %s", binding.getKey()));
+            globalBindings.bind(declaration.getSlot(), binding.getValue());
+        }
+        engine.run(stdLib, globalBindings, cancellation);
+    }
+}
@@ -0,0 +1,109 @@
+package script;
+
+import executor.Cancellation;
+import executor.closure.ClosureCallTarget;
+import executor.closure.ClosureEngine;
+import executor.exceptions.RuntimeException;
+import executor.ir.Type;
+import executor.ir.UserFunction;
+import executor.stdlib.StdLibImpl;
+
+import java.util.List;
+
+/**
+ * Compiled entry point of one user function of a {@link CompiledProgram}.
+ * Arguments and results are {@link Integer}, {@link Double}, {@link Boolean}, {@link String} or {@code null};
+ * a function may be invoked from many threads at once.
+ */
+public final class ProgramFunction {
+
+    private final UserFunction definition;
+    private final List<Type> parameterTypes;
+    private final ClosureEngine engine;
+    private final ClosureCallTarget target;
+    private volatile ClosureCallTarget pollingTarget;
+
+    ProgramFunction(UserFunction definition, ClosureEngine engine) throws RuntimeException {
+        this.definition = definition;
+        var scope = definition.getScope();
+        this.parameterTypes = scope.getVariablesOrder().stream().map(name -> scope.getDeclaredVariables().get(name).getType()).toList();
+        this.engine = engine;
+        this.target = engine.function(definition.getName());
+    }
+
+    public String getName() {
+        return definition.getName();
+    }
+
+    public List<Type> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public Type getReturnType() {
+        return definition.getReturnType();
+    }
+
+    /**
+     * Calls the function, returns null for functions that return nothing.
+     */
+    public Object invoke(Object... arguments) throws RuntimeException {
+        return invoke(null, arguments);
+    }
+
+    /**
+     * Calls the function with {@code stdLib} serving its {@code print} and {@code get_input} calls, null keeps the default one.
+     */
+    Object invoke(StdLibImpl stdLib, Object[] arguments) throws RuntimeException {
+        return invoke(stdLib, null, arguments);
+    }
+
+    /**
+     * Calls the function like {@link #invoke(StdLibImpl, Object[])}, stopping with a {@link executor.exceptions.CancelledException}
+     * once {@code cancellation} is cancelled. The first cancellable call compiles a polling copy of the function.
+     */
+    Object invoke(StdLibImpl stdLib, Cancellation cancellation, Object[] arguments) throws RuntimeException {
+        if (arguments.length != parameterTypes.size()) {
+            throw new IllegalArgumentException(String.format("Function %s expects %d arguments, got %d", getName(), parameterTypes.size(), arguments.length));
+        }
+        for (var i = 0; i < arguments.length; i++) {
+            Values.check(parameterTypes.get(i), arguments[i], String.format("Argument %d of %s", i + 1, getName()));
+        }
+        if (cancellation != null) {
+            return pollingTarget().call(arguments, 0, stdLib, cancellation);
+        }
+        return stdLib == null ? target.call(arguments, 0) : target.call(arguments, 0, stdLib);
+    }
+
+    private ClosureCallTarget pollingTarget() throws RuntimeException {
+        var polling = pollingTarget;
+        if (polling == null) {
+            polling = engine.pollingFunction(getName());
+            pollingTarget = polling;
+        }
+        return polling;
+    }
+
+    public int invokeInt(Object... arguments) throws RuntimeException {
+        return (Integer) invokeReturning("int", arguments);
+    }
+
+    public double invokeDouble(Object... arguments) throws RuntimeException {
+        return (Double) invokeReturning("double", arguments);
+    }
+
+    public boolean invokeBool(Object... arguments) throws RuntimeException {
+        return (Boolean) invokeReturning("bool", arguments);
+    }
+
+    public String invokeString(Object... arguments) throws RuntimeException {
+        return (String) invokeReturning("string", arguments);
+    }
+
+    private Object invokeReturning(String typeName, Object[] arguments) throws RuntimeException {
+        var returnType = getReturnType();
+        if (returnType == null || returnType.isNullable() || !typeName.equals(returnType.getTypeName())) {
+            throw new IllegalStateException(String.format("Function %s does not return %s", getName(), typeName));
+        }
+        return invoke(arguments);
+    }
+}
@@ -0,0 +1,299 @@
+package script;
+
+import executor.Cancellation;
+import executor.stdlib.StdLibImpl;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs invocations of {@link CompiledProgram}s and {@link ProgramFunction}s for many tenants at once.
+ * Every invocation gets its own globals and its own {@code print}/{@code get_input} streams, so scripts never see each other.
+ * At most {@code maxRunning} invocations run at the same time, up to {@code maxQueued} more wait for a slot and the rest are rejected.
+ * <p>
+ * A thread is only started once a slot is free, and it keeps taking queued invocations until the queue is empty, so waiting
+ * invocations hold no thread and there are never more than {@code maxRunning} invocation threads. They are virtual when the
+ * JVM supports them, so a script blocked on {@code get_input} or on a slow writer parks without holding a platform thread;
+ * the runtime itself never blocks inside a monitor. Older JVMs get daemon platform threads.
+ */
+public final class ScriptExecutor implements AutoCloseable {
+
+    private static final ThreadFactory THREAD_FACTORY = threadFactory();
+
+    private final Semaphore slots;
+    private final Queue<Invocation<?>> pending = new ConcurrentLinkedQueue<>();
+    private final int maxQueued;
+    private final Duration deadline;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private volatile boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+
+    public ScriptExecutor(int maxRunning, int maxQueued) {
+        this(maxRunning, maxQueued, null);
+    }
+
+    /**
+     * @param deadline longest a program run or function call may take once it got a slot, null lets them take as long as they need
+     */
+    public ScriptExecutor(int maxRunning, int maxQueued, Duration deadline) {
+        if (maxRunning < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("maxRunning must be positive and maxQueued non-negative");
+        }
+        this.slots = new Semaphore(maxRunning);
+        this.maxQueued = maxQueued;
+        this.deadline = deadline;
+    }
+
+    public static boolean usesVirtualThreads() {
+        return !(THREAD_FACTORY instanceof PlatformThreads);
+    }
+
+    /**
+     * Runs {@code program} with {@code bindings} replacing the initializers of the named top-level declarations.
+     * Cancelling the future, or the run exceeding the executor's deadline, stops the program at its next back-edge or call.
+     *
+     * @param input  supplies the lines read by {@code get_input}, null reads nothing
+     * @param output receives everything the program prints, null discards it
+     */
+    public Future<Void> submit(CompiledProgram program, Map<String, ?> bindings, Reader input, Writer output) {
+        var cancellation = new Cancellation();
+        return submit(() -> {
+            if (deadline != null) {
+                cancellation.startDeadline(deadline);
+            }
+            try {
+                program.run(bindings, stdLib(input, output), cancellation);
+            } finally {
+                cancellation.close();
+            }
+            return null;
+        }, cancellation);
+    }
+
+    /**
+     * Calls {@code function} with {@code arguments}, the future holds its result.
+     * Cancelling the future, or the call exceeding the executor's deadline, stops the function at its next back-edge or call.
+     *
+     * @param input  supplies the lines read by {@code get_input}, null reads nothing
+     * @param output receives everything the function prints, null discards it
+     */
+    public Future<Object> submit(ProgramFunction function, Reader input, Writer output, Object... arguments) {
+        var cancellation = new Cancellation();
+        return submit(() -> {
+            if (deadline != null) {
+                cancellation.startDeadline(deadline);
+            }
+            try {
+                return function.invoke(stdLib(input, output), cancellation, arguments);
+            } finally {
+                cancellation.close();
+            }
+        }, cancellation);
+    }
+
+    public ScriptExecutorMetrics metrics() {
+        return new ScriptExecutorMetrics(submitted.sum(), rejected.sum(), completed.sum(), failed.sum(),
+                queued.get(), running.get(), peakQueued.get(), queueWaitNanos.get());
+    }
+
+    /**
+     * Stops accepting invocations and waits for the accepted ones to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (inFlight.get() == 0) {
+            drained.countDown();
+        }
+        try {
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> Future<T> submit(Callable<T> body, Cancellation cancellation) {
+        inFlight.incrementAndGet();
+        if (closed) {
+            finish();
+            rejected.increment();
+            throw new RejectedExecutionException("Executor is closed");
+        }
+        if (!reserveQueueSlot()) {
+            finish();
+            rejected.increment();
+            throw new RejectedExecutionException("Invocation queue is full");
+        }
+        submitted.increment();
+        var invocation = new Invocation<>(() -> call(body), cancellation);
+        pending.add(invocation);
+        dispatch();
+        return invocation;
+    }
+
+    private boolean reserveQueueSlot() {
+        while (true) {
+            var current = queued.get();
+            if (current >= maxQueued + slots.availablePermits()) {
+                return false;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                peakQueued.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Starts a thread for every free slot while invocations are waiting.
+     */
+    private void dispatch() {
+        while (!pending.isEmpty() && slots.tryAcquire()) {
+            var invocation = poll();
+            if (invocation == null) {
+                // another thread took the invocation, check the queue again once the slot is free
+                slots.release();
+                continue;
+            }
+            try {
+                THREAD_FACTORY.newThread(() -> work(invocation)).start();
+            } catch (OutOfMemoryError | java.lang.RuntimeException e) {
+                slots.release();
+                invocation.fail(e);
+                failed.increment();
+                finish();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs {@code first} and then queued invocations until none is left, holding a slot the whole time.
+     */
+    private void work(Invocation<?> first) {
+        var invocation = first;
+        try {
+            while (invocation != null) {
+                running.incrementAndGet();
+                try {
+                    if (invocation.isCancelled()) {
+                        failed.increment();
+                    }
+                    invocation.run();
+                } finally {
+                    running.decrementAndGet();
+                    // a cancelled invocation may have interrupted this thread, the next one must not see it
+                    Thread.interrupted();
+                    finish();
+                }
+                invocation = poll();
+            }
+        } finally {
+            slots.release();
+        }
+        dispatch();
+    }
+
+    private Invocation<?> poll() {
+        var invocation = pending.poll();
+        if (invocation != null) {
+            dequeued(invocation);
+        }
+        return invocation;
+    }
+
+    private void dequeued(Invocation<?> invocation) {
+        queued.decrementAndGet();
+        queueWaitNanos.addAndGet(System.nanoTime() - invocation.enqueuedAt);
+    }
+
+    private void finish() {
+        if (inFlight.decrementAndGet() == 0 && closed) {
+            drained.countDown();
+        }
+    }
+
+    private <T> T call(Callable<T> invocation) throws Exception {
+        try {
+            var result = invocation.call();
+            completed.increment();
+            return result;
+        } catch (Exception | Error e) {
+            failed.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Future of one accepted invocation. Cancelling it while it waits removes it from the queue at once.
+     */
+    private final class Invocation<T> extends FutureTask<T> {
+        private final Cancellation cancellation;
+        private final long enqueuedAt = System.nanoTime();
+
+        Invocation(Callable<T> call, Cancellation cancellation) {
+            super(call);
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (cancellation != null) {
+                cancellation.cancel();
+            }
+            var cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && pending.remove(this)) {
+                dequeued(this);
+                failed.increment();
+                finish();
+            }
+            return cancelled;
+        }
+
+        void fail(Throwable cause) {
+            setException(cause);
+        }
+    }
+
+    private static StdLibImpl stdLib(Reader input, Writer output) {
+        return new StdLibImpl(input == null ? Reader.nullReader() : input, output == null ? Writer.nullWriter() : output);
+    }
+
+    private static ThreadFactory threadFactory() {
+        try {
+            var builderType = Class.forName("java.lang.Thread$Builder");
+            var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "tkom-script-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return new PlatformThreads();
+        }
+    }
+
+    private static final class PlatformThreads implements ThreadFactory {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, "tkom-script-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package script;
+
+/**
+ * Snapshot of what a {@link ScriptExecutor} did so far.
+ *
+ * @param submitted          invocations accepted
+ * @param rejected           invocations refused because the queue was full or the executor closed
+ * @param completed          invocations that finished normally
+ * @param failed             invocations that ended with an exception or were cancelled
+ * @param queued             invocations waiting for a free slot right now
+ * @param running            invocations running right now
+ * @param peakQueued         most invocations ever waiting at once
+ * @param queueWaitNanos     total time invocations spent waiting for a slot
+ */
+public record ScriptExecutorMetrics(long submitted, long rejected, long completed, long failed, int queued, int running, int peakQueued, long queueWaitNanos) {
+}
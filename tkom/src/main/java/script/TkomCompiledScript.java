@@ -0,0 +1,50 @@
+package script;
+
+import executor.exceptions.RuntimeException;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.HashMap;
+
+/**
+ * JSR-223 view of a {@link CompiledProgram}. Attributes of the script context named like a top-level declaration
+ * are bound to it for the run, engine scope first, and the program prints to the context's writer.
+ */
+public class TkomCompiledScript extends CompiledScript {
+
+    private final TkomScriptEngine engine;
+    private final CompiledProgram program;
+
+    TkomCompiledScript(TkomScriptEngine engine, CompiledProgram program) {
+        this.engine = engine;
+        this.program = program;
+    }
+
+    public CompiledProgram getProgram() {
+        return program;
+    }
+
+    @Override
+    public Object eval(ScriptContext context) throws ScriptException {
+        var bindings = new HashMap<String, Object>();
+        for (var name : program.getGlobalNames()) {
+            var scope = context.getAttributesScope(name);
+            if (scope != -1) {
+                bindings.put(name, context.getAttribute(name, scope));
+            }
+        }
+        try {
+            program.run(bindings, context.getWriter());
+        } catch (RuntimeException | IllegalArgumentException e) {
+            throw new ScriptException(e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public ScriptEngine getEngine() {
+        return engine;
+    }
+}
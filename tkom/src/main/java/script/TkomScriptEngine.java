@@ -0,0 +1,62 @@
+package script;
+
+import lexer.exception.LexerException;
+import parser.exception.SyntaxException;
+import semcheck.exception.SemCheckException;
+import source_loader.exception.SourceException;
+
+import javax.script.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.stream.Collectors;
+
+/**
+ * JSR-223 engine for the language. Scripts compiled through {@link Compilable} skip the front end on every later evaluation.
+ */
+public class TkomScriptEngine extends AbstractScriptEngine implements Compilable {
+
+    private final TkomScriptEngineFactory factory;
+
+    TkomScriptEngine(TkomScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public TkomCompiledScript compile(String script) throws ScriptException {
+        try {
+            return new TkomCompiledScript(this, CompiledProgram.compile(script));
+        } catch (IOException | SourceException | LexerException | SyntaxException | SemCheckException | executor.exceptions.RuntimeException e) {
+            throw new ScriptException(e.getMessage());
+        }
+    }
+
+    @Override
+    public TkomCompiledScript compile(Reader script) throws ScriptException {
+        return compile(read(script));
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return compile(script).eval(context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    private static String read(Reader reader) {
+        return new BufferedReader(reader).lines().collect(Collectors.joining("\n", "", "\n"));
+    }
+}
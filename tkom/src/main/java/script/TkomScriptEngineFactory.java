@@ -0,0 +1,75 @@
+package script;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.List;
+
+public class TkomScriptEngineFactory implements ScriptEngineFactory {
+
+    private static final String NAME = "tkom";
+    private static final String VERSION = "1.0";
+
+    @Override
+    public String getEngineName() {
+        return NAME;
+    }
+
+    @Override
+    public String getEngineVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public List<String> getExtensions() {
+        return List.of("tk");
+    }
+
+    @Override
+    public List<String> getMimeTypes() {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getNames() {
+        return List.of(NAME);
+    }
+
+    @Override
+    public String getLanguageName() {
+        return NAME;
+    }
+
+    @Override
+    public String getLanguageVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public Object getParameter(String key) {
+        return switch (key) {
+            case ScriptEngine.ENGINE, ScriptEngine.NAME, ScriptEngine.LANGUAGE -> NAME;
+            case ScriptEngine.ENGINE_VERSION, ScriptEngine.LANGUAGE_VERSION -> VERSION;
+            default -> null;
+        };
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        return String.format("%s(%s)", m, String.join(", ", args));
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        return String.format("print(\"%s\");", toDisplay);
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return String.join("\n", statements) + "\n";
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new TkomScriptEngine(this);
+    }
+}
@@ -0,0 +1,30 @@
+package script;
+
+import executor.ir.Type;
+
+/**
+ * Checks Java values handed to a program against the declared types they are bound to.
+ */
+final class Values {
+
+    private Values() {}
+
+    static void check(Type type, Object value, String target) {
+        if (value == null) {
+            if (!type.isNullable()) {
+                throw new IllegalArgumentException(String.format("%s is not nullable", target));
+            }
+            return;
+        }
+        var expected = switch (type.getTypeName()) {
+            case "int" -> Integer.class;
+            case "double" -> Double.class;
+            case "bool" -> Boolean.class;
+            case "string" -> String.class;
+            default -> throw new IllegalArgumentException(String.format("%s has no value type", target));
+        };
+        if (!expected.isInstance(value)) {
+            throw new IllegalArgumentException(String.format("%s expects %s, got %s", target, type.getTypeName(), value.getClass().getSimpleName()));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package semcheck;
+
+import executor.ir.Expression;
+import executor.ir.Scope;
+import executor.ir.Type;
+import executor.ir.expressions.*;
+import executor.ir.expressions.typed.*;
+import semcheck.exception.SemCheckException;
+
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * Replaces generic operator nodes with their type-specialized counterparts.
+ * Nodes whose operand types cannot be pinned down statically (nullable or mixed operands) are returned unchanged.
+ */
+public class ExpressionSpecializer {
+
+    private static final String INT_TYPE_NAME = "int";
+    private static final String STRING_TYPE_NAME = "string";
+    private static final String DOUBLE_TYPE_NAME = "double";
+    private static final String BOOL_TYPE_NAME = "bool";
+
+    private static final Map<String, BinaryOperator<Expression>> INT_COMPARISONS = Map.of(
+            "==", IntEq::new, "!=", IntNe::new, "<", IntLt::new, "<=", IntLe::new, ">", IntGt::new, ">=", IntGe::new
+    );
+    private static final Map<String, BinaryOperator<Expression>> DOUBLE_COMPARISONS = Map.of(
+            "==", DoubleEq::new, "!=", DoubleNe::new, "<", DoubleLt::new, "<=", DoubleLe::new, ">", DoubleGt::new, ">=", DoubleGe::new
+    );
+    private static final Map<String, BinaryOperator<Expression>> STRING_COMPARISONS = Map.of(
+            "==", StringEq::new, "!=", StringNe::new, "<", StringLt::new, "<=", StringLe::new, ">", StringGt::new, ">=", StringGe::new
+    );
+
+    private final TypeVisitor typeVisitor;
+
+    public ExpressionSpecializer(TypeVisitor typeVisitor) {
+        this.typeVisitor = typeVisitor;
+    }
+
+    public Expression specialize(AddExpression exp, Scope scope) throws SemCheckException {
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        return switch (commonOperandType(left, right, scope)) {
+            case INT_TYPE_NAME -> new IntAdd(left, right);
+            case DOUBLE_TYPE_NAME -> new DoubleAdd(left, right);
+            case STRING_TYPE_NAME -> new StringConcat(left, right);
+            default -> exp;
+        };
+    }
+
+    public Expression specialize(SubExpression exp, Scope scope) throws SemCheckException {
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        return switch (commonOperandType(left, right, scope)) {
+            case INT_TYPE_NAME -> new IntSub(left, right);
+            case DOUBLE_TYPE_NAME -> new DoubleSub(left, right);
+            default -> exp;
+        };
+    }
+
+    public Expression specialize(MulExpression exp, Scope scope) throws SemCheckException {
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        return switch (commonOperandType(left, right, scope)) {
+            case INT_TYPE_NAME -> new IntMul(left, right);
+            case DOUBLE_TYPE_NAME -> new DoubleMul(left, right);
+            default -> exp;
+        };
+    }
+
+    public Expression specialize(DivExpression exp, Scope scope) throws SemCheckException {
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        return switch (commonOperandType(left, right, scope)) {
+            case INT_TYPE_NAME -> new IntDiv(left, right);
+            case DOUBLE_TYPE_NAME -> new DoubleDiv(left, right);
+            default -> exp;
+        };
+    }
+
+    public Expression specialize(DivIntExpression exp, Scope scope) throws SemCheckException {
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        return switch (commonOperandType(left, right, scope)) {
+            case INT_TYPE_NAME -> new IntDivInt(left, right);
+            case DOUBLE_TYPE_NAME -> new DoubleDivInt(left, right);
+            default -> exp;
+        };
+    }
+
+    public Expression specialize(ModExpression exp, Scope scope) throws SemCheckException {
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        if (commonOperandType(left, right, scope).equals(INT_TYPE_NAME)) {
+            return new IntMod(left, right);
+        }
+        return exp;
+    }
+
+    public Expression specialize(CompExpression exp, Scope scope) throws SemCheckException {
+        exp.evaluateType(typeVisitor, scope);
+        var left = exp.getLeftExpression();
+        var right = exp.getRightExpression();
+        return comparison(exp.getOperator(), left.evaluateType(typeVisitor, scope), left, right);
+    }
+
+    public Expression specialize(InsideMatchCompExpression exp, Identifier matchedValue, Scope scope) throws SemCheckException {
+        exp.evaluateType(typeVisitor, scope);
+        return comparison(exp.getOperator(), matchedValue.evaluateType(typeVisitor, scope), matchedValue, exp.getExpression());
+    }
+
+    public Expression specialize(UnaryExpression exp, Scope scope) throws SemCheckException {
+        var operand = exp.getExpression();
+        var type = operand.evaluateType(typeVisitor, scope);
+        if (type == null || type.isNullable()) {
+            return exp;
+        }
+        if (exp.getUnaryOperator().equals("-")) {
+            return switch (type.getTypeName()) {
+                case INT_TYPE_NAME -> new IntNeg(operand);
+                case DOUBLE_TYPE_NAME -> new DoubleNeg(operand);
+                default -> exp;
+            };
+        }
+        if (exp.getUnaryOperator().equals("!") && type.getTypeName().equals(BOOL_TYPE_NAME)) {
+            return new BoolNot(operand);
+        }
+        return exp;
+    }
+
+    private Expression comparison(String operator, Type operandType, Expression left, Expression right) throws SemCheckException {
+        var comparisons = switch (operandType.getTypeName()) {
+            case INT_TYPE_NAME -> INT_COMPARISONS;
+            case DOUBLE_TYPE_NAME -> DOUBLE_COMPARISONS;
+            case STRING_TYPE_NAME -> STRING_COMPARISONS;
+            default -> throw new SemCheckException(String.format("Illegal type for COMPARISON operation: %s", operandType.getTypeName()));
+        };
+        var constructor = comparisons.get(operator);
+        if (constructor == null) {
+            throw new SemCheckException(String.format("Invalid comparison operator: %s", operator));
+        }
+        return constructor.apply(left, right);
+    }
+
+    private String commonOperandType(Expression left, Expression right, Scope scope) throws SemCheckException {
+        var leftType = left.evaluateType(typeVisitor, scope);
+        var rightType = right.evaluateType(typeVisitor, scope);
+        if (leftType == null || rightType == null || leftType.isNullable() || rightType.isNullable()) {
+            return "";
+        }
+        if (!leftType.getTypeName().equals(rightType.getTypeName())) {
+            return "";
+        }
+        return leftType.getTypeName();
+    }
+}
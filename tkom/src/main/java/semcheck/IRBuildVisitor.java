@@ -1,5 +1,6 @@
 package semcheck;
 
+import executor.CallStack;
 import executor.ir.Expression;
 import executor.ir.*;
 import executor.ir.expressions.*;
@@ -33,6 +34,7 @@ import java.util.*;
 public class IRBuildVisitor implements BuildVisitor {
 
     private final TypeEvaluationVisitor typeEvaluationVisitor;
+    private final ExpressionSpecializer expressionSpecializer;
     private final StdLibImpl stdLib;
 
     private final Stack<IfInstruction> scopedIfInstructions = new Stack<>();
@@ -45,6 +47,9 @@ public class IRBuildVisitor implements BuildVisitor {
     private Variable currentVariable;
     private MatchInstruction currentMatchInstruction;
 
+    private int nextGlobalSlot = 0;
+    private int nextLocalSlot = 0;
+
     private boolean expressionAsInstruction = true;
 
     private boolean functionReturnType = false;
@@ -57,6 +62,7 @@ public class IRBuildVisitor implements BuildVisitor {
 
     public IRBuildVisitor() {
         this.typeEvaluationVisitor = new TypeEvaluationVisitor();
+        this.expressionSpecializer = new ExpressionSpecializer(typeEvaluationVisitor);
         this.stdLib = new StdLibImpl();
     }
 
@@ -80,6 +86,7 @@ public class IRBuildVisitor implements BuildVisitor {
         }
         var block = scopedBlocks.pop();
         globalBlock.setInstructions(block.getInstructions());
+        globalBlock.setFrameSize(nextGlobalSlot);
         globalBlock.getGlobalScope().setDeclaredVariables(block.getScope().getDeclaredVariables());
         if (!scopedBlocks.isEmpty()) {
             throw new SemCheckException("Invalid stack state");
@@ -94,6 +101,7 @@ public class IRBuildVisitor implements BuildVisitor {
             throw new SemCheckException(String.format("Illegal redefinition of function named: %s found", currentUserFunctionDef.getName()));
         }
         currentUserFunctionDef.setScope(new Scope(globalBlock.getGlobalScope()));
+        nextLocalSlot = 0;
         functionDef.getParameterList().forEach(param -> param.accept(this));
         functionReturnType = true;
         functionDef.getFunctionReturnType().accept(this);
@@ -109,6 +117,7 @@ public class IRBuildVisitor implements BuildVisitor {
         var block = scopedBlocks.pop();
         validateReturns(block);
         currentUserFunctionDef.setInstructions(block);
+        currentUserFunctionDef.setFrameSize(nextLocalSlot);
         globalBlock.getFunctions().put(currentUserFunctionDef.getName(), currentUserFunctionDef);
         var func = (UserFunction)globalBlock.getGlobalScope().getFunction(currentUserFunctionDef.getName());
         func.setInstructions(block);
@@ -257,9 +266,10 @@ public class IRBuildVisitor implements BuildVisitor {
         var exp = expressions.pop();
 
         currentMatchInstruction.setExpression(exp);
-        currentMatchInstruction.getScope().addVariable(
-                new Variable("_", exp.evaluateType(this.typeEvaluationVisitor, scopedBlocks.peek().getScope()), false, exp)
-        );
+        var matchedVariable = new Variable("_", exp.evaluateType(this.typeEvaluationVisitor, scopedBlocks.peek().getScope()), false, exp);
+        allocateSlot(matchedVariable);
+        currentMatchInstruction.getScope().addVariable(matchedVariable);
+        currentMatchInstruction.setSlot(matchedVariable.getSlot());
         for(var st : matchStatement.getMatchStatements()) {
             st.accept(this);
         }
@@ -283,6 +293,7 @@ public class IRBuildVisitor implements BuildVisitor {
                 throw new SemCheckException(String.format("Return types in \"%s\" function do not match", currentUserFunctionDef.getName()));
             }
             returnInstruction.setValue(exp);
+            returnInstruction.setTailCall(exp instanceof FunctionCall);
         }
         scopedBlocks.peek().getInstructions().add(returnInstruction);
     }
@@ -312,6 +323,8 @@ public class IRBuildVisitor implements BuildVisitor {
         if(!scopedBlocks.peek().getScope().addVariable(currentVariable)) {
             throw new SemCheckException(String.format("Variable with name: %s is already defined in this scope", varDeclaration.getVariable().getName()));
         }
+        allocateSlot(currentVariable);
+        varDeclaration.setSlot(currentVariable.getSlot());
         scopedBlocks.peek().getInstructions().add(varDeclaration);
         currentVariable = null;
     }
@@ -353,7 +366,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setRightExpression(right);
         exp.evaluateType(this.typeEvaluationVisitor, scopedBlocks.peek().getScope());
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
@@ -398,6 +411,8 @@ public class IRBuildVisitor implements BuildVisitor {
                 throw new SemCheckException("Tried changing value of constant variable");
             }
             scopedBlocks.peek().getScope().addVariable(variable);
+            exp.setDepth(frameDepth(variable));
+            exp.setSlot(variable.getSlot());
         }
         exp.evaluateType(this.typeEvaluationVisitor, scopedBlocks.peek().getScope());
 
@@ -426,7 +441,8 @@ public class IRBuildVisitor implements BuildVisitor {
 
     @Override
     public void visitBooleanLiteralExpression(BooleanLiteralExpression booleanLiteralExpression) throws SemCheckException {
-        var exp = new ConstExpression(new executor.ir.Type(false, "bool"), booleanLiteralExpression.getValue());
+        var value = booleanLiteralExpression.getValue();
+        var exp = new ConstExpression(new executor.ir.Type(false, "bool"), value, BooleanObject.of(value));
         throwOnInvalidExpressionUse();
         expressions.push(exp);
     }
@@ -444,7 +460,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setLeftExpression(left);
         exp.setRightExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
 
     }
 
@@ -460,7 +476,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setLeftExpression(left);
         exp.setRightExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
@@ -475,12 +491,13 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setLeftExpression(left);
         exp.setRightExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
     public void visitDoubleLiteralExpression(DoubleLiteralExpression doubleLiteralExpression) throws SemCheckException {
-        var exp = new ConstExpression(new executor.ir.Type(false, "double"), doubleLiteralExpression.getValue());
+        var value = doubleLiteralExpression.getValue();
+        var exp = new ConstExpression(new executor.ir.Type(false, "double"), value, DoubleObject.of(value));
         throwOnInvalidExpressionUse();
         expressions.push(exp);
     }
@@ -552,14 +569,14 @@ public class IRBuildVisitor implements BuildVisitor {
     @Override
     public void visitIdentifier(Identifier identifier) throws SemCheckException {
         if (insideMatchStatementDef && globalBlock.getFunctions().containsKey(identifier.getName())) {
-            var exp = new FunctionCall(identifier.getName(), List.of(new executor.ir.expressions.Identifier("_")));
+            var exp = new FunctionCall(identifier.getName(), List.of(resolveIdentifier("_")));
             expressions.push(exp);
             return;
         }
         if (!scopedBlocks.peek().getScope().hasVariable(identifier.getName())) {
             throw new SemCheckException(String.format("Variable: %s is not defined", identifier.getName()));
         }
-        var exp = new executor.ir.expressions.Identifier(identifier.getName());
+        var exp = resolveIdentifier(identifier.getName());
         throwOnInvalidExpressionUse();
         expressions.push(exp);
     }
@@ -568,18 +585,20 @@ public class IRBuildVisitor implements BuildVisitor {
     public void visitInsideMatchCompExpression(InsideMatchCompExpression insideMatchCompExpression) throws SemCheckException {
         var exp = new executor.ir.expressions.InsideMatchCompExpression();
         exp.setOperator(insideMatchCompExpression.getOperator().getValue());
+        exp.setSlot(currentMatchInstruction.getSlot());
         expressions.push(exp);
         insideMatchCompExpression.getRightExpression().accept(this);
         var right = expressions.pop();
         exp = (executor.ir.expressions.InsideMatchCompExpression) expressions.pop();
         exp.setExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, resolveIdentifier("_"), scopedBlocks.peek().getScope()));
     }
 
     @Override
     public void visitInsideMatchTypeExpression(InsideMatchTypeExpression insideMatchTypeExpression) throws SemCheckException {
         var exp = new executor.ir.expressions.InsideMatchTypeExpression();
+        exp.setSlot(currentMatchInstruction.getSlot());
         throwOnInvalidExpressionUse();
         expressions.push(exp);
         insideMatchType = true;
@@ -594,7 +613,8 @@ public class IRBuildVisitor implements BuildVisitor {
 
     @Override
     public void visitIntegerLiteralExpression(IntegerLiteralExpression integerLiteralExpression) throws SemCheckException {
-        var exp = new ConstExpression(new executor.ir.Type(false, "int"), integerLiteralExpression.getValue());
+        var value = integerLiteralExpression.getValue();
+        var exp = new ConstExpression(new executor.ir.Type(false, "int"), value, IntegerObject.of(value));
         throwOnInvalidExpressionUse();
         expressions.push(exp);
     }
@@ -642,7 +662,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setLeftExpression(left);
         exp.setRightExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
@@ -657,7 +677,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setLeftExpression(left);
         exp.setRightExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
@@ -677,7 +697,7 @@ public class IRBuildVisitor implements BuildVisitor {
 
     @Override
     public void visitNullLiteralExpression(NullLiteralExpression nullLiteralExpression) throws SemCheckException {
-        var exp = new ConstExpression(null, null);
+        var exp = new ConstExpression(null, null, NullObject.NULL);
         throwOnInvalidExpressionUse();
         expressions.push(exp);
     }
@@ -699,7 +719,8 @@ public class IRBuildVisitor implements BuildVisitor {
 
     @Override
     public void visitStringLiteralExpression(StringLiteralExpression stringLiteralExpression) throws SemCheckException {
-        var exp = new ConstExpression(new executor.ir.Type(false, "string"), stringLiteralExpression.getValue());
+        var value = stringLiteralExpression.getValue();
+        var exp = new ConstExpression(new executor.ir.Type(false, "string"), value, StringObject.of(value));
         throwOnInvalidExpressionUse();
         expressions.push(exp);
     }
@@ -716,7 +737,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setLeftExpression(left);
         exp.setRightExpression(right);
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
@@ -730,7 +751,7 @@ public class IRBuildVisitor implements BuildVisitor {
         exp.setExpression(deeperExp);
         exp.evaluateType(this.typeEvaluationVisitor, scopedBlocks.peek().getScope());
         throwOnInvalidExpressionUse();
-        expressions.push(exp);
+        expressions.push(expressionSpecializer.specialize(exp, scopedBlocks.peek().getScope()));
     }
 
     @Override
@@ -766,10 +787,32 @@ public class IRBuildVisitor implements BuildVisitor {
         currentVariable.setName(parameter.getIdentifier());
         variableType = true;
         parameter.getType().accept(this);
+        allocateSlot(currentVariable);
         currentUserFunctionDef.getScope().addVariable(currentVariable);
         currentVariable = null;
     }
 
+    private void allocateSlot(Variable variable) {
+        if (currentUserFunctionDef == null) {
+            variable.setGlobal(true);
+            variable.setSlot(nextGlobalSlot++);
+        } else {
+            variable.setSlot(nextLocalSlot++);
+        }
+    }
+
+    private executor.ir.expressions.Identifier resolveIdentifier(String name) {
+        var variable = scopedBlocks.peek().getScope().getVariable(name);
+        var identifier = new executor.ir.expressions.Identifier(name);
+        identifier.setDepth(frameDepth(variable));
+        identifier.setSlot(variable.getSlot());
+        return identifier;
+    }
+
+    private int frameDepth(Variable variable) {
+        return variable.isGlobal() && currentUserFunctionDef != null ? CallStack.GLOBAL_FRAME : CallStack.LOCAL_FRAME;
+    }
+
     private boolean isCorrectType(Expression exp, String expectedTypeName, Scope scope) throws SemCheckException {
         var expType = exp.evaluateType(this.typeEvaluationVisitor, scope);
         if (expType == null) return false;
@@ -0,0 +1,86 @@
+package semcheck;
+
+import executor.ir.GlobalBlock;
+import executor.ir.IrWalker;
+import executor.ir.Scope;
+import executor.ir.UserFunction;
+import executor.ir.expressions.FunctionCall;
+import executor.ir.expressions.LibFunctionCall;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Marks user functions whose result depends on nothing but their arguments.
+ * Functions cannot see globals and their parameters are immutable, so the only effects a function body can have are
+ * library calls, either directly or through the functions it calls. A function is pure when neither it nor anything
+ * it calls reaches {@code print} or {@code get_input} and it returns a value.
+ */
+public class PurityAnalysis {
+
+    private static final String VOID_TYPE_NAME = "void";
+
+    private final GlobalBlock global;
+
+    public PurityAnalysis(GlobalBlock global) {
+        this.global = global;
+    }
+
+    public void run() {
+        var callees = new HashMap<UserFunction, Set<String>>();
+        var impure = new HashSet<UserFunction>();
+        for (var function : global.getFunctions().values()) {
+            if (function instanceof UserFunction userFunction) {
+                var collector = new CallCollector();
+                collector.walk(userFunction);
+                callees.put(userFunction, collector.callees);
+                if (collector.callsLibrary || VOID_TYPE_NAME.equals(userFunction.getReturnType().getTypeName())) {
+                    impure.add(userFunction);
+                }
+            }
+        }
+        propagate(callees, impure);
+        for (var function : callees.keySet()) {
+            function.setPure(!impure.contains(function));
+        }
+    }
+
+    private void propagate(Map<UserFunction, Set<String>> callees, Set<UserFunction> impure) {
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var entry : callees.entrySet()) {
+                if (impure.contains(entry.getKey())) {
+                    continue;
+                }
+                for (var name : entry.getValue()) {
+                    if (impure.contains(global.getFunctions().get(name))) {
+                        impure.add(entry.getKey());
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class CallCollector extends IrWalker {
+
+        private final Set<String> callees = new HashSet<>();
+        private boolean callsLibrary;
+
+        @Override
+        public void execute(FunctionCall functionCall, Scope scope) {
+            callees.add(functionCall.getName());
+            super.execute(functionCall, scope);
+        }
+
+        @Override
+        public void execute(LibFunctionCall libFunctionCall, Scope scope) {
+            callsLibrary = true;
+            super.execute(libFunctionCall, scope);
+        }
+    }
+}
@@ -14,7 +14,9 @@ public class SemCheck {
 
     public GlobalBlock check() throws SemCheckException {
         var visitor = new IRBuildVisitor();
-        return visitor.export(program);
+        var global = visitor.export(program);
+        new PurityAnalysis(global).run();
+        return global;
     }
 
 }
@@ -0,0 +1,120 @@
+package executor;
+
+import executor.closure.ClosureEngine;
+import executor.ir.GlobalBlock;
+import lexer.Tokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import parser.Parser;
+import semcheck.SemCheck;
+import source_loader.TextSource;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Overhead of fuel metering on call-heavy and loop-heavy programs. Skipped unless run with
+ * {@code mvn -B test -Dtest=FuelBenchmarkTest -Dbenchmark=true}.
+ * Metered and unmetered runs alternate, and the best of {@link #ROUNDS} rounds of each is compared.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FuelBenchmarkTest {
+
+    static final int WARMUP_ROUNDS = 5;
+    static final int ROUNDS = 15;
+
+    /**
+     * Largest accepted slowdown of a metered run, in percent.
+     */
+    static final double MAX_OVERHEAD = 10;
+
+    static final String CALLS = """
+            func fib(int n) : int {
+                if (n <= 1) {
+                    return n;
+                }
+                return fib(n - 2) + fib(n - 1);
+            }
+
+            int result = fib(27);
+
+            """;
+
+    static final String LOOP = """
+            mutable int i = 0;
+            mutable int sum = 0;
+            while (i < 5000000) {
+                sum = sum + i % 7;
+                i = i + 1;
+            }
+
+            """;
+
+    @Nested
+    @DisplayName("Closure engine")
+    class ClosureEngineBenchmark {
+
+        @Test
+        void shouldMeterCallsCheaply() throws Exception {
+            var program = compile(CALLS);
+            assertOverhead("closure calls", new ClosureEngine(program), new ClosureEngine(program, Long.MAX_VALUE));
+        }
+
+        @Test
+        void shouldMeterLoopsCheaply() throws Exception {
+            var program = compile(LOOP);
+            assertOverhead("closure loop", new ClosureEngine(program), new ClosureEngine(program, Long.MAX_VALUE));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tree interpreter")
+    class InterpreterBenchmark {
+
+        @Test
+        void shouldMeterCallsCheaply() throws Exception {
+            var program = compile(CALLS);
+            assertOverhead("tree calls", interpreter(program, Fuel.UNMETERED), interpreter(program, Long.MAX_VALUE));
+        }
+
+        @Test
+        void shouldMeterLoopsCheaply() throws Exception {
+            var program = compile(LOOP);
+            assertOverhead("tree loop", interpreter(program, Fuel.UNMETERED), interpreter(program, Long.MAX_VALUE));
+        }
+
+        private Interpreter interpreter(GlobalBlock program, long fuelBudget) {
+            return new Interpreter(program, new BoxedOperandStack(), null, null, fuelBudget);
+        }
+    }
+
+    private static GlobalBlock compile(String code) throws Exception {
+        var source = new TextSource(code);
+        source.load();
+        return new SemCheck(new Parser(new Tokenizer(source)).parse()).check();
+    }
+
+    private static void assertOverhead(String name, Engine unmetered, Engine metered) throws Exception {
+        for (var i = 0; i < WARMUP_ROUNDS; i++) {
+            unmetered.runNoisy();
+            metered.runNoisy();
+        }
+        var bestUnmetered = Long.MAX_VALUE;
+        var bestMetered = Long.MAX_VALUE;
+        for (var i = 0; i < ROUNDS; i++) {
+            bestUnmetered = Math.min(bestUnmetered, time(unmetered));
+            bestMetered = Math.min(bestMetered, time(metered));
+        }
+        var overhead = 100.0 * (bestMetered - bestUnmetered) / bestUnmetered;
+        System.out.printf("%s: unmetered %d ms, metered %d ms, overhead %.1f%%%n",
+                name, bestUnmetered / 1_000_000, bestMetered / 1_000_000, overhead);
+        assertTrue(overhead < MAX_OVERHEAD, String.format("%s metering overhead %.1f%%", name, overhead));
+    }
+
+    private static long time(Engine engine) throws Exception {
+        var start = System.nanoTime();
+        engine.runNoisy();
+        return System.nanoTime() - start;
+    }
+}
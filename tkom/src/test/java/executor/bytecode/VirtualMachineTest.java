@@ -0,0 +1,288 @@
+package executor.bytecode;
+
+import executor.Interpreter;
+import executor.exceptions.CastException;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VirtualMachineTest {
+
+    @Nested
+    @DisplayName("Examples from report: 1")
+    class ReportExample1 {
+        String code = """
+                # function calculates Nth fibonacci number
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                mutable int i = 1;
+                int value = 13;
+                mutable double? sum = null;
+
+                while (i <= 10) {
+                    sum = (sum ?? 0.0) + (fib(i) * value as double);
+                    i = i + 1;
+                }
+
+                string resMessage = "Sum is: " + (sum as string);
+                print(resMessage);
+
+                """;
+
+        @Test
+        void shouldMatchTreeInterpreterOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var expected = captureOutput(new Interpreter(irTree)::runNoisy);
+            var actual = captureOutput(new VirtualMachine(irTree)::runNoisy);
+            assertEquals(String.format("Sum is: 1859.0%n"), actual);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Nested
+    @DisplayName("Control flow tests")
+    class ControlFlowTests {
+        String code = """
+                func classify(int? value) : string {
+                    match(value) {
+                        is null => return "none",
+                    }
+                    match(value as int) {
+                        < 0 => return "negative",
+                    }
+                    return "other";
+                }
+
+                func sumTo(int limit) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (true) {
+                        i = i + 1;
+                        if (i > limit) {
+                            break;
+                        }
+                        if (i % 2 == 0) {
+                            continue;
+                        }
+                        acc = acc + i;
+                    }
+                    return acc;
+                }
+
+                int? nothing = null;
+                print(classify(nothing));
+                print(classify(-4));
+                print(classify(4));
+                print(sumTo(9) as string);
+                int? parsed = "12" as int?;
+                int? invalid = "x" as int?;
+                print((parsed ?? 0) as string);
+                print((invalid ?? 7) as string);
+                print(((7 // 2) as string) + " " + ((7 / 2) as string));
+
+                """;
+
+        @Test
+        void shouldFollowJumpsAndMatchArms() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var output = captureOutput(new VirtualMachine(irTree)::runNoisy);
+            assertEquals(String.format("none%nnegative%nother%n25%n12%n7%n3 3.5%n"), output);
+        }
+    }
+
+    @Nested
+    @DisplayName("Deep recursion tests")
+    class DeepRecursionTests {
+        String code = """
+                func count(int n) : int {
+                    if (n == 0) {
+                        return 0;
+                    }
+                    return count(n - 1) + 1;
+                }
+
+                print(count(1000000) as string);
+
+                """;
+
+        @Test
+        void shouldRecurseWithoutJavaStack() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var output = captureOutput(new VirtualMachine(irTree, 2_000_000)::runNoisy);
+            assertEquals(String.format("1000000%n"), output);
+        }
+
+        @Test
+        void shouldThrowStackOverflowExceptionAtLimit() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var vm = new VirtualMachine(irTree, 999_999);
+            assertThrows(StackOverflowException.class, vm::runNoisy);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tail call tests")
+    class TailCallTests {
+        String code = """
+                func sumTo(int n, int acc) : int {
+                    if (n == 0) {
+                        return acc;
+                    }
+                    return sumTo(n - 1, acc + n);
+                }
+
+                func parity(int n) : bool {
+                    return n % 2 == 0;
+                }
+
+                func isEven(int n) : bool {
+                    if (n < 2) {
+                        return parity(n);
+                    }
+                    int m = n - 2;
+                    return isEven(m);
+                }
+
+                func countdown(int n) : int {
+                    while (true) {
+                        if (n <= 0) {
+                            return 0;
+                        }
+                        return countdown(n - 1);
+                    }
+                    return -1;
+                }
+
+                func classify(int n) : string {
+                    match(n) {
+                        == 0 => return "done",
+                    }
+                    return classify(n - 1);
+                }
+
+                print(sumTo(50000, 0) as string);
+                print(isEven(100001) as string);
+                print(countdown(1000) as string);
+                print(classify(500));
+
+                """;
+
+        @Test
+        void shouldRunTailCallsInConstantStack() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var output = captureOutput(new VirtualMachine(irTree)::runNoisy);
+            assertEquals(String.format("1250025000%nfalse%n0%ndone%n"), output);
+        }
+    }
+
+    @Nested
+    @DisplayName("Exception tests")
+    class ExceptionTests {
+
+        @Test
+        void shouldThrowStackOverflowExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                int res = fib(144);
+                print(res as string);
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var vm = new VirtualMachine(irTree);
+            assertThrows(StackOverflowException.class, vm::runNoisy);
+        }
+
+        @Test
+        void shouldThrowCastExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                int? res = null;
+                print(res as string);
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var vm = new VirtualMachine(irTree);
+            assertThrows(CastException.class, vm::runNoisy);
+        }
+    }
+
+    private interface Run {
+        void run() throws RuntimeException;
+    }
+
+    private static String captureOutput(Run run) throws RuntimeException {
+        var output = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(output));
+        try {
+            run.run();
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,388 @@
+package executor.closure;
+
+import executor.Cancellation;
+import executor.Interpreter;
+import executor.exceptions.CancelledException;
+import executor.exceptions.CastException;
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.OutOfFuelException;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ClosureEngineTest {
+
+    @Nested
+    @DisplayName("Examples from report: 1")
+    class ReportExample1 {
+        String code = """
+                # function calculates Nth fibonacci number
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                mutable int i = 1;
+                int value = 13;
+                mutable double? sum = null;
+
+                while (i <= 10) {
+                    sum = (sum ?? 0.0) + (fib(i) * value as double);
+                    i = i + 1;
+                }
+
+                string resMessage = "Sum is: " + (sum as string);
+                print(resMessage);
+
+                """;
+
+        @Test
+        void shouldMatchTreeInterpreterOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var expected = captureOutput(new Interpreter(irTree)::runNoisy);
+            var actual = captureOutput(new ClosureEngine(irTree)::runNoisy);
+            assertEquals(String.format("Sum is: 1859.0%n"), actual);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Nested
+    @DisplayName("Control flow tests")
+    class ControlFlowTests {
+        String code = """
+                func classify(int? value) : string {
+                    match(value) {
+                        is null => return "none",
+                    }
+                    match(value as int) {
+                        < 0 => return "negative",
+                    }
+                    return "other";
+                }
+
+                func sumTo(int limit) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (true) {
+                        i = i + 1;
+                        if (i > limit) {
+                            break;
+                        }
+                        if (i % 2 == 0) {
+                            continue;
+                        }
+                        acc = acc + i;
+                    }
+                    return acc;
+                }
+
+                int? nothing = null;
+                print(classify(nothing));
+                print(classify(-4));
+                print(classify(4));
+                print(sumTo(9) as string);
+                int? parsed = "12" as int?;
+                int? invalid = "x" as int?;
+                print((parsed ?? 0) as string);
+                print((invalid ?? 7) as string);
+                print(((7 // 2) as string) + " " + ((7 / 2) as string));
+
+                """;
+
+        @Test
+        void shouldFollowJumpsAndMatchArms() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var output = captureOutput(new ClosureEngine(irTree)::runNoisy);
+            assertEquals(String.format("none%nnegative%nother%n25%n12%n7%n3 3.5%n"), output);
+        }
+    }
+
+    @Nested
+    @DisplayName("Fuel tests")
+    class FuelTests {
+        String code = """
+                func inc(int x) : int {
+                    return x + 1;
+                }
+
+                mutable int i = 0;
+                while (i < 10) {
+                    i = inc(i);
+                }
+                print(i as string);
+
+                """;
+
+        @Test
+        void shouldRunWithinBudget() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var output = captureOutput(new ClosureEngine(irTree, 20)::runNoisy);
+            assertEquals(String.format("10%n"), output);
+        }
+
+        @Test
+        void shouldThrowOutOfFuelExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree, 19);
+            assertThrows(OutOfFuelException.class, engine::runNoisy);
+        }
+
+        @Test
+        void shouldStopEndlessLoop() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource("""
+                mutable int i = 0;
+                while (true) {
+                    i = i + 1;
+                }
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree, 10_000);
+            assertThrows(OutOfFuelException.class, engine::runNoisy);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation tests")
+    class CancellationTests {
+        String code = """
+                func spin(int limit) : int {
+                    mutable int i = 0;
+                    while (i < limit) {
+                        i = i + 1;
+                    }
+                    return i;
+                }
+
+                int res = spin(2000000000);
+                print(res as string);
+
+                """;
+
+        @Test
+        void shouldStopAtDeadline() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree);
+            try (var cancellation = Cancellation.withDeadline(Duration.ofMillis(50))) {
+                var exception = assertThrows(CancelledException.class, () -> engine.runNoisy(cancellation));
+                assertEquals(List.of("spin", Cancellation.GLOBAL_BLOCK), exception.getStoppedIn());
+            }
+        }
+
+        @Test
+        void shouldStopWhenCancelled() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code.replace("2000000000", "3"));
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree);
+            var cancellation = new Cancellation();
+            cancellation.cancel();
+            var exception = assertThrows(CancelledException.class, () -> engine.runNoisy(cancellation));
+            assertEquals(List.of(Cancellation.GLOBAL_BLOCK), exception.getStoppedIn());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                engine.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("3%n"), output.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tail call tests")
+    class TailCallTests {
+        String code = """
+                func sumTo(int n, int acc) : int {
+                    if (n == 0) {
+                        return acc;
+                    }
+                    return sumTo(n - 1, acc + n);
+                }
+
+                func parity(int n) : bool {
+                    return n % 2 == 0;
+                }
+
+                func isEven(int n) : bool {
+                    if (n < 2) {
+                        return parity(n);
+                    }
+                    int m = n - 2;
+                    return isEven(m);
+                }
+
+                func countdown(int n) : int {
+                    while (true) {
+                        if (n <= 0) {
+                            return 0;
+                        }
+                        return countdown(n - 1);
+                    }
+                    return -1;
+                }
+
+                func classify(int n) : string {
+                    match(n) {
+                        == 0 => return "done",
+                    }
+                    return classify(n - 1);
+                }
+
+                print(sumTo(50000, 0) as string);
+                print(isEven(100001) as string);
+                print(countdown(1000) as string);
+                print(classify(500));
+
+                """;
+
+        @Test
+        void shouldRunTailCallsInConstantStack() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var output = captureOutput(new ClosureEngine(irTree)::runNoisy);
+            assertEquals(String.format("1250025000%nfalse%n0%ndone%n"), output);
+        }
+    }
+
+    @Nested
+    @DisplayName("Exception tests")
+    class ExceptionTests {
+
+        @Test
+        void shouldThrowStackOverflowExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                int res = fib(144);
+                print(res as string);
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree);
+            assertThrows(StackOverflowException.class, engine::runNoisy);
+        }
+
+        @Test
+        void shouldThrowDivisionByZeroExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                int zero = 0;
+                int res = 10 // zero;
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree);
+            assertThrows(DivisionByZeroException.class, engine::runNoisy);
+        }
+
+        @Test
+        void shouldThrowCastExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                int? res = null;
+                print(res as string);
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new ClosureEngine(irTree);
+            assertThrows(CastException.class, engine::runNoisy);
+        }
+    }
+
+    private interface Run {
+        void run() throws RuntimeException;
+    }
+
+    private static String captureOutput(Run run) throws RuntimeException {
+        var output = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(output));
+        try {
+            run.run();
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+}
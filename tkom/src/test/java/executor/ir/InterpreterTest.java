@@ -1,9 +1,24 @@
 package executor.ir;
 
+import executor.BoxedOperandStack;
+import executor.Cancellation;
+import executor.Fuel;
 import executor.Interpreter;
+import executor.OperandStack;
+import executor.PrimitiveOperandStack;
+import executor.exceptions.CancelledException;
 import executor.exceptions.CastException;
+import executor.exceptions.OutOfFuelException;
 import executor.exceptions.RuntimeException;
 import executor.exceptions.StackOverflowException;
+import executor.ir.expressions.AddExpression;
+import executor.ir.expressions.ConstExpression;
+import executor.ir.expressions.NullCheckExpression;
+import executor.ir.expressions.Specialization;
+import executor.ir.instructions.IfInstruction;
+import executor.ir.instructions.ReturnInstruction;
+import executor.ir.instructions.VarDeclaration;
+import executor.memo.Memoizer;
 import lexer.Tokenizer;
 import lexer.exception.LexerException;
 import org.junit.jupiter.api.DisplayName;
@@ -17,11 +32,20 @@ import source_loader.TextSource;
 import source_loader.exception.SourceException;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class InterpreterTest {
 
@@ -161,6 +185,717 @@ class InterpreterTest {
         }
     }
 
+    @Nested
+    @DisplayName("Call frame tests")
+    class CallFrameTests {
+        String code = """
+                func sum(int n) : int {
+                    if (n <= 0) {
+                        return 0;
+                    }
+                    int current = n;
+                    int rest = sum(n - 1);
+                    return current + rest;
+                }
+                
+                func repeat(int n) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (i < n) {
+                        acc = acc + n;
+                        i = i + 1;
+                    }
+                    return acc;
+                }
+                
+                print(sum(4) as string);
+                print(repeat(3) as string);
+                              
+                """;
+
+        @Test
+        void shouldKeepLocalsSeparatePerCall() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = new Interpreter(irTree);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("10%n9%n"), output.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Unboxed operand stack tests")
+    class UnboxedOperandStackTests {
+        String code = """
+                func scale(double x, int times) : double {
+                    mutable int i = 0;
+                    mutable double acc = 0.0;
+                    while (i < times) {
+                        acc = acc + x;
+                        i = i + 1;
+                    }
+                    return acc;
+                }
+                
+                int? missing = null;
+                int value = missing ?? 7;
+                match(value) {
+                    >= 5 => print("big " + ((value * 2) as string)),
+                    default => print("small"),
+                }
+                print(scale(1.5, 2) as string);
+                              
+                """;
+
+        @Test
+        void shouldMatchBoxedOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            assertEquals(run(new BoxedOperandStack()), run(new PrimitiveOperandStack()));
+            assertEquals(String.format("big 14%n3.0%n"), run(new PrimitiveOperandStack()));
+        }
+
+        private String run(OperandStack stack) throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = new Interpreter(irTree, stack);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            return output.toString();
+        }
+    }
+
+    @Nested
+    @DisplayName("Node rewriting tests")
+    class NodeRewritingTests {
+        String code = """
+                func orZero(int? value) : int {
+                    return value ?? 0;
+                }
+                
+                func twice(int? value) : int {
+                    return value + value;
+                }
+                
+                int? nothing = null;
+                print(orZero(4) as string);
+                print(orZero(nothing) as string);
+                print(twice(21) as string);
+                print(twice(orZero(5)) as string);
+                              
+                """;
+
+        @Test
+        void shouldSpecializeAndFallBack() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = new Interpreter(irTree, new PrimitiveOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("4%n0%n42%n10%n"), output.toString());
+
+            var nullCheck = (NullCheckExpression) returnedExpression(irTree, "orZero");
+            assertEquals(Specialization.State.GENERIC, nullCheck.getSpecialization().getState());
+            var add = (AddExpression) returnedExpression(irTree, "twice");
+            assertEquals(Specialization.State.INT, add.getSpecialization().getState());
+        }
+
+        private Expression returnedExpression(GlobalBlock irTree, String functionName) {
+            var function = (UserFunction) irTree.getFunctions().get(functionName);
+            return ((ReturnInstruction) function.getInstructions().getInstructions().get(0)).getValue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Control flow tests")
+    class ControlFlowTests {
+        String code = """
+                func sumOdd(int limit) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (i < limit) {
+                        i = i + 1;
+                        if (i % 2 == 0) {
+                            continue;
+                        }
+                        acc = acc + i;
+                    }
+                    return acc;
+                }
+                
+                func firstSquareAbove(int limit) : int {
+                    mutable int i = 0;
+                    while (true) {
+                        i = i + 1;
+                        if (i * i > limit) {
+                            return i;
+                        }
+                    }
+                    return 0;
+                }
+                
+                func countdown(int n) : int {
+                    if (n == 0) {
+                        return 0;
+                    }
+                    mutable int steps = 0;
+                    while (true) {
+                        steps = steps + 1;
+                        if (steps == n) {
+                            break;
+                        }
+                    }
+                    return steps + countdown(n - 1);
+                }
+                
+                func describe(int value) : string {
+                    match(value) {
+                        < 0 => return "negative",
+                        default => return "other",
+                    }
+                    return "unreachable";
+                }
+                
+                mutable int j = 0;
+                while (true) {
+                    j = j + 1;
+                    if (j == 3) {
+                        break;
+                    }
+                }
+                print(j as string);
+                print(sumOdd(10) as string);
+                print(firstSquareAbove(50) as string);
+                print(countdown(4) as string);
+                print(describe(-1) + " " + describe(1));
+                              
+                """;
+
+        @Test
+        void shouldHonourBreakContinueAndReturn() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = new Interpreter(irTree);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("3%n25%n8%n10%nnegative other%n"), output.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Concurrent execution tests")
+    class ConcurrentExecutionTests {
+        String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+                
+                func twice(int? value) : int {
+                    return value + value;
+                }
+                
+                mutable int i = 0;
+                mutable int acc = 0;
+                while (i < 200) {
+                    acc = acc + twice(i) + fib(i % 12);
+                    i = i + 1;
+                }
+                print(acc as string);
+                              
+                """;
+
+        @Test
+        void shouldRunOneProgramOnManyThreads() throws Exception {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var threads = 8;
+            var runs = 3;
+            var pool = Executors.newFixedThreadPool(threads);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output, true));
+            try {
+                var results = new ArrayList<Future<?>>();
+                for (var t = 0; t < threads; t++) {
+                    OperandStack stack = t % 2 == 0 ? new BoxedOperandStack() : new PrimitiveOperandStack();
+                    results.add(pool.submit(() -> {
+                        var interpreter = new Interpreter(irTree, stack);
+                        for (var run = 0; run < runs; run++) {
+                            interpreter.runNoisy();
+                        }
+                        return null;
+                    }));
+                }
+                for (var result : results) {
+                    result.get();
+                }
+            } finally {
+                System.setOut(stdout);
+                pool.shutdown();
+            }
+            var lines = output.toString().lines().toList();
+            assertEquals(threads * runs, lines.size());
+            assertTrue(lines.stream().allMatch("43545"::equals));
+        }
+    }
+
+    @Nested
+    @DisplayName("Shared value tests")
+    class SharedValueTests {
+        String code = """
+                string greeting = "hello";
+                mutable int counter = 5;
+                counter = counter + 1;
+                string copy = greeting;
+                              
+                """;
+
+        @Test
+        void shouldShareImmutableValues() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var stack = new BoxedOperandStack();
+            new Interpreter(irTree, stack).runNoisy();
+
+            var greeting = (VarDeclaration) irTree.getInstructions().get(0);
+            var counter = (VarDeclaration) irTree.getInstructions().get(1);
+            var copy = (VarDeclaration) irTree.getInstructions().get(3);
+            var literal = ((ConstExpression) greeting.getValue()).getRuntimeValue();
+            assertSame(literal, stack.valueAt(greeting.getSlot()));
+            assertSame(literal, stack.valueAt(copy.getSlot()));
+            assertSame(IntegerObject.of(6), stack.valueAt(counter.getSlot()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Fuel tests")
+    class FuelTests {
+        String code = """
+                func inc(int x) : int {
+                    return x + 1;
+                }
+
+                mutable int i = 0;
+                while (i < 10) {
+                    i = inc(i);
+                }
+                print(i as string);
+
+                """;
+
+        @Test
+        void shouldRunWithinBudget() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack(), null, null, 20);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("10%n"), output.toString());
+        }
+
+        @Test
+        void shouldThrowOutOfFuelExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new Interpreter(irTree, new BoxedOperandStack(), null, null, 19);
+            assertThrows(OutOfFuelException.class, engine::runNoisy);
+        }
+
+        @Test
+        void shouldStopEndlessLoop() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource("""
+                mutable int i = 0;
+                while (true) {
+                    i = i + 1;
+                }
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new Interpreter(irTree, new BoxedOperandStack(), null, null, 10_000);
+            assertThrows(OutOfFuelException.class, engine::runNoisy);
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation tests")
+    class CancellationTests {
+        String code = """
+                func spin(int limit) : int {
+                    mutable int i = 0;
+                    while (i < limit) {
+                        i = i + 1;
+                    }
+                    return i;
+                }
+
+                int res = spin(2000000000);
+                print(res as string);
+
+                """;
+
+        @Test
+        void shouldStopAtDeadline() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new Interpreter(irTree);
+            try (var cancellation = Cancellation.withDeadline(Duration.ofMillis(50))) {
+                var exception = assertThrows(CancelledException.class, () -> engine.runNoisy(cancellation));
+                assertEquals(List.of("spin", Cancellation.GLOBAL_BLOCK), exception.getStoppedIn());
+            }
+        }
+
+        @Test
+        void shouldStopWhenCancelled() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code.replace("2000000000", "3"));
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new Interpreter(irTree);
+            var cancellation = new Cancellation();
+            cancellation.cancel();
+            var exception = assertThrows(CancelledException.class, () -> engine.runNoisy(cancellation));
+            assertEquals(List.of(Cancellation.GLOBAL_BLOCK), exception.getStoppedIn());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                engine.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("3%n"), output.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tail call tests")
+    class TailCallTests {
+        String code = """
+                func sumTo(int n, int acc) : int {
+                    if (n == 0) {
+                        return acc;
+                    }
+                    return sumTo(n - 1, acc + n);
+                }
+
+                func parity(int n) : bool {
+                    return n % 2 == 0;
+                }
+
+                func isEven(int n) : bool {
+                    if (n < 2) {
+                        return parity(n);
+                    }
+                    int m = n - 2;
+                    return isEven(m);
+                }
+
+                func countdown(int n) : int {
+                    while (true) {
+                        if (n <= 0) {
+                            return 0;
+                        }
+                        return countdown(n - 1);
+                    }
+                    return -1;
+                }
+
+                func classify(int n) : string {
+                    match(n) {
+                        == 0 => return "done",
+                    }
+                    return classify(n - 1);
+                }
+
+                print(sumTo(50000, 0) as string);
+                print(isEven(100001) as string);
+                print(countdown(1000) as string);
+                print(classify(500));
+
+                """;
+
+        @Test
+        void shouldRunTailCallsInConstantStack() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            for (var stack : new OperandStack[]{new BoxedOperandStack(), new PrimitiveOperandStack()}) {
+                var interpreter = new Interpreter(irTree, stack);
+                var output = new ByteArrayOutputStream();
+                var stdout = System.out;
+                System.setOut(new PrintStream(output));
+                try {
+                    interpreter.runNoisy();
+                } finally {
+                    System.setOut(stdout);
+                }
+                assertEquals(String.format("1250025000%nfalse%n0%ndone%n"), output.toString());
+            }
+        }
+
+        @Test
+        void shouldMarkOnlyCallsAsTailCalls() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var sumTo = (UserFunction) irTree.getFunctions().get("sumTo");
+            var returns = sumTo.getInstructions().getInstructions().stream()
+                    .flatMap(instruction -> instruction instanceof IfInstruction ifInstruction ? ifInstruction.getTrueBlock().getInstructions().stream() : java.util.stream.Stream.of(instruction))
+                    .map(ReturnInstruction.class::cast)
+                    .toList();
+            assertEquals(List.of(false, true), returns.stream().map(ReturnInstruction::isTailCall).toList());
+        }
+    }
+
+    @Nested
+    @DisplayName("Memoization tests")
+    class MemoizationTests {
+        String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                func noisy(int x) : int {
+                    print("called");
+                    return x;
+                }
+
+                func greet(string name) : string {
+                    return "hi " + name;
+                }
+
+                print(fib(45) as string);
+                print((noisy(1) + noisy(1)) as string);
+                print(greet("tkom"));
+                print(greet("tkom"));
+
+                """;
+
+        @Test
+        void shouldAnswerRepeatedCallsFromTable() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            for (var stack : List.<OperandStack>of(new BoxedOperandStack(), new PrimitiveOperandStack())) {
+                var source = new TextSource(code);
+                source.load();
+                var lexer = new Tokenizer(source);
+                var parser = new Parser(lexer);
+                var program = parser.parse();
+                var irTree = new SemCheck(program).check();
+                var memoizer = new Memoizer();
+                var interpreter = new Interpreter(irTree, stack, null, null, Fuel.UNMETERED, memoizer);
+                var output = new ByteArrayOutputStream();
+                var stdout = System.out;
+                System.setOut(new PrintStream(output));
+                try {
+                    interpreter.runNoisy();
+                } finally {
+                    System.setOut(stdout);
+                }
+                assertEquals(String.format("1134903170%ncalled%ncalled%n2%nhi tkom%nhi tkom%n"), output.toString());
+
+                var metrics = memoizer.metrics();
+                assertEquals(2, metrics.functions().size());
+                var fib = metrics.functions().get(0);
+                assertEquals("fib", fib.name());
+                assertEquals(46, fib.misses());
+                assertEquals(43, fib.hits());
+                var greet = metrics.functions().get(1);
+                assertEquals("greet", greet.name());
+                assertEquals(1, greet.misses());
+                assertEquals(1, greet.hits());
+            }
+        }
+
+        @Test
+        void shouldKeyIntTablesByUnboxedArguments() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            for (var stack : List.<OperandStack>of(new BoxedOperandStack(), new PrimitiveOperandStack())) {
+                var source = new TextSource("""
+                    func span(int from, int to) : int {
+                        return to - from;
+                    }
+
+                    print(span(-70000, 1000000) as string);
+                    print(span(-70000, 1000000) as string);
+                    print(span(1000000, -70000) as string);
+
+                    """);
+                source.load();
+                var lexer = new Tokenizer(source);
+                var parser = new Parser(lexer);
+                var program = parser.parse();
+                var irTree = new SemCheck(program).check();
+                var memoizer = new Memoizer();
+                var interpreter = new Interpreter(irTree, stack, null, null, Fuel.UNMETERED, memoizer);
+                var output = new ByteArrayOutputStream();
+                var stdout = System.out;
+                System.setOut(new PrintStream(output));
+                try {
+                    interpreter.runNoisy();
+                } finally {
+                    System.setOut(stdout);
+                }
+                assertEquals(String.format("1070000%n1070000%n-1070000%n"), output.toString());
+                var span = memoizer.metrics().functions().get(0);
+                assertEquals(1, span.hits());
+                assertEquals(2, span.misses());
+            }
+        }
+
+        @Test
+        void shouldKeepTablesBounded() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource("""
+                func square(int n) : int {
+                    return n * n;
+                }
+
+                mutable int i = 0;
+                mutable int sum = 0;
+                while (i < 1000) {
+                    sum = sum + square(i) + square(i);
+                    i = i + 1;
+                }
+                print(sum as string);
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var memoizer = new Memoizer(16);
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack(), null, null, Fuel.UNMETERED, memoizer);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("665667000%n"), output.toString());
+            var square = memoizer.metrics().functions().get(0);
+            assertTrue(square.entries() <= 16);
+            assertEquals(2000, square.hits() + square.misses());
+        }
+
+        @Test
+        void shouldCacheTailCallingFunctionUnderItsOwnArguments() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource("""
+                func sumTo(int n, int acc) : int {
+                    if (n == 0) {
+                        return acc;
+                    }
+                    return sumTo(n - 1, acc + n);
+                }
+
+                print(sumTo(100, 0) as string);
+                print(sumTo(100, 0) as string);
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var memoizer = new Memoizer();
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack(), null, null, Fuel.UNMETERED, memoizer);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("5050%n5050%n"), output.toString());
+            var sumTo = memoizer.metrics().functions().get(0);
+            assertEquals(1, sumTo.hits());
+            assertEquals(1, sumTo.misses());
+        }
+    }
+
     @Nested
     @DisplayName("Cast exception tests")
     class CastExceptionTests {
@@ -206,6 +941,38 @@ class InterpreterTest {
             interpreter.runNoisy();
         }
 
+        @Test
+        void specializedComparisonsTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                print(("ac" > "aa") as string);
+                print((2.5 <= 2.5) as string);
+                print((-3 != 3) as string);
+                string res = "test";
+                match(res) {
+                    < "abc" => print("lower"),
+                    >= "tesa" => print("upper"),
+                }
+                              
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = new Interpreter(irTree);
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("true%ntrue%ntrue%nupper%n"), output.toString());
+        }
+
         @Test
         void divAndDivIntExpressionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
             String code = """
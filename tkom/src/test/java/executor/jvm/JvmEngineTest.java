@@ -0,0 +1,168 @@
+package executor.jvm;
+
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JvmEngineTest {
+
+    @Nested
+    @DisplayName("Compiled program tests")
+    class CompiledProgramTests {
+        String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                func describe(int value) : string {
+                    match(value) {
+                        is int and < 0 => return "negative",
+                        == 0 => return "zero",
+                    }
+                    return "positive";
+                }
+
+                func oddSum(int limit) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (true) {
+                        i = i + 1;
+                        if (i > limit) {
+                            break;
+                        }
+                        if (i % 2 == 0) {
+                            continue;
+                        }
+                        acc = acc + i;
+                    }
+                    return acc;
+                }
+
+                print(fib(15) as string);
+                print(describe(-2) + " " + describe(0) + " " + describe(8));
+                print(oddSum(9) as string);
+                double ratio = 7 / 2;
+                print(((ratio * 2.0) as string) + " " + ((7 // 2) as string));
+                print(("b" > "a" and !(1.5 < 0.5)) as string);
+
+                """;
+
+        @Test
+        void shouldRunAsGeneratedClass() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new JvmEngine(irTree);
+            assertTrue(engine.isCompiled());
+            var output = captureOutput(engine);
+            assertEquals(String.format("610%nnegative zero positive%n25%n7.0 3%ntrue%n"), output);
+        }
+    }
+
+    @Nested
+    @DisplayName("Fallback tests")
+    class FallbackTests {
+        String code = """
+                mutable int? value = null;
+                value = (value ?? 20) + 1;
+                print((value as int) as string);
+
+                """;
+
+        @Test
+        void shouldInterpretNullableCode() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new JvmEngine(irTree);
+            assertFalse(engine.isCompiled());
+            assertEquals(String.format("21%n"), captureOutput(engine));
+        }
+    }
+
+    @Nested
+    @DisplayName("Exception tests")
+    class ExceptionTests {
+
+        @Test
+        void shouldThrowStackOverflowExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                int res = fib(144);
+                print(res as string);
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new JvmEngine(irTree);
+            assertThrows(StackOverflowException.class, engine::runNoisy);
+        }
+
+        @Test
+        void shouldThrowDivisionByZeroExceptionTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                int zero = 0;
+                int res = 10 // zero;
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var engine = new JvmEngine(irTree);
+            assertThrows(DivisionByZeroException.class, engine::runNoisy);
+        }
+    }
+
+    private static String captureOutput(JvmEngine engine) throws RuntimeException {
+        var output = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(output));
+        try {
+            engine.runNoisy();
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package executor.tiered;
+
+import executor.BoxedOperandStack;
+import executor.Interpreter;
+import executor.exceptions.RuntimeException;
+import executor.exceptions.StackOverflowException;
+import executor.ir.GlobalBlock;
+import executor.ir.UserFunction;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCompilerTest {
+
+    @Nested
+    @DisplayName("Invocation counter tests")
+    class InvocationCounterTests {
+        String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                func label(int? value) : string {
+                    match(value) {
+                        is null => return "none",
+                    }
+                    return (value as int) as string;
+                }
+
+                int? nothing = null;
+                print(fib(15) as string);
+                print(label(nothing) + " " + label(3) + " " + label(nothing));
+
+                """;
+
+        @Test
+        void shouldPromoteHotFunction() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var irTree = check(code);
+            var tieredCompiler = new TieredCompiler(irTree, new TierThresholds(2, 1000), Runnable::run);
+            var output = captureOutput(new Interpreter(irTree, new BoxedOperandStack(), tieredCompiler));
+
+            assertEquals(String.format("610%nnone 3 none%n"), output);
+            assertTrue(tieredCompiler.profile(function(irTree, "fib")).isCompiled());
+            assertTrue(tieredCompiler.profile(function(irTree, "label")).isCompiled());
+            var metrics = tieredCompiler.metrics();
+            assertEquals(2, metrics.queued());
+            assertEquals(2, metrics.compiled());
+            assertEquals(0, metrics.pending());
+            assertTrue(metrics.compiledCalls() > 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Back-edge counter tests")
+    class BackEdgeCounterTests {
+        String code = """
+                func sumTo(int limit) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (i < limit) {
+                        i = i + 1;
+                        acc = acc + i;
+                    }
+                    return acc;
+                }
+
+                print(sumTo(100) as string);
+                print(sumTo(10) as string);
+
+                """;
+
+        @Test
+        void shouldCompileFunctionWithHotLoopForNextCall() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var irTree = check(code);
+            var tieredCompiler = new TieredCompiler(irTree, new TierThresholds(1000, 50), Runnable::run);
+            var output = captureOutput(new Interpreter(irTree, new BoxedOperandStack(), tieredCompiler));
+
+            assertEquals(String.format("5050%n55%n"), output);
+            var profile = tieredCompiler.profile(function(irTree, "sumTo"));
+            assertTrue(profile.isCompiled());
+            assertEquals(100, profile.getBackEdges());
+            assertEquals(1, tieredCompiler.metrics().compiledCalls());
+        }
+    }
+
+    @Nested
+    @DisplayName("Exception tests")
+    class ExceptionTests {
+
+        @Test
+        void shouldThrowStackOverflowExceptionFromCompiledCode() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                int res = fib(144);
+                print(res as string);
+
+                """;
+
+            var irTree = check(code);
+            var tieredCompiler = new TieredCompiler(irTree, new TierThresholds(1, 1), Runnable::run);
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack(), tieredCompiler);
+            assertThrows(StackOverflowException.class, interpreter::runNoisy);
+        }
+    }
+
+    private static GlobalBlock check(String code) throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+        var source = new TextSource(code);
+        source.load();
+        var lexer = new Tokenizer(source);
+        var parser = new Parser(lexer);
+        var program = parser.parse();
+        return new SemCheck(program).check();
+    }
+
+    private static UserFunction function(GlobalBlock irTree, String name) {
+        return (UserFunction) irTree.getFunctions().get(name);
+    }
+
+    private static String captureOutput(Interpreter interpreter) throws RuntimeException {
+        var output = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(output));
+        try {
+            interpreter.runNoisy();
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package executor.tracing;
+
+import executor.BoxedOperandStack;
+import executor.Interpreter;
+import executor.closure.ClosureEngine;
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.ir.GlobalBlock;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopTracerTest {
+
+    @Nested
+    @DisplayName("Guard tests")
+    class GuardTests {
+        String code = """
+                func square(int x) : int {
+                    int y = x * x;
+                    return y + 1;
+                }
+
+                func run(int n) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (i < n) {
+                        i = i + 1;
+                        if (i % 100 == 0) {
+                            acc = acc - 1;
+                            continue;
+                        }
+                        if (i > 5000) {
+                            break;
+                        }
+                        acc = acc + square(i % 7);
+                        if (i % 3 == 0) {
+                            acc = acc + 2;
+                        } else {
+                            acc = acc + 1;
+                        }
+                    }
+                    return acc;
+                }
+
+                print(run(100000) as string);
+                mutable int j = 0;
+                mutable string text = "";
+                while (j < 300) {
+                    j = j + 1;
+                    if (j == 250) {
+                        text = text + "x";
+                    }
+                }
+                print(text + (j as string));
+
+                """;
+
+        @Test
+        void shouldLeaveTraceWhenGuardFails() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var tracer = new LoopTracer(irTree, 10);
+            var expected = captureOutput(new ClosureEngine(irTree)::runNoisy);
+            var actual = captureOutput(tracedInterpreter(irTree, tracer)::runNoisy);
+            assertEquals(expected, actual);
+            var metrics = tracer.metrics();
+            assertEquals(2, metrics.recorded());
+            assertEquals(0, metrics.aborted());
+            assertTrue(metrics.compiled() > metrics.recorded());
+            assertTrue(metrics.sideExits() > 0);
+        }
+    }
+
+    @Nested
+    @DisplayName("Side exit tests")
+    class SideExitTests {
+        String code = """
+                func firstAbove(int limit) : int {
+                    mutable int i = 0;
+                    while (true) {
+                        i = i + 1;
+                        if (i * i > limit) {
+                            return i;
+                        }
+                    }
+                    return 0;
+                }
+
+                print(firstAbove(2000) as string);
+
+                """;
+
+        @Test
+        void shouldReturnFromSideExit() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var tracer = new LoopTracer(irTree, 10);
+            assertEquals(String.format("45%n"), captureOutput(tracedInterpreter(irTree, tracer)::runNoisy));
+            assertEquals(0, tracer.metrics().aborted());
+            assertEquals(1, tracer.metrics().entries());
+            assertEquals(1, tracer.metrics().sideExits());
+        }
+    }
+
+    @Nested
+    @DisplayName("Exception tests")
+    class ExceptionTests {
+
+        @Test
+        void shouldThrowDivisionByZeroExceptionInsideTraceTest() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            String code = """
+                mutable int i = 20;
+                mutable int acc = 0;
+                while (i >= 0) {
+                    acc = acc + 100 // i;
+                    i = i - 1;
+                }
+
+                """;
+
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var interpreter = tracedInterpreter(irTree, new LoopTracer(irTree, 5));
+            assertThrows(DivisionByZeroException.class, interpreter::runNoisy);
+        }
+    }
+
+    private static Interpreter tracedInterpreter(GlobalBlock irTree, LoopTracer tracer) {
+        return new Interpreter(irTree, new BoxedOperandStack(), null, tracer);
+    }
+
+    private interface Run {
+        void run() throws RuntimeException;
+    }
+
+    private static String captureOutput(Run run) throws RuntimeException {
+        var output = new ByteArrayOutputStream();
+        var stdout = System.out;
+        System.setOut(new PrintStream(output));
+        try {
+            run.run();
+        } finally {
+            System.setOut(stdout);
+        }
+        return output.toString();
+    }
+}
@@ -0,0 +1,617 @@
+package optimizer;
+
+import executor.BoxedOperandStack;
+import executor.Interpreter;
+import executor.exceptions.CastException;
+import executor.exceptions.DivisionByZeroException;
+import executor.exceptions.RuntimeException;
+import executor.ir.UserFunction;
+import executor.ir.expressions.ConstExpression;
+import executor.ir.expressions.Identifier;
+import executor.ir.expressions.InlinedCall;
+import executor.ir.expressions.typed.IntEq;
+import executor.ir.expressions.typed.IntLt;
+import executor.ir.expressions.typed.IntMul;
+import executor.ir.instructions.IfInstruction;
+import executor.ir.instructions.MatchInstruction;
+import executor.ir.instructions.ReturnInstruction;
+import executor.ir.instructions.VarDeclaration;
+import executor.ir.instructions.WhileInstruction;
+import lexer.Tokenizer;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.Parser;
+import parser.exception.SyntaxException;
+import semcheck.SemCheck;
+import semcheck.exception.SemCheckException;
+import source_loader.TextSource;
+import source_loader.exception.SourceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OptimizerTest {
+
+    @Nested
+    @DisplayName("Constant folding tests")
+    class ConstantFoldingTests {
+        String code = """
+                func timeout(int attempts) : int {
+                    int seconds = 2 * 60 * 60;
+                    double factor = "1.5" as double;
+                    return attempts * seconds;
+                }
+
+                func label() : string {
+                    int base = 40;
+                    return "answer " + ((base + 2) as string);
+                }
+
+                print(timeout(3) as string);
+                print(label());
+
+                """;
+
+        @Test
+        void shouldFoldLiteralsAndPropagateImmutableLocals() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O1).run(new SemCheck(program).check());
+
+            var timeout = (UserFunction) irTree.getFunctions().get("timeout");
+            var instructions = timeout.getInstructions().getInstructions();
+            var seconds = (ConstExpression) ((VarDeclaration) instructions.get(0)).getValue();
+            assertEquals(7200, seconds.getValue());
+            var factor = (ConstExpression) ((VarDeclaration) instructions.get(1)).getValue();
+            assertEquals(1.5, factor.getValue());
+
+            var label = (UserFunction) irTree.getFunctions().get("label");
+            var returned = ((ReturnInstruction) label.getInstructions().getInstructions().get(1)).getValue();
+            assertInstanceOf(ConstExpression.class, returned);
+            assertEquals("answer 42", ((ConstExpression) returned).getValue());
+        }
+
+        @Test
+        void shouldComputeSameOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O1).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("21600%nanswer 42%n"), output.toString());
+        }
+
+        @Test
+        void shouldLeaveDivisionByZeroToRuntime() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource("""
+                func broken() : int {
+                    int zero = 0;
+                    return 10 // zero;
+                }
+
+                print("before");
+                print(broken() as string);
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O1).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                assertThrows(DivisionByZeroException.class, interpreter::runNoisy);
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("before%n"), output.toString());
+        }
+
+        @Test
+        void shouldLeaveModuloByZeroToRuntime() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource("""
+                func remainder(int z) : int {
+                    return 5 % z;
+                }
+
+                print("a");
+                print((5 % 0) as string);
+                print(remainder(0) as string);
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O2).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                assertThrows(ArithmeticException.class, interpreter::runNoisy);
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("a%n"), output.toString());
+        }
+
+        @Test
+        void shouldLeaveInvalidCastToRuntime() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource("""
+                func parse() : int {
+                    return "twelve" as int;
+                }
+
+                print(parse() as string);
+
+                """);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O1).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            assertThrows(CastException.class, interpreter::runNoisy);
+        }
+
+        @Test
+        void shouldEvaluateBothOperandsOfOr() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            for (var level : OptimizationLevel.values()) {
+                var source = new TextSource("""
+                    func p() : bool {
+                        print("called");
+                        return true;
+                    }
+
+                    mutable bool x = false;
+                    x = true or p();
+                    print(x as string);
+
+                    """);
+                source.load();
+                var lexer = new Tokenizer(source);
+                var parser = new Parser(lexer);
+                var program = parser.parse();
+                var irTree = new PassManager(level).run(new SemCheck(program).check());
+                var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+                var output = new ByteArrayOutputStream();
+                var stdout = System.out;
+                System.setOut(new PrintStream(output));
+                try {
+                    interpreter.runNoisy();
+                } finally {
+                    System.setOut(stdout);
+                }
+                assertEquals(String.format("called%ntrue%n"), output.toString(), level.name());
+            }
+        }
+
+        @Test
+        void shouldEvaluateRightOperandOfNonNullCoalescing() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            for (var level : OptimizationLevel.values()) {
+                var source = new TextSource("""
+                    func f() : int {
+                        print("called");
+                        return 1;
+                    }
+
+                    func g() : int {
+                        int? a = 5;
+                        return a ?? f();
+                    }
+
+                    print(((5 as int?) ?? f()) as string);
+                    print(g() as string);
+
+                    """);
+                source.load();
+                var lexer = new Tokenizer(source);
+                var parser = new Parser(lexer);
+                var program = parser.parse();
+                var irTree = new PassManager(level).run(new SemCheck(program).check());
+                var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+                var output = new ByteArrayOutputStream();
+                var stdout = System.out;
+                System.setOut(new PrintStream(output));
+                try {
+                    interpreter.runNoisy();
+                } finally {
+                    System.setOut(stdout);
+                }
+                assertEquals(String.format("called%n5%ncalled%n5%n"), output.toString(), level.name());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Pass manager tests")
+    class PassManagerTests {
+        String code = """
+                func area(int side) : int {
+                    int sides = 2 + 2;
+                    return side * sides;
+                }
+
+                print(area(3) as string);
+
+                """;
+
+        @Test
+        void shouldLeaveProgramUntouchedAtO0() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var passManager = new PassManager(OptimizationLevel.O0);
+            var irTree = passManager.run(new SemCheck(program).check());
+            assertTrue(passManager.statistics().isEmpty());
+            var area = (UserFunction) irTree.getFunctions().get("area");
+            var returned = (IntMul) ((ReturnInstruction) area.getInstructions().getInstructions().get(1)).getValue();
+            assertInstanceOf(Identifier.class, returned.getRightExpression());
+        }
+
+        @Test
+        void shouldReportChangesPerPass() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var passManager = new PassManager(List.of(ConstantFolding.NAME, ConstantFolding.NAME), true);
+            passManager.run(new SemCheck(program).check());
+            var statistics = passManager.statistics();
+            assertEquals(2, statistics.size());
+            assertEquals(ConstantFolding.NAME, statistics.get(0).pass());
+            assertEquals(2, statistics.get(0).changes());
+            assertEquals(0, statistics.get(1).changes());
+            assertTrue(statistics.get(0).timeNanos() >= 0);
+        }
+
+        @Test
+        void shouldRejectUnknownPass() {
+            assertThrows(IllegalArgumentException.class, () -> new PassManager(List.of("no-such-pass"), true));
+            assertThrows(IllegalArgumentException.class, () -> OptimizationLevel.of("7"));
+        }
+
+        @Test
+        void shouldReportInvalidIr() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            assertTrue(new IrVerifier(irTree).verify().isEmpty());
+
+            var area = (UserFunction) irTree.getFunctions().get("area");
+            var returned = (IntMul) ((ReturnInstruction) area.getInstructions().getInstructions().get(1)).getValue();
+            ((Identifier) returned.getRightExpression()).setSlot(area.getFrameSize());
+            var problems = new IrVerifier(irTree).verify();
+            assertEquals(1, problems.size());
+            assertFalse(problems.get(0).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Dead code tests")
+    class DeadCodeTests {
+        String code = """
+                func unusedLeaf(int x) : int {
+                    return x;
+                }
+
+                func unusedRoot(int x) : int {
+                    return unusedLeaf(x) + 1;
+                }
+
+                func sign(int x) : string {
+                    match(x) {
+                        < 0 => return "negative",
+                        default => return "other",
+                        == 0 => return "zero",
+                    }
+                    return "unreachable";
+                    return "after return";
+                }
+
+                func count(int limit) : int {
+                    bool verbose = false;
+                    mutable int i = 0;
+                    while (false) {
+                        i = i - 1;
+                    }
+                    while (i < limit) {
+                        if (verbose) {
+                            print("step " + (i as string));
+                        }
+                        i = i + 1;
+                        if (i > 2) {
+                            break;
+                        } else {
+                            continue;
+                        }
+                        print("never");
+                    }
+                    return i;
+                }
+
+                print(sign(-4));
+                print(sign(0));
+                print(count(10) as string);
+
+                """;
+
+        @Test
+        void shouldPruneUnreachableCode() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var passManager = new PassManager(OptimizationLevel.O1);
+            var irTree = passManager.run(new SemCheck(program).check());
+
+            assertFalse(irTree.getFunctions().containsKey("unusedLeaf"));
+            assertFalse(irTree.getFunctions().containsKey("unusedRoot"));
+            assertTrue(irTree.getFunctions().containsKey("print"));
+
+            var sign = ((UserFunction) irTree.getFunctions().get("sign")).getInstructions().getInstructions();
+            assertEquals(2, sign.size());
+            assertEquals(2, ((MatchInstruction) sign.get(0)).getMatchStatements().size());
+
+            var count = ((UserFunction) irTree.getFunctions().get("count")).getInstructions().getInstructions();
+            assertEquals(4, count.size());
+            var loop = (WhileInstruction) count.get(2);
+            assertEquals(2, loop.getStatements().getInstructions().size());
+
+            var deadCode = passManager.statistics().get(1);
+            assertEquals(DeadCodeElimination.NAME, deadCode.pass());
+            assertEquals(5, deadCode.changes());
+            assertEquals(2, passManager.statistics().get(2).changes());
+        }
+
+        @Test
+        void shouldComputeSameOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O2).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("negative%nother%n3%n"), output.toString());
+        }
+
+        @Test
+        void shouldKeepFunctionsForEmbedding() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = PassManager.forEmbedding(OptimizationLevel.O2).run(new SemCheck(program).check());
+            assertTrue(irTree.getFunctions().containsKey("unusedLeaf"));
+            assertTrue(irTree.getFunctions().containsKey("unusedRoot"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Inlining tests")
+    class InliningTests {
+        String code = """
+                func isDivisor(int d, int n) : bool {
+                    return n % d == 0;
+                }
+
+                func isSmall(int x) : bool {
+                    return x < 10;
+                }
+
+                func scaled(int x) : int {
+                    return x * 2 + 1;
+                }
+
+                func twice(int x) : int {
+                    return scaled(scaled(x));
+                }
+
+                func label(int n, string kind) : string {
+                    return (n as string) + " " + kind;
+                }
+
+                func countDivisors(int n) : int {
+                    mutable int d = 1;
+                    mutable int count = 0;
+                    while (d <= n) {
+                        if (isDivisor(d, n)) {
+                            count = count + 1;
+                        }
+                        d = d + 1;
+                    }
+                    return count;
+                }
+
+                func describe(int n) : string {
+                    match(n) {
+                        < 0 => return label(n, "negative"),
+                    }
+                    return label(n, "positive");
+                }
+
+                print(countDivisors(12) as string);
+                print(describe(-3));
+                print(describe(5));
+                print(scaled(3 + 1) as string);
+                print(isSmall(4) as string);
+                print(twice(2) as string);
+
+                """;
+
+        @Test
+        void shouldInlineSmallFunctions() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new SemCheck(program).check();
+            var globalFrameSize = irTree.getFrameSize();
+            var passManager = new PassManager(OptimizationLevel.O2);
+            passManager.run(irTree);
+
+            assertEquals(Inlining.NAME, passManager.statistics().get(0).pass());
+            assertEquals(10, passManager.statistics().get(0).changes());
+            assertFalse(irTree.getFunctions().containsKey("isDivisor"));
+            assertFalse(irTree.getFunctions().containsKey("isSmall"));
+            assertFalse(irTree.getFunctions().containsKey("scaled"));
+            assertFalse(irTree.getFunctions().containsKey("twice"));
+            assertFalse(irTree.getFunctions().containsKey("label"));
+            assertEquals(globalFrameSize + 2, irTree.getFrameSize());
+
+            var countDivisors = ((UserFunction) irTree.getFunctions().get("countDivisors")).getInstructions().getInstructions();
+            var loop = (WhileInstruction) countDivisors.get(2);
+            var check = (InlinedCall) ((IfInstruction) loop.getStatements().getInstructions().get(0)).getCondition();
+            assertEquals("isDivisor", check.getName());
+            assertTrue(check.getBindings().isEmpty());
+            assertInstanceOf(IntEq.class, check.getBody());
+        }
+
+        @Test
+        void shouldComputeSameOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O2).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("6%n-3 negative%n5 positive%n9%ntrue%n11%n"), output.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Loop invariant tests")
+    class LoopInvariantTests {
+        String code = """
+                func crunch(int limit, string cfg) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (i < (cfg as int) * limit) {
+                        acc = acc + limit * 2 + i;
+                        if (acc > 1000) {
+                            acc = acc % (limit + 7);
+                        }
+                        mutable int j = 0;
+                        while (j < limit * 2) {
+                            acc = acc + (limit * 2) // 3 + j;
+                            j = j + 1;
+                        }
+                        i = i + 1;
+                    }
+                    return acc;
+                }
+
+                func guarded(int n, int d) : int {
+                    mutable int i = 0;
+                    mutable int acc = 0;
+                    while (i < n and n // d > 0) {
+                        acc = acc + n // d;
+                        i = i + 1;
+                    }
+                    return acc;
+                }
+
+                print(crunch(10, "3") as string);
+                print(guarded(0, 0) as string);
+                print(guarded(5, 2) as string);
+
+                """;
+
+        @Test
+        void shouldHoistInvariantExpressions() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var passManager = new PassManager(List.of(LoopInvariantCodeMotion.NAME), true);
+            var irTree = passManager.run(new SemCheck(program).check());
+            assertEquals(5, passManager.statistics().get(0).changes());
+
+            var crunch = ((UserFunction) irTree.getFunctions().get("crunch")).getInstructions().getInstructions();
+            assertEquals(8, crunch.size());
+            var bound = (VarDeclaration) crunch.get(2);
+            assertInstanceOf(IntMul.class, bound.getValue());
+            var loop = (WhileInstruction) crunch.get(6);
+            var condition = (IntLt) loop.getCondition();
+            assertEquals(bound.getSlot(), ((Identifier) condition.getRightExpression()).getSlot());
+
+            var guarded = ((UserFunction) irTree.getFunctions().get("guarded")).getInstructions().getInstructions();
+            assertEquals(4, guarded.size());
+        }
+
+        @Test
+        void shouldComputeSameOutput() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var irTree = new PassManager(OptimizationLevel.O2).run(new SemCheck(program).check());
+            var interpreter = new Interpreter(irTree, new BoxedOperandStack());
+            var output = new ByteArrayOutputStream();
+            var stdout = System.out;
+            System.setOut(new PrintStream(output));
+            try {
+                interpreter.runNoisy();
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(String.format("1036%n0%n10%n"), output.toString());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package script;
+
+import executor.Fuel;
+import executor.exceptions.RuntimeException;
+import lexer.exception.LexerException;
+import optimizer.OptimizationLevel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.exception.SyntaxException;
+import semcheck.exception.SemCheckException;
+import source_loader.exception.SourceException;
+
+import javax.script.Compilable;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledProgramTest {
+
+    String code = """
+            func fib(int n) : int {
+                if (n <= 1) {
+                    return n;
+                }
+                return fib(n - 2) + fib(n - 1);
+            }
+
+            func greet(string? name) : string {
+                return "hello " + (name ?? "nobody");
+            }
+
+            int limit = 10;
+            string label = "fib";
+            print(label + " " + (fib(limit) as string));
+
+            """;
+
+    @Nested
+    @DisplayName("Function entry point tests")
+    class FunctionTests {
+
+        @Test
+        void shouldInvokeFunctionsDirectly() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(code);
+            assertEquals(55, program.function("fib").invokeInt(10));
+            assertEquals("hello tkom", program.function("greet").invokeString("tkom"));
+            assertEquals("hello nobody", program.function("greet").invoke((Object) null));
+            assertEquals(2, program.getFunctions().size());
+        }
+
+        @Test
+        void shouldRejectInvalidArguments() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(code);
+            var fib = program.function("fib");
+            assertThrows(IllegalArgumentException.class, () -> fib.invoke("10"));
+            assertThrows(IllegalArgumentException.class, () -> fib.invoke((Object) null));
+            assertThrows(IllegalArgumentException.class, () -> fib.invoke(1, 2));
+            assertThrows(IllegalStateException.class, () -> fib.invokeString(1));
+            assertThrows(IllegalArgumentException.class, () -> program.function("missing"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Global binding tests")
+    class BindingTests {
+
+        @Test
+        void shouldBindGlobalsPerRun() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(code);
+            var first = new StringWriter();
+            program.run(Map.of("limit", 15), first);
+            var second = new StringWriter();
+            program.run(Map.of("label", "value"), second);
+            assertEquals(String.format("fib 610%n"), first.toString());
+            assertEquals(String.format("value 55%n"), second.toString());
+        }
+
+        @Test
+        void shouldBindGlobalsOfOptimizedProgram() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(code, Fuel.UNMETERED, OptimizationLevel.O2);
+            var output = new StringWriter();
+            program.run(Map.of("limit", 15), output);
+            assertEquals(String.format("fib 610%n"), output.toString());
+            assertEquals(55, program.function("fib").invokeInt(10));
+        }
+
+        @Test
+        void shouldRejectInvalidBindings() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(code);
+            assertThrows(IllegalArgumentException.class, () -> program.run(Map.of("limit", "15")));
+            assertThrows(IllegalArgumentException.class, () -> program.run(Map.of("unknown", 1)));
+        }
+    }
+
+    @Nested
+    @DisplayName("JSR-223 tests")
+    class ScriptEngineTests {
+
+        @Test
+        void shouldEvaluateCompiledScript() throws ScriptException {
+            var engine = new ScriptEngineManager().getEngineByName("tkom");
+            assertNotNull(engine);
+            var script = ((Compilable) engine).compile(code);
+            var context = new SimpleScriptContext();
+            var output = new StringWriter();
+            context.setWriter(output);
+            context.getBindings(SimpleScriptContext.ENGINE_SCOPE).put("limit", 12);
+            context.getBindings(SimpleScriptContext.ENGINE_SCOPE).put("unrelated", "ignored");
+            script.eval(context);
+            script.eval(context);
+            assertEquals(String.format("fib 144%nfib 144%n"), output.toString());
+        }
+
+        @Test
+        void shouldReportCompileErrors() {
+            var engine = new ScriptEngineManager().getEngineByName("tkom");
+            assertThrows(ScriptException.class, () -> ((Compilable) engine).compile("int x = ;\n"));
+        }
+    }
+}
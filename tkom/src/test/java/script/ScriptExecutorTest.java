@@ -0,0 +1,256 @@
+package script;
+
+import executor.exceptions.CancelledException;
+import executor.exceptions.RuntimeException;
+import lexer.exception.LexerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import parser.exception.SyntaxException;
+import semcheck.exception.SemCheckException;
+import source_loader.exception.SourceException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptExecutorTest {
+
+    String code = """
+            func square(int n) : int {
+                return n * n;
+            }
+
+            int id = 0;
+            string name = get_input();
+            print(name + " " + (square(id) as string));
+
+            """;
+
+    @Nested
+    @DisplayName("Isolation tests")
+    class IsolationTests {
+
+        @Test
+        void shouldIsolateGlobalsAndStreams() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException, InterruptedException, ExecutionException {
+            var program = CompiledProgram.compile(code);
+            var outputs = new ArrayList<StringWriter>();
+            var futures = new ArrayList<Future<Void>>();
+            try (var executor = new ScriptExecutor(4, 1000)) {
+                for (var i = 0; i < 200; i++) {
+                    var output = new StringWriter();
+                    outputs.add(output);
+                    futures.add(executor.submit(program, Map.of("id", i), new StringReader("tenant" + i + "\n"), output));
+                }
+            }
+            for (var i = 0; i < 200; i++) {
+                futures.get(i).get();
+                assertEquals(String.format("tenant%d %d%n", i, i * i), outputs.get(i).toString());
+            }
+        }
+
+        @Test
+        void shouldCallFunctions() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException, InterruptedException, ExecutionException {
+            var program = CompiledProgram.compile(code);
+            try (var executor = new ScriptExecutor(2, 10)) {
+                assertEquals(49, executor.submit(program.function("square"), null, null, 7).get());
+                var failed = executor.submit(program, Map.of(), null, null);
+                assertThrows(ExecutionException.class, failed::get);
+                var metrics = executor.metrics();
+                assertEquals(2, metrics.submitted());
+                assertEquals(1, metrics.completed());
+                assertEquals(1, metrics.failed());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Bounded concurrency tests")
+    class BoundTests {
+
+        @Test
+        void shouldQueueAndRejectBeyondBounds() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException, InterruptedException, ExecutionException {
+            var program = CompiledProgram.compile(code);
+            var release = new CountDownLatch(1);
+            var futures = new ArrayList<Future<Void>>();
+            try (var executor = new ScriptExecutor(2, 2)) {
+                for (var i = 0; i < 4; i++) {
+                    futures.add(executor.submit(program, Map.of(), new BlockingReader(release), null));
+                }
+                assertThrows(RejectedExecutionException.class, () -> executor.submit(program, Map.of(), new BlockingReader(release), null));
+                while (executor.metrics().running() < 2) {
+                    Thread.onSpinWait();
+                }
+                var metrics = executor.metrics();
+                assertEquals(2, metrics.running());
+                assertEquals(2, metrics.queued());
+                assertEquals(1, metrics.rejected());
+                release.countDown();
+            }
+            for (var future : futures) {
+                future.get();
+            }
+            assertThrows(RejectedExecutionException.class, () -> {
+                var executor = new ScriptExecutor(1, 1);
+                executor.close();
+                executor.submit(program, Map.of(), null, null);
+            });
+        }
+
+        @Test
+        void shouldNotStartThreadsForQueuedInvocations() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException, InterruptedException, ExecutionException {
+            var program = CompiledProgram.compile(code);
+            var release = new CountDownLatch(1);
+            var futures = new ArrayList<Future<Void>>();
+            try (var executor = new ScriptExecutor(2, 100)) {
+                for (var i = 0; i < 100; i++) {
+                    futures.add(executor.submit(program, Map.of(), new BlockingReader(release), null));
+                }
+                while (executor.metrics().running() < 2) {
+                    Thread.onSpinWait();
+                }
+                var threads = Thread.getAllStackTraces().keySet().stream()
+                        .filter(thread -> thread.getName().startsWith("tkom-script-"))
+                        .count();
+                assertTrue(threads <= 2, threads + " invocation threads");
+                assertEquals(98, executor.metrics().queued());
+                release.countDown();
+            }
+            for (var future : futures) {
+                future.get();
+            }
+        }
+
+        @Test
+        void shouldDequeueCancelledInvocations() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(code);
+            var release = new CountDownLatch(1);
+            var executor = new ScriptExecutor(1, 1);
+            var running = executor.submit(program, Map.of(), new BlockingReader(release), null);
+            while (executor.metrics().running() == 0) {
+                Thread.onSpinWait();
+            }
+            var waiting = executor.submit(program, Map.of(), new BlockingReader(release), null);
+            assertEquals(1, executor.metrics().queued());
+            assertTrue(waiting.cancel(true));
+            var metrics = executor.metrics();
+            assertEquals(0, metrics.queued());
+            assertEquals(1, metrics.failed());
+            var next = executor.submit(program, Map.of(), new BlockingReader(release), null);
+            release.countDown();
+            executor.close();
+            assertTrue(running.isDone() && next.isDone());
+            assertEquals(2, executor.metrics().completed());
+            assertEquals(1, executor.metrics().failed());
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation tests")
+    class CancellationTests {
+        String spin = """
+                mutable int i = 0;
+                while (true) {
+                    i = i + 1;
+                }
+
+                """;
+
+        @Test
+        void shouldStopRunsPastDeadline() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(spin);
+            try (var executor = new ScriptExecutor(2, 2, Duration.ofMillis(50))) {
+                var future = executor.submit(program, Map.of(), null, null);
+                var exception = assertThrows(ExecutionException.class, future::get);
+                assertInstanceOf(CancelledException.class, exception.getCause());
+            }
+        }
+
+        @Test
+        void shouldStopFunctionCallsPastDeadline() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile("""
+                    func spin(int step) : int {
+                        mutable int i = 0;
+                        while (true) {
+                            i = i + step;
+                        }
+                        return i;
+                    }
+
+                    """);
+            var executor = new ScriptExecutor(1, 1, Duration.ofMillis(50));
+            var future = executor.submit(program.function("spin"), null, null, 1);
+            var exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(CancelledException.class, exception.getCause());
+            executor.close();
+            assertEquals(0, executor.metrics().running());
+        }
+
+        @Test
+        void shouldStopCancelledFunctionCalls() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile("""
+                    func spin(int step) : int {
+                        mutable int i = 0;
+                        while (true) {
+                            i = i + step;
+                        }
+                        return i;
+                    }
+
+                    """);
+            var executor = new ScriptExecutor(1, 0);
+            var future = executor.submit(program.function("spin"), null, null, 1);
+            while (executor.metrics().running() == 0) {
+                Thread.onSpinWait();
+            }
+            assertTrue(future.cancel(true));
+            executor.close();
+            assertEquals(0, executor.metrics().running());
+            assertEquals(1, executor.metrics().failed());
+        }
+
+        @Test
+        void shouldStopCancelledRuns() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException, RuntimeException {
+            var program = CompiledProgram.compile(spin);
+            var executor = new ScriptExecutor(1, 0);
+            var future = executor.submit(program, Map.of(), null, null);
+            while (executor.metrics().running() == 0) {
+                Thread.onSpinWait();
+            }
+            assertTrue(future.cancel(true));
+            executor.close();
+            assertEquals(0, executor.metrics().running());
+            assertEquals(1, executor.metrics().failed());
+        }
+    }
+
+    private static final class BlockingReader extends Reader {
+        private final CountDownLatch release;
+        private final Reader line = new StringReader("blocked\n");
+
+        BlockingReader(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return line.read(buffer, offset, length);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
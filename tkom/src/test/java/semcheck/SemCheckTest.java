@@ -1,5 +1,6 @@
 package semcheck;
 
+import executor.ir.UserFunction;
 import lexer.Tokenizer;
 import lexer.exception.LexerException;
 import org.junit.jupiter.api.DisplayName;
@@ -13,7 +14,9 @@ import source_loader.exception.SourceException;
 
 import java.io.IOException;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SemCheckTest {
     @Nested
@@ -430,4 +433,44 @@ class SemCheckTest {
         }
 
     }
+
+    @Nested
+    @DisplayName("Purity tests")
+    class PurityTests {
+        @Test
+        void shouldMarkFunctionsReachingLibraryCallsImpure() throws IOException, SourceException, LexerException, SyntaxException, SemCheckException {
+            String code = """
+                func fib(int n) : int {
+                    if (n <= 1) {
+                        return n;
+                    }
+                    return fib(n - 2) + fib(n - 1);
+                }
+
+                func log(int x) : int {
+                    print(x as string);
+                    return x;
+                }
+
+                func twice(int x) : int {
+                    return log(x) * 2;
+                }
+
+                func shout(string text) : void {
+                    return;
+                }
+
+                """;
+            var source = new TextSource(code);
+            source.load();
+            var lexer = new Tokenizer(source);
+            var parser = new Parser(lexer);
+            var program = parser.parse();
+            var functions = new SemCheck(program).check().getFunctions();
+            assertTrue(((UserFunction) functions.get("fib")).isPure());
+            assertFalse(((UserFunction) functions.get("log")).isPure());
+            assertFalse(((UserFunction) functions.get("twice")).isPure());
+            assertFalse(((UserFunction) functions.get("shout")).isPure());
+        }
+    }
 }